@@ -0,0 +1,55 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.services.Downsampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reducing a random-walk series to a chart's pixel width
+ * "zoomed" samples a 1% window from the middle, as after zooming in.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DownsamplerBenchmark {
+
+    private static final int PIXELS = 1600;
+
+    @Param({"1000000", "5000000"})
+    public int rows;
+
+    @Param({"LTTB", "MIN_MAX"})
+    public Downsampler.Method method;
+
+    private double[] x;
+    private double[] y;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        x = new double[rows];
+        y = new double[rows];
+        double value = 0;
+        for (int i = 0; i < rows; i++) {
+            value += random.nextGaussian();
+            x[i] = 1_700_000_000_000.0 + i * 1000.0;
+            y[i] = value;
+        }
+    }
+
+    @Benchmark
+    public int[] full() {
+        return Downsampler.downsample(method, x, y, 0, rows, PIXELS);
+    }
+
+    @Benchmark
+    public int[] zoomed() {
+        int from = rows / 2;
+        return Downsampler.downsample(method, x, y, from, from + rows / 100, PIXELS);
+    }
+}
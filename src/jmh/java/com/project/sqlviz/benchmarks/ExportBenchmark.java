@@ -0,0 +1,67 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.services.ExportService;
+import com.project.sqlviz.services.ExportService.ExportFormat;
+import com.project.sqlviz.services.ExportService.ExportOptions;
+import com.project.sqlviz.services.ExportService.ExportProgress;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for streaming a result from an embedded H2 database to a file
+ * Each format writes the same mixed-type rows. The rows are generated by the query
+ * rather than stored, and the heap is kept small, to show that memory use does not
+ * depend on the row count.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx256m"})
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"CSV", "JSON_LINES", "ARROW"})
+    public ExportFormat format;
+
+    private Connection connection;
+    private ExportService exportService;
+    private String selectAll;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException, IOException {
+        String url = "jdbc:h2:mem:export;LAZY_QUERY_EXECUTION=1";
+        ConnectionConfig config = new ConnectionConfig(1, "bench", url, "sa", "", "org.h2.Driver");
+        connection = new Connection(config, DriverManager.getConnection(url, "sa", ""));
+
+        exportService = new ExportService();
+        selectAll = "SELECT CAST(x AS INT) AS id, x * 31 AS account, x / 7.0 AS amount, " +
+                    "'label-' || MOD(x, 1000) AS label, MOD(x, 2) = 0 AS active, " +
+                    "DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') AS created_at " +
+                    "FROM SYSTEM_RANGE(1, " + rows + ")";
+        file = Files.createTempFile("export-bench", format.getExtension());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public ExportProgress export() throws SQLException, IOException {
+        return exportService.export(connection, selectAll, file, format, new ExportOptions(), null);
+    }
+}
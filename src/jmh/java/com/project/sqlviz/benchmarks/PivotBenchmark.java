@@ -0,0 +1,82 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.services.PivotEngine;
+import com.project.sqlviz.services.PivotEngine.Aggregate;
+import com.project.sqlviz.services.PivotEngine.Measure;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for pivoting an in-memory result
+ * "full" builds a two-dimension, three-measure pivot from scratch; the other
+ * benchmarks time one incremental edit against an engine that already has it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PivotBenchmark {
+
+    private static final Measure SUM = new Measure(2, Aggregate.SUM);
+    private static final Measure AVG = new Measure(3, Aggregate.AVG);
+
+    @Param({"100000", "2000000"})
+    public int rows;
+
+    private QueryResult result;
+    private PivotEngine engine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ColumnVector[] columns = {
+            new ColumnVector.StringVector(rows),
+            new ColumnVector.IntVector(rows),
+            new ColumnVector.DoubleVector(rows),
+            new ColumnVector.LongVector(rows)
+        };
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            columns[0].append("region-" + random.nextInt(50));
+            columns[1].append(random.nextInt(200));
+            columns[2].append(random.nextDouble() * 100);
+            columns[3].append((long) random.nextInt(1000));
+        }
+        result = new QueryResult("SELECT region, product, amount, quantity FROM sales",
+            List.of("region", "product", "amount", "quantity"), columns, rows, 0);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupEngine() {
+        engine = new PivotEngine(result);
+        engine.addDimension(0);
+        engine.addMeasure(Measure.countRows());
+        engine.addMeasure(SUM);
+    }
+
+    @Benchmark
+    public QueryResult full() {
+        return PivotEngine.pivot(result, List.of(0, 1), List.of(Measure.countRows(), SUM, AVG));
+    }
+
+    @Benchmark
+    public QueryResult addMeasure() {
+        return engine.addMeasure(AVG);
+    }
+
+    @Benchmark
+    public QueryResult addDimension() {
+        return engine.addDimension(1);
+    }
+
+    @Benchmark
+    public QueryResult removeDimension() {
+        return engine.removeDimension(0);
+    }
+}
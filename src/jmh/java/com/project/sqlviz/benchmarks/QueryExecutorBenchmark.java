@@ -0,0 +1,86 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.models.StreamingQueryResult;
+import com.project.sqlviz.services.QueryExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading results from an embedded H2 database
+ * Measures full materialization into a columnar QueryResult against streaming
+ * through the same rows, at several result sizes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class QueryExecutorBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Connection connection;
+    private QueryExecutor executor;
+    private String selectAll;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = "jdbc:h2:mem:bench_" + rows + ";DB_CLOSE_DELAY=-1";
+        ConnectionConfig config = new ConnectionConfig(1, "bench", url, "sa", "", "org.h2.Driver");
+        connection = new Connection(config, DriverManager.getConnection(url, "sa", ""));
+
+        // Mixed column types so every vector kind is exercised
+        try (Statement stmt = connection.getJdbcConnection().createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS bench_rows");
+            stmt.execute("CREATE TABLE bench_rows (id INT PRIMARY KEY, account BIGINT, amount DOUBLE, " +
+                         "label VARCHAR(32), active BOOLEAN, created_at TIMESTAMP)");
+            stmt.execute("INSERT INTO bench_rows SELECT x, x * 31, x / 7.0, 'label-' || MOD(x, 1000), " +
+                         "MOD(x, 2) = 0, DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') " +
+                         "FROM SYSTEM_RANGE(1, " + rows + ")");
+        }
+
+        executor = new QueryExecutor(connection);
+        selectAll = "SELECT id, account, amount, label, active, created_at FROM bench_rows";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.getJdbcConnection().createStatement()) {
+            stmt.execute("DROP TABLE bench_rows");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public QueryResult materialize() {
+        QueryResult result = executor.executeQuery(selectAll);
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException(result.getErrorMessage());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long stream(Blackhole blackhole) throws SQLException {
+        long count = 0;
+        try (StreamingQueryResult result = executor.executeStreamingQuery(selectAll)) {
+            while (result.hasNextRow()) {
+                List<Object> row = result.nextRow();
+                blackhole.consume(row);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.services.QueryHistoryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for recording and searching query history
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryHistoryBenchmark {
+
+    private static final String[] TABLES = {"users", "orders", "customers", "invoices", "products"};
+
+    @Param({"100", "10000"})
+    public int entries;
+
+    private QueryHistoryService history;
+    private QueryResult[] results;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        results = new QueryResult[entries];
+        for (int i = 0; i < entries; i++) {
+            String sql = "SELECT * FROM " + TABLES[i % TABLES.length] + " WHERE id = " + i;
+            results[i] = new QueryResult(sql, List.of("id"), List.of(List.of(i)), i % 50);
+        }
+        history = new QueryHistoryService(null, entries);
+        for (int i = 0; i < entries; i++) {
+            history.addToHistory(1 + i % 3, results[i]);
+        }
+    }
+
+    @Benchmark
+    public void addToHistory() {
+        history.addToHistory(1, results[next]);
+        next = (next + 1) % results.length;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addToHistoryConcurrent() {
+        history.addToHistory(1, results[ThreadLocalRandom.current().nextInt(results.length)]);
+    }
+
+    @Benchmark
+    public List<QueryHistoryService.QueryHistoryEntry> searchHistory() {
+        return history.searchHistory("ORDERS WHERE id = 1");
+    }
+
+    @Benchmark
+    public List<QueryHistoryService.QueryHistoryEntry> searchHistoryLimited() {
+        return history.searchHistory("orders", 20);
+    }
+
+    @Benchmark
+    public List<QueryHistoryService.QueryHistoryEntry> getHistoryForConnection() {
+        return history.getHistoryForConnection(2);
+    }
+
+    @Benchmark
+    public List<QueryHistoryService.QueryHistoryEntry> getRecentHistory() {
+        return history.getRecentHistory(20);
+    }
+}
@@ -0,0 +1,63 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.services.ResultSorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for re-ordering a result in memory from the grid header
+ * Each sort builds the row permutation from scratch, as a header click does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SortBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private QueryResult result;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        ColumnVector[] columns = {
+            new ColumnVector.LongVector(rows),
+            new ColumnVector.DoubleVector(rows),
+            new ColumnVector.StringVector(rows),
+            new ColumnVector.IntVector(rows)
+        };
+        for (int i = 0; i < rows; i++) {
+            columns[0].append(random.nextInt(100) == 0 ? null : (long) random.nextInt(1000));
+            columns[1].append(random.nextDouble() * 1000);
+            columns[2].append("customer-" + random.nextInt(50_000));
+            columns[3].append(random.nextInt(10));
+        }
+        result = new QueryResult("SELECT id, amount, name, region FROM t",
+            List.of("id", "amount", "name", "region"), columns, rows, 0);
+    }
+
+    @Benchmark
+    public int[] byDouble() {
+        return ResultSorter.sort(result, List.of(new ResultSorter.SortKey(1, false)));
+    }
+
+    @Benchmark
+    public int[] byString() {
+        return ResultSorter.sort(result, List.of(new ResultSorter.SortKey(2, false)));
+    }
+
+    @Benchmark
+    public int[] multiColumn() {
+        return ResultSorter.sort(result, List.of(
+            new ResultSorter.SortKey(3, true), new ResultSorter.SortKey(0, false), new ResultSorter.SortKey(2, false)));
+    }
+}
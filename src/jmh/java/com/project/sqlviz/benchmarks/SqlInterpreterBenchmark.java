@@ -0,0 +1,74 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.services.SqlInterpreter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for query classification and sanitization
+ * These run on every execution and cache lookup, so they must stay allocation-light.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlInterpreterBenchmark {
+
+    @Param({"simple", "commented", "cte"})
+    public String shape;
+
+    private SqlInterpreter interpreter;
+    private String sql;
+
+    @Setup
+    public void setup() {
+        interpreter = new SqlInterpreter();
+        switch (shape) {
+            case "simple":
+                sql = "SELECT id, name FROM users WHERE id = 42";
+                break;
+            case "commented":
+                sql = "-- monthly revenue\n" +
+                      "SELECT o.customer_id, /* gross */ SUM(o.total) AS revenue\n" +
+                      "FROM orders o JOIN customers c ON c.id = o.customer_id\n" +
+                      "WHERE o.created_at >= '2024-01-01' AND c.note <> '-- not a comment'\n" +
+                      "GROUP BY o.customer_id ORDER BY revenue DESC LIMIT 100;";
+                break;
+            default:
+                sql = "WITH recent AS (SELECT * FROM orders WHERE created_at > '2024-06-01'),\n" +
+                      "     big AS (SELECT customer_id FROM recent GROUP BY customer_id HAVING SUM(total) > 1000)\n" +
+                      "SELECT c.name, r.total FROM customers c\n" +
+                      "JOIN recent r ON r.customer_id = c.id\n" +
+                      "WHERE c.id IN (SELECT customer_id FROM big) AND c.region IN ('EU', 'US', 'APAC')";
+                break;
+        }
+    }
+
+    @Benchmark
+    public SqlInterpreter.Analysis analyze() {
+        return interpreter.analyze(sql);
+    }
+
+    @Benchmark
+    public SqlInterpreter.QueryType interpretQueryType() {
+        return interpreter.interpretQueryType(sql);
+    }
+
+    @Benchmark
+    public String sanitizeQuery() {
+        return interpreter.sanitizeQuery(sql);
+    }
+
+    @Benchmark
+    public String normalizeQuery() {
+        return interpreter.normalizeQuery(sql);
+    }
+
+    @Benchmark
+    public SqlInterpreter.ParameterizedQuery parameterize() {
+        return interpreter.analyze(sql).parameterize();
+    }
+}
@@ -0,0 +1,90 @@
+package com.project.sqlviz.benchmarks;
+
+import com.project.sqlviz.gui.QueryResultTableModel;
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for turning a result into table cells
+ * "visible" reads one screenful of rows the way JTable paints; "scan" reads every
+ * cell, which is what copying the result into a DefaultTableModel used to cost.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TableModelBenchmark {
+
+    private static final int VISIBLE_ROWS = 50;
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"columnar", "rows"})
+    public String layout;
+
+    private QueryResult result;
+    private QueryResultTableModel model;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> columnNames = List.of("id", "amount", "label");
+        if (layout.equals("columnar")) {
+            ColumnVector[] columns = {
+                new ColumnVector.LongVector(rows),
+                new ColumnVector.DoubleVector(rows),
+                new ColumnVector.StringVector(rows)
+            };
+            for (int i = 0; i < rows; i++) {
+                columns[0].append((long) i);
+                columns[1].append(i / 7.0);
+                columns[2].append("label-" + (i % 1000));
+            }
+            result = new QueryResult("SELECT id, amount, label FROM t", columnNames, columns, rows, 0);
+        } else {
+            List<List<Object>> data = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                data.add(List.of((long) i, i / 7.0, "label-" + (i % 1000)));
+            }
+            result = new QueryResult("SELECT id, amount, label FROM t", columnNames, data, 0);
+        }
+        model = new QueryResultTableModel();
+    }
+
+    @Benchmark
+    public void setResult() {
+        model.setResult(result);
+    }
+
+    @Benchmark
+    public void visible(Blackhole blackhole) {
+        model.setResult(result);
+        int first = rows / 2;
+        for (int row = first; row < first + VISIBLE_ROWS; row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                blackhole.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void scan(Blackhole blackhole) {
+        model.setResult(result);
+        int rowCount = model.getRowCount();
+        int columnCount = model.getColumnCount();
+        for (int row = 0; row < rowCount; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                blackhole.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.project.sqlviz.models.ConnectionConfig;
 import com.project.sqlviz.models.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Factory Pattern implementation for creating database connections
@@ -11,31 +15,131 @@ import java.sql.SQLException;
  * Benefits: Centralized connection logic, easy to extend for new database types
  */
 public class ConnectionFactory {
+
+    // One pool per distinct connection configuration
+    private static final Map<ConnectionConfig, ConnectionPool> pools = new ConcurrentHashMap<>();
     
     /**
      * Creates a database connection based on the provided configuration
      * This method handles different database types through their JDBC drivers
      */
     public static Connection createConnection(ConnectionConfig config) throws SQLException {
-        try {
-            // Load the JDBC driver class
-            // This is required for older JDBC versions, newer versions auto-load
-            Class.forName(config.getDriverClass());
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Database driver not found: " + config.getDriverClass() + 
-                                 ". Make sure the driver JAR is in your classpath.", e);
+        // Wrap it in our custom Connection class and return
+        return new Connection(config, openJdbcConnection(config));
+    }
+
+    /**
+     * Builds a configuration for any JDBC URL, taking the driver class from its dialect
+     */
+    public static ConnectionConfig createConfig(int connId, String name, String jdbcUrl,
+                                                String username, String password) {
+        String driverClass = Dialects.forUrl(jdbcUrl).getDriverClass(jdbcUrl.trim());
+        return new ConnectionConfig(connId, name, jdbcUrl.trim(), username, password, driverClass);
+    }
+
+    /**
+     * Borrows a connection from the pool for this configuration, creating the pool on first use
+     * Closing the returned connection gives it back to the pool
+     */
+    public static Connection getPooledConnection(ConnectionConfig config) throws SQLException {
+        return getPool(config).borrow();
+    }
+
+    /**
+     * Gets the pool for a configuration, creating it with default settings if needed
+     * The configuration must not be modified after it has been used as a pool key
+     */
+    public static ConnectionPool getPool(ConnectionConfig config) {
+        return getPool(config, new PoolSettings());
+    }
+
+    /**
+     * Gets the pool for a configuration, creating it with the given settings if needed
+     * Settings only apply when the pool is created
+     */
+    public static ConnectionPool getPool(ConnectionConfig config, PoolSettings settings) {
+        return pools.compute(config, (key, existing) ->
+            existing != null && !existing.isClosed() ? existing : new ConnectionPool(key, settings));
+    }
+
+    /**
+     * Gets statistics for the pool of a configuration, or null if no pool exists
+     */
+    public static PoolStats getPoolStats(ConnectionConfig config) {
+        ConnectionPool pool = pools.get(config);
+        return pool == null ? null : pool.getStats();
+    }
+
+    /**
+     * Gets statistics for every open pool, keyed by connection name
+     */
+    public static Map<String, PoolStats> getAllPoolStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        for (Map.Entry<ConnectionConfig, ConnectionPool> entry : pools.entrySet()) {
+            if (!entry.getValue().isClosed()) {
+                stats.put(entry.getKey().getName(), entry.getValue().getStats());
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Closes and forgets the pool for a configuration
+     */
+    public static void closePool(ConnectionConfig config) {
+        ConnectionPool pool = pools.remove(config);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Closes every pool - call on application shutdown
+     */
+    public static void closeAllPools() {
+        for (ConnectionConfig config : pools.keySet()) {
+            closePool(config);
         }
-        
+    }
+
+    /**
+     * Opens a raw JDBC connection for a configuration
+     * Shared by direct connections and the connection pool. The dialect's performance
+     * properties are passed along unless the URL sets them itself.
+     */
+    static java.sql.Connection openJdbcConnection(ConnectionConfig config) throws SQLException {
+        Dialect dialect = config.getDialect();
+        String driverClass = config.getDriverClass() != null
+            ? config.getDriverClass() : dialect.getDriverClass(config.getJdbcUrl());
+        if (driverClass != null) {
+            try {
+                // Load the JDBC driver class
+                // This is required for older JDBC versions, newer versions auto-load
+                Class.forName(driverClass);
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Database driver not found: " + driverClass +
+                                     ". Make sure the driver JAR is in your classpath.", e);
+            }
+        }
+
+        Properties properties = new Properties();
+        Properties defaults = dialect.getConnectionProperties();
+        String url = config.getJdbcUrl().toLowerCase();
+        for (String key : defaults.stringPropertyNames()) {
+            if (!url.contains(key.toLowerCase() + "=")) {
+                properties.setProperty(key, defaults.getProperty(key));
+            }
+        }
+        if (config.getUsername() != null) {
+            properties.setProperty("user", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            properties.setProperty("password", config.getPassword());
+        }
+
         try {
             // Create the actual JDBC connection
-            java.sql.Connection jdbcConn = DriverManager.getConnection(
-                config.getJdbcUrl(),
-                config.getUsername(),
-                config.getPassword()
-            );
-            
-            // Wrap it in our custom Connection class and return
-            return new Connection(config, jdbcConn);
+            return DriverManager.getConnection(config.getJdbcUrl(), properties);
             
         } catch (SQLException e) {
             throw new SQLException("Failed to connect to database: " + e.getMessage(), e);
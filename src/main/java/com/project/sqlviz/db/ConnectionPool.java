@@ -0,0 +1,287 @@
+package com.project.sqlviz.db;
+
+import com.project.sqlviz.models.ConnectionConfig;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Object Pool Pattern implementation for JDBC connections
+ * Object Pool Pattern: Reuses expensive objects instead of creating them on every request
+ * Liveness checks, idle eviction and leak detection run on a background thread,
+ * so borrowing a connection never costs a database round trip.
+ * Session state is not kept between borrows: uncommitted work is rolled back on
+ * release, and settings or temporary tables may land on any later borrower.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final ConnectionConfig config;
+    private final PoolSettings settings;
+    private final LinkedBlockingDeque<PooledConnection> idle;   // Most recently used first
+    private final Set<PooledConnection> borrowed;
+    private final Semaphore permits;                            // One permit per connection that may be borrowed
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    public ConnectionPool(ConnectionConfig config, PoolSettings settings) {
+        if (settings.getMinSize() > settings.getMaxSize()) {
+            throw new IllegalArgumentException("Minimum pool size exceeds maximum: " + settings);
+        }
+        this.config = config;
+        this.settings = settings;
+        this.idle = new LinkedBlockingDeque<>();
+        this.borrowed = ConcurrentHashMap.newKeySet();
+        this.permits = new Semaphore(settings.getMaxSize(), true);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqlviz-pool-" + config.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(settings.getValidationIntervalMs(), 100);
+        maintenance.scheduleWithFixedDelay(this::runMaintenance, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // Getters
+    public ConnectionConfig getConfig() { return config; }
+    public PoolSettings getSettings() { return settings; }
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Borrows a connection, waiting up to maxWaitMs if the pool is exhausted
+     * Close the returned connection to give it back
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.getMaxWaitMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + settings.getMaxWaitMs() +
+                                       "ms waiting for a pooled connection (max " + settings.getMaxSize() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            PooledConnection connection = idle.pollFirst();
+            while (connection != null && !connection.isActive()) {
+                destroy(connection);
+                connection = idle.pollFirst();
+            }
+            if (connection == null) {
+                connection = open();
+            }
+
+            recordWait(System.nanoTime() - waitStart);
+            Throwable site = settings.getLeakDetectionThresholdMs() > 0
+                ? new Throwable("Connection borrowed here") : null;
+            connection.markBorrowed(site);
+            borrowed.add(connection);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool - called from PooledConnection.close()
+     * A transaction left open is rolled back, with a warning, and autocommit turned back on
+     */
+    void release(PooledConnection connection) {
+        if (!borrowed.remove(connection)) {
+            return;
+        }
+        connection.markReturned();
+        try {
+            if (closed || !connection.isActive() || connection.getJdbcConnection().isClosed()) {
+                destroy(connection);
+                return;
+            }
+            // Undo anything a borrower may have left behind
+            if (!connection.getJdbcConnection().getAutoCommit()) {
+                System.err.println("Warning: rolling back uncommitted work left on a " + config.getName() +
+                                   " connection returned to the pool");
+                connection.getJdbcConnection().rollback();
+                connection.getJdbcConnection().setAutoCommit(true);
+            }
+            idle.offerFirst(connection);
+        } catch (SQLException e) {
+            destroy(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the pool statistics
+     */
+    public PoolStats getStats() {
+        return new PoolStats(
+            borrowed.size(),
+            idle.size(),
+            settings.getMaxSize(),
+            borrowCount.get(),
+            totalWaitNanos.get(),
+            maxWaitNanos.get(),
+            timeouts.get(),
+            created.get(),
+            destroyed.get(),
+            leaksDetected.get()
+        );
+    }
+
+    /**
+     * Closes idle connections and stops background maintenance
+     * Borrowed connections are closed when they are returned
+     */
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    /**
+     * Background task: validate idle connections, evict expired ones, report leaks, keep minSize warm
+     */
+    private void runMaintenance() {
+        if (closed) {
+            return;
+        }
+        try {
+            validateIdleConnections();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            // Never let an unexpected error kill the maintenance thread
+            System.err.println("Connection pool maintenance failed: " + e.getMessage());
+        }
+    }
+
+    private void validateIdleConnections() {
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMs());
+        long validationNanos = TimeUnit.MILLISECONDS.toNanos(settings.getValidationIntervalMs());
+
+        // Take out one connection at a time, so borrowers can still have the others while
+        // it is checked; one a borrower took in the meantime is skipped
+        for (PooledConnection connection : new ArrayList<>(idle)) {
+            boolean expired = now - connection.getLastUsedNanos() > idleTimeoutNanos;
+            boolean due = now - connection.getLastValidatedNanos() >= validationNanos;
+            if (!expired && !due) {
+                continue;
+            }
+            if (!idle.remove(connection)) {
+                continue;
+            }
+            // Count the connection being checked, since it is out of the idle queue
+            int open = borrowed.size() + idle.size() + 1;
+            if (expired && open > settings.getMinSize()) {
+                destroy(connection);
+                continue;
+            }
+            try {
+                if (!connection.getJdbcConnection().isValid(settings.getValidationTimeoutSeconds())) {
+                    destroy(connection);
+                    continue;
+                }
+                connection.markValidated();
+            } catch (SQLException e) {
+                destroy(connection);
+                continue;
+            }
+            // Checked connections were idle longest, so they go to the least recently used end
+            idle.offerLast(connection);
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = settings.getLeakDetectionThresholdMs();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (PooledConnection connection : borrowed) {
+            long heldMs = TimeUnit.NANOSECONDS.toMillis(now - connection.getBorrowedAtNanos());
+            if (heldMs > threshold && !connection.isLeakReported()) {
+                connection.markLeakReported();
+                leaksDetected.incrementAndGet();
+                System.err.println("Possible connection leak: " + config.getName() +
+                                   " connection held for " + heldMs + "ms" + borrower(connection.getBorrowSite()));
+            }
+        }
+    }
+
+    /**
+     * Describes the first frame outside the pool where a connection was borrowed, or "" if unknown
+     */
+    private static String borrower(Throwable site) {
+        if (site == null) {
+            return "";
+        }
+        for (StackTraceElement frame : site.getStackTrace()) {
+            if (!frame.getClassName().startsWith(ConnectionPool.class.getPackageName() + ".")) {
+                return ", borrowed at " + frame;
+            }
+        }
+        return "";
+    }
+
+    private void fillToMinimum() {
+        while (!closed && borrowed.size() + idle.size() < settings.getMinSize() && permits.tryAcquire()) {
+            try {
+                idle.offerLast(open());
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open pooled connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        java.sql.Connection jdbcConn = ConnectionFactory.openJdbcConnection(config);
+        created.incrementAndGet();
+        return new PooledConnection(config, jdbcConn, this);
+    }
+
+    private void destroy(PooledConnection connection) {
+        destroyed.incrementAndGet();
+        try {
+            connection.closePhysically();
+        } catch (SQLException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+}
@@ -0,0 +1,130 @@
+package com.project.sqlviz.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Service provider interface for database-specific behaviour
+ * A dialect is picked from the JDBC URL (see Dialects) and supplies the driver class,
+ * performance-related connection properties, how to read large results without
+ * buffering them in the driver, and the SQL for LIMIT and EXPLAIN.
+ * Additional dialects can be registered with Dialects.register or through
+ * META-INF/services/com.project.sqlviz.db.Dialect.
+ */
+public interface Dialect {
+
+    /**
+     * Display name, e.g. "PostgreSQL"
+     */
+    String getName();
+
+    /**
+     * Whether this dialect handles the given JDBC URL, passed trimmed and in lower case
+     */
+    boolean matches(String jdbcUrl);
+
+    /**
+     * Driver class for the URL, or null to let DriverManager find one
+     */
+    String getDriverClass(String jdbcUrl);
+
+    /**
+     * Connection properties applied unless the URL already sets them
+     */
+    default Properties getConnectionProperties() {
+        return new Properties();
+    }
+
+    /**
+     * Rows per round trip to start with before the fetch size is tuned
+     */
+    default int getDefaultFetchSize() {
+        return 1000;
+    }
+
+    /**
+     * Upper bound for the tuned fetch size
+     */
+    default int getMaxFetchSize() {
+        return 50_000;
+    }
+
+    /**
+     * Fetch size for a forward-only read of a whole result, such as an export
+     * Drivers with a special streaming mode return its sentinel value here.
+     */
+    default int getStreamingFetchSize(int requested) {
+        return requested;
+    }
+
+    /**
+     * Whether the driver only uses a server-side cursor inside a transaction
+     */
+    default boolean requiresTransactionForCursor() {
+        return false;
+    }
+
+    /**
+     * Prepares a connection for reading a result through a cursor
+     * Returns true if autocommit was switched off; pass that to endCursor.
+     */
+    default boolean beginCursor(java.sql.Connection connection) throws SQLException {
+        if (requiresTransactionForCursor() && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Restores autocommit after beginCursor, committing the read transaction
+     */
+    default void endCursor(java.sql.Connection connection, boolean changed) throws SQLException {
+        if (changed) {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Sets the fetch size of a statement about to return rows
+     * JDBC forbids a fetch size above the statement's row limit, so it is capped there.
+     */
+    default void configureFetch(Statement statement, int fetchSize) throws SQLException {
+        int maxRows = statement.getMaxRows();
+        statement.setFetchSize(maxRows > 0 ? Math.min(fetchSize, maxRows) : fetchSize);
+    }
+
+    /**
+     * Wraps a query so it returns at most maxRows rows
+     */
+    default String limit(String sql, int maxRows) {
+        return "SELECT * FROM (" + sql + ") limited FETCH FIRST " + maxRows + " ROWS ONLY";
+    }
+
+    /**
+     * Whether a backslash escapes the next character in single-quoted strings
+     * Standard SQL only doubles quotes, so 'C:\' is a complete literal there.
+     */
+    default boolean usesBackslashEscapes() {
+        return false;
+    }
+
+    /**
+     * Whether EXPLAIN can execute the query and report actual row counts and times
+     */
+    default boolean supportsExplainAnalyze() {
+        return false;
+    }
+
+    /**
+     * The statement that returns the plan of a query
+     * analyze runs the query to collect actual rows and times where supported.
+     */
+    default String explain(String sql, boolean analyze) {
+        if (analyze && !supportsExplainAnalyze()) {
+            throw new UnsupportedOperationException(getName() + " does not support EXPLAIN ANALYZE");
+        }
+        return (analyze ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql;
+    }
+}
@@ -0,0 +1,51 @@
+package com.project.sqlviz.db;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry that picks the dialect for a JDBC URL
+ * Dialects found through ServiceLoader and those passed to register are consulted
+ * before the built-in ones, so they can override them.
+ */
+public final class Dialects {
+
+    private static final Dialect GENERIC = new GenericDialect();
+    private static final List<Dialect> dialects = new CopyOnWriteArrayList<>();
+
+    static {
+        for (Dialect dialect : ServiceLoader.load(Dialect.class)) {
+            dialects.add(dialect);
+        }
+        dialects.add(new MySqlDialect());
+        dialects.add(new MariaDbDialect());
+        dialects.add(new PostgreSqlDialect());
+        dialects.add(new H2Dialect());
+    }
+
+    private Dialects() {
+    }
+
+    /**
+     * Finds the dialect for a URL, falling back to generic JDBC
+     */
+    public static Dialect forUrl(String jdbcUrl) {
+        if (jdbcUrl != null) {
+            String url = jdbcUrl.trim().toLowerCase();
+            for (Dialect dialect : dialects) {
+                if (dialect.matches(url)) {
+                    return dialect;
+                }
+            }
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Adds a dialect that takes precedence over those already registered
+     */
+    public static void register(Dialect dialect) {
+        dialects.add(0, dialect);
+    }
+}
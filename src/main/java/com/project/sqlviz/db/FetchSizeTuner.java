@@ -0,0 +1,115 @@
+package com.project.sqlviz.db;
+
+/**
+ * Adapts the JDBC fetch size to the rows a connection actually returns
+ * Each query starts with the size learned from earlier queries. After the first
+ * round trip the size is rescaled so a round trip carries about TARGET_FETCH_BYTES
+ * of row data, then doubled while doing so raises the measured rows per second by
+ * at least MIN_GAIN; the first doubling that does not pay off is undone. The size
+ * never exceeds the dialect's maximum or MAX_FETCH_BYTES per round trip.
+ */
+public class FetchSizeTuner {
+    public static final long TARGET_FETCH_BYTES = 1L << 20;    // Aim for about 1MB per round trip
+    public static final long MAX_FETCH_BYTES = 16L << 20;      // Never buffer more than this per round trip
+    public static final int MIN_FETCH_SIZE = 10;
+    private static final double MIN_GAIN = 1.05;               // Throughput increase that justifies a larger size
+
+    private final int maxFetchSize;
+    private volatile int fetchSize;     // Learned size, the starting point of the next query
+
+    public FetchSizeTuner(int initialFetchSize, int maxFetchSize) {
+        this.maxFetchSize = Math.max(maxFetchSize, MIN_FETCH_SIZE);
+        this.fetchSize = clamp(initialFetchSize, this.maxFetchSize);
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Starts tuning one query's reads from the learned size
+     */
+    public Session start() {
+        return new Session(fetchSize);
+    }
+
+    private static int clamp(long size, int max) {
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(size, max));
+    }
+
+    /**
+     * Tuning state of one result set
+     * Call rowsRead after every row (it is cheap) and apply a changed fetch size to the
+     * result set; call finish when the result is exhausted.
+     */
+    public class Session {
+        private int size;               // Fetch size currently in effect
+        private int previousSize;       // Size before the last doubling, 0 before any
+        private double previousRate;    // Rows per second measured at previousSize
+        private boolean settled;        // No more changes for this query
+        private long batchStartRows;
+        private long batchStartNanos = System.nanoTime();
+        private boolean scaled;         // Whether the size was already rescaled to the row width
+
+        Session(int size) {
+            this.size = size;
+        }
+
+        public int getFetchSize() {
+            return size;
+        }
+
+        /**
+         * Reports progress; returns the fetch size to use from now on
+         *
+         * @param rows      rows read so far
+         * @param rowBytes  estimated average size of a row, 0 if unknown
+         */
+        public int rowsRead(long rows, long rowBytes) {
+            if (settled || rows - batchStartRows < size) {
+                return size;
+            }
+            long now = System.nanoTime();
+            double rate = (rows - batchStartRows) * 1e9 / Math.max(now - batchStartNanos, 1);
+            batchStartRows = rows;
+            batchStartNanos = now;
+
+            int max = maxFetchSize;
+            if (rowBytes > 0) {
+                max = clamp(MAX_FETCH_BYTES / rowBytes, maxFetchSize);
+            }
+            if (!scaled) {
+                // The first batch included executing the query, so its rate is not comparable
+                scaled = true;
+                if (rowBytes > 0) {
+                    size = clamp(TARGET_FETCH_BYTES / rowBytes, max);
+                }
+                return size;
+            }
+            if (previousSize == 0 || rate >= previousRate * MIN_GAIN) {
+                int larger = clamp(size * 2L, max);
+                if (larger == size) {
+                    settled = true;
+                } else {
+                    previousSize = size;
+                    previousRate = rate;
+                    size = larger;
+                }
+            } else {
+                size = previousSize;
+                settled = true;
+            }
+            return size;
+        }
+
+        /**
+         * Remembers the size this query arrived at for the next one
+         * Queries too short to measure leave the learned size unchanged.
+         */
+        public void finish() {
+            if (scaled) {
+                fetchSize = size;
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.sqlviz.db;
+
+/**
+ * Fallback for databases without a dedicated dialect
+ * Uses standard SQL and leaves the driver choice to DriverManager.
+ */
+public class GenericDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "Generic JDBC";
+    }
+
+    @Override
+    public boolean matches(String jdbcUrl) {
+        return true;
+    }
+
+    @Override
+    public String getDriverClass(String jdbcUrl) {
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.project.sqlviz.db;
+
+/**
+ * H2, embedded or server
+ * Results of embedded databases are read in-process, so fetch size only matters
+ * in server mode; EXPLAIN returns the plan as annotated SQL text.
+ */
+public class H2Dialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "H2";
+    }
+
+    @Override
+    public boolean matches(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:h2:");
+    }
+
+    @Override
+    public String getDriverClass(String jdbcUrl) {
+        return "org.h2.Driver";
+    }
+
+    @Override
+    public String limit(String sql, int maxRows) {
+        return "SELECT * FROM (" + sql + ") AS limited LIMIT " + maxRows;
+    }
+
+    @Override
+    public boolean supportsExplainAnalyze() {
+        return true;
+    }
+}
@@ -0,0 +1,47 @@
+package com.project.sqlviz.db;
+
+import java.util.Properties;
+
+/**
+ * MariaDB through MariaDB Connector/J
+ * The driver streams results itself whenever a positive fetch size is set, so no
+ * cursor properties or sentinel fetch sizes are needed.
+ */
+public class MariaDbDialect extends MySqlDialect {
+
+    @Override
+    public String getName() {
+        return "MariaDB";
+    }
+
+    @Override
+    public boolean matches(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:mariadb:");
+    }
+
+    @Override
+    public String getDriverClass(String jdbcUrl) {
+        return "org.mariadb.jdbc.Driver";
+    }
+
+    @Override
+    public Properties getConnectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("useBulkStmts", "true");     // Bulk protocol for batched INSERTs
+        return properties;
+    }
+
+    @Override
+    public int getStreamingFetchSize(int requested) {
+        return requested;
+    }
+
+    /**
+     * MariaDB's ANALYZE statement runs the query and reports actual rows next to the estimates
+     */
+    @Override
+    public String explain(String sql, boolean analyze) {
+        return analyze ? "ANALYZE FORMAT=JSON " + sql : "EXPLAIN FORMAT=JSON " + sql;
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.sqlviz.db;
+
+import java.util.Properties;
+
+/**
+ * MySQL through Connector/J
+ * By default Connector/J reads the entire result into memory before returning the
+ * first row and ignores the fetch size. With useCursorFetch the server keeps a cursor
+ * and sends fetchSize rows per round trip, which needs server-side prepared statements.
+ * Full reads such as exports use the driver's row-by-row streaming mode instead,
+ * which avoids the server-side temporary table but ties up the connection until done.
+ */
+public class MySqlDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "MySQL";
+    }
+
+    @Override
+    public boolean matches(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:mysql:");
+    }
+
+    @Override
+    public String getDriverClass(String jdbcUrl) {
+        return "com.mysql.cj.jdbc.Driver";
+    }
+
+    @Override
+    public Properties getConnectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("useCursorFetch", "true");           // Honour setFetchSize
+        properties.setProperty("useServerPrepStmts", "true");       // Required by cursor fetch
+        properties.setProperty("cachePrepStmts", "true");
+        properties.setProperty("prepStmtCacheSize", "250");
+        properties.setProperty("prepStmtCacheSqlLimit", "2048");
+        properties.setProperty("rewriteBatchedStatements", "true"); // Multi-row INSERTs for CSV import
+        properties.setProperty("useInformationSchema", "true");     // One metadata query instead of SHOW per table
+        return properties;
+    }
+
+    @Override
+    public boolean usesBackslashEscapes() {
+        return true;    // Unless the server runs with NO_BACKSLASH_ESCAPES
+    }
+
+    @Override
+    public int getStreamingFetchSize(int requested) {
+        return Integer.MIN_VALUE;   // Connector/J's sentinel for row-by-row streaming
+    }
+
+    @Override
+    public String limit(String sql, int maxRows) {
+        return "SELECT * FROM (" + sql + ") AS limited LIMIT " + maxRows;
+    }
+
+    @Override
+    public boolean supportsExplainAnalyze() {
+        return true;    // MySQL 8.0.18 and later
+    }
+
+    /**
+     * EXPLAIN FORMAT=JSON for estimates; EXPLAIN ANALYZE returns a text tree with actuals
+     */
+    @Override
+    public String explain(String sql, boolean analyze) {
+        return analyze ? "EXPLAIN ANALYZE " + sql : "EXPLAIN FORMAT=JSON " + sql;
+    }
+}
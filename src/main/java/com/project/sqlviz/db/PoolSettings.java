@@ -0,0 +1,66 @@
+package com.project.sqlviz.db;
+
+/**
+ * POJO holding connection pool sizing and maintenance settings
+ * Defaults suit a desktop client: a couple of warm connections and a small ceiling
+ */
+public class PoolSettings {
+    private int minSize = 1;                        // Connections kept open even when idle
+    private int maxSize = 8;                        // Upper bound on open connections
+    private long maxWaitMs = 30_000;                // How long borrow() waits for a free connection
+    private long idleTimeoutMs = 10 * 60_000;       // Idle connections above minSize are closed after this
+    private long validationIntervalMs = 30_000;     // How often idle connections are checked in the background
+    private int validationTimeoutSeconds = 5;       // Timeout passed to java.sql.Connection.isValid
+    private long leakDetectionThresholdMs = 5 * 60_000; // Borrowed longer than this is reported as a leak, 0 disables
+
+    // Default constructor - uses the defaults above
+    public PoolSettings() {}
+
+    // Constructor for the most commonly tuned values
+    public PoolSettings(int minSize, int maxSize) {
+        setMinSize(minSize);
+        setMaxSize(maxSize);
+    }
+
+    // Getters
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+    public long getMaxWaitMs() { return maxWaitMs; }
+    public long getIdleTimeoutMs() { return idleTimeoutMs; }
+    public long getValidationIntervalMs() { return validationIntervalMs; }
+    public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+    public long getLeakDetectionThresholdMs() { return leakDetectionThresholdMs; }
+
+    // Setters - validate so a bad value fails here rather than inside the pool
+    public void setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("Minimum pool size cannot be negative: " + minSize);
+        }
+        this.minSize = minSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum pool size must be at least 1: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) { this.maxWaitMs = maxWaitMs; }
+    public void setIdleTimeoutMs(long idleTimeoutMs) { this.idleTimeoutMs = idleTimeoutMs; }
+    public void setValidationIntervalMs(long validationIntervalMs) { this.validationIntervalMs = validationIntervalMs; }
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) { this.validationTimeoutSeconds = validationTimeoutSeconds; }
+    public void setLeakDetectionThresholdMs(long leakDetectionThresholdMs) { this.leakDetectionThresholdMs = leakDetectionThresholdMs; }
+
+    @Override
+    public String toString() {
+        return "PoolSettings{" +
+                "minSize=" + minSize +
+                ", maxSize=" + maxSize +
+                ", maxWaitMs=" + maxWaitMs +
+                ", idleTimeoutMs=" + idleTimeoutMs +
+                ", validationIntervalMs=" + validationIntervalMs +
+                ", leakDetectionThresholdMs=" + leakDetectionThresholdMs +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.project.sqlviz.db;
+
+/**
+ * Immutable snapshot of connection pool statistics
+ * Used to size the pool: high wait times or timeouts mean maxSize is too small
+ */
+public class PoolStats {
+    private final int active;           // Connections currently borrowed
+    private final int idle;             // Connections open and waiting in the pool
+    private final int maxSize;          // Configured ceiling
+    private final long borrowCount;     // Total successful borrows
+    private final long totalWaitNanos;  // Total time borrowers spent waiting
+    private final long maxWaitNanos;    // Longest single wait
+    private final long timeouts;        // Borrows that gave up waiting
+    private final long created;         // Physical connections opened
+    private final long destroyed;       // Physical connections closed
+    private final long leaksDetected;   // Connections held past the leak threshold
+
+    public PoolStats(int active, int idle, int maxSize, long borrowCount, long totalWaitNanos,
+                     long maxWaitNanos, long timeouts, long created, long destroyed, long leaksDetected) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.borrowCount = borrowCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.leaksDetected = leaksDetected;
+    }
+
+    // Getters
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getTotal() { return active + idle; }
+    public int getMaxSize() { return maxSize; }
+    public long getBorrowCount() { return borrowCount; }
+    public long getTimeouts() { return timeouts; }
+    public long getCreated() { return created; }
+    public long getDestroyed() { return destroyed; }
+    public long getLeaksDetected() { return leaksDetected; }
+
+    /**
+     * Average time a borrower waited for a connection, in milliseconds
+     */
+    public double getAverageWaitMs() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    /**
+     * Longest time a borrower waited for a connection, in milliseconds
+     */
+    public double getMaxWaitMs() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats{active=%d, idle=%d, max=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, " +
+                "timeouts=%d, created=%d, destroyed=%d, leaks=%d}",
+            active, idle, maxSize, borrowCount, getAverageWaitMs(), getMaxWaitMs(),
+            timeouts, created, destroyed, leaksDetected);
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.sqlviz.db;
+
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import java.sql.SQLException;
+
+/**
+ * Connection handed out by a ConnectionPool
+ * Calling close() returns the connection to its pool instead of closing the socket
+ */
+public class PooledConnection extends Connection {
+    private final ConnectionPool pool;
+    private volatile boolean borrowed;          // Currently checked out of the pool
+    private volatile long borrowedAtNanos;      // When the current borrow started
+    private volatile long lastUsedNanos;        // When the connection last went back to the pool
+    private volatile long lastValidatedNanos;   // When the background check last succeeded
+    private volatile Throwable borrowSite;      // Stack of the current borrower, for leak reports
+    private volatile boolean leakReported;      // Leak already logged for the current borrow
+
+    PooledConnection(ConnectionConfig config, java.sql.Connection jdbcConnection, ConnectionPool pool) {
+        super(config, jdbcConnection);
+        this.pool = pool;
+        long now = System.nanoTime();
+        this.lastUsedNanos = now;
+        this.lastValidatedNanos = now;
+    }
+
+    /**
+     * Returns this connection to the pool
+     */
+    @Override
+    public void close() throws SQLException {
+        if (borrowed) {
+            pool.release(this);
+        }
+    }
+
+    /**
+     * Closes the underlying JDBC connection - only the pool calls this
+     */
+    void closePhysically() throws SQLException {
+        super.close();
+    }
+
+    // Bookkeeping used by the pool
+    boolean isBorrowed() { return borrowed; }
+    long getBorrowedAtNanos() { return borrowedAtNanos; }
+    long getLastUsedNanos() { return lastUsedNanos; }
+    long getLastValidatedNanos() { return lastValidatedNanos; }
+    Throwable getBorrowSite() { return borrowSite; }
+    boolean isLeakReported() { return leakReported; }
+
+    void markBorrowed(Throwable borrowSite) {
+        this.borrowedAtNanos = System.nanoTime();
+        this.borrowSite = borrowSite;
+        this.leakReported = false;
+        this.borrowed = true;
+    }
+
+    void markReturned() {
+        this.borrowed = false;
+        this.borrowSite = null;
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    void markValidated() { this.lastValidatedNanos = System.nanoTime(); }
+    void markLeakReported() { this.leakReported = true; }
+}
@@ -0,0 +1,53 @@
+package com.project.sqlviz.db;
+
+import java.util.Properties;
+
+/**
+ * PostgreSQL through pgJDBC
+ * The driver only fetches in batches of fetchSize when autocommit is off; otherwise
+ * it reads the whole result before returning, so cursor reads run in a transaction.
+ */
+public class PostgreSqlDialect implements Dialect {
+
+    @Override
+    public String getName() {
+        return "PostgreSQL";
+    }
+
+    @Override
+    public boolean matches(String jdbcUrl) {
+        return jdbcUrl.startsWith("jdbc:postgresql:");
+    }
+
+    @Override
+    public String getDriverClass(String jdbcUrl) {
+        return "org.postgresql.Driver";
+    }
+
+    @Override
+    public Properties getConnectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("reWriteBatchedInserts", "true");   // Multi-row INSERTs for CSV import
+        return properties;
+    }
+
+    @Override
+    public boolean requiresTransactionForCursor() {
+        return true;
+    }
+
+    @Override
+    public String limit(String sql, int maxRows) {
+        return "SELECT * FROM (" + sql + ") AS limited LIMIT " + maxRows;
+    }
+
+    @Override
+    public boolean supportsExplainAnalyze() {
+        return true;
+    }
+
+    @Override
+    public String explain(String sql, boolean analyze) {
+        return analyze ? "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql : "EXPLAIN (FORMAT JSON) " + sql;
+    }
+}
@@ -0,0 +1,159 @@
+package com.project.sqlviz.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded, per-connection cache of prepared statements
+ * Keeping statements open lets the driver and server reuse parse and plan work
+ * for repeated SQL. Least recently used statements are closed when the cache is full.
+ * A cached statement is handed to one caller at a time; a caller asking for SQL whose
+ * statement is checked out gets a fresh uncached one, closed again on release.
+ */
+public class StatementCache {
+
+    /**
+     * Snapshot of statement cache statistics
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final int capacity;
+
+        public Stats(long hits, long misses, long evictions, int size, int capacity) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        // Getters
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+        public int getCapacity() { return capacity; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("StatementCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d}",
+                size, capacity, hits, misses, getHitRate() * 100, evictions);
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final java.sql.Connection jdbcConnection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;  // Access order = LRU order
+    private final Set<PreparedStatement> checkedOut = Collections.newSetFromMap(new IdentityHashMap<>()); // Acquired, not yet released
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public StatementCache(java.sql.Connection jdbcConnection, int capacity) {
+        this.jdbcConnection = jdbcConnection;
+        this.capacity = Math.max(capacity, 0);
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets a prepared statement for the SQL, reusing a cached one when possible
+     * Hand it back with release() instead of closing it
+     */
+    public synchronized PreparedStatement acquire(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            if (checkedOut.add(stmt)) {
+                hits++;
+                return stmt;
+            }
+            // Another caller is binding or reading this one; sharing it would mix their parameters and results
+            misses++;
+            return jdbcConnection.prepareStatement(sql);
+        }
+        misses++;
+        stmt = jdbcConnection.prepareStatement(sql);
+        if (capacity > 0) {
+            statements.put(sql, stmt);
+            checkedOut.add(stmt);
+            evictIfFull();
+        }
+        return stmt;
+    }
+
+    /**
+     * Returns a statement after use
+     * Cached statements have their parameters cleared; uncached or broken ones are closed
+     */
+    public synchronized void release(PreparedStatement stmt) {
+        checkedOut.remove(stmt);
+        try {
+            if (stmt.isClosed()) {
+                statements.values().remove(stmt);
+            } else if (statements.containsValue(stmt)) {
+                stmt.clearParameters();
+            } else {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            statements.values().remove(stmt);
+            closeQuietly(stmt);
+        }
+    }
+
+    /**
+     * Closes every cached statement
+     */
+    public synchronized void close() {
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+        checkedOut.clear();
+    }
+
+    /**
+     * Takes a snapshot of the cache statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, statements.size(), capacity);
+    }
+
+    /**
+     * Drops least recently used statements; one still checked out is closed by its release
+     */
+    private void evictIfFull() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            if (!checkedOut.contains(eldest)) {
+                closeQuietly(eldest);
+            }
+            evictions++;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // Statement is being discarded anyway
+        }
+    }
+}
@@ -0,0 +1,616 @@
+package com.project.sqlviz.gui;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.services.Downsampler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Path2D;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Panel plotting result columns as line series
+ * Series are never drawn point for point: a background thread copies the chosen
+ * columns into primitive arrays once, then downsamples the visible range to the
+ * plot width. Zooming and panning first redraw the points already sampled for the
+ * old view, then swap in a fresh sample of the new range when it is ready.
+ *
+ * Mouse wheel zooms around the pointer, dragging pans, double-click resets.
+ */
+public class ChartPanel extends JPanel {
+    private static final int MIN_VISIBLE_ROWS = 16;    // Deepest zoom
+    private static final Color[] SERIES_COLORS = {
+        new Color(31, 119, 180), new Color(255, 127, 14), new Color(44, 160, 44), new Color(214, 39, 40),
+        new Color(148, 103, 189), new Color(140, 86, 75), new Color(227, 119, 194), new Color(127, 127, 127)
+    };
+
+    private final JComboBox<String> xCombo;
+    private final JList<String> yList;
+    private final JComboBox<Downsampler.Method> methodCombo;
+    private final JLabel infoLabel;
+    private final PlotCanvas canvas;
+    private final ExecutorService worker;
+
+    private QueryResult result;
+    private List<Integer> xColumns = new ArrayList<>();     // Source column of each X choice after "Row number"
+    private List<Integer> yColumns = new ArrayList<>();     // Source column of each Y list entry
+    private boolean updatingControls;                       // Suppresses listeners while repopulating
+
+    /**
+     * Columns copied out of a result, ready for downsampling
+     */
+    private static class ChartData {
+        final int rows;
+        final double[] x;            // Null when plotting against the row number
+        final boolean xIsTime;       // x holds epoch milliseconds
+        final double[][] y;          // NaN where the value is NULL or not numeric
+        final String[] names;
+
+        ChartData(int rows, double[] x, boolean xIsTime, double[][] y, String[] names) {
+            this.rows = rows;
+            this.x = x;
+            this.xIsTime = xIsTime;
+            this.y = y;
+            this.names = names;
+        }
+    }
+
+    /**
+     * Rows picked for each series over one row range at one width
+     */
+    private static class Sample {
+        final int from;
+        final int to;
+        final int width;
+        final Downsampler.Method method;
+        final int[][] rows;
+        final long nanos;
+
+        Sample(int from, int to, int width, Downsampler.Method method, int[][] rows, long nanos) {
+            this.from = from;
+            this.to = to;
+            this.width = width;
+            this.method = method;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        int points() {
+            return Arrays.stream(rows).mapToInt(r -> r.length).sum();
+        }
+    }
+
+    public ChartPanel() {
+        super(new BorderLayout());
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chart-downsampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("X:"));
+        xCombo = new JComboBox<>();
+        controls.add(xCombo);
+        controls.add(new JLabel("Y:"));
+        yList = new JList<>(new DefaultListModel<>());
+        yList.setVisibleRowCount(3);
+        yList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        controls.add(new JScrollPane(yList));
+        controls.add(new JLabel("Sampling:"));
+        methodCombo = new JComboBox<>(Downsampler.Method.values());
+        controls.add(methodCombo);
+        infoLabel = new JLabel();
+        controls.add(infoLabel);
+        add(controls, BorderLayout.NORTH);
+
+        canvas = new PlotCanvas();
+        add(canvas, BorderLayout.CENTER);
+
+        xCombo.addActionListener(e -> reload());
+        yList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                reload();
+            }
+        });
+        methodCombo.addActionListener(e -> canvas.repaint());
+    }
+
+    /**
+     * Shows a new result, picking a time or numeric X column and the first numeric Y column
+     * Nothing is computed until the chart is actually painted.
+     */
+    public void setResult(QueryResult result) {
+        this.result = result;
+        updatingControls = true;
+        try {
+            xColumns = new ArrayList<>();
+            yColumns = new ArrayList<>();
+            xCombo.removeAllItems();
+            xCombo.addItem("Row number");
+            DefaultListModel<String> yModel = (DefaultListModel<String>) yList.getModel();
+            yModel.clear();
+
+            int defaultX = -1;
+            if (result != null && result.isSuccessful()) {
+                for (int column = 0; column < result.getColumnCount(); column++) {
+                    String name = result.getColumnNames().get(column);
+                    if (isTime(result, column)) {
+                        xColumns.add(column);
+                        xCombo.addItem(name);
+                        if (defaultX < 0) {
+                            defaultX = column;
+                        }
+                    } else if (isNumeric(result, column)) {
+                        xColumns.add(column);
+                        xCombo.addItem(name);
+                        yColumns.add(column);
+                        yModel.addElement(name);
+                    }
+                }
+            }
+            xCombo.setSelectedIndex(defaultX < 0 ? 0 : xColumns.indexOf(defaultX) + 1);
+            if (!yColumns.isEmpty()) {
+                yList.setSelectedIndex(0);
+            }
+        } finally {
+            updatingControls = false;
+        }
+        reload();
+    }
+
+    /**
+     * Stops the background sampling thread
+     */
+    public void dispose() {
+        worker.shutdownNow();
+    }
+
+    private void reload() {
+        if (updatingControls) {
+            return;
+        }
+        int xIndex = xCombo.getSelectedIndex();
+        int xColumn = xIndex <= 0 ? -1 : xColumns.get(xIndex - 1);
+        List<Integer> series = new ArrayList<>();
+        for (int index : yList.getSelectedIndices()) {
+            if (yColumns.get(index) != xColumn) {
+                series.add(yColumns.get(index));
+            }
+        }
+        canvas.load(result, xColumn, series);
+    }
+
+    /**
+     * Copies the chosen columns into primitive arrays; runs on the worker thread
+     * Non-columnar results are read cell by cell rather than converted in place,
+     * since the table may be reading them at the same time.
+     */
+    private static ChartData extract(QueryResult result, int xColumn, List<Integer> series) {
+        int rows = result.getRowCount();
+        double[] x = null;
+        boolean xIsTime = false;
+        if (xColumn >= 0) {
+            xIsTime = isTime(result, xColumn);
+            x = column(result, xColumn);
+            // Buckets are row ranges, so only an ascending x can be drawn against its values
+            for (int row = 1; row < rows && x != null; row++) {
+                if (!(x[row] >= x[row - 1])) {
+                    x = null;
+                }
+            }
+            if (x != null && rows > 0 && Double.isNaN(x[0])) {
+                x = null;
+            }
+        }
+        double[][] y = new double[series.size()][];
+        String[] names = new String[series.size()];
+        IntStream.range(0, series.size()).parallel().forEach(s -> y[s] = column(result, series.get(s)));
+        for (int s = 0; s < series.size(); s++) {
+            names[s] = result.getColumnNames().get(series.get(s));
+        }
+        return new ChartData(rows, x, xIsTime && x != null, y, names);
+    }
+
+    private static double[] column(QueryResult result, int column) {
+        int rows = result.getRowCount();
+        double[] values = new double[rows];
+        if (result.isColumnar()) {
+            ColumnVector vector = result.getColumn(column);
+            if (vector instanceof ColumnVector.TimestampVector) {
+                ColumnVector.TimestampVector times = (ColumnVector.TimestampVector) vector;
+                for (int row = 0; row < rows; row++) {
+                    values[row] = times.isNull(row) ? Double.NaN : times.getEpochMillis(row);
+                }
+                return values;
+            }
+            if (vector.isNumeric()) {
+                for (int row = 0; row < rows; row++) {
+                    values[row] = vector.isNull(row) ? Double.NaN : vector.getDouble(row);
+                }
+                return values;
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            values[row] = toDouble(result.getValueAt(row, column));
+        }
+        return values;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return Double.NaN;
+    }
+
+    private static boolean isTime(QueryResult result, int column) {
+        if (result.isColumnar()) {
+            return result.getColumn(column).getType() == ColumnVector.ColumnType.TIMESTAMP;
+        }
+        return firstValue(result, column) instanceof Date;
+    }
+
+    private static boolean isNumeric(QueryResult result, int column) {
+        if (result.isColumnar() && result.getColumn(column).isNumeric()) {
+            return true;
+        }
+        return firstValue(result, column) instanceof Number;
+    }
+
+    private static Object firstValue(QueryResult result, int column) {
+        int rows = Math.min(result.getRowCount(), 100);
+        for (int row = 0; row < rows; row++) {
+            Object value = result.getValueAt(row, column);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The plot area: paints whatever sample it has and asks the worker for a better one
+     */
+    private class PlotCanvas extends JComponent {
+        private static final int LEFT = 70;
+        private static final int RIGHT = 16;
+        private static final int TOP = 12;
+        private static final int BOTTOM = 28;
+
+        private final AtomicLong generation = new AtomicLong();    // Bumped per request; stale work is dropped
+
+        private QueryResult pendingResult;      // Set by load(), extracted on first paint
+        private int pendingX;
+        private List<Integer> pendingSeries;
+        private boolean extracting;
+
+        private ChartData data;
+        private Sample sample;                  // Latest finished sample, possibly for another view
+        private String requested;               // View of the last resample request, to avoid repeats
+        private double viewFrom;                // Visible rows, fractional while zooming
+        private double viewTo;
+        private int dragX = -1;
+        private double dragFrom;
+
+        PlotCanvas() {
+            setPreferredSize(new Dimension(580, 400));
+            setBackground(Color.WHITE);
+            setOpaque(true);
+
+            MouseAdapter mouse = new MouseAdapter() {
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    zoom(e.getX(), Math.pow(1.25, e.getPreciseWheelRotation()));
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragX = e.getX();
+                    dragFrom = viewFrom;
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (data != null && dragX >= 0) {
+                        double span = viewTo - viewFrom;
+                        double rowsPerPixel = span / Math.max(plotWidth(), 1);
+                        setView(dragFrom - (e.getX() - dragX) * rowsPerPixel, span);
+                    }
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    dragX = -1;
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2 && data != null) {
+                        setView(0, data.rows);
+                    }
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+        }
+
+        void load(QueryResult result, int xColumn, List<Integer> series) {
+            generation.incrementAndGet();
+            data = null;
+            sample = null;
+            requested = null;
+            extracting = false;
+            boolean plottable = result != null && result.isSuccessful() && !series.isEmpty();
+            pendingResult = plottable ? result : null;
+            pendingX = xColumn;
+            pendingSeries = series;
+            infoLabel.setText(plottable ? "" : "No numeric columns selected");
+            repaint();
+        }
+
+        private void zoom(int mouseX, double factor) {
+            if (data == null || data.rows == 0) {
+                return;
+            }
+            double span = viewTo - viewFrom;
+            double anchor = viewFrom + span * Math.min(Math.max(mouseX - LEFT, 0), plotWidth()) / Math.max(plotWidth(), 1);
+            double newSpan = Math.min(Math.max(span * factor, MIN_VISIBLE_ROWS), data.rows);
+            setView(anchor - (anchor - viewFrom) * newSpan / span, newSpan);
+        }
+
+        private void setView(double from, double span) {
+            from = Math.min(Math.max(from, 0), data.rows - span);
+            viewFrom = Math.max(from, 0);
+            viewTo = Math.min(viewFrom + span, data.rows);
+            repaint();
+        }
+
+        private int plotWidth() {
+            return getWidth() - LEFT - RIGHT;
+        }
+
+        private int plotHeight() {
+            return getHeight() - TOP - BOTTOM;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (data == null) {
+                if (pendingResult != null) {
+                    startExtract();
+                    message(g, "Preparing chart...");
+                }
+                return;
+            }
+            if (data.rows == 0) {
+                message(g, "No rows");
+                return;
+            }
+
+            int from = (int) Math.floor(viewFrom);
+            int to = (int) Math.ceil(viewTo);
+            Downsampler.Method method = (Downsampler.Method) methodCombo.getSelectedItem();
+            if (sample == null || sample.from != from || sample.to != to
+                    || sample.width != plotWidth() || sample.method != method) {
+                requestSample(from, to, plotWidth(), method);
+            }
+            if (sample != null) {
+                paintSample((Graphics2D) g, sample);
+            }
+        }
+
+        private void message(Graphics g, String text) {
+            g.setColor(Color.GRAY);
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(text, (getWidth() - metrics.stringWidth(text)) / 2, getHeight() / 2);
+        }
+
+        private void startExtract() {
+            if (extracting) {
+                return;
+            }
+            extracting = true;
+            long requestGeneration = generation.get();
+            QueryResult source = pendingResult;
+            int xColumn = pendingX;
+            List<Integer> series = pendingSeries;
+            int width = plotWidth();
+            Downsampler.Method method = (Downsampler.Method) methodCombo.getSelectedItem();
+            worker.submit(() -> {
+                ChartData extracted;
+                Sample first;
+                try {
+                    extracted = extract(source, xColumn, series);
+                    first = downsample(extracted, 0, extracted.rows, width, method);
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: could not prepare chart: " + e.getMessage());
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() != requestGeneration) {
+                        return;
+                    }
+                    data = extracted;
+                    sample = first;
+                    pendingResult = null;
+                    viewFrom = 0;
+                    viewTo = extracted.rows;
+                    showInfo();
+                    repaint();
+                });
+            });
+        }
+
+        private void requestSample(int from, int to, int width, Downsampler.Method method) {
+            String view = from + ":" + to + ":" + width + ":" + method;
+            if (view.equals(requested)) {
+                return;
+            }
+            requested = view;
+            long requestGeneration = generation.incrementAndGet();
+            ChartData current = data;
+            worker.submit(() -> {
+                // Wheel and drag events queue many requests; only the newest is worth computing
+                if (generation.get() != requestGeneration) {
+                    return;
+                }
+                Sample fresh = downsample(current, from, to, width, method);
+                SwingUtilities.invokeLater(() -> {
+                    if (generation.get() == requestGeneration) {
+                        sample = fresh;
+                        showInfo();
+                        repaint();
+                    }
+                });
+            });
+        }
+
+        private Sample downsample(ChartData chart, int from, int to, int width, Downsampler.Method method) {
+            long start = System.nanoTime();
+            int[][] rows = new int[chart.y.length][];
+            int points = Math.max(width, 3);
+            IntStream.range(0, chart.y.length).parallel().forEach(s ->
+                rows[s] = Downsampler.downsample(method, chart.x, chart.y[s], from, to, points));
+            return new Sample(from, to, width, method, rows, System.nanoTime() - start);
+        }
+
+        private void showInfo() {
+            infoLabel.setText(String.format("%,d of %,d rows, %,d points, sampled in %.1f ms%s",
+                sample.to - sample.from, data.rows, sample.points(), sample.nanos / 1e6,
+                data.x == null && pendingX >= 0 ? " (X not ascending, plotted by row)" : ""));
+        }
+
+        /**
+         * Draws the part of a sample inside the current view
+         * While a new sample is computing this is the old one, clipped and stretched.
+         */
+        private void paintSample(Graphics2D g, Sample drawn) {
+            int from = (int) Math.floor(viewFrom);
+            int to = Math.max((int) Math.ceil(viewTo), from + 1);
+            double xMin = xAt(from);
+            double xMax = xAt(to - 1);
+            if (xMax <= xMin) {
+                xMax = xMin + 1;
+            }
+
+            // Y range over the points that will be drawn
+            double yMin = Double.POSITIVE_INFINITY;
+            double yMax = Double.NEGATIVE_INFINITY;
+            int[][] visible = new int[drawn.rows.length][];
+            for (int s = 0; s < drawn.rows.length; s++) {
+                int[] rows = drawn.rows[s];
+                int start = lowerBound(rows, from);
+                int end = lowerBound(rows, to);
+                visible[s] = Arrays.copyOfRange(rows, start, end);
+                for (int row : visible[s]) {
+                    yMin = Math.min(yMin, data.y[s][row]);
+                    yMax = Math.max(yMax, data.y[s][row]);
+                }
+            }
+            if (yMin > yMax) {
+                message(g, "No values in range");
+                return;
+            }
+            if (yMax == yMin) {
+                yMax = yMin + 1;
+            }
+
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            paintAxes(g, xMin, xMax, yMin, yMax);
+
+            Shape clip = g.getClip();
+            g.clipRect(LEFT, TOP, plotWidth() + 1, plotHeight() + 1);
+            double xScale = plotWidth() / (xMax - xMin);
+            double yScale = plotHeight() / (yMax - yMin);
+            for (int s = 0; s < visible.length; s++) {
+                Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, visible[s].length);
+                for (int i = 0; i < visible[s].length; i++) {
+                    int row = visible[s][i];
+                    double px = LEFT + (xAt(row) - xMin) * xScale;
+                    double py = TOP + plotHeight() - (data.y[s][row] - yMin) * yScale;
+                    if (i == 0) {
+                        path.moveTo(px, py);
+                    } else {
+                        path.lineTo(px, py);
+                    }
+                }
+                g.setColor(SERIES_COLORS[s % SERIES_COLORS.length]);
+                g.draw(path);
+            }
+            g.setClip(clip);
+            paintLegend(g);
+        }
+
+        private void paintAxes(Graphics2D g, double xMin, double xMax, double yMin, double yMax) {
+            FontMetrics metrics = g.getFontMetrics();
+            g.setColor(Color.LIGHT_GRAY);
+            g.drawRect(LEFT, TOP, plotWidth(), plotHeight());
+            g.setColor(Color.DARK_GRAY);
+            for (int tick = 0; tick <= 4; tick++) {
+                double value = yMin + (yMax - yMin) * tick / 4;
+                int y = TOP + plotHeight() - plotHeight() * tick / 4;
+                String label = formatNumber(value);
+                g.drawString(label, LEFT - 6 - metrics.stringWidth(label), y + metrics.getAscent() / 2);
+            }
+            String first = formatX(xMin);
+            String last = formatX(xMax);
+            int baseline = TOP + plotHeight() + metrics.getAscent() + 4;
+            g.drawString(first, LEFT, baseline);
+            g.drawString(last, LEFT + plotWidth() - metrics.stringWidth(last), baseline);
+        }
+
+        private void paintLegend(Graphics2D g) {
+            FontMetrics metrics = g.getFontMetrics();
+            int x = LEFT + 8;
+            for (int s = 0; s < data.names.length; s++) {
+                g.setColor(SERIES_COLORS[s % SERIES_COLORS.length]);
+                g.fillRect(x, TOP + 6, 10, 10);
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(data.names[s], x + 14, TOP + 6 + metrics.getAscent() - 2);
+                x += 24 + metrics.stringWidth(data.names[s]);
+            }
+        }
+
+        private double xAt(int row) {
+            return data.x == null ? row : data.x[row];
+        }
+
+        private String formatX(double value) {
+            if (data.xIsTime) {
+                return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date((long) value));
+            }
+            return formatNumber(value);
+        }
+
+        private String formatNumber(double value) {
+            if (value != 0 && (Math.abs(value) >= 1e7 || Math.abs(value) < 1e-3)) {
+                return String.format("%.3g", value);
+            }
+            return value == Math.rint(value) ? String.format("%,.0f", value) : String.format("%,.3f", value);
+        }
+
+        private int lowerBound(int[] rows, int row) {
+            int index = Arrays.binarySearch(rows, row);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+}
@@ -2,18 +2,40 @@ package com.project.sqlviz.gui;
 
 import com.project.sqlviz.models.Connection;
 import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.models.QueryPlan;
 import com.project.sqlviz.models.QueryResult;
 import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.db.Dialect;
+import com.project.sqlviz.db.FetchSizeTuner;
+import com.project.sqlviz.metrics.QueryMetrics;
+import com.project.sqlviz.models.QueryTimings;
+import com.project.sqlviz.services.ExportService;
+import com.project.sqlviz.services.FanOutExecutor;
 import com.project.sqlviz.services.QueryExecutor;
+import com.project.sqlviz.services.QueryHandle;
 import com.project.sqlviz.services.QueryHistoryService;
+import com.project.sqlviz.services.ResultCache;
+import com.project.sqlviz.services.ResultSorter;
+import com.project.sqlviz.services.SchemaCache;
+import com.project.sqlviz.services.SqlInterpreter;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main GUI window for the SQL Visualizer application
@@ -24,22 +46,50 @@ public class MainWindow extends JFrame {
     // GUI Components
     private JTextArea sqlEditor;           // Text area for SQL input
     private JTable resultTable;           // Table to display query results
-    private DefaultTableModel tableModel; // Model for the result table
+    private QueryResultTableModel tableModel; // Model for the result table
+    private ChartPanel chartPanel;        // Chart of the current result, sampled in the background
+    private PlanPanel planPanel;          // Operator tree of the last explained query
+    private JTabbedPane resultTabs;       // Table, chart and plan views
     private JButton executeButton;        // Button to execute queries
+    private JButton cancelButton;         // Button to cancel the running query
     private JButton connectButton;        // Button to connect to database
     private JLabel statusLabel;           // Status bar
+    private JLabel schemaLabel;           // Progress of the schema cache behind autocomplete
     private JTextField connectionUrlField; // Connection URL input
     private JTextField usernameField;     // Username input
     private JPasswordField passwordField; // Password input
     
     // Business Logic Components
-    private Connection currentConnection;
-    private QueryExecutor queryExecutor;
+    private ConnectionConfig currentConfig; // Database connected to; connections are borrowed per operation
+    private FetchSizeTuner fetchTuner;    // Fetch size learned across the queries of this connection
     private QueryHistoryService historyService;
+    private ResultCache resultCache;      // Shared cache of SELECT results across connections
+    private QueryHandle runningQuery;     // Query currently executing in the background, if any
+    private QueryMetrics queryMetrics;    // Per-connection latency histograms, also published over JMX
+    private JDialog metricsDialog;        // Metrics window, created on first use
+    private FanOutExecutor.FanOutHandle runningFanOut; // Fan-out currently executing, if any
+    private String fanOutTargets = "";    // JDBC URLs last used for fan-out, one per line
+    private int fanOutParallelism = FanOutExecutor.DEFAULT_MAX_PARALLEL;
+    private int fanOutTimeoutSeconds = (int) (FanOutExecutor.DEFAULT_TIMEOUT_MS / 1000);
+    private ExportService exportService;  // Streams query results straight to files
+    private Thread runningExport;         // Export currently writing to disk, if any
+    private CompletableFuture<QueryPlan> runningExplain; // Plan being fetched, if any
+    private SchemaCache schemaCache;      // Tables and columns of the connected database, for autocomplete
+    private CompletableFuture<int[]> runningSort; // Sort of the displayed result in progress, if any
+    private boolean showingPartial;       // Table holds the rows of the running query fetched so far
+    private int queryTimeoutSeconds;      // Limits for new connections, 0 for none
+    private int maxRows;
+    private long maxResultMb;
+    private int maxConcurrentQueries;
 
     public MainWindow() {
         // Initialize services
-        historyService = new QueryHistoryService();
+        historyService = openHistory();
+        resultCache = new ResultCache();
+        exportService = new ExportService();
+        queryMetrics = new QueryMetrics();
+        queryMetrics.setResultCache(resultCache);
+        queryMetrics.registerMBeans();
         
         // Set up the main window
         initializeWindow();
@@ -54,6 +104,20 @@ public class MainWindow extends JFrame {
         setVisible(true);
     }
 
+    /**
+     * Opens the persistent query history in the user's home directory
+     * Falls back to memory-only history if the directory cannot be used
+     */
+    private QueryHistoryService openHistory() {
+        Path directory = Paths.get(System.getProperty("user.home"), ".sqlviz", "history");
+        try {
+            return QueryHistoryService.open(directory);
+        } catch (IOException e) {
+            System.err.println("Warning: query history will not be saved: " + e.getMessage());
+            return new QueryHistoryService();
+        }
+    }
+
     /**
      * Initialize main window properties
      */
@@ -156,10 +220,41 @@ public class MainWindow extends JFrame {
         executeButton.setEnabled(false); // Disabled until connected
         buttonPanel.add(executeButton);
 
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false); // Enabled only while a query runs
+        buttonPanel.add(cancelButton);
+
         JButton clearButton = new JButton("Clear");
-        clearButton.addActionListener(_ -> sqlEditor.setText(""));
+        clearButton.addActionListener(e -> sqlEditor.setText(""));
         buttonPanel.add(clearButton);
 
+        JButton explainButton = new JButton("Explain");
+        explainButton.setToolTipText("Show the estimated plan without running the query");
+        explainButton.addActionListener(e -> runExplain(false));
+        buttonPanel.add(explainButton);
+
+        JButton analyzeButton = new JButton("Explain Analyze");
+        analyzeButton.setToolTipText("Run the query and show the plan with actual rows and times");
+        analyzeButton.addActionListener(e -> runExplain(true));
+        buttonPanel.add(analyzeButton);
+
+        JButton exportButton = new JButton("Export...");
+        exportButton.addActionListener(e -> runExport());
+        buttonPanel.add(exportButton);
+
+        JButton fanOutButton = new JButton("Run on Shards...");
+        fanOutButton.addActionListener(e -> runFanOut());
+        buttonPanel.add(fanOutButton);
+
+        JButton metricsButton = new JButton("Metrics");
+        metricsButton.addActionListener(e -> showMetrics());
+        buttonPanel.add(metricsButton);
+
+        JButton limitsButton = new JButton("Limits...");
+        limitsButton.setToolTipText("Timeout, row, size and concurrency limits for queries on this connection");
+        limitsButton.addActionListener(e -> editLimits());
+        buttonPanel.add(limitsButton);
+
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -173,18 +268,39 @@ public class MainWindow extends JFrame {
         panel.setBorder(BorderFactory.createTitledBorder("Query Results"));
 
         // Create table for displaying results
-        tableModel = new DefaultTableModel();
+        tableModel = new QueryResultTableModel();
         resultTable = new JTable(tableModel);
         resultTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF); // Allow horizontal scrolling
         resultTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultTable.getTableHeader().setToolTipText("Click to sort, Shift+click to add a sort column, Ctrl+click to remove one");
+        resultTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = resultTable.columnAtPoint(e.getPoint());
+                if (column >= 0 && SwingUtilities.isLeftMouseButton(e)) {
+                    sortByColumn(resultTable.convertColumnIndexToModel(column), e.isShiftDown(), e.isControlDown());
+                }
+            }
+        });
 
         // Wrap table in scroll pane
         JScrollPane tableScrollPane = new JScrollPane(resultTable);
         tableScrollPane.setPreferredSize(new Dimension(580, 400));
-        panel.add(tableScrollPane, BorderLayout.CENTER);
+
+        // Table and chart views of the same result, and the plan of the last explained query
+        chartPanel = new ChartPanel();
+        planPanel = new PlanPanel();
+        resultTabs = new JTabbedPane();
+        resultTabs.addTab("Table", tableScrollPane);
+        resultTabs.addTab("Chart", chartPanel);
+        resultTabs.addTab("Plan", planPanel);
+        panel.add(resultTabs, BorderLayout.CENTER);
 
         // Create info panel for query statistics
         JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        schemaLabel = new JLabel(" ");
+        schemaLabel.setToolTipText("Press Ctrl+Space in the editor to complete table and column names");
+        infoPanel.add(schemaLabel);
         panel.add(infoPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -199,7 +315,22 @@ public class MainWindow extends JFrame {
         connectButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                connectToDatabase();
+                if (currentConfig != null) {
+                    disconnect();
+                } else {
+                    connectToDatabase();
+                }
+            }
+        });
+
+        // Flush query history to disk on exit
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                historyService.close();
+                chartPanel.dispose();
+                SchemaCache.closeAll();
+                ConnectionFactory.closeAllPools();
             }
         });
 
@@ -211,6 +342,14 @@ public class MainWindow extends JFrame {
             }
         });
 
+        // Cancel button event handler
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancelQuery();
+            }
+        });
+
         // Add keyboard shortcut for query execution (Ctrl+Enter)
         InputMap inputMap = sqlEditor.getInputMap(JComponent.WHEN_FOCUSED);
         ActionMap actionMap = sqlEditor.getActionMap();
@@ -224,6 +363,15 @@ public class MainWindow extends JFrame {
                 }
             }
         });
+
+        // Complete table and column names from the schema cache (Ctrl+Space)
+        inputMap.put(KeyStroke.getKeyStroke("ctrl SPACE"), "complete");
+        actionMap.put("complete", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showCompletions();
+            }
+        });
     }
 
     /**
@@ -248,23 +396,32 @@ public class MainWindow extends JFrame {
             }
 
             // Create connection configuration
-            ConnectionConfig config = new ConnectionConfig(
-                1, // Connection ID
-                "Main Connection", // Name
-                url, // JDBC URL
-                username, // Username
-                password, // Password
-                "com.mysql.cj.jdbc.Driver" // Driver class - assuming MySQL for now
-            );
-
-            // Create connection using factory
-            currentConnection = ConnectionFactory.createConnection(config);
-            
-            // Initialize query executor
-            queryExecutor = new QueryExecutor(currentConnection);
+            ConnectionConfig config = createConfig(1, "Main Connection", url);
+            if (currentConfig != null) {
+                disconnect(); // Close the previous database's pool before opening another
+            }
+
+            // Borrow a pooled connection once to check the database is reachable; each query
+            // borrows its own, so the pool can validate and replace idle connections
+            Connection connection = ConnectionFactory.getPooledConnection(config);
+            try {
+                currentConfig = connection.getConfig(); // The pool may hold an earlier copy of the config
+            } finally {
+                connection.close();
+            }
+            applyLimits(currentConfig);
+            Dialect dialect = currentConfig.getDialect();
+            fetchTuner = new FetchSizeTuner(dialect.getDefaultFetchSize(), dialect.getMaxFetchSize());
+            resultCache.invalidateConnection(config.getConnId()); // Connection id may now point at another database
+
+            // Load the schema for autocomplete in the background, starting from the saved copy
+            schemaCache = SchemaCache.forConfig(config);
+            schemaCache.setListener(cache -> SwingUtilities.invokeLater(this::updateSchemaStatus));
+            schemaCache.refreshAsync().whenComplete((done, error) -> SwingUtilities.invokeLater(this::updateSchemaStatus));
+            updateSchemaStatus();
 
             // Update UI to show successful connection
-            statusLabel.setText("Connected to: " + url);
+            statusLabel.setText("Connected to: " + url + " (" + config.getDialect().getName() + ")");
             executeButton.setEnabled(true);
             connectButton.setText("Disconnect");
             
@@ -298,12 +455,93 @@ public class MainWindow extends JFrame {
         }
     }
 
+    /**
+     * Closes the current database's pool so the next connect can pick another one
+     * Operations still running finish on the connections they borrowed, which are
+     * closed instead of going back to the pool.
+     */
+    private void disconnect() {
+        ConnectionFactory.closePool(currentConfig);
+        currentConfig = null;
+        fetchTuner = null;
+        executeButton.setEnabled(false);
+        connectButton.setText("Connect");
+        statusLabel.setText("Disconnected - Please connect to a database");
+    }
+
+    /**
+     * Creates an executor for one operation on a borrowed connection
+     */
+    private QueryExecutor createExecutor(Connection connection) {
+        QueryExecutor executor = new QueryExecutor(connection, fetchTuner);
+        executor.setResultCache(resultCache);
+        executor.setMetrics(queryMetrics);
+        return executor;
+    }
+
+    /**
+     * Builds a connection configuration using the credentials in the connection panel
+     */
+    private ConnectionConfig createConfig(int connId, String name, String url) {
+        // The driver class comes from the dialect matching the URL
+        ConnectionConfig config = ConnectionFactory.createConfig(
+            connId, // Connection ID
+            name, // Name
+            url, // JDBC URL
+            usernameField.getText().trim(), // Username
+            new String(passwordField.getPassword()) // Password
+        );
+        applyLimits(config);
+        return config;
+    }
+
+    private void applyLimits(ConnectionConfig config) {
+        config.setQueryTimeoutSeconds(queryTimeoutSeconds);
+        config.setMaxRows(maxRows);
+        config.setMaxResultBytes(maxResultMb * 1024 * 1024);
+        config.setMaxConcurrentQueries(maxConcurrentQueries);
+    }
+
+    /**
+     * Lets the user change the query limits, which apply to the current connection from
+     * its next query and to every connection made afterwards
+     */
+    private void editLimits() {
+        JSpinner timeoutSpinner = new JSpinner(new SpinnerNumberModel(queryTimeoutSeconds, 0, 86_400, 10));
+        JSpinner rowsSpinner = new JSpinner(new SpinnerNumberModel(maxRows, 0, Integer.MAX_VALUE, 10_000));
+        JSpinner sizeSpinner = new JSpinner(new SpinnerNumberModel(maxResultMb, 0L, Long.MAX_VALUE / (1024 * 1024), 64L));
+        JSpinner concurrentSpinner = new JSpinner(new SpinnerNumberModel(maxConcurrentQueries, 0, 256, 1));
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Query timeout (s):"));
+        form.add(timeoutSpinner);
+        form.add(new JLabel("Maximum rows:"));
+        form.add(rowsSpinner);
+        form.add(new JLabel("Maximum result size (MB):"));
+        form.add(sizeSpinner);
+        form.add(new JLabel("Concurrent queries:"));
+        form.add(concurrentSpinner);
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.add(form, BorderLayout.CENTER);
+        panel.add(new JLabel("0 means no limit"), BorderLayout.SOUTH);
+        if (JOptionPane.showConfirmDialog(this, panel, "Query Limits", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        queryTimeoutSeconds = (Integer) timeoutSpinner.getValue();
+        maxRows = (Integer) rowsSpinner.getValue();
+        maxResultMb = ((Number) sizeSpinner.getValue()).longValue();
+        maxConcurrentQueries = (Integer) concurrentSpinner.getValue();
+        if (currentConfig != null) {
+            applyLimits(currentConfig);
+        }
+    }
+
     /**
      * Handles query execution
      * This method demonstrates MVC separation - UI calls service layer
      */
     private void executeQuery() {
-        if (currentConnection == null || queryExecutor == null) {
+        if (currentConfig == null) {
             JOptionPane.showMessageDialog(this, 
                 "Please connect to a database first", 
                 "No Connection", 
@@ -320,69 +558,626 @@ public class MainWindow extends JFrame {
             return;
         }
 
+        // Each run borrows a pooled connection that is reset when it is returned,
+        // so session state set by one run would silently be gone in the next
+        SqlInterpreter interpreter = new SqlInterpreter(currentConfig.getDialect().usesBackslashEscapes());
+        if (interpreter.analyze(sql).changesSessionState()) {
+            JOptionPane.showMessageDialog(this,
+                "Each query runs on a pooled connection that is reset afterwards, so session settings,\n" +
+                "USE, open transactions and temporary tables do not carry over to the next query.\n" +
+                "Put connection settings in the JDBC URL and qualify table names with their schema instead.",
+                "Session Statement",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        // Update UI to show query execution in progress
+        executeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        statusLabel.setText("Executing query...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+
+        // Clear previous results
+        tableModel.clear();
+        showingPartial = false;
+
+        // Execute query in the background so the UI keeps repainting and accepting input;
+        // it borrows its own pooled connection there and rows are shown in chunks as they are fetched
+        QueryHandle[] handle = new QueryHandle[1];
+        handle[0] = QueryExecutor.executePooledAsync(currentConfig, this::createExecutor, sql, (partial, rowsPerSecond) ->
+            SwingUtilities.invokeLater(() -> onRowsFetched(handle[0], partial, rowsPerSecond)));
+        runningQuery = handle[0];
+        int connId = currentConfig.getConnId();
+        handle[0].getFuture().whenComplete((result, error) ->
+            SwingUtilities.invokeLater(() -> onQueryFinished(handle[0], connId, result, error)));
+    }
+
+    /**
+     * Called on the EDT with the rows of the running query fetched so far
+     */
+    private void onRowsFetched(QueryHandle handle, QueryResult partial, double rowsPerSecond) {
+        if (handle != runningQuery || handle.isDone()) {
+            return; // Replaced, or the whole result is already on its way
+        }
+        if (showingPartial) {
+            tableModel.extendResult(partial);
+        } else {
+            tableModel.setResult(partial);
+            resizeTableColumns();
+            showingPartial = true;
+        }
+        statusLabel.setText(String.format("Fetching - %,d rows so far, %,.0f rows/s", partial.getRowCount(), rowsPerSecond));
+    }
+
+    /**
+     * Cancels the running query, if any
+     */
+    private void cancelQuery() {
+        if (runningQuery != null && runningQuery.cancel()) {
+            statusLabel.setText("Cancelling query...");
+            cancelButton.setEnabled(false);
+        }
+        if (runningFanOut != null && runningFanOut.cancel()) {
+            statusLabel.setText("Cancelling shards...");
+            cancelButton.setEnabled(false);
+        }
+        if (runningExport != null) {
+            runningExport.interrupt();
+            statusLabel.setText("Cancelling export...");
+            cancelButton.setEnabled(false);
+        }
+    }
+
+    /**
+     * Shows how much of the schema is cached
+     */
+    private void updateSchemaStatus() {
+        if (schemaCache == null) {
+            return;
+        }
+        String text = String.format("Schema: %,d tables, columns for %,d", schemaCache.getTableCount(),
+            schemaCache.getLoadedTableCount());
+        if (schemaCache.isRefreshing()) {
+            text += " (loading...)";
+        } else if (schemaCache.getLastRefreshMs() >= 0) {
+            text += String.format(" (refreshed in %,d ms)", schemaCache.getLastRefreshMs());
+        }
+        schemaLabel.setText(text);
+    }
+
+    /**
+     * Pops up names from the schema cache that complete the word before the caret
+     * A word like orders.cu completes the columns of orders, loading them first if needed.
+     */
+    private void showCompletions() {
+        if (schemaCache == null) {
+            return;
+        }
+        int caret = sqlEditor.getCaretPosition();
+        String text = sqlEditor.getText();
+        int start = caret;
+        while (start > 0 && isIdentifierPart(text.charAt(start - 1))) {
+            start--;
+        }
+        String word = text.substring(start, caret);
+        List<SchemaCache.Suggestion> suggestions = schemaCache.complete(word, SchemaCache.DEFAULT_SUGGESTIONS);
+        int dot = word.lastIndexOf('.');
+        if (suggestions.isEmpty() && dot > 0) {
+            SchemaCache.TableInfo table = schemaCache.getTable(word.substring(0, dot));
+            if (table != null && !table.isLoaded()) {
+                statusLabel.setText("Loading columns of " + table.getQualifiedName() + "...");
+                schemaCache.loadColumnsAsync(table).whenComplete((columns, error) -> SwingUtilities.invokeLater(() -> {
+                    statusLabel.setText(error == null ? "Ready" : "Could not load columns: " + error.getMessage());
+                    if (error == null && sqlEditor.getCaretPosition() == caret) {
+                        showCompletions();
+                    }
+                }));
+                return;
+            }
+        }
+        if (suggestions.isEmpty()) {
+            return;
+        }
+
+        int replaceFrom = start + dot + 1;   // Only the part after the last dot is replaced
+        JList<SchemaCache.Suggestion> list = new JList<>(suggestions.toArray(new SchemaCache.Suggestion[0]));
+        list.setSelectedIndex(0);
+        list.setVisibleRowCount(Math.min(10, suggestions.size()));
+        JPopupMenu popup = new JPopupMenu();
+        popup.add(new JScrollPane(list));
+        Runnable accept = () -> {
+            SchemaCache.Suggestion chosen = list.getSelectedValue();
+            popup.setVisible(false);
+            if (chosen != null) {
+                sqlEditor.replaceRange(chosen.getText(), replaceFrom, caret);
+            }
+            sqlEditor.requestFocusInWindow();
+        };
+        list.getInputMap().put(KeyStroke.getKeyStroke("ENTER"), "accept");
+        list.getInputMap().put(KeyStroke.getKeyStroke("TAB"), "accept");
+        list.getActionMap().put("accept", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                accept.run();
+            }
+        });
+        list.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    accept.run();
+                }
+            }
+        });
         try {
-            // Update UI to show query execution in progress
-            executeButton.setEnabled(false);
-            statusLabel.setText("Executing query...");
-            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            Rectangle at = sqlEditor.modelToView2D(caret).getBounds();
+            popup.show(sqlEditor, at.x, at.y + at.height);
+            list.requestFocusInWindow();
+        } catch (javax.swing.text.BadLocationException e) {
+            // Caret moved while computing suggestions; nothing to show
+        }
+    }
 
-            // Clear previous results
-            tableModel.setRowCount(0);
-            tableModel.setColumnCount(0);
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || c == '"' || c == '`';
+    }
+
+    /**
+     * Fetches the plan of the editor's SQL in the background and shows it in the Plan tab
+     * With analyze set the query runs, so the plan includes actual rows and times.
+     */
+    private void runExplain(boolean analyze) {
+        if (currentConfig == null) {
+            JOptionPane.showMessageDialog(this, "Please connect to a database first", "No Connection",
+                JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (runningQuery != null || runningFanOut != null || runningExplain != null) {
+            return; // One statement at a time on the connection
+        }
+        String sql = sqlEditor.getText().trim();
+        if (sql.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter a SQL query", "Empty Query", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        executeButton.setEnabled(false);
+        statusLabel.setText(analyze ? "Running query for EXPLAIN ANALYZE..." : "Explaining query...");
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        CompletableFuture<QueryPlan> future = QueryExecutor.explainPooledAsync(currentConfig, this::createExecutor,
+            sql, analyze);
+        runningExplain = future;
+        future.whenComplete((plan, error) ->
+            SwingUtilities.invokeLater(() -> onExplainFinished(future, plan, error)));
+    }
+
+    /**
+     * Called on the EDT when a plan has been fetched or failed
+     */
+    private void onExplainFinished(CompletableFuture<QueryPlan> future, QueryPlan plan, Throwable error) {
+        if (future != runningExplain) {
+            return;
+        }
+        runningExplain = null;
+        executeButton.setEnabled(currentConfig != null);
+        setCursor(Cursor.getDefaultCursor());
+        if (error != null) {
+            statusLabel.setText("Explain failed");
+            JOptionPane.showMessageDialog(this, "Error explaining query: " + error.getMessage(),
+                "Explain Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        planPanel.setPlan(plan);
+        resultTabs.setSelectedComponent(planPanel);
+        statusLabel.setText(plan.toString());
+    }
+
+    /**
+     * Re-orders the displayed result by a header click without re-running the query
+     * A plain click sorts by that column alone, or flips it if it already is the only
+     * key; Shift adds the column as the next key or flips it; Ctrl removes it. Large
+     * results are sorted in the background and the grid keeps its old order until done.
+     */
+    private void sortByColumn(int column, boolean addKey, boolean removeKey) {
+        QueryResult result = tableModel.getResult();
+        if (result == null || !result.isSuccessful() || result.getRowCount() < 2) {
+            return;
+        }
+        if (showingPartial) {
+            statusLabel.setText("Sorting is available once all rows have been fetched");
+            return;
+        }
+        List<ResultSorter.SortKey> keys = new ArrayList<>(tableModel.getSortKeys());
+        int index = -1;
+        for (int k = 0; k < keys.size(); k++) {
+            if (keys.get(k).getColumn() == column) {
+                index = k;
+            }
+        }
+        if (removeKey) {
+            if (index < 0) {
+                return;
+            }
+            keys.remove(index);
+        } else if (addKey) {
+            if (index >= 0) {
+                keys.set(index, keys.get(index).reversed());
+            } else {
+                keys.add(new ResultSorter.SortKey(column, false));
+            }
+        } else if (keys.size() == 1 && index == 0) {
+            keys.set(0, keys.get(0).reversed());
+        } else {
+            keys = new ArrayList<>(List.of(new ResultSorter.SortKey(column, false)));
+        }
+
+        statusLabel.setText(String.format("Sorting %,d rows...", result.getRowCount()));
+        long start = System.nanoTime();
+        List<ResultSorter.SortKey> sortKeys = keys;
+        CompletableFuture<int[]> future = ResultSorter.sortAsync(result, sortKeys);
+        runningSort = future;
+        future.whenComplete((order, error) -> SwingUtilities.invokeLater(() ->
+            onSortFinished(future, result, sortKeys, order, error, System.nanoTime() - start)));
+    }
+
+    /**
+     * Called on the EDT when a sort finishes; dropped if another sort or result replaced it
+     */
+    private void onSortFinished(CompletableFuture<int[]> future, QueryResult result, List<ResultSorter.SortKey> keys,
+                                int[] order, Throwable error, long nanos) {
+        if (future != runningSort) {
+            return;
+        }
+        runningSort = null;
+        if (tableModel.getResult() != result) {
+            return;
+        }
+        if (error != null) {
+            statusLabel.setText("Sort failed: " + error.getMessage());
+            return;
+        }
+        tableModel.setOrder(order, keys);
+        updateSortHeaders();
+        StringBuilder by = new StringBuilder();
+        for (ResultSorter.SortKey key : keys) {
+            by.append(by.length() == 0 ? "" : ", ").append(result.getColumnNames().get(key.getColumn()))
+              .append(key.isDescending() ? " DESC" : " ASC");
+        }
+        statusLabel.setText(keys.isEmpty()
+            ? String.format("Showing %,d rows in query order", result.getRowCount())
+            : String.format("Sorted %,d rows by %s in %.0f ms", result.getRowCount(), by, nanos / 1e6));
+    }
+
+    /**
+     * Marks sorted columns in the header with their direction, numbered when there are several keys
+     */
+    private void updateSortHeaders() {
+        List<ResultSorter.SortKey> keys = tableModel.getSortKeys();
+        for (int view = 0; view < resultTable.getColumnCount(); view++) {
+            TableColumn tableColumn = resultTable.getColumnModel().getColumn(view);
+            int column = tableColumn.getModelIndex();
+            String label = tableModel.getColumnName(column);
+            for (int k = 0; k < keys.size(); k++) {
+                if (keys.get(k).getColumn() == column) {
+                    label += (keys.get(k).isDescending() ? " \u25BC" : " \u25B2") + (keys.size() > 1 ? String.valueOf(k + 1) : "");
+                }
+            }
+            tableColumn.setHeaderValue(label);
+        }
+        resultTable.getTableHeader().repaint();
+    }
+
+    /**
+     * Runs the editor's SQL again and streams every row to a CSV, JSON Lines or Arrow file
+     * The rows never pass through the table, so results far larger than the heap can be
+     * exported. The format follows the chosen file's extension.
+     */
+    private void runExport() {
+        if (currentConfig == null || runningQuery != null || runningFanOut != null || runningExport != null) {
+            return;
+        }
+        String sql = sqlEditor.getText().trim();
+        if (sql.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter a SQL query", "Empty Query", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Results (.csv, .jsonl or .arrow)");
+        chooser.setSelectedFile(new java.io.File("export.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        ExportService.ExportFormat format = ExportService.ExportFormat.forFile(file);
+        ConnectionConfig config = currentConfig;
+
+        executeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        statusLabel.setText("Exporting to " + file.getFileName() + "...");
+
+        runningExport = Thread.ofVirtual().name("export").start(() -> {
+            ExportService.ExportProgress progress = null;
+            Exception error = null;
+            try {
+                // The export holds its own pooled connection until the last row is written
+                Connection connection = ConnectionFactory.getPooledConnection(config);
+                try {
+                    progress = exportService.export(connection, sql, file, format, new ExportService.ExportOptions(),
+                        update -> SwingUtilities.invokeLater(() -> {
+                            if (runningExport != null) {
+                                statusLabel.setText("Exporting to " + file.getFileName() + " - " + update);
+                            }
+                        }));
+                } finally {
+                    connection.close();
+                }
+            } catch (IOException | SQLException e) {
+                error = e;
+            }
+            ExportService.ExportProgress finalProgress = progress;
+            Exception finalError = error;
+            SwingUtilities.invokeLater(() -> onExportFinished(file, finalProgress, finalError));
+        });
+    }
+
+    /**
+     * Called on the EDT when an export completes, fails or is cancelled
+     */
+    private void onExportFinished(Path file, ExportService.ExportProgress progress, Exception error) {
+        runningExport = null;
+        executeButton.setEnabled(currentConfig != null);
+        cancelButton.setEnabled(false);
+        if (error instanceof InterruptedIOException) {
+            statusLabel.setText("Export cancelled");
+        } else if (error != null) {
+            statusLabel.setText("Export failed");
+            JOptionPane.showMessageDialog(this, "Error exporting results: " + error.getMessage(),
+                "Export Error", JOptionPane.ERROR_MESSAGE);
+        } else {
+            statusLabel.setText("Exported " + progress + " to " + file);
+        }
+    }
+
+    /**
+     * Runs the editor's SQL on a list of databases at once and shows the merged rows
+     * Every target uses the username and password from the connection panel.
+     */
+    private void runFanOut() {
+        if (runningQuery != null || runningFanOut != null || runningExport != null || runningExplain != null) {
+            return; // One query at a time
+        }
+        String sql = sqlEditor.getText().trim();
+        if (sql.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter a SQL query", "Empty Query", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        JTextArea urlArea = new JTextArea(fanOutTargets, 10, 50);
+        JSpinner parallelismSpinner = new JSpinner(new SpinnerNumberModel(fanOutParallelism, 1, 256, 1));
+        JSpinner timeoutSpinner = new JSpinner(new SpinnerNumberModel(fanOutTimeoutSeconds, 1, 3600, 1));
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        options.add(new JLabel("Parallel:"));
+        options.add(parallelismSpinner);
+        options.add(new JLabel("Timeout per shard (s):"));
+        options.add(timeoutSpinner);
+        JPanel form = new JPanel(new BorderLayout(0, 5));
+        form.add(new JLabel("JDBC URLs, one per line (optionally name=url):"), BorderLayout.NORTH);
+        form.add(new JScrollPane(urlArea), BorderLayout.CENTER);
+        form.add(options, BorderLayout.SOUTH);
+        if (JOptionPane.showConfirmDialog(this, form, "Run on Shards", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        fanOutTargets = urlArea.getText();
+        fanOutParallelism = (Integer) parallelismSpinner.getValue();
+        fanOutTimeoutSeconds = (Integer) timeoutSpinner.getValue();
+
+        List<ConnectionConfig> targets = new ArrayList<>();
+        for (String line : fanOutTargets.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            boolean named = equals > 0 && !line.substring(0, equals).contains(":");
+            String url = named ? line.substring(equals + 1).trim() : line;
+            String name = named ? line.substring(0, equals).trim() : url;
+            targets.add(createConfig(1000 + targets.size(), name, url));
+        }
+        if (targets.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Please enter at least one JDBC URL", "No Targets", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        executeButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        statusLabel.setText(String.format("Running on %d shards...", targets.size()));
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        tableModel.clear();
+
+        FanOutExecutor executor = new FanOutExecutor(fanOutParallelism, fanOutTimeoutSeconds * 1000L);
+        FanOutExecutor.FanOutHandle[] handle = new FanOutExecutor.FanOutHandle[1];
+        handle[0] = executor.executeAsync(sql, targets, (shard, finished, total) ->
+            SwingUtilities.invokeLater(() -> {
+                if (runningFanOut == handle[0]) {
+                    statusLabel.setText(String.format("Running on shards - %d of %d done, %,d rows",
+                        finished, total, handle[0].getMergedRowCount()));
+                }
+            }));
+        runningFanOut = handle[0];
+        handle[0].getFuture().whenComplete((result, error) ->
+            SwingUtilities.invokeLater(() -> onFanOutFinished(handle[0], result, error)));
+    }
+
+    /**
+     * Called on the EDT when a fan-out completes: shows the merged rows and the per-shard report
+     */
+    private void onFanOutFinished(FanOutExecutor.FanOutHandle handle, FanOutExecutor.FanOutResult result, Throwable error) {
+        if (handle != runningFanOut) {
+            return;
+        }
+        runningFanOut = null;
+        executeButton.setEnabled(currentConfig != null);
+        cancelButton.setEnabled(false);
+        setCursor(Cursor.getDefaultCursor());
+
+        if (error != null) {
+            statusLabel.setText("Fan-out failed");
+            JOptionPane.showMessageDialog(this, "Error running on shards: " + error.getMessage(),
+                "Execution Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        QueryResult merged = result.getMergedResult();
+        historyService.addToHistory(0, merged);
+        displayQueryResult(merged);
+        if (merged.isSuccessful()) {
+            statusLabel.setText("Ran on " + result);
+        }
+        if (!result.getShards().isEmpty()) {
+            showShardReport(result);
+        }
+    }
+
+    /**
+     * Shows the latency and outcome of every shard of a fan-out
+     */
+    private void showShardReport(FanOutExecutor.FanOutResult result) {
+        String[] columns = {"Source", "Status", "Rows", "Connect ms", "First row ms", "Total ms", "Error"};
+        Object[][] rows = new Object[result.getShards().size()][];
+        for (int i = 0; i < rows.length; i++) {
+            FanOutExecutor.ShardResult shard = result.getShards().get(i);
+            String status = shard.getStatus() + (shard.isPartial() ? " (partial)" : "");
+            if (shard.getTruncation() != null) {
+                status += " - " + shard.getTruncation().getDescription();
+            }
+            rows[i] = new Object[]{
+                FanOutExecutor.shardName(shard.getConfig()), status, shard.getRowCount(),
+                shard.getConnectMs() < 0 ? "" : shard.getConnectMs(),
+                shard.getFirstRowMs() < 0 ? "" : shard.getFirstRowMs(),
+                shard.getTotalMs(),
+                shard.getErrorMessage() == null ? "" : shard.getErrorMessage()
+            };
+        }
+        JTable table = new JTable(rows, columns);
+        table.setAutoCreateRowSorter(true);
+        JDialog dialog = new JDialog(this, "Shard Report - " + result, false);
+        dialog.add(new JScrollPane(table));
+        dialog.setSize(900, 300);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Called on the EDT when a background query completes
+     */
+    private void onQueryFinished(QueryHandle handle, int connId, QueryResult result, Throwable error) {
+        if (handle != runningQuery) {
+            return; // A newer query has replaced this one
+        }
+        runningQuery = null;
+        boolean extend = showingPartial;
+        showingPartial = false;
+
+        try {
+            if (error != null) {
+                String errorMsg = "Error executing query: " + error.getMessage();
+                statusLabel.setText("Query execution failed");
+                JOptionPane.showMessageDialog(this, errorMsg, "Execution Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
-            // Execute query
-            QueryResult result = queryExecutor.executeQuery(sql);
-            
             // Add to history
-            historyService.addToHistory(currentConnection.getConfig().getConnId(), result);
+            historyService.addToHistory(connId, result);
+            if (result.isSuccessful() && schemaCache != null) {
+                schemaCache.statementExecuted(result.getSqlQuery()); // Picks up CREATE and DROP
+            }
 
             // Display results
-            displayQueryResult(result);
+            if (handle.isCancelled() && !result.isSuccessful()) {
+                statusLabel.setText(String.format("Query cancelled after %dms", result.getExecutionTimeMs()));
+            } else {
+                long renderStart = System.nanoTime();
+                displayQueryResult(result, extend);
+                recordRenderTime(connId, result, System.nanoTime() - renderStart);
+            }
 
-        } catch (Exception e) {
-            String errorMsg = "Error executing query: " + e.getMessage();
-            statusLabel.setText("Query execution failed");
-            JOptionPane.showMessageDialog(this, errorMsg, "Execution Error", JOptionPane.ERROR_MESSAGE);
-            
         } finally {
             // Always restore UI state
             executeButton.setEnabled(true);
+            cancelButton.setEnabled(false);
             setCursor(Cursor.getDefaultCursor());
         }
     }
 
+    /**
+     * Opens the metrics window
+     */
+    private void showMetrics() {
+        if (metricsDialog == null) {
+            metricsDialog = new JDialog(this, "Query Metrics", false);
+            metricsDialog.add(new MetricsPanel(queryMetrics));
+            metricsDialog.setSize(1100, 300);
+            metricsDialog.setLocationRelativeTo(this);
+        }
+        metricsDialog.setVisible(true);
+    }
+
+    /**
+     * Adds the time taken to show a result to its timings and the connection's metrics
+     */
+    private void recordRenderTime(int connId, QueryResult result, long nanos) {
+        if (result.getTimings() != null) {
+            result.getTimings().add(QueryTimings.Phase.RENDER, nanos);
+            statusLabel.setToolTipText(result.getTimings().toString());
+        }
+        queryMetrics.forConnection(connId, null).recordRender(nanos);
+    }
+
     /**
      * Displays query results in the results table
      * This method handles both successful and failed query results
      */
     private void displayQueryResult(QueryResult result) {
-        if (result.isSuccessful()) {
-            // Display successful results
-            List<String> columnNames = result.getColumnNames();
-            List<List<Object>> rows = result.getRows();
+        displayQueryResult(result, false);
+    }
 
-            // Set up table columns
-            for (String columnName : columnNames) {
-                tableModel.addColumn(columnName);
+    /**
+     * Displays query results, keeping the table's scroll position and column widths when
+     * extend is set and the table already shows the first rows of this result
+     */
+    private void displayQueryResult(QueryResult result, boolean extend) {
+        if (result.isSuccessful()) {
+            // Display successful results - the model reads cells from the result on demand
+            if (extend) {
+                tableModel.extendResult(result);
+            } else {
+                tableModel.setResult(result);
             }
+            chartPanel.setResult(result);
 
-            // Add data rows
-            for (List<Object> row : rows) {
-                Object[] rowArray = row.toArray();
-                tableModel.addRow(rowArray);
+            // Update status
+            String note = result.isFromCache() ? " (cached)" : "";
+            if (result.getStore() != null) {
+                note += String.format(" (%.0f MB spilled to disk)", result.getStore().getSpilledBytes() / (1024.0 * 1024.0));
             }
+            if (result.isTruncated()) {
+                note += " - stopped early by the connection's " + result.getTruncation().getDescription();
+            }
+            statusLabel.setText(String.format("Query executed successfully - %d rows returned in %dms%s",
+                result.getRowCount(), result.getExecutionTimeMs(), note));
 
-            // Update status
-            statusLabel.setText(String.format("Query executed successfully - %d rows returned in %dms", 
-                result.getRowCount(), result.getExecutionTimeMs()));
+            // Auto-resize columns to fit content, unless they were sized for the first rows already
+            if (!extend) {
+                resizeTableColumns();
+            }
 
-            // Auto-resize columns to fit content
-            resizeTableColumns();
+            // Paint now rather than later so the caller can time the whole render
+            resultTable.paintImmediately(resultTable.getVisibleRect());
 
         } else {
             // Display error results
-            tableModel.addColumn("Error");
-            tableModel.addRow(new Object[]{result.getErrorMessage()});
+            tableModel.setResult(new QueryResult(result.getSqlQuery(), List.of("Error"),
+                List.of(List.of(result.getErrorMessage())), result.getExecutionTimeMs()));
             
             statusLabel.setText(String.format("Query failed in %dms", result.getExecutionTimeMs()));
             
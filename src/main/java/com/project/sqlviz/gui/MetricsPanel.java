@@ -0,0 +1,155 @@
+package com.project.sqlviz.gui;
+
+import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.db.PoolStats;
+import com.project.sqlviz.metrics.ConnectionMetrics;
+import com.project.sqlviz.metrics.QueryMetrics;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Panel showing live query latency metrics per connection
+ * Refreshes once a second while it is showing; the same numbers are available
+ * over JMX under the com.project.sqlviz domain. The footer also shows connection
+ * pool usage, which tells whether a pool's maximum size is too small.
+ */
+public class MetricsPanel extends JPanel {
+    private static final int REFRESH_MS = 1000;
+
+    private static final String[] COLUMNS = {
+        "Connection", "Queries", "Errors", "Cache hits", "p50 ms", "p95 ms", "p99 ms", "Max ms",
+        "First row p95 ms", "Execute p95 ms", "Fetch rows/s", "Render p95 ms", "Stmt cache hit %"
+    };
+
+    private final QueryMetrics metrics;
+    private final MetricsTableModel tableModel;
+    private final JLabel cacheLabel;
+    private final JLabel poolLabel;
+    private final Timer refreshTimer;
+
+    /**
+     * Table model with one row per connection's metrics snapshot
+     */
+    private static class MetricsTableModel extends AbstractTableModel {
+        private List<Object[]> rows = new ArrayList<>();
+
+        void setRows(List<Object[]> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return rows.size(); }
+        @Override public int getColumnCount() { return COLUMNS.length; }
+        @Override public String getColumnName(int column) { return COLUMNS[column]; }
+        @Override public Object getValueAt(int row, int column) { return rows.get(row)[column]; }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            if (column == 0) {
+                return String.class;
+            }
+            return column <= 3 ? Long.class : String.class;
+        }
+    }
+
+    public MetricsPanel(QueryMetrics metrics) {
+        super(new BorderLayout());
+        this.metrics = metrics;
+        this.tableModel = new MetricsTableModel();
+
+        JTable table = new JTable(tableModel);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel footer = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        cacheLabel = new JLabel();
+        footer.add(cacheLabel);
+        poolLabel = new JLabel();
+        footer.add(poolLabel);
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        footer.add(resetButton);
+        add(footer, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(REFRESH_MS, e -> refresh());
+        refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * Reads a fresh snapshot of every connection's metrics
+     */
+    public void refresh() {
+        List<Object[]> rows = new ArrayList<>();
+        for (ConnectionMetrics connection : metrics.getAllConnectionMetrics()) {
+            rows.add(new Object[]{
+                connection.getConnectionName() + " (#" + connection.getConnId() + ")",
+                connection.getQueryCount(),
+                connection.getErrorCount(),
+                connection.getCacheHitCount(),
+                ms(connection.getTotalP50Ms()),
+                ms(connection.getTotalP95Ms()),
+                ms(connection.getTotalP99Ms()),
+                ms(connection.getTotalMaxMs()),
+                ms(connection.getTimeToFirstRowP95Ms()),
+                ms(connection.getExecuteP95Ms()),
+                String.format("%,.0f", connection.getFetchRowsPerSecond()),
+                ms(connection.getRenderP95Ms()),
+                String.format("%.1f", connection.getStatementCacheHitRate() * 100)
+            });
+        }
+        tableModel.setRows(rows);
+
+        cacheLabel.setText(String.format("Result cache: %.1f%% hits, %d entries, %.1f MB",
+            metrics.getResultCacheHitRate() * 100, metrics.getResultCacheEntries(),
+            metrics.getResultCacheWeightBytes() / (1024.0 * 1024.0)));
+
+        poolLabel.setText(poolSummary(ConnectionFactory.getAllPoolStats()));
+    }
+
+    /**
+     * One line per pool: usage against its ceiling, wait times, timeouts and leaks
+     */
+    private static String poolSummary(Map<String, PoolStats> pools) {
+        if (pools.isEmpty()) {
+            return "Connection pools: none open";
+        }
+        StringBuilder text = new StringBuilder("<html>");
+        for (Map.Entry<String, PoolStats> entry : pools.entrySet()) {
+            PoolStats stats = entry.getValue();
+            text.append(String.format("Pool %s: %d active, %d idle of %d, %d borrows, wait avg %s ms / max %s ms, "
+                    + "%d timeouts, %d leaks<br>",
+                escape(entry.getKey()), stats.getActive(), stats.getIdle(), stats.getMaxSize(),
+                stats.getBorrowCount(), ms(stats.getAverageWaitMs()), ms(stats.getMaxWaitMs()),
+                stats.getTimeouts(), stats.getLeaksDetected()));
+        }
+        return text.append("</html>").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String ms(double value) {
+        return String.format("%.2f", value);
+    }
+}
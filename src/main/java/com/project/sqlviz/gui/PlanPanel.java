@@ -0,0 +1,180 @@
+package com.project.sqlviz.gui;
+
+import com.project.sqlviz.models.QueryPlan;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.DefaultTreeModel;
+import java.awt.*;
+
+/**
+ * Panel showing a query plan as a tree of operators
+ * Each node shows estimated against actual rows and, for analyzed plans, the time
+ * spent in the node itself with its share of the total. The most expensive nodes
+ * are shown in red, full table or index scans in orange, and row estimates that are
+ * off by 10x or more in bold. Selecting a node shows its conditions and other details.
+ */
+public class PlanPanel extends JPanel {
+    private static final Color HOTSPOT_COLOR = new Color(200, 30, 30);
+    private static final Color FULL_SCAN_COLOR = new Color(190, 100, 0);
+
+    private final JLabel summaryLabel;
+    private final JTree tree;
+    private final JTextArea detailsArea;
+    private QueryPlan plan;
+
+    public PlanPanel() {
+        super(new BorderLayout());
+        summaryLabel = new JLabel("Use Explain to show the plan of the query in the editor");
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        add(summaryLabel, BorderLayout.NORTH);
+
+        tree = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode()));
+        tree.setRootVisible(true);
+        tree.setCellRenderer(new PlanCellRenderer());
+        tree.addTreeSelectionListener(e -> showDetails());
+
+        detailsArea = new JTextArea(6, 40);
+        detailsArea.setEditable(false);
+        detailsArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(tree), new JScrollPane(detailsArea));
+        split.setResizeWeight(0.75);
+        add(split, BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows a plan, fully expanded
+     */
+    public void setPlan(QueryPlan plan) {
+        this.plan = plan;
+        DefaultMutableTreeNode root = buildTree(plan.getRoot());
+        tree.setModel(new DefaultTreeModel(root));
+        for (int row = 0; row < tree.getRowCount(); row++) {
+            tree.expandRow(row);
+        }
+
+        StringBuilder summary = new StringBuilder(plan.toString());
+        if (!Double.isNaN(plan.getPlanningTimeMs())) {
+            summary.append(String.format(", planned in %.1f ms", plan.getPlanningTimeMs()));
+        }
+        int hotspots = plan.getHotspots().size();
+        if (hotspots > 0) {
+            summary.append(String.format(" - %d hotspot%s in red", hotspots, hotspots == 1 ? "" : "s"));
+        }
+        summaryLabel.setText(summary.toString());
+        showDetails();
+    }
+
+    /**
+     * Clears the panel
+     */
+    public void clear() {
+        plan = null;
+        tree.setModel(new DefaultTreeModel(new DefaultMutableTreeNode()));
+        summaryLabel.setText("Use Explain to show the plan of the query in the editor");
+        detailsArea.setText("");
+    }
+
+    private static DefaultMutableTreeNode buildTree(QueryPlan.Node node) {
+        DefaultMutableTreeNode treeNode = new DefaultMutableTreeNode(node);
+        for (QueryPlan.Node child : node.getChildren()) {
+            treeNode.add(buildTree(child));
+        }
+        return treeNode;
+    }
+
+    /**
+     * Shows the selected node's details, or the plan as returned by the database
+     */
+    private void showDetails() {
+        if (plan == null) {
+            detailsArea.setText("");
+            return;
+        }
+        DefaultMutableTreeNode selected = (DefaultMutableTreeNode) tree.getLastSelectedPathComponent();
+        if (selected == null || !(selected.getUserObject() instanceof QueryPlan.Node node)) {
+            detailsArea.setText(plan.getPlanText());
+            detailsArea.setCaretPosition(0);
+            return;
+        }
+        StringBuilder text = new StringBuilder(node.toString()).append('\n');
+        appendNumber(text, "Estimated rows", node.getEstimatedRows());
+        appendNumber(text, "Actual rows", node.getActualRows());
+        appendNumber(text, "Loops", node.getLoops());
+        appendNumber(text, "Cost", node.getCost());
+        appendNumber(text, "Time ms", node.getTimeMs());
+        appendNumber(text, "Self time ms", node.getSelfTimeMs());
+        text.append(String.format("Share of total: %.0f%%%n", plan.getShare(node) * 100));
+        for (String detail : node.getDetails()) {
+            text.append(detail).append('\n');
+        }
+        detailsArea.setText(text.toString());
+        detailsArea.setCaretPosition(0);
+    }
+
+    private static void appendNumber(StringBuilder text, String label, double value) {
+        if (!Double.isNaN(value)) {
+            text.append(String.format("%s: %,.2f%n", label, value));
+        }
+    }
+
+    /**
+     * One line per operator with its numbers, colored by cost and scan type
+     */
+    private class PlanCellRenderer extends DefaultTreeCellRenderer {
+        @Override
+        public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected, boolean expanded,
+                                                      boolean leaf, int row, boolean hasFocus) {
+            super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row, hasFocus);
+            Object userObject = ((DefaultMutableTreeNode) value).getUserObject();
+            if (plan == null || !(userObject instanceof QueryPlan.Node node)) {
+                return this;
+            }
+            setText(describe(node));
+            setFont(tree.getFont().deriveFont(node.isMisestimated() ? Font.BOLD : Font.PLAIN));
+            if (!selected) {
+                if (plan.isHotspot(node)) {
+                    setForeground(HOTSPOT_COLOR);
+                } else if (node.isFullScan()) {
+                    setForeground(FULL_SCAN_COLOR);
+                }
+            }
+            return this;
+        }
+
+        private String describe(QueryPlan.Node node) {
+            StringBuilder text = new StringBuilder(node.toString());
+            if (node.isFullScan()) {
+                text.append(" [full scan]");
+            }
+            double estimated = node.getEstimatedRows();
+            double actual = node.getActualRows();
+            if (!Double.isNaN(estimated) || !Double.isNaN(actual)) {
+                text.append("   rows");
+                if (!Double.isNaN(estimated)) {
+                    text.append(String.format(" est %,.0f", estimated));
+                }
+                if (!Double.isNaN(actual)) {
+                    text.append(String.format(" actual %,.0f", actual));
+                }
+                if (node.getLoops() > 1) {
+                    text.append(String.format(" x%,.0f loops", node.getLoops()));
+                }
+                if (node.isMisestimated()) {
+                    double factor = node.getRowEstimateFactor();
+                    text.append(factor > 1 ? String.format(" (%.0fx under)", factor)
+                                           : String.format(" (%.0fx over)", 1 / factor));
+                }
+            }
+            double share = plan.getShare(node);
+            if (plan.isAnalyzed() && !Double.isNaN(node.getSelfTimeMs())) {
+                text.append(String.format("   %.1f ms self (%.0f%%)", node.getSelfTimeMs(), share * 100));
+            } else if (!Double.isNaN(node.getCost())) {
+                text.append(String.format("   cost %,.1f (%.0f%% self)", node.getCost(), share * 100));
+            }
+            return text.toString();
+        }
+    }
+}
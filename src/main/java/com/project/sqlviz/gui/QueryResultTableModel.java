@@ -0,0 +1,128 @@
+package com.project.sqlviz.gui;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.services.ResultSorter;
+
+import javax.swing.table.AbstractTableModel;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Table model that reads cells straight from a QueryResult
+ * Nothing is copied: JTable only asks for the cells it paints, so showing a
+ * million-row result costs time proportional to the visible rows.
+ * A sorted view is a row permutation from ResultSorter; the result itself is untouched.
+ */
+public class QueryResultTableModel extends AbstractTableModel {
+    private QueryResult result;     // Result being displayed, null when empty
+    private int[] order;            // Result row shown at each view row, null for query order
+    private List<ResultSorter.SortKey> sortKeys = List.of();
+
+    /**
+     * Replaces the displayed result with a single structure-changed event
+     */
+    public void setResult(QueryResult result) {
+        this.result = result;
+        this.order = null;
+        this.sortKeys = List.of();
+        fireTableStructureChanged();
+    }
+
+    /**
+     * Replaces the displayed result with one holding the same columns and more rows
+     * Used while a query is still fetching: only the new rows are announced, so the
+     * scroll position, selection and column widths stay as they are. Anything else
+     * falls back to setResult.
+     */
+    public void extendResult(QueryResult grown) {
+        int oldRows = getRowCount();
+        if (result == null || order != null || !result.isSuccessful() || !grown.isSuccessful()
+                || !grown.getColumnNames().equals(result.getColumnNames()) || grown.getRowCount() < oldRows) {
+            setResult(grown);
+            return;
+        }
+        this.result = grown;
+        if (grown.getRowCount() > oldRows) {
+            fireTableRowsInserted(oldRows, grown.getRowCount() - 1);
+        }
+    }
+
+    /**
+     * Shows the result rows in a new order without changing the columns
+     *
+     * @param order permutation from ResultSorter.sort, or null for query order
+     * @param keys  the keys the permutation was sorted by, for display
+     */
+    public void setOrder(int[] order, List<ResultSorter.SortKey> keys) {
+        if (order != null && order.length != getRowCount()) {
+            throw new IllegalArgumentException("Order has " + order.length + " rows, result has " + getRowCount());
+        }
+        this.order = order;
+        this.sortKeys = order == null ? List.of() : List.copyOf(keys);
+        fireTableDataChanged();
+    }
+
+    public List<ResultSorter.SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Maps a view row to the row of the underlying result
+     */
+    public int getResultRow(int row) {
+        return order == null ? row : order[row];
+    }
+
+    /**
+     * Removes all rows and columns
+     */
+    public void clear() {
+        setResult(null);
+    }
+
+    public QueryResult getResult() {
+        return result;
+    }
+
+    @Override
+    public int getRowCount() {
+        return result == null || !result.isSuccessful() ? 0 : result.getRowCount();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return result == null || !result.isSuccessful() ? 0 : result.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return result.getColumnNames().get(column);
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return result.getValueAt(order == null ? row : order[row], column);
+    }
+
+    /**
+     * Reports the column's Java type so JTable picks a matching renderer
+     * Only columnar results know their types; row-based ones stay Object
+     */
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (result == null || !result.isColumnar()) {
+            return Object.class;
+        }
+        ColumnVector.ColumnType type = result.getColumn(column).getType();
+        switch (type) {
+            case INT: return Integer.class;
+            case LONG: return Long.class;
+            case DOUBLE: return Double.class;
+            case BOOLEAN: return Boolean.class;
+            case TIMESTAMP: return Timestamp.class;
+            case STRING: return String.class;
+            default: return Object.class;
+        }
+    }
+}
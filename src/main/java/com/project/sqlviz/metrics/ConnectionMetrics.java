@@ -0,0 +1,132 @@
+package com.project.sqlviz.metrics;
+
+import com.project.sqlviz.db.StatementCache;
+import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.models.QueryTimings;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Latency histograms and counters for the queries run on one connection
+ * Every query's phase timings go into a histogram per phase; results served
+ * from the result cache only count towards the cache-hit counter and total latency.
+ */
+public class ConnectionMetrics implements ConnectionMetricsMXBean {
+    private final int connId;
+    private volatile String connectionName;
+    private volatile Supplier<StatementCache.Stats> statementCacheStats;  // Null until an executor reports it
+
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstRow = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+    private final LatencyHistogram fetch = new LatencyHistogram();
+    private final LatencyHistogram render = new LatencyHistogram();
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong rowsFetched = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+
+    public ConnectionMetrics(int connId, String connectionName) {
+        this.connId = connId;
+        this.connectionName = connectionName;
+    }
+
+    /**
+     * Records a finished query
+     */
+    public void record(QueryResult result) {
+        queries.incrementAndGet();
+        if (!result.isSuccessful()) {
+            errors.incrementAndGet();
+        }
+        QueryTimings timings = result.getTimings();
+        if (timings == null) {
+            total.record(result.getExecutionTimeMs() * 1_000_000);
+            return;
+        }
+        total.record(timings.getTotalNanos());
+        if (result.isFromCache()) {
+            cacheHits.incrementAndGet();
+            return;
+        }
+        timeToFirstRow.record(timings.getTimeToFirstRowNanos());
+        execute.record(timings.getPhaseNanos(QueryTimings.Phase.EXECUTE));
+        long fetched = timings.getPhaseNanos(QueryTimings.Phase.FETCH);
+        if (fetched > 0) {
+            fetch.record(fetched);
+            fetchNanos.addAndGet(fetched);
+            rowsFetched.addAndGet(timings.getRowsFetched());
+        }
+    }
+
+    /**
+     * Records how long the UI took to display a result
+     */
+    public void recordRender(long nanos) {
+        render.record(nanos);
+    }
+
+    public int getConnId() { return connId; }
+    public void setConnectionName(String connectionName) { this.connectionName = connectionName; }
+    public void setStatementCacheStats(Supplier<StatementCache.Stats> statementCacheStats) {
+        this.statementCacheStats = statementCacheStats;
+    }
+
+    public LatencyHistogram getTotalHistogram() { return total; }
+    public LatencyHistogram getTimeToFirstRowHistogram() { return timeToFirstRow; }
+    public LatencyHistogram getExecuteHistogram() { return execute; }
+    public LatencyHistogram getFetchHistogram() { return fetch; }
+    public LatencyHistogram getRenderHistogram() { return render; }
+
+    @Override public String getConnectionName() { return connectionName; }
+    @Override public long getQueryCount() { return queries.get(); }
+    @Override public long getErrorCount() { return errors.get(); }
+    @Override public long getCacheHitCount() { return cacheHits.get(); }
+    @Override public long getRowsFetched() { return rowsFetched.get(); }
+
+    @Override public double getTotalMeanMs() { return total.getMeanNanos() / 1e6; }
+    @Override public double getTotalP50Ms() { return total.getPercentileMs(50); }
+    @Override public double getTotalP95Ms() { return total.getPercentileMs(95); }
+    @Override public double getTotalP99Ms() { return total.getPercentileMs(99); }
+    @Override public double getTotalMaxMs() { return total.getMaxNanos() / 1e6; }
+
+    @Override public double getTimeToFirstRowP50Ms() { return timeToFirstRow.getPercentileMs(50); }
+    @Override public double getTimeToFirstRowP95Ms() { return timeToFirstRow.getPercentileMs(95); }
+    @Override public double getExecuteP95Ms() { return execute.getPercentileMs(95); }
+    @Override public double getFetchP95Ms() { return fetch.getPercentileMs(95); }
+    @Override public double getRenderP95Ms() { return render.getPercentileMs(95); }
+
+    @Override
+    public double getFetchRowsPerSecond() {
+        long nanos = fetchNanos.get();
+        return nanos == 0 ? 0 : rowsFetched.get() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public double getStatementCacheHitRate() {
+        Supplier<StatementCache.Stats> stats = statementCacheStats;
+        return stats == null ? 0 : stats.get().getHitRate();
+    }
+
+    @Override
+    public long getStatementCacheSize() {
+        Supplier<StatementCache.Stats> stats = statementCacheStats;
+        return stats == null ? 0 : stats.get().getSize();
+    }
+
+    @Override
+    public void reset() {
+        total.reset();
+        timeToFirstRow.reset();
+        execute.reset();
+        fetch.reset();
+        render.reset();
+        queries.set(0);
+        errors.set(0);
+        cacheHits.set(0);
+        rowsFetched.set(0);
+        fetchNanos.set(0);
+    }
+}
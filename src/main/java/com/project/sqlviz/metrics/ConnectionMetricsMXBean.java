@@ -0,0 +1,31 @@
+package com.project.sqlviz.metrics;
+
+/**
+ * JMX view of one connection's query metrics
+ * Registered as com.project.sqlviz:type=ConnectionMetrics,connId=N
+ */
+public interface ConnectionMetricsMXBean {
+    String getConnectionName();
+    long getQueryCount();
+    long getErrorCount();
+    long getCacheHitCount();
+    long getRowsFetched();
+
+    double getTotalMeanMs();
+    double getTotalP50Ms();
+    double getTotalP95Ms();
+    double getTotalP99Ms();
+    double getTotalMaxMs();
+
+    double getTimeToFirstRowP50Ms();
+    double getTimeToFirstRowP95Ms();
+    double getExecuteP95Ms();
+    double getFetchP95Ms();
+    double getRenderP95Ms();
+    double getFetchRowsPerSecond();
+
+    double getStatementCacheHitRate();
+    long getStatementCacheSize();
+
+    void reset();
+}
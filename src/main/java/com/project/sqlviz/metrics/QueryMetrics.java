@@ -0,0 +1,183 @@
+package com.project.sqlviz.metrics;
+
+import com.project.sqlviz.services.ResultCache;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of query metrics for all connections
+ * Executors record finished queries here and the UI records render times; the
+ * metrics panel and JMX clients read the same histograms. Call registerMBeans()
+ * to publish them on the platform MBean server.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+    private static final String DOMAIN = "com.project.sqlviz";
+
+    private final Map<Integer, ConnectionMetrics> connections;
+    private volatile ResultCache resultCache;   // Optional, for cache statistics
+    private volatile boolean registered;        // Whether MBeans are published
+
+    public QueryMetrics() {
+        this.connections = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the metrics for a connection, creating (and publishing) them on first use
+     */
+    public ConnectionMetrics forConnection(int connId, String connectionName) {
+        ConnectionMetrics metrics = connections.get(connId);
+        if (metrics == null) {
+            metrics = connections.computeIfAbsent(connId, id -> new ConnectionMetrics(id, connectionName));
+            if (registered) {
+                register(metrics);
+            }
+        } else if (connectionName != null && !connectionName.equals(metrics.getConnectionName())) {
+            metrics.setConnectionName(connectionName);
+        }
+        return metrics;
+    }
+
+    /**
+     * Gets the metrics for a connection, or null if nothing has been recorded for it
+     */
+    public ConnectionMetrics getConnectionMetrics(int connId) {
+        return connections.get(connId);
+    }
+
+    /**
+     * Gets the metrics of every connection, ordered by connection ID
+     */
+    public List<ConnectionMetrics> getAllConnectionMetrics() {
+        List<ConnectionMetrics> all = new ArrayList<>(connections.values());
+        all.sort(Comparator.comparingInt(ConnectionMetrics::getConnId));
+        return all;
+    }
+
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Publishes this registry and every connection's metrics as platform MXBeans
+     */
+    public synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":type=QueryMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Warning: could not register query metrics MBean: " + e.getMessage());
+        }
+        for (ConnectionMetrics metrics : connections.values()) {
+            register(metrics);
+        }
+    }
+
+    /**
+     * Removes every MBean published by registerMBeans()
+     */
+    public synchronized void unregisterMBeans() {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            List<ObjectName> names = new ArrayList<>();
+            names.add(new ObjectName(DOMAIN + ":type=QueryMetrics"));
+            for (ConnectionMetrics metrics : connections.values()) {
+                names.add(connectionName(metrics.getConnId()));
+            }
+            for (ObjectName name : names) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException e) {
+            System.err.println("Warning: could not unregister query metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long getQueryCount() {
+        return connections.values().stream().mapToLong(ConnectionMetrics::getQueryCount).sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return connections.values().stream().mapToLong(ConnectionMetrics::getErrorCount).sum();
+    }
+
+    @Override
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public double getResultCacheHitRate() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.getStats().getHitRate();
+    }
+
+    @Override
+    public long getResultCacheHits() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.getStats().getHits();
+    }
+
+    @Override
+    public long getResultCacheMisses() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.getStats().getMisses();
+    }
+
+    @Override
+    public int getResultCacheEntries() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.getStats().getEntryCount();
+    }
+
+    @Override
+    public long getResultCacheWeightBytes() {
+        ResultCache cache = resultCache;
+        return cache == null ? 0 : cache.getStats().getWeightBytes();
+    }
+
+    @Override
+    public void reset() {
+        connections.values().forEach(ConnectionMetrics::reset);
+    }
+
+    private synchronized void register(ConnectionMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = connectionName(metrics.getConnId());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Warning: could not register connection metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private static ObjectName connectionName(int connId) throws JMException {
+        return new ObjectName(DOMAIN + ":type=ConnectionMetrics,connId=" + connId);
+    }
+}
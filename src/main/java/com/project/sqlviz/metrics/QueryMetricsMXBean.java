@@ -0,0 +1,19 @@
+package com.project.sqlviz.metrics;
+
+/**
+ * JMX view of metrics shared by all connections
+ * Registered as com.project.sqlviz:type=QueryMetrics
+ */
+public interface QueryMetricsMXBean {
+    long getQueryCount();
+    long getErrorCount();
+    int getConnectionCount();
+
+    double getResultCacheHitRate();
+    long getResultCacheHits();
+    long getResultCacheMisses();
+    int getResultCacheEntries();
+    long getResultCacheWeightBytes();
+
+    void reset();
+}
@@ -0,0 +1,820 @@
+package com.project.sqlviz.models;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Growable, typed storage for one result column
+ * Numeric, boolean and timestamp values are kept in primitive arrays with a separate
+ * null bitmap, so a result column costs about as much memory as the raw data.
+ * Each subclass reads its values with the matching typed ResultSet getter instead of getObject.
+ */
+public abstract class ColumnVector implements Cloneable {
+
+    /**
+     * Physical storage type of a column
+     */
+    public enum ColumnType {
+        INT,        // int[] storage
+        LONG,       // long[] storage
+        DOUBLE,     // double[] storage
+        BOOLEAN,    // bit-packed storage
+        TIMESTAMP,  // epoch millis + nanos storage
+        STRING,     // String[] storage
+        OBJECT      // Fallback for everything else (DECIMAL, DATE, BLOB, ...)
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    protected int size;          // Number of values stored
+    protected int capacity;      // Current capacity of the backing arrays
+    private long[] nulls;        // One bit per row, set when the value is SQL NULL
+
+    protected ColumnVector(int initialCapacity) {
+        this.capacity = Math.max(initialCapacity, 1);
+        this.nulls = new long[wordsFor(capacity)];
+    }
+
+    /**
+     * Creates the best vector for a result column based on its JDBC type
+     */
+    public static ColumnVector forColumn(ResultSetMetaData metaData, int column) throws SQLException {
+        int sqlType = metaData.getColumnType(column);
+        boolean signed = metaData.isSigned(column);
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+                return new IntVector(INITIAL_CAPACITY);
+            case Types.INTEGER:
+                // Unsigned 32-bit values do not fit in an int
+                return signed ? new IntVector(INITIAL_CAPACITY) : new LongVector(INITIAL_CAPACITY);
+            case Types.BIGINT:
+                // Unsigned 64-bit values do not fit in a long
+                return signed ? new LongVector(INITIAL_CAPACITY) : new ObjectVector(INITIAL_CAPACITY);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new DoubleVector(INITIAL_CAPACITY);
+            case Types.BOOLEAN:
+                return new BooleanVector(INITIAL_CAPACITY);
+            case Types.BIT:
+                // BIT(n > 1) is a byte string, not a flag
+                return metaData.getPrecision(column) <= 1
+                    ? new BooleanVector(INITIAL_CAPACITY) : new ObjectVector(INITIAL_CAPACITY);
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return new TimestampVector(INITIAL_CAPACITY);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return new StringVector(INITIAL_CAPACITY);
+            default:
+                return new ObjectVector(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Creates an empty vector of the given storage type
+     */
+    public static ColumnVector create(ColumnType type, int initialCapacity) {
+        switch (type) {
+            case INT: return new IntVector(initialCapacity);
+            case LONG: return new LongVector(initialCapacity);
+            case DOUBLE: return new DoubleVector(initialCapacity);
+            case BOOLEAN: return new BooleanVector(initialCapacity);
+            case TIMESTAMP: return new TimestampVector(initialCapacity);
+            case STRING: return new StringVector(initialCapacity);
+            default: return new ObjectVector(initialCapacity);
+        }
+    }
+
+    /**
+     * Reads a vector written by encode
+     * The buffer must be little-endian and is left positioned after the vector.
+     */
+    static ColumnVector decode(ByteBuffer in, ColumnType type, int rows) {
+        ColumnVector vector = create(type, rows);
+        long[] words = new long[wordsFor(rows)];
+        in.asLongBuffer().get(words);
+        in.position(in.position() + words.length * 8);
+        System.arraycopy(words, 0, vector.nulls, 0, words.length);
+        vector.decodeValues(in, rows);
+        vector.size = rows;
+        return vector;
+    }
+
+    // Getters
+    public int size() { return size; }
+    public abstract ColumnType getType();
+
+    /**
+     * Whether values can be read with getDouble without boxing
+     */
+    public boolean isNumeric() { return false; }
+
+    /**
+     * View of the first rows that shares this vector's arrays instead of copying them
+     * Rows are only ever appended and full arrays are replaced rather than resized, so
+     * the view stays valid while this vector keeps growing on another thread, as long as
+     * it is handed over with a happens-before edge such as SwingUtilities.invokeLater.
+     * Appending to the view copies its arrays first.
+     */
+    public ColumnVector snapshot(int rows) {
+        if (rows < 0 || rows > size) {
+            throw new IndexOutOfBoundsException("Snapshot of " + rows + " rows from column of size " + size);
+        }
+        try {
+            ColumnVector view = (ColumnVector) clone();
+            view.size = rows;
+            view.capacity = rows;
+            return view;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Checks whether the value at a row is SQL NULL
+     */
+    public boolean isNull(int row) {
+        checkIndex(row);
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Reads the current row's value from the ResultSet and appends it
+     */
+    public void readFrom(ResultSet rs, int column) throws SQLException {
+        ensureCapacity(size + 1);
+        readValue(rs, column, size);
+        if (rs.wasNull()) {
+            nulls[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    /**
+     * Appends a boxed value - used when converting row-based results
+     */
+    public void append(Object value) {
+        ensureCapacity(size + 1);
+        if (value == null) {
+            nulls[size >>> 6] |= 1L << size;
+        } else {
+            setValue(size, value);
+        }
+        size++;
+    }
+
+    /**
+     * Appends rows [from, to) of another column
+     * A column of the same class is copied array to array. INT into LONG and numbers into
+     * DOUBLE are widened without boxing; any other mix goes through boxed values.
+     */
+    public void appendRange(ColumnVector source, int from, int to) {
+        if (from < 0 || from > to || to > source.size) {
+            throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " out of range for column of size " + source.size);
+        }
+        ensureCapacity(size + to - from);
+        boolean sameClass = source.getClass() == getClass();
+        for (int row = from, dest = size; row < to; row++, dest++) {
+            if (sameClass ? source.isNullUnchecked(row) : source.isNull(row)) {
+                nulls[dest >>> 6] |= 1L << dest;
+            } else if (!sameClass) {
+                convertValue(source, row, dest);
+            }
+        }
+        if (sameClass) {
+            copyValues(source, from, to, size);
+        }
+        size += to - from;
+    }
+
+    /**
+     * Returns the value at a row as an object, or null for SQL NULL
+     * Prefer the typed getters in hot loops - this boxes primitives
+     */
+    public Object get(int row) {
+        return isNull(row) ? null : getValue(row);
+    }
+
+    /**
+     * Returns a numeric value without boxing
+     * Only supported when isNumeric() is true
+     */
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException(getType() + " column is not numeric");
+    }
+
+    /**
+     * Rough heap footprint of this column in bytes
+     */
+    public long estimateSizeBytes() {
+        return 16L + nulls.length * 8L + dataSizeBytes();
+    }
+
+    /**
+     * Upper bound on the bytes encode writes for rows [from, to)
+     */
+    long encodedSizeBytes(int from, int to) {
+        return wordsFor(to - from) * 8L + encodedValuesSize(from, to);
+    }
+
+    /**
+     * Writes rows [from, to) to a little-endian buffer: the null bitmap, then the values
+     */
+    void encode(ByteBuffer out, int from, int to) {
+        putBits(out, nulls, from, to);
+        encodeValues(out, from, to);
+    }
+
+    abstract long encodedValuesSize(int from, int to);
+    abstract void encodeValues(ByteBuffer out, int from, int to);
+    abstract void decodeValues(ByteBuffer in, int rows);
+
+    /**
+     * Copies rows [from, to) of a column of the same type to rows starting at dest
+     */
+    abstract void copyValues(ColumnVector source, int from, int to, int dest);
+
+    /**
+     * Stores a non-null value from a column of another type
+     */
+    void convertValue(ColumnVector source, int row, int dest) {
+        setValue(dest, source.getValue(row));
+    }
+
+    protected abstract void readValue(ResultSet rs, int column, int row) throws SQLException;
+    protected abstract void setValue(int row, Object value);
+    protected abstract Object getValue(int row);
+    protected abstract void grow(int newCapacity);
+    protected abstract long dataSizeBytes();
+
+    /**
+     * Null check without the bounds check, for rows being decoded
+     */
+    boolean isNullUnchecked(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    protected void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for column of size " + size);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity + (capacity >> 1));
+        grow(newCapacity);
+        nulls = Arrays.copyOf(nulls, wordsFor(newCapacity));
+        capacity = newCapacity;
+    }
+
+    private static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Writes bits [from, to) of a bitmap shifted down to start at bit 0
+     */
+    private static void putBits(ByteBuffer out, long[] bits, int from, int to) {
+        long[] words = new long[wordsFor(to - from)];
+        for (int row = from; row < to; row++) {
+            if ((bits[row >>> 6] & (1L << row)) != 0) {
+                int bit = row - from;
+                words[bit >>> 6] |= 1L << bit;
+            }
+        }
+        out.asLongBuffer().put(words);
+        out.position(out.position() + words.length * 8);
+    }
+
+    /**
+     * 32-bit integer column (TINYINT, SMALLINT, INTEGER)
+     */
+    public static class IntVector extends ColumnVector {
+        private int[] values;
+
+        public IntVector(int initialCapacity) {
+            super(initialCapacity);
+            this.values = new int[capacity];
+        }
+
+        public int getInt(int row) {
+            checkIndex(row);
+            return values[row];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.INT; }
+        @Override public boolean isNumeric() { return true; }
+        @Override public double getDouble(int row) { return getInt(row); }
+        @Override protected void readValue(ResultSet rs, int column, int row) throws SQLException { values[row] = rs.getInt(column); }
+        @Override protected void setValue(int row, Object value) { values[row] = ((Number) value).intValue(); }
+        @Override void copyValues(ColumnVector source, int from, int to, int dest) { System.arraycopy(((IntVector) source).values, from, values, dest, to - from); }
+        @Override protected Object getValue(int row) { return values[row]; }
+        @Override protected void grow(int newCapacity) { values = Arrays.copyOf(values, newCapacity); }
+        @Override protected long dataSizeBytes() { return 16L + values.length * 4L; }
+        @Override long encodedValuesSize(int from, int to) { return (to - from) * 4L; }
+
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            out.asIntBuffer().put(values, from, to - from);
+            out.position(out.position() + (to - from) * 4);
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            in.asIntBuffer().get(values, 0, rows);
+            in.position(in.position() + rows * 4);
+        }
+    }
+
+    /**
+     * 64-bit integer column (BIGINT, unsigned INTEGER)
+     */
+    public static class LongVector extends ColumnVector {
+        private long[] values;
+
+        public LongVector(int initialCapacity) {
+            super(initialCapacity);
+            this.values = new long[capacity];
+        }
+
+        public long getLong(int row) {
+            checkIndex(row);
+            return values[row];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.LONG; }
+        @Override public boolean isNumeric() { return true; }
+        @Override public double getDouble(int row) { return getLong(row); }
+        @Override protected void readValue(ResultSet rs, int column, int row) throws SQLException { values[row] = rs.getLong(column); }
+        @Override protected void setValue(int row, Object value) { values[row] = ((Number) value).longValue(); }
+        @Override void copyValues(ColumnVector source, int from, int to, int dest) { System.arraycopy(((LongVector) source).values, from, values, dest, to - from); }
+
+        @Override
+        void convertValue(ColumnVector source, int row, int dest) {
+            if (source instanceof IntVector ints) {
+                values[dest] = ints.values[row];
+            } else {
+                super.convertValue(source, row, dest);
+            }
+        }
+
+        @Override protected Object getValue(int row) { return values[row]; }
+        @Override protected void grow(int newCapacity) { values = Arrays.copyOf(values, newCapacity); }
+        @Override protected long dataSizeBytes() { return 16L + values.length * 8L; }
+        @Override long encodedValuesSize(int from, int to) { return (to - from) * 8L; }
+
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            out.asLongBuffer().put(values, from, to - from);
+            out.position(out.position() + (to - from) * 8);
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            in.asLongBuffer().get(values, 0, rows);
+            in.position(in.position() + rows * 8);
+        }
+    }
+
+    /**
+     * Floating point column (REAL, FLOAT, DOUBLE)
+     */
+    public static class DoubleVector extends ColumnVector {
+        private double[] values;
+
+        public DoubleVector(int initialCapacity) {
+            super(initialCapacity);
+            this.values = new double[capacity];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.DOUBLE; }
+        @Override public boolean isNumeric() { return true; }
+        @Override public double getDouble(int row) { checkIndex(row); return values[row]; }
+        @Override protected void readValue(ResultSet rs, int column, int row) throws SQLException { values[row] = rs.getDouble(column); }
+        @Override protected void setValue(int row, Object value) { values[row] = ((Number) value).doubleValue(); }
+        @Override void copyValues(ColumnVector source, int from, int to, int dest) { System.arraycopy(((DoubleVector) source).values, from, values, dest, to - from); }
+
+        @Override
+        void convertValue(ColumnVector source, int row, int dest) {
+            if (source instanceof IntVector || source instanceof LongVector) {
+                values[dest] = source.getDouble(row);
+            } else {
+                super.convertValue(source, row, dest);
+            }
+        }
+
+        @Override protected Object getValue(int row) { return values[row]; }
+        @Override protected void grow(int newCapacity) { values = Arrays.copyOf(values, newCapacity); }
+        @Override protected long dataSizeBytes() { return 16L + values.length * 8L; }
+        @Override long encodedValuesSize(int from, int to) { return (to - from) * 8L; }
+
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            out.asDoubleBuffer().put(values, from, to - from);
+            out.position(out.position() + (to - from) * 8);
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            in.asDoubleBuffer().get(values, 0, rows);
+            in.position(in.position() + rows * 8);
+        }
+    }
+
+    /**
+     * Boolean column stored one bit per row
+     */
+    public static class BooleanVector extends ColumnVector {
+        private long[] bits;
+
+        public BooleanVector(int initialCapacity) {
+            super(initialCapacity);
+            this.bits = new long[wordsFor(capacity)];
+        }
+
+        public boolean getBoolean(int row) {
+            checkIndex(row);
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override public ColumnType getType() { return ColumnType.BOOLEAN; }
+        @Override protected void readValue(ResultSet rs, int column, int row) throws SQLException { set(row, rs.getBoolean(column)); }
+        @Override protected void setValue(int row, Object value) { set(row, (Boolean) value); }
+        @Override protected Object getValue(int row) { return (bits[row >>> 6] & (1L << row)) != 0; }
+        @Override protected void grow(int newCapacity) { bits = Arrays.copyOf(bits, wordsFor(newCapacity)); }
+        @Override protected long dataSizeBytes() { return 16L + bits.length * 8L; }
+        @Override long encodedValuesSize(int from, int to) { return wordsFor(to - from) * 8L; }
+        @Override void encodeValues(ByteBuffer out, int from, int to) { putBits(out, bits, from, to); }
+
+        @Override
+        void copyValues(ColumnVector source, int from, int to, int dest) {
+            long[] sourceBits = ((BooleanVector) source).bits;
+            for (int row = from; row < to; row++, dest++) {
+                set(dest, (sourceBits[row >>> 6] & (1L << row)) != 0);
+            }
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            int words = wordsFor(rows);
+            in.asLongBuffer().get(bits, 0, words);
+            in.position(in.position() + words * 8);
+        }
+
+        private void set(int row, boolean value) {
+            if (value) {
+                bits[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    /**
+     * Timestamp column stored as epoch milliseconds plus sub-millisecond nanos
+     */
+    public static class TimestampVector extends ColumnVector {
+        private long[] millis;
+        private int[] nanos;
+
+        public TimestampVector(int initialCapacity) {
+            super(initialCapacity);
+            this.millis = new long[capacity];
+            this.nanos = new int[capacity];
+        }
+
+        public long getEpochMillis(int row) {
+            checkIndex(row);
+            return millis[row];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.TIMESTAMP; }
+        @Override public boolean isNumeric() { return true; }
+        @Override public double getDouble(int row) { return getEpochMillis(row); }
+
+        @Override
+        protected void readValue(ResultSet rs, int column, int row) throws SQLException {
+            Timestamp ts = rs.getTimestamp(column);
+            if (ts != null) {
+                setValue(row, ts);
+            }
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            Timestamp ts = value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime());
+            millis[row] = ts.getTime();
+            nanos[row] = ts.getNanos();
+        }
+
+        @Override
+        protected Object getValue(int row) {
+            Timestamp ts = new Timestamp(millis[row]);
+            ts.setNanos(nanos[row]);
+            return ts;
+        }
+
+        @Override
+        protected void grow(int newCapacity) {
+            millis = Arrays.copyOf(millis, newCapacity);
+            nanos = Arrays.copyOf(nanos, newCapacity);
+        }
+
+        @Override
+        void copyValues(ColumnVector source, int from, int to, int dest) {
+            TimestampVector timestamps = (TimestampVector) source;
+            System.arraycopy(timestamps.millis, from, millis, dest, to - from);
+            System.arraycopy(timestamps.nanos, from, nanos, dest, to - from);
+        }
+
+        @Override protected long dataSizeBytes() { return 32L + millis.length * 12L; }
+        @Override long encodedValuesSize(int from, int to) { return (to - from) * 12L; }
+
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            int rows = to - from;
+            out.asLongBuffer().put(millis, from, rows);
+            out.position(out.position() + rows * 8);
+            out.asIntBuffer().put(nanos, from, rows);
+            out.position(out.position() + rows * 4);
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            in.asLongBuffer().get(millis, 0, rows);
+            in.position(in.position() + rows * 8);
+            in.asIntBuffer().get(nanos, 0, rows);
+            in.position(in.position() + rows * 4);
+        }
+    }
+
+    /**
+     * Character column (CHAR, VARCHAR, ...)
+     */
+    public static class StringVector extends ColumnVector {
+        private String[] values;
+        private long charCount;   // Total characters stored, for size estimates
+
+        public StringVector(int initialCapacity) {
+            super(initialCapacity);
+            this.values = new String[capacity];
+        }
+
+        public String getString(int row) {
+            checkIndex(row);
+            return values[row];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.STRING; }
+
+        @Override
+        protected void readValue(ResultSet rs, int column, int row) throws SQLException {
+            String value = rs.getString(column);
+            values[row] = value;
+            if (value != null) {
+                charCount += value.length();
+            }
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            String text = value.toString();
+            values[row] = text;
+            charCount += text.length();
+        }
+
+        @Override
+        void copyValues(ColumnVector source, int from, int to, int dest) {
+            String[] sourceValues = ((StringVector) source).values;
+            System.arraycopy(sourceValues, from, values, dest, to - from);
+            for (int row = from; row < to; row++) {
+                if (sourceValues[row] != null) {
+                    charCount += sourceValues[row].length();
+                }
+            }
+        }
+
+        @Override protected Object getValue(int row) { return values[row]; }
+        @Override protected void grow(int newCapacity) { values = Arrays.copyOf(values, newCapacity); }
+        @Override protected long dataSizeBytes() { return 16L + values.length * 8L + size * 40L + charCount; }
+
+        @Override
+        long encodedValuesSize(int from, int to) {
+            long chars = 0;
+            for (int row = from; row < to; row++) {
+                chars += values[row] == null ? 0 : values[row].length();
+            }
+            return (to - from + 1) * 4L + chars * 2;
+        }
+
+        /**
+         * Char offsets of each value, then all characters as UTF-16
+         */
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            int offset = 0;
+            for (int row = from; row < to; row++) {
+                out.putInt(offset);
+                offset += values[row] == null ? 0 : values[row].length();
+            }
+            out.putInt(offset);
+            for (int row = from; row < to; row++) {
+                String value = values[row];
+                if (value != null) {
+                    for (int i = 0; i < value.length(); i++) {
+                        out.putChar(value.charAt(i));
+                    }
+                }
+            }
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            int[] offsets = new int[rows + 1];
+            in.asIntBuffer().get(offsets);
+            in.position(in.position() + offsets.length * 4);
+            char[] chars = new char[offsets[rows]];
+            in.asCharBuffer().get(chars);
+            in.position(in.position() + chars.length * 2);
+            for (int row = 0; row < rows; row++) {
+                if (!isNullUnchecked(row)) {
+                    values[row] = new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+                }
+            }
+            charCount = chars.length;
+        }
+    }
+
+    /**
+     * Fallback column holding boxed objects for types without a primitive representation
+     * When encoded, common JDBC value types keep their class; anything else is kept
+     * as its toString().
+     */
+    public static class ObjectVector extends ColumnVector {
+        // Tags identifying the class of an encoded value
+        private static final byte TAG_STRING = 0;
+        private static final byte TAG_BIG_DECIMAL = 1;
+        private static final byte TAG_BIG_INTEGER = 2;
+        private static final byte TAG_LONG = 3;
+        private static final byte TAG_INTEGER = 4;
+        private static final byte TAG_DOUBLE = 5;
+        private static final byte TAG_FLOAT = 6;
+        private static final byte TAG_BOOLEAN = 7;
+        private static final byte TAG_DATE = 8;
+        private static final byte TAG_TIME = 9;
+        private static final byte TAG_TIMESTAMP = 10;
+        private static final byte TAG_BYTES = 11;
+
+        private Object[] values;
+
+        public ObjectVector(int initialCapacity) {
+            super(initialCapacity);
+            this.values = new Object[capacity];
+        }
+
+        @Override public ColumnType getType() { return ColumnType.OBJECT; }
+        @Override protected void readValue(ResultSet rs, int column, int row) throws SQLException { values[row] = rs.getObject(column); }
+        @Override protected void setValue(int row, Object value) { values[row] = value; }
+        @Override void copyValues(ColumnVector source, int from, int to, int dest) { System.arraycopy(((ObjectVector) source).values, from, values, dest, to - from); }
+        @Override protected Object getValue(int row) { return values[row]; }
+        @Override protected void grow(int newCapacity) { values = Arrays.copyOf(values, newCapacity); }
+        @Override protected long dataSizeBytes() { return 16L + values.length * 8L + size * 32L; }
+
+        @Override
+        long encodedValuesSize(int from, int to) {
+            long total = 0;
+            for (int row = from; row < to; row++) {
+                Object value = values[row];
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof BigDecimal) {
+                    total += 9 + ((BigDecimal) value).unscaledValue().bitLength() / 8 + 1;
+                } else if (value instanceof BigInteger) {
+                    total += 5 + ((BigInteger) value).bitLength() / 8 + 1;
+                } else if (value instanceof Timestamp) {
+                    total += 13;
+                } else if (value instanceof Long || value instanceof Double
+                           || value instanceof Time || value instanceof java.sql.Date) {
+                    total += 9;
+                } else if (value instanceof Integer || value instanceof Float) {
+                    total += 5;
+                } else if (value instanceof Boolean) {
+                    total += 2;
+                } else if (value instanceof byte[]) {
+                    total += 5 + ((byte[]) value).length;
+                } else {
+                    total += 5 + value.toString().length() * 2L;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        void encodeValues(ByteBuffer out, int from, int to) {
+            for (int row = from; row < to; row++) {
+                Object value = values[row];
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof BigDecimal) {
+                    BigDecimal decimal = (BigDecimal) value;
+                    out.put(TAG_BIG_DECIMAL).putInt(decimal.scale());
+                    putBytes(out, decimal.unscaledValue().toByteArray());
+                } else if (value instanceof BigInteger) {
+                    out.put(TAG_BIG_INTEGER);
+                    putBytes(out, ((BigInteger) value).toByteArray());
+                } else if (value instanceof Long) {
+                    out.put(TAG_LONG).putLong((Long) value);
+                } else if (value instanceof Integer) {
+                    out.put(TAG_INTEGER).putInt((Integer) value);
+                } else if (value instanceof Double) {
+                    out.put(TAG_DOUBLE).putDouble((Double) value);
+                } else if (value instanceof Float) {
+                    out.put(TAG_FLOAT).putFloat((Float) value);
+                } else if (value instanceof Boolean) {
+                    out.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+                } else if (value instanceof Timestamp) {
+                    Timestamp ts = (Timestamp) value;
+                    out.put(TAG_TIMESTAMP).putLong(ts.getTime()).putInt(ts.getNanos());
+                } else if (value instanceof Time) {
+                    out.put(TAG_TIME).putLong(((Time) value).getTime());
+                } else if (value instanceof java.sql.Date) {
+                    out.put(TAG_DATE).putLong(((java.sql.Date) value).getTime());
+                } else if (value instanceof byte[]) {
+                    out.put(TAG_BYTES);
+                    putBytes(out, (byte[]) value);
+                } else {
+                    String text = value.toString();
+                    out.put(TAG_STRING).putInt(text.length());
+                    for (int i = 0; i < text.length(); i++) {
+                        out.putChar(text.charAt(i));
+                    }
+                }
+            }
+        }
+
+        @Override
+        void decodeValues(ByteBuffer in, int rows) {
+            for (int row = 0; row < rows; row++) {
+                if (isNullUnchecked(row)) {
+                    continue;
+                }
+                byte tag = in.get();
+                switch (tag) {
+                    case TAG_BIG_DECIMAL: {
+                        int scale = in.getInt();
+                        values[row] = new BigDecimal(new BigInteger(getBytes(in)), scale);
+                        break;
+                    }
+                    case TAG_BIG_INTEGER: values[row] = new BigInteger(getBytes(in)); break;
+                    case TAG_LONG: values[row] = in.getLong(); break;
+                    case TAG_INTEGER: values[row] = in.getInt(); break;
+                    case TAG_DOUBLE: values[row] = in.getDouble(); break;
+                    case TAG_FLOAT: values[row] = in.getFloat(); break;
+                    case TAG_BOOLEAN: values[row] = in.get() != 0; break;
+                    case TAG_TIMESTAMP: {
+                        Timestamp ts = new Timestamp(in.getLong());
+                        ts.setNanos(in.getInt());
+                        values[row] = ts;
+                        break;
+                    }
+                    case TAG_TIME: values[row] = new Time(in.getLong()); break;
+                    case TAG_DATE: values[row] = new java.sql.Date(in.getLong()); break;
+                    case TAG_BYTES: values[row] = getBytes(in); break;
+                    default: {
+                        char[] chars = new char[in.getInt()];
+                        in.asCharBuffer().get(chars);
+                        in.position(in.position() + chars.length * 2);
+                        values[row] = new String(chars);
+                    }
+                }
+            }
+        }
+
+        private static void putBytes(ByteBuffer out, byte[] bytes) {
+            out.putInt(bytes.length).put(bytes);
+        }
+
+        private static byte[] getBytes(ByteBuffer in) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.project.sqlviz.models;
 
+import com.project.sqlviz.db.StatementCache;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 
@@ -12,6 +13,7 @@ public class Connection {
     private java.sql.Connection jdbcConnection; // The actual JDBC connection
     private LocalDateTime connectedAt;         // When this connection was established
     private boolean isActive;                  // Whether this connection is currently active
+    private StatementCache statementCache;     // Prepared statements kept open on this connection
 
     // Constructor - creates a Connection object with configuration and JDBC connection
     public Connection(ConnectionConfig config, java.sql.Connection jdbcConnection) {
@@ -27,15 +29,34 @@ public class Connection {
     public LocalDateTime getConnectedAt() { return connectedAt; }
     public boolean isActive() { return isActive; }
 
+    // Gets the prepared statement cache, created on first use
+    public synchronized StatementCache getStatementCache() {
+        if (statementCache == null) {
+            statementCache = new StatementCache(jdbcConnection, StatementCache.DEFAULT_CAPACITY);
+        }
+        return statementCache;
+    }
+
     // Method to close the connection
     public void close() throws SQLException {
+        synchronized (this) {
+            if (statementCache != null) {
+                statementCache.close();
+                statementCache = null;
+            }
+        }
         if (jdbcConnection != null && !jdbcConnection.isClosed()) {
             jdbcConnection.close();
             this.isActive = false;
         }
     }
 
-    // Method to check if connection is still valid
+    // Method to check if connection is still open - local check, no database round trip
+    public boolean isOpen() throws SQLException {
+        return jdbcConnection != null && !jdbcConnection.isClosed();
+    }
+
+    // Method to check if connection is still valid - pings the database
     public boolean isValid() throws SQLException {
         return jdbcConnection != null && !jdbcConnection.isClosed() && jdbcConnection.isValid(5);
     }
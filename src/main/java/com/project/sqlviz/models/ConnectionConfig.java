@@ -1,5 +1,9 @@
 package com.project.sqlviz.models;
 
+import com.project.sqlviz.db.Dialect;
+import com.project.sqlviz.db.Dialects;
+import java.util.Objects;
+
 /**
  * POJO (Plain Old Java Object) to store database connection configuration
  * This follows the Encapsulation principle - private fields with public getters/setters
@@ -12,6 +16,12 @@ public class ConnectionConfig {
     private String password;      // Database password
     private String driverClass;   // JDBC driver class name
 
+    // Resource limits enforced by QueryGovernor; 0, the default, means no limit
+    private int queryTimeoutSeconds;   // Statement timeout for interactive queries
+    private int maxRows;               // Rows a result keeps before it is truncated
+    private long maxResultBytes;       // Estimated heap held by one result; spilled pages do not count
+    private int maxConcurrentQueries;  // Queries running at once on this database and user
+
     // Constructor - initializes all fields when creating a new ConnectionConfig object
     public ConnectionConfig(int connId, String name, String jdbcUrl, String username, String password, String driverClass) {
         this.connId = connId;
@@ -32,6 +42,15 @@ public class ConnectionConfig {
     public String getUsername() { return username; }
     public String getPassword() { return password; }
     public String getDriverClass() { return driverClass; }
+    public int getQueryTimeoutSeconds() { return queryTimeoutSeconds; }
+    public int getMaxRows() { return maxRows; }
+    public long getMaxResultBytes() { return maxResultBytes; }
+    public int getMaxConcurrentQueries() { return maxConcurrentQueries; }
+
+    /**
+     * Dialect for this configuration, detected from the JDBC URL
+     */
+    public Dialect getDialect() { return Dialects.forUrl(jdbcUrl); }
 
     // Setters - provide controlled write access to private fields (Encapsulation)
     public void setConnId(int connId) { this.connId = connId; }
@@ -40,6 +59,30 @@ public class ConnectionConfig {
     public void setUsername(String username) { this.username = username; }
     public void setPassword(String password) { this.password = password; }
     public void setDriverClass(String driverClass) { this.driverClass = driverClass; }
+    public void setQueryTimeoutSeconds(int queryTimeoutSeconds) { this.queryTimeoutSeconds = Math.max(queryTimeoutSeconds, 0); }
+    public void setMaxRows(int maxRows) { this.maxRows = Math.max(maxRows, 0); }
+    public void setMaxResultBytes(long maxResultBytes) { this.maxResultBytes = Math.max(maxResultBytes, 0); }
+    public void setMaxConcurrentQueries(int maxConcurrentQueries) { this.maxConcurrentQueries = Math.max(maxConcurrentQueries, 0); }
+
+    /**
+     * Two configurations are equal when they connect to the same database as the same user
+     * connId, name and the resource limits do not take part, so configs can key connection pools
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConnectionConfig)) return false;
+        ConnectionConfig that = (ConnectionConfig) o;
+        return Objects.equals(jdbcUrl, that.jdbcUrl) &&
+               Objects.equals(username, that.username) &&
+               Objects.equals(password, that.password) &&
+               Objects.equals(driverClass, that.driverClass);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jdbcUrl, username, password, driverClass);
+    }
 
     @Override
     public String toString() {
@@ -0,0 +1,250 @@
+package com.project.sqlviz.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Model class holding the execution plan of a query as a tree of operators
+ * Built from the output of EXPLAIN or EXPLAIN ANALYZE. Estimates are always present
+ * where the database reports them; actual rows and times only for analyzed plans.
+ * Missing numbers are NaN. Times and costs include the node's children, as most
+ * databases report them.
+ */
+public class QueryPlan {
+    public static final double HOTSPOT_SHARE = 0.2;    // Nodes doing at least this share of the work are hotspots
+    public static final int MAX_HOTSPOTS = 3;
+    public static final double MISESTIMATE_FACTOR = 10; // Actual rows this far off the estimate are flagged
+
+    /**
+     * One operator of a plan
+     */
+    public static class Node {
+        private final String operation;                 // e.g. "Seq Scan", "Nested loop inner join"
+        private String relation;                        // Table or index the node reads, if any
+        private double estimatedRows = Double.NaN;      // Estimated rows per execution
+        private double actualRows = Double.NaN;         // Measured rows per execution
+        private double loops = Double.NaN;              // Times the node was executed
+        private double cost = Double.NaN;               // Estimated cost, in the database's own units
+        private double timeMs = Double.NaN;             // Measured time over all executions
+        private boolean fullScan;                       // Reads a whole table or index
+        private final List<String> details = new ArrayList<>();
+        private final List<Node> children = new ArrayList<>();
+
+        public Node(String operation) {
+            this.operation = operation;
+        }
+
+        // Getters and setters
+        public String getOperation() { return operation; }
+        public String getRelation() { return relation; }
+        public void setRelation(String relation) { this.relation = relation; }
+        public double getEstimatedRows() { return estimatedRows; }
+        public void setEstimatedRows(double estimatedRows) { this.estimatedRows = estimatedRows; }
+        public double getActualRows() { return actualRows; }
+        public void setActualRows(double actualRows) { this.actualRows = actualRows; }
+        public double getLoops() { return loops; }
+        public void setLoops(double loops) { this.loops = loops; }
+        public double getCost() { return cost; }
+        public void setCost(double cost) { this.cost = cost; }
+        public double getTimeMs() { return timeMs; }
+        public void setTimeMs(double timeMs) { this.timeMs = timeMs; }
+        public boolean isFullScan() { return fullScan; }
+        public void setFullScan(boolean fullScan) { this.fullScan = fullScan; }
+        public List<String> getDetails() { return details; }
+        public List<Node> getChildren() { return children; }
+
+        public void addDetail(String detail) {
+            details.add(detail);
+        }
+
+        public void addChild(Node child) {
+            children.add(child);
+        }
+
+        /**
+         * Time spent in this node itself, excluding its children
+         */
+        public double getSelfTimeMs() {
+            return self(timeMs, true);
+        }
+
+        /**
+         * Cost of this node itself, excluding its children
+         */
+        public double getSelfCost() {
+            return self(cost, false);
+        }
+
+        private double self(double total, boolean time) {
+            if (Double.isNaN(total)) {
+                return Double.NaN;
+            }
+            for (Node child : children) {
+                double value = time ? child.timeMs : child.cost;
+                if (!Double.isNaN(value)) {
+                    total -= value;
+                }
+            }
+            return Math.max(total, 0);
+        }
+
+        /**
+         * Actual rows divided by estimated rows, NaN unless both are known
+         * Values above 1 mean the optimizer underestimated.
+         */
+        public double getRowEstimateFactor() {
+            if (Double.isNaN(estimatedRows) || Double.isNaN(actualRows)) {
+                return Double.NaN;
+            }
+            return Math.max(actualRows, 1) / Math.max(estimatedRows, 1);
+        }
+
+        /**
+         * Whether the actual row count is at least MISESTIMATE_FACTOR away from the estimate
+         */
+        public boolean isMisestimated() {
+            double factor = getRowEstimateFactor();
+            return factor >= MISESTIMATE_FACTOR || factor <= 1 / MISESTIMATE_FACTOR;
+        }
+
+        @Override
+        public String toString() {
+            return relation == null ? operation : operation + " on " + relation;
+        }
+    }
+
+    private final String sqlQuery;
+    private final String planText;          // Plan as returned by the database
+    private final boolean analyzed;         // Whether the plan has actual rows and times
+    private final Node root;
+    private double planningTimeMs = Double.NaN;
+    private List<Node> hotspots;
+
+    public QueryPlan(String sqlQuery, String planText, boolean analyzed, Node root) {
+        this.sqlQuery = sqlQuery;
+        this.planText = planText;
+        this.analyzed = analyzed;
+        this.root = root;
+        fillTotals(root);
+    }
+
+    // Getters
+    public String getSqlQuery() { return sqlQuery; }
+    public String getPlanText() { return planText; }
+    public boolean isAnalyzed() { return analyzed; }
+    public Node getRoot() { return root; }
+    public double getPlanningTimeMs() { return planningTimeMs; }
+    public void setPlanningTimeMs(double planningTimeMs) { this.planningTimeMs = planningTimeMs; }
+
+    /**
+     * Measured time of the whole plan, NaN unless analyzed
+     */
+    public double getTotalTimeMs() {
+        return root.timeMs;
+    }
+
+    /**
+     * All nodes, parents before children
+     */
+    public List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>();
+        collect(root, nodes);
+        return nodes;
+    }
+
+    private static void collect(Node node, List<Node> nodes) {
+        nodes.add(node);
+        for (Node child : node.children) {
+            collect(child, nodes);
+        }
+    }
+
+    /**
+     * Share of the plan's work done in a node itself, from 0 to 1
+     * Uses measured time when the plan was analyzed, otherwise the estimated cost.
+     */
+    public double getShare(Node node) {
+        double total = useTime() ? root.timeMs : root.cost;
+        double self = useTime() ? node.getSelfTimeMs() : node.getSelfCost();
+        if (Double.isNaN(self) || !(total > 0)) {
+            return 0;
+        }
+        return Math.min(self / total, 1);
+    }
+
+    private boolean useTime() {
+        return analyzed && root.timeMs > 0;
+    }
+
+    /**
+     * The most expensive nodes, at most MAX_HOTSPOTS of those with at least HOTSPOT_SHARE of the work
+     */
+    public synchronized List<Node> getHotspots() {
+        if (hotspots == null) {
+            List<Node> nodes = getNodes();
+            nodes.removeIf(node -> getShare(node) < HOTSPOT_SHARE);
+            nodes.sort(Comparator.comparingDouble(this::getShare).reversed());
+            hotspots = Collections.unmodifiableList(nodes.subList(0, Math.min(MAX_HOTSPOTS, nodes.size())));
+        }
+        return hotspots;
+    }
+
+    public boolean isHotspot(Node node) {
+        return getHotspots().contains(node);
+    }
+
+    /**
+     * Nodes that read a whole table or index
+     */
+    public List<Node> getFullScans() {
+        List<Node> nodes = getNodes();
+        nodes.removeIf(node -> !node.fullScan);
+        return nodes;
+    }
+
+    /**
+     * Gives nodes without their own time or cost the sum of their children's
+     */
+    private static void fillTotals(Node node) {
+        double time = 0;
+        double cost = 0;
+        boolean anyTime = false;
+        boolean anyCost = false;
+        for (Node child : node.children) {
+            fillTotals(child);
+            if (!Double.isNaN(child.timeMs)) {
+                time += child.timeMs;
+                anyTime = true;
+            }
+            if (!Double.isNaN(child.cost)) {
+                cost += child.cost;
+                anyCost = true;
+            }
+        }
+        if (Double.isNaN(node.timeMs) && anyTime) {
+            node.timeMs = time;
+        }
+        if (Double.isNaN(node.cost) && anyCost) {
+            node.cost = cost;
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<Node> nodes = getNodes();
+        StringBuilder sb = new StringBuilder(analyzed ? "Analyzed plan" : "Estimated plan");
+        sb.append(String.format(" - %d operators", nodes.size()));
+        if (analyzed && !Double.isNaN(root.timeMs)) {
+            sb.append(String.format(", %.1f ms", root.timeMs));
+        } else if (!Double.isNaN(root.cost)) {
+            sb.append(String.format(", cost %.1f", root.cost));
+        }
+        int fullScans = getFullScans().size();
+        if (fullScans > 0) {
+            sb.append(String.format(", %d full scan%s", fullScans, fullScans == 1 ? "" : "s"));
+        }
+        return sb.toString();
+    }
+}
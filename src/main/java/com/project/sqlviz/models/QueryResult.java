@@ -1,6 +1,8 @@
 package com.project.sqlviz.models;
 
 import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -9,14 +11,37 @@ import java.util.Map;
  * This encapsulates all information about a query execution
  */
 public class QueryResult {
+
+    /**
+     * Why a result holds fewer rows than the query returned
+     */
+    public enum Truncation {
+        ROW_LIMIT("row limit"),
+        SIZE_LIMIT("result size limit"),
+        TIME_LIMIT("query timeout");
+
+        private final String description;
+
+        Truncation(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() { return description; }
+    }
+
     private String sqlQuery;                    // The SQL query that was executed
     private List<String> columnNames;           // Names of columns in result set
-    private List<List<Object>> rows;            // Actual data rows
+    private List<List<Object>> rows;            // Actual data rows (row-based results)
+    private ColumnVector[] columns;             // Typed column storage (columnar results)
+    private ResultStore store;                  // Paged storage when the result was spilled to disk, else null
     private int rowCount;                       // Number of rows returned
     private long executionTimeMs;               // How long the query took to execute
     private LocalDateTime executedAt;           // When the query was executed
     private boolean isSuccessful;               // Whether query executed without errors
     private String errorMessage;                // Error message if query failed
+    private boolean fromCache;                  // Whether this result was served from the result cache
+    private QueryTimings timings;               // Nanosecond phase timings, null if not measured
+    private Truncation truncation;              // Limit that cut the result short, null if complete
 
     // Constructor for successful query
     public QueryResult(String sqlQuery, List<String> columnNames, List<List<Object>> rows, long executionTimeMs) {
@@ -29,6 +54,53 @@ public class QueryResult {
         this.isSuccessful = true;
     }
 
+    // Constructor for successful query with columnar storage
+    public QueryResult(String sqlQuery, List<String> columnNames, ColumnVector[] columns, int rowCount, long executionTimeMs) {
+        this.sqlQuery = sqlQuery;
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.executionTimeMs = executionTimeMs;
+        this.executedAt = LocalDateTime.now();
+        this.isSuccessful = true;
+    }
+
+    // Constructor for a successful query whose rows were paged out to disk
+    public QueryResult(String sqlQuery, List<String> columnNames, ResultStore store, long executionTimeMs) {
+        this(sqlQuery, columnNames, store, store.getRowCount(), executionTimeMs);
+    }
+
+    // Constructor for the first rows of a paged result, e.g. its sealed pages while fetching continues
+    public QueryResult(String sqlQuery, List<String> columnNames, ResultStore store, int rowCount, long executionTimeMs) {
+        this.sqlQuery = sqlQuery;
+        this.columnNames = columnNames;
+        this.store = store;
+        this.columns = new ColumnVector[store.getColumnCount()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = store.column(c, rowCount);
+        }
+        this.rowCount = rowCount;
+        this.executionTimeMs = executionTimeMs;
+        this.executedAt = LocalDateTime.now();
+        this.isSuccessful = true;
+    }
+
+    // Constructor for a result served from cache - shares the cached data, records the lookup time
+    public QueryResult(QueryResult cached, long executionTimeMs) {
+        this.sqlQuery = cached.sqlQuery;
+        this.columnNames = cached.columnNames;
+        this.rows = cached.rows;
+        this.columns = cached.columns;
+        this.store = cached.store;
+        this.rowCount = cached.rowCount;
+        this.executionTimeMs = executionTimeMs;
+        this.executedAt = LocalDateTime.now();
+        this.isSuccessful = cached.isSuccessful;
+        this.errorMessage = cached.errorMessage;
+        this.truncation = cached.truncation;
+        this.fromCache = true;
+    }
+
     // Constructor for failed query
     public QueryResult(String sqlQuery, String errorMessage, long executionTimeMs) {
         this.sqlQuery = sqlQuery;
@@ -41,10 +113,117 @@ public class QueryResult {
     // Getters
     public String getSqlQuery() { return sqlQuery; }
     public List<String> getColumnNames() { return columnNames; }
-    public List<List<Object>> getRows() { return rows; }
     public int getRowCount() { return rowCount; }
     public long getExecutionTimeMs() { return executionTimeMs; }
     public LocalDateTime getExecutedAt() { return executedAt; }
     public boolean isSuccessful() { return isSuccessful; }
     public String getErrorMessage() { return errorMessage; }
+    public boolean isFromCache() { return fromCache; }
+    public QueryTimings getTimings() { return timings; }
+    public ResultStore getStore() { return store; }
+    public Truncation getTruncation() { return truncation; }
+    public boolean isTruncated() { return truncation != null; }
+
+    // Setters
+    public void setTimings(QueryTimings timings) { this.timings = timings; }
+    public void setTruncation(Truncation truncation) { this.truncation = truncation; }
+
+    /**
+     * Returns the data as a list of rows
+     * For columnar results this is a read-only view that boxes each value on access,
+     * so prefer getValueAt or the typed column accessors for large results
+     */
+    public List<List<Object>> getRows() {
+        if (rows == null && columns != null) {
+            return new AbstractList<List<Object>>() {
+                @Override
+                public List<Object> get(int row) {
+                    List<Object> values = new ArrayList<>(columns.length);
+                    for (ColumnVector column : columns) {
+                        values.add(column.get(row));
+                    }
+                    return values;
+                }
+
+                @Override
+                public int size() {
+                    return rowCount;
+                }
+            };
+        }
+        return rows;
+    }
+
+    /**
+     * Whether this result is backed by typed column storage
+     */
+    public boolean isColumnar() {
+        return columns != null;
+    }
+
+    /**
+     * Gets the number of columns in the result
+     */
+    public int getColumnCount() {
+        return columnNames == null ? 0 : columnNames.size();
+    }
+
+    /**
+     * Gets a single cell value without copying the row
+     */
+    public Object getValueAt(int row, int column) {
+        if (store != null) {
+            return store.get(row, column);
+        }
+        if (columns != null) {
+            return columns[column].get(row);
+        }
+        return rows.get(row).get(column);
+    }
+
+    /**
+     * Gets the typed storage for a column
+     * Row-based results are converted to columns on first access
+     */
+    public ColumnVector getColumn(int column) {
+        if (columns == null) {
+            convertToColumns();
+        }
+        return columns[column];
+    }
+
+    /**
+     * Rough heap footprint of the result data in bytes
+     */
+    public long estimateSizeBytes() {
+        long total = 64L + (sqlQuery == null ? 0 : sqlQuery.length() * 2L);
+        if (store != null) {
+            // Count spilled pages too, so caches do not hold on to huge results
+            total += store.estimateSizeBytes();
+        } else if (columns != null) {
+            for (ColumnVector column : columns) {
+                total += column.estimateSizeBytes();
+            }
+        } else if (rows != null) {
+            // ArrayList per row plus a boxed value per cell
+            total += (long) rows.size() * (40L + getColumnCount() * 24L);
+        }
+        return total;
+    }
+
+    private void convertToColumns() {
+        int columnCount = getColumnCount();
+        ColumnVector[] converted = new ColumnVector[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            converted[c] = new ColumnVector.ObjectVector(Math.max(rowCount, 1));
+        }
+        if (rows != null) {
+            for (List<Object> row : rows) {
+                for (int c = 0; c < columnCount; c++) {
+                    converted[c].append(row.get(c));
+                }
+            }
+        }
+        columns = converted;
+    }
 }
\ No newline at end of file
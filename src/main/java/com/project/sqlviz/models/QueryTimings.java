@@ -0,0 +1,99 @@
+package com.project.sqlviz.models;
+
+/**
+ * Model class holding nanosecond timings for the phases of one query execution
+ * The executor fills in the phases it runs; the UI adds the render time.
+ */
+public class QueryTimings {
+
+    /**
+     * Phases of a query, in the order they run
+     */
+    public enum Phase {
+        ANALYZE,        // Lexing, validation and parameterization
+        CACHE_LOOKUP,   // Result cache lookup
+        PREPARE,        // Statement cache acquire and parameter binding
+        EXECUTE,        // Until the database returns a result set or update count
+        FETCH,          // Reading rows from the result set
+        RENDER          // Handing the result to the table and repainting
+    }
+
+    private final long startNanos;              // System.nanoTime() when execution started
+    private final long[] phaseNanos;            // Time spent in each phase
+    private long timeToFirstRowNanos = -1;      // From start until the first row was read, -1 if none
+    private long totalNanos;                    // From start until the executor finished
+    private long rowsFetched;
+
+    public QueryTimings() {
+        this(System.nanoTime());
+    }
+
+    public QueryTimings(long startNanos) {
+        this.startNanos = startNanos;
+        this.phaseNanos = new long[Phase.values().length];
+    }
+
+    /**
+     * Adds time spent in a phase
+     */
+    public void add(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Records the time to first row, the first time it is called
+     */
+    public void markFirstRow() {
+        if (timeToFirstRowNanos < 0) {
+            timeToFirstRowNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    public void addRowsFetched(long rows) {
+        rowsFetched += rows;
+    }
+
+    /**
+     * Records the end of execution
+     */
+    public void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Milliseconds since execution started
+     */
+    public long elapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    // Getters
+    public long getStartNanos() { return startNanos; }
+    public long getPhaseNanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+    public long getTimeToFirstRowNanos() { return timeToFirstRowNanos; }
+    public long getTotalNanos() { return totalNanos; }
+    public long getRowsFetched() { return rowsFetched; }
+
+    /**
+     * Rows read per second while fetching, 0 if nothing was fetched
+     */
+    public double getFetchRowsPerSecond() {
+        long fetchNanos = getPhaseNanos(Phase.FETCH);
+        return fetchNanos == 0 ? 0 : rowsFetched * 1_000_000_000.0 / fetchNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            long nanos = getPhaseNanos(phase);
+            if (nanos > 0) {
+                text.append(String.format("%s %.2fms, ", phase.name().toLowerCase(), nanos / 1e6));
+            }
+        }
+        if (timeToFirstRowNanos >= 0) {
+            text.append(String.format("first row %.2fms, ", timeToFirstRowNanos / 1e6));
+        }
+        return text.append(String.format("total %.2fms", totalNanos / 1e6)).toString();
+    }
+}
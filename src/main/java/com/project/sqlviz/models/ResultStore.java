@@ -0,0 +1,338 @@
+package com.project.sqlviz.models;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Paged column storage for results larger than a memory budget
+ * Rows are kept in pages of PAGE_ROWS rows, each a set of typed column vectors.
+ * Whenever the pages held on the heap exceed the budget, the least recently used
+ * ones are encoded into memory-mapped temp files and dropped; reading a row of a
+ * spilled page decodes it back from the mapping and makes it hot again. Pages never
+ * change once full, so each is written at most once.
+ *
+ * Temp files are unlinked as soon as they are mapped, so the disk space is returned
+ * when the result is garbage collected or the JVM exits. Reads may come from any
+ * thread; rows are appended by a single thread. Rows of sealed pages can be read while
+ * appending continues, which is how partial results are shown during a fetch.
+ */
+public class ResultStore {
+    public static final int PAGE_ROWS = 8192;
+    private static final int PAGE_SHIFT = 13;
+    private static final long SEGMENT_BYTES = 256L << 20;   // Size of each mapped temp file
+
+    /**
+     * One page of rows, in memory, on disk, or both
+     */
+    private static final class Page {
+        final int rows;
+        volatile ColumnVector[] vectors;    // Decoded columns, null while only on disk
+        long heapBytes;                     // Estimated size of vectors
+        long lastUsed;                      // Access stamp for LRU eviction, updated racily
+        ByteBuffer spilled;                 // Slice of a mapped segment, null until written
+
+        Page(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    private final ColumnVector.ColumnType[] types;
+    private final long memoryBudgetBytes;
+    private final Path spillDirectory;
+    private final List<Page> pages = new CopyOnWriteArrayList<>();  // Readers may run while pages are sealed
+    private final List<Page> hotPages = new ArrayList<>();
+
+    private ColumnVector[] filling;         // Page being appended to, null once finished
+    private int fillingRows;
+    private int rowCount;
+    private volatile int sealedRows;        // Rows in full pages, readable while appending continues
+    private long hotBytes;
+    private long spilledBytes;
+    private long clock;
+    private MappedByteBuffer segment;       // Segment new pages are written to
+    private int segmentOffset;
+
+    /**
+     * Moves the rows already read into column vectors to disk and continues paging
+     * The given vectors are no longer referenced afterwards and can be collected.
+     */
+    public ResultStore(ColumnVector[] columns, int rowCount, long memoryBudgetBytes, Path spillDirectory) throws IOException {
+        this.types = new ColumnVector.ColumnType[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            types[c] = columns[c].getType();
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.spillDirectory = spillDirectory;
+
+        for (int from = 0; from < rowCount; from += PAGE_ROWS) {
+            int to = Math.min(from + PAGE_ROWS, rowCount);
+            Page page = new Page(to - from);
+            write(page, columns, from, to);
+            pages.add(page);
+        }
+        this.rowCount = rowCount;
+        if (rowCount % PAGE_ROWS == 0) {
+            filling = newPage();
+        } else {
+            // Keep page boundaries at multiples of PAGE_ROWS by reopening the last partial page
+            Page last = pages.remove(pages.size() - 1);
+            spilledBytes -= last.spilled.capacity();
+            filling = decode(last.spilled, last.rows);
+            fillingRows = last.rows;
+        }
+        this.sealedRows = rowCount - fillingRows;
+    }
+
+    /**
+     * Appends the current row of a ResultSet
+     */
+    public void readRow(ResultSet rs) throws SQLException, IOException {
+        for (int c = 0; c < filling.length; c++) {
+            filling[c].readFrom(rs, c + 1);
+        }
+        rowCount++;
+        if (++fillingRows == PAGE_ROWS) {
+            seal();
+            filling = newPage();
+        }
+    }
+
+    /**
+     * Completes the last page; no rows can be appended afterwards
+     */
+    public void finish() throws IOException {
+        if (fillingRows > 0) {
+            seal();
+        }
+        filling = null;
+    }
+
+    // Getters
+    public int getRowCount() { return rowCount; }
+    public int getColumnCount() { return types.length; }
+    public ColumnVector.ColumnType getType(int column) { return types[column]; }
+    public int getPageCount() { return pages.size(); }
+    public int getSealedRowCount() { return sealedRows; }
+
+    public synchronized long getHotBytes() { return hotBytes; }
+    public synchronized long getSpilledBytes() { return spilledBytes; }
+
+    /**
+     * Rough size of the whole result, in memory and on disk
+     */
+    public synchronized long estimateSizeBytes() {
+        long total = hotBytes;
+        for (Page page : pages) {
+            if (page.vectors == null) {
+                total += page.spilled.capacity();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets a single cell value, loading its page from disk if needed
+     */
+    public Object get(int row, int column) {
+        return vectorsFor(row)[column].get(row & (PAGE_ROWS - 1));
+    }
+
+    /**
+     * Returns a read-only vector over the first rows of a column that reads through the pages
+     * While fetching continues, pass getSealedRowCount() so the view never reaches the page being filled.
+     */
+    public ColumnVector column(int column, int rows) {
+        if (rows < 0 || rows > rowCount) {
+            throw new IndexOutOfBoundsException("Cannot view " + rows + " rows of a result of " + rowCount + " rows");
+        }
+        return new StoredColumn(column, rows);
+    }
+
+    private ColumnVector[] vectorsFor(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for result of " + rowCount + " rows");
+        }
+        Page page = pages.get(row >>> PAGE_SHIFT);
+        ColumnVector[] vectors = page.vectors;
+        if (vectors != null) {
+            page.lastUsed = ++clock;
+            return vectors;
+        }
+        return load(page);
+    }
+
+    private ColumnVector[] newPage() {
+        ColumnVector[] vectors = new ColumnVector[types.length];
+        for (int c = 0; c < types.length; c++) {
+            vectors[c] = ColumnVector.create(types[c], PAGE_ROWS);
+        }
+        fillingRows = 0;
+        return vectors;
+    }
+
+    private synchronized void seal() throws IOException {
+        Page page = new Page(fillingRows);
+        pages.add(page);
+        sealedRows += page.rows;
+        makeHot(page, filling);
+        try {
+            evict(page);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private synchronized ColumnVector[] load(Page page) {
+        ColumnVector[] vectors = page.vectors;
+        if (vectors == null) {
+            vectors = decode(page.spilled, page.rows);
+            makeHot(page, vectors);
+            evict(page);
+        }
+        return vectors;
+    }
+
+    private void makeHot(Page page, ColumnVector[] vectors) {
+        long bytes = 0;
+        for (ColumnVector vector : vectors) {
+            bytes += vector.estimateSizeBytes();
+        }
+        page.heapBytes = bytes;
+        page.lastUsed = ++clock;
+        page.vectors = vectors;
+        hotPages.add(page);
+        hotBytes += bytes;
+    }
+
+    /**
+     * Drops least recently used pages until back under budget, writing out those not yet on disk
+     * The page just made hot is kept even if it alone exceeds the budget.
+     */
+    private void evict(Page keep) {
+        while (hotBytes > memoryBudgetBytes && hotPages.size() > 1) {
+            Page eldest = null;
+            for (Page page : hotPages) {
+                if (page != keep && (eldest == null || page.lastUsed < eldest.lastUsed)) {
+                    eldest = page;
+                }
+            }
+            if (eldest.spilled == null) {
+                try {
+                    write(eldest, eldest.vectors, 0, eldest.rows);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not spill result page to " + spillDirectory, e);
+                }
+            }
+            eldest.vectors = null;
+            hotPages.remove(eldest);
+            hotBytes -= eldest.heapBytes;
+        }
+    }
+
+    /**
+     * Encodes rows [from, to) of the given columns into the current segment
+     */
+    private void write(Page page, ColumnVector[] columns, int from, int to) throws IOException {
+        long size = 0;
+        for (ColumnVector column : columns) {
+            size += column.encodedSizeBytes(from, to);
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Result page of " + size + " bytes is too large to spill");
+        }
+        if (segment == null || segmentOffset + size > segment.capacity()) {
+            segment = map(Math.max(SEGMENT_BYTES, size));
+            segmentOffset = 0;
+        }
+        ByteBuffer out = segment.slice(segmentOffset, (int) size).order(ByteOrder.LITTLE_ENDIAN);
+        for (ColumnVector column : columns) {
+            column.encode(out, from, to);
+        }
+        page.spilled = out.slice(0, out.position()).order(ByteOrder.LITTLE_ENDIAN);
+        // Keep pages 8-byte aligned so the long and double views stay fast
+        segmentOffset += (out.position() + 7) & ~7;
+        spilledBytes += out.position();
+    }
+
+    private ColumnVector[] decode(ByteBuffer spilled, int rows) {
+        ByteBuffer in = spilled.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ColumnVector[] vectors = new ColumnVector[types.length];
+        for (int c = 0; c < types.length; c++) {
+            vectors[c] = ColumnVector.decode(in, types[c], rows);
+        }
+        return vectors;
+    }
+
+    /**
+     * Creates and maps a new temp file; it is deleted as soon as the channel closes,
+     * and the mapping keeps the space until it is collected
+     */
+    private MappedByteBuffer map(long bytes) throws IOException {
+        Path file = Files.createTempFile(spillDirectory, "sqlviz-spill-", ".tmp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                 StandardOpenOption.DELETE_ON_CLOSE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    /**
+     * Read-only view of one column across the pages holding its first rows
+     */
+    private final class StoredColumn extends ColumnVector {
+        private final int column;
+
+        StoredColumn(int column, int rows) {
+            super(1);
+            this.column = column;
+            this.size = rows;
+        }
+
+        @Override public ColumnType getType() { return types[column]; }
+
+        @Override
+        public boolean isNumeric() {
+            ColumnType type = types[column];
+            return type == ColumnType.INT || type == ColumnType.LONG
+                || type == ColumnType.DOUBLE || type == ColumnType.TIMESTAMP;
+        }
+
+        @Override public boolean isNull(int row) { return vectorsFor(row)[column].isNull(row & (PAGE_ROWS - 1)); }
+        @Override public Object get(int row) { return vectorsFor(row)[column].get(row & (PAGE_ROWS - 1)); }
+        @Override public double getDouble(int row) { return vectorsFor(row)[column].getDouble(row & (PAGE_ROWS - 1)); }
+        @Override public long estimateSizeBytes() { return 0; }
+
+        @Override
+        protected void readValue(ResultSet rs, int column, int row) {
+            throw new UnsupportedOperationException("Stored columns are read-only");
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            throw new UnsupportedOperationException("Stored columns are read-only");
+        }
+
+        @Override
+        void copyValues(ColumnVector source, int from, int to, int dest) {
+            throw new UnsupportedOperationException("Stored columns are read-only");
+        }
+
+        @Override protected Object getValue(int row) { return get(row); }
+        @Override protected void grow(int newCapacity) { }
+        @Override protected long dataSizeBytes() { return 0; }
+        @Override long encodedValuesSize(int from, int to) { throw new UnsupportedOperationException(); }
+        @Override void encodeValues(ByteBuffer out, int from, int to) { throw new UnsupportedOperationException(); }
+        @Override void decodeValues(ByteBuffer in, int rows) { throw new UnsupportedOperationException(); }
+    }
+}
@@ -0,0 +1,206 @@
+package com.project.sqlviz.models;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Live, cursor-backed query result
+ * Rows are pulled from the open ResultSet on demand through a bounded buffer,
+ * so memory stays flat no matter how many rows the query returns.
+ * The handle owns the statement and result set and must be closed when done.
+ */
+public class StreamingQueryResult implements Iterable<List<Object>>, AutoCloseable {
+    private final String sqlQuery;              // The SQL query that was executed
+    private final List<String> columnNames;     // Names of columns in result set
+    private final Statement statement;          // Statement that owns the cursor
+    private final ResultSet resultSet;          // Open cursor over the result
+    private final int columnCount;              // Cached column count
+    private final int bufferSize;               // Maximum rows held in memory at once
+    private final ArrayDeque<List<Object>> buffer; // Rows fetched but not yet consumed
+    private final long startNanos;              // When execution started
+    private final LocalDateTime executedAt;     // When the query was executed
+    private long rowsFetched;                   // Rows read from the cursor so far
+    private long firstRowNanos = -1;            // Time to first row, -1 until known
+    private boolean exhausted;                  // Cursor has no more rows
+    private boolean closed;                     // Handle has been closed
+    private final Cleanup cleanup;              // Restores connection state after the cursor closes, may be null
+
+    /**
+     * Work to do once the cursor and statement are closed
+     */
+    public interface Cleanup {
+        void run() throws SQLException;
+    }
+
+    public StreamingQueryResult(String sqlQuery, List<String> columnNames, Statement statement,
+                                ResultSet resultSet, int bufferSize, long startNanos) {
+        this(sqlQuery, columnNames, statement, resultSet, bufferSize, startNanos, null);
+    }
+
+    public StreamingQueryResult(String sqlQuery, List<String> columnNames, Statement statement,
+                                ResultSet resultSet, int bufferSize, long startNanos, Cleanup cleanup) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.sqlQuery = sqlQuery;
+        this.columnNames = columnNames;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.columnCount = columnNames.size();
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayDeque<>(bufferSize);
+        this.startNanos = startNanos;
+        this.executedAt = LocalDateTime.now();
+        this.cleanup = cleanup;
+    }
+
+    // Getters
+    public String getSqlQuery() { return sqlQuery; }
+    public List<String> getColumnNames() { return columnNames; }
+    public int getBufferSize() { return bufferSize; }
+    public long getRowsFetched() { return rowsFetched; }
+    public LocalDateTime getExecutedAt() { return executedAt; }
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Milliseconds from execution start until the first row was read, or -1 if no row yet
+     */
+    public long getTimeToFirstRowMs() {
+        return firstRowNanos < 0 ? -1 : firstRowNanos / 1_000_000;
+    }
+
+    /**
+     * Milliseconds elapsed since execution started
+     */
+    public long getElapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Checks whether at least one more row is available, fetching from the cursor if needed
+     */
+    public boolean hasNextRow() throws SQLException {
+        if (buffer.isEmpty()) {
+            fill();
+        }
+        return !buffer.isEmpty();
+    }
+
+    /**
+     * Returns the next row, fetching from the cursor if the buffer is empty
+     */
+    public List<Object> nextRow() throws SQLException {
+        if (!hasNextRow()) {
+            throw new NoSuchElementException("No more rows in result");
+        }
+        return buffer.poll();
+    }
+
+    /**
+     * Returns up to maxRows rows; an empty list means the result is exhausted
+     * This is the windowed way to page through a large result
+     */
+    public List<List<Object>> nextWindow(int maxRows) throws SQLException {
+        List<List<Object>> window = new ArrayList<>(Math.min(maxRows, bufferSize));
+        while (window.size() < maxRows && hasNextRow()) {
+            window.add(buffer.poll());
+        }
+        return window;
+    }
+
+    /**
+     * Drains the remaining rows into a regular QueryResult and closes the cursor
+     * Only use this for results known to be small - it holds every row in memory
+     */
+    public QueryResult materialize() throws SQLException {
+        try {
+            List<List<Object>> rows = new ArrayList<>();
+            while (hasNextRow()) {
+                rows.add(buffer.poll());
+            }
+            return new QueryResult(sqlQuery, columnNames, rows, getElapsedMs());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Refills the buffer from the cursor, reading at most bufferSize rows
+     */
+    private void fill() throws SQLException {
+        if (exhausted || closed) {
+            return;
+        }
+        while (buffer.size() < bufferSize) {
+            if (!resultSet.next()) {
+                exhausted = true;
+                break;
+            }
+            List<Object> row = new ArrayList<>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                row.add(resultSet.getObject(i));
+            }
+            buffer.add(row);
+            if (rowsFetched++ == 0) {
+                firstRowNanos = System.nanoTime() - startNanos;
+            }
+        }
+    }
+
+    /**
+     * Iterates over the remaining rows
+     * SQLExceptions from the cursor are rethrown as IllegalStateException
+     */
+    @Override
+    public Iterator<List<Object>> iterator() {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return hasNextRow();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error reading result: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public List<Object> next() {
+                try {
+                    return nextRow();
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Error reading result: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Releases the cursor and its statement
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        try {
+            resultSet.close();
+        } finally {
+            try {
+                statement.close();
+            } finally {
+                if (cleanup != null) {
+                    cleanup.run();
+                }
+            }
+        }
+    }
+}
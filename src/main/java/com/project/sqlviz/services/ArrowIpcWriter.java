@@ -0,0 +1,608 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.services.ExportService.ChannelOutput;
+import com.project.sqlviz.services.ExportService.ColumnKind;
+import com.project.sqlviz.services.ExportService.ExportOptions;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes rows in the Arrow IPC file format (Arrow columnar format version 1.0, metadata V5)
+ * Rows are collected into one record batch at a time and written when the batch
+ * reaches its row or byte limit, so memory is bounded by the batch size. The
+ * flatbuffer metadata is encoded by hand to avoid pulling in the Arrow libraries.
+ *
+ * Type mapping: INT32/INT64, DOUBLE, BOOLEAN, DECIMAL as decimal128 (Utf8 when the
+ * precision is outside 1-38), TIMESTAMP as naive microseconds, DATE as days, BINARY
+ * and everything else as Utf8.
+ */
+class ArrowIpcWriter implements ExportService.RowWriter {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final short METADATA_V5 = 4;
+
+    // MessageHeader union
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+
+    // Type union
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_DECIMAL = 7;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_TIMESTAMP = 10;
+
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short DATE_UNIT_DAY = 0;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+
+    private final ChannelOutput out;
+    private final String[] names;
+    private final Column[] columns;
+    private final int batchRows;
+    private final long batchBytes;
+    private final List<long[]> blocks = new ArrayList<>();   // {offset, metadata length, body length}
+    private int rows;                                          // Rows in the current batch
+
+    ArrowIpcWriter(ChannelOutput out, ResultSetMetaData metaData, String[] names, ColumnKind[] kinds,
+                   ExportOptions options) throws SQLException {
+        this.out = out;
+        this.names = names;
+        this.columns = new Column[kinds.length];
+        for (int c = 0; c < kinds.length; c++) {
+            ColumnKind kind = kinds[c];
+            int precision = 0;
+            int scale = 0;
+            if (kind == ColumnKind.DECIMAL) {
+                precision = metaData.getPrecision(c + 1);
+                scale = metaData.getScale(c + 1);
+                if (precision < 1 || precision > 38 || scale < 0 || scale > precision) {
+                    kind = ColumnKind.STRING;
+                }
+            }
+            columns[c] = new Column(kind, precision, scale);
+        }
+        this.batchRows = options.getArrowBatchRows();
+        this.batchBytes = options.getArrowBatchBytes();
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        out.putBytes(MAGIC);
+        out.putZeros(2);
+        FlatBuilder builder = new FlatBuilder();
+        int schema = buildSchema(builder);
+        writeMessage(builder, HEADER_SCHEMA, schema, 0);
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws IOException, SQLException {
+        long bytes = 0;
+        for (int c = 0; c < columns.length; c++) {
+            columns[c].read(rs, c + 1, rows);
+            bytes += columns[c].bytes();
+        }
+        rows++;
+        if (rows >= batchRows || bytes >= batchBytes) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeBatch();
+        }
+        // End-of-stream marker
+        out.putInt(CONTINUATION);
+        out.putInt(0);
+
+        FlatBuilder builder = new FlatBuilder();
+        int schema = buildSchema(builder);
+        builder.startStructVector(24, blocks.size(), 8);
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            long[] block = blocks.get(i);
+            builder.putLong(block[2]);
+            builder.putInt(0);
+            builder.putInt((int) block[1]);
+            builder.putLong(block[0]);
+        }
+        int recordBatches = builder.endVector(blocks.size());
+        builder.startTable(5);
+        builder.addOffset(3, recordBatches);
+        builder.addOffset(1, schema);
+        builder.addShort(0, METADATA_V5);
+        byte[] footer = builder.finish(builder.endTable());
+
+        out.putBytes(footer);
+        out.putInt(footer.length);
+        out.putBytes(MAGIC);
+    }
+
+    private void writeBatch() throws IOException {
+        // Buffer layout of the body: each column's buffers in order, 8-byte aligned
+        List<Bytes> buffers = new ArrayList<>();
+        for (Column column : columns) {
+            column.collectBuffers(buffers);
+        }
+        long bodyLength = 0;
+        long[] offsets = new long[buffers.size()];
+        for (int i = 0; i < buffers.size(); i++) {
+            offsets[i] = bodyLength;
+            bodyLength += align8(buffers.get(i).size);
+        }
+
+        FlatBuilder builder = new FlatBuilder();
+        builder.startStructVector(16, buffers.size(), 8);
+        for (int i = buffers.size() - 1; i >= 0; i--) {
+            builder.putLong(buffers.get(i).size);
+            builder.putLong(offsets[i]);
+        }
+        int bufferVector = builder.endVector(buffers.size());
+        builder.startStructVector(16, columns.length, 8);
+        for (int c = columns.length - 1; c >= 0; c--) {
+            builder.putLong(columns[c].nullCount);
+            builder.putLong(rows);
+        }
+        int nodeVector = builder.endVector(columns.length);
+        builder.startTable(4);
+        builder.addLong(0, rows);
+        builder.addOffset(2, bufferVector);
+        builder.addOffset(1, nodeVector);
+        int recordBatch = builder.endTable();
+
+        long blockOffset = out.position();
+        int metadataLength = writeMessage(builder, HEADER_RECORD_BATCH, recordBatch, bodyLength);
+        for (Bytes buffer : buffers) {
+            out.putBytes(buffer.data, 0, buffer.size);
+            out.putZeros(align8(buffer.size) - buffer.size);
+        }
+        blocks.add(new long[] {blockOffset, metadataLength, bodyLength});
+
+        for (Column column : columns) {
+            column.reset();
+        }
+        rows = 0;
+    }
+
+    /**
+     * Writes an encapsulated message and returns the length of its prefix and metadata
+     */
+    private int writeMessage(FlatBuilder builder, byte headerType, int header, long bodyLength) throws IOException {
+        builder.startTable(5);
+        builder.addLong(3, bodyLength);
+        builder.addOffset(2, header);
+        builder.addShort(0, METADATA_V5);
+        builder.addByte(1, headerType);
+        byte[] metadata = builder.finish(builder.endTable());
+
+        int padded = align8(metadata.length);
+        out.putInt(CONTINUATION);
+        out.putInt(padded);
+        out.putBytes(metadata);
+        out.putZeros(padded - metadata.length);
+        return 8 + padded;
+    }
+
+    private int buildSchema(FlatBuilder builder) {
+        int[] fields = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            fields[c] = buildField(builder, names[c], columns[c]);
+        }
+        int fieldVector = builder.createOffsetVector(fields);
+        builder.startTable(4);
+        builder.addOffset(1, fieldVector);
+        builder.addShort(0, (short) 0);     // Little endian
+        return builder.endTable();
+    }
+
+    private static int buildField(FlatBuilder builder, String name, Column column) {
+        int nameOffset = builder.createString(name);
+        int children = builder.createOffsetVector(new int[0]);
+        byte typeType;
+        switch (column.kind) {
+            case INT32:
+            case INT64:
+                builder.startTable(2);
+                builder.addInt(0, column.kind == ColumnKind.INT32 ? 32 : 64);
+                builder.addByte(1, (byte) 1);
+                typeType = TYPE_INT;
+                break;
+            case DOUBLE:
+                builder.startTable(1);
+                builder.addShort(0, PRECISION_DOUBLE);
+                typeType = TYPE_FLOATING_POINT;
+                break;
+            case BOOLEAN:
+                builder.startTable(0);
+                typeType = TYPE_BOOL;
+                break;
+            case DECIMAL:
+                builder.startTable(3);
+                builder.addInt(0, column.precision);
+                builder.addInt(1, column.scale);
+                builder.addInt(2, 128);
+                typeType = TYPE_DECIMAL;
+                break;
+            case TIMESTAMP:
+                builder.startTable(2);
+                builder.addShort(0, TIME_UNIT_MICROSECOND);
+                typeType = TYPE_TIMESTAMP;
+                break;
+            case DATE:
+                builder.startTable(1);
+                builder.addShort(0, DATE_UNIT_DAY);
+                typeType = TYPE_DATE;
+                break;
+            case BINARY:
+                builder.startTable(0);
+                typeType = TYPE_BINARY;
+                break;
+            default:
+                builder.startTable(0);
+                typeType = TYPE_UTF8;
+        }
+        int type = builder.endTable();
+
+        builder.startTable(7);
+        builder.addOffset(0, nameOffset);
+        builder.addOffset(3, type);
+        builder.addOffset(5, children);
+        // JDBC nullability is often unknown or wrong for expressions, so every field may be null
+        builder.addByte(1, (byte) 1);
+        builder.addByte(2, typeType);
+        return builder.endTable();
+    }
+
+    private static int align8(int length) {
+        return (length + 7) & ~7;
+    }
+
+    /**
+     * One column of the current record batch
+     */
+    private static final class Column {
+        final ColumnKind kind;
+        final int precision;
+        final int scale;
+        final Bytes validity = new Bytes();
+        final Bytes values = new Bytes();       // Fixed-width values, bits for BOOLEAN, offsets for variable width
+        final Bytes data;                       // Variable-width bytes, null for fixed width
+        int nullCount;
+
+        Column(ColumnKind kind, int precision, int scale) {
+            this.kind = kind;
+            this.precision = precision;
+            this.scale = scale;
+            this.data = kind == ColumnKind.STRING || kind == ColumnKind.BINARY ? new Bytes() : null;
+            reset();
+        }
+
+        void reset() {
+            validity.size = 0;
+            values.size = 0;
+            nullCount = 0;
+            if (data != null) {
+                data.size = 0;
+                values.putInt(0);
+            }
+        }
+
+        long bytes() {
+            return validity.size + values.size + (data == null ? 0 : data.size);
+        }
+
+        void read(ResultSet rs, int column, int row) throws IOException, SQLException {
+            boolean present;
+            switch (kind) {
+                case INT32: {
+                    int value = rs.getInt(column);
+                    present = !rs.wasNull();
+                    values.putInt(value);
+                    break;
+                }
+                case INT64: {
+                    long value = rs.getLong(column);
+                    present = !rs.wasNull();
+                    values.putLong(value);
+                    break;
+                }
+                case DOUBLE: {
+                    double value = rs.getDouble(column);
+                    present = !rs.wasNull();
+                    values.putLong(Double.doubleToRawLongBits(value));
+                    break;
+                }
+                case BOOLEAN: {
+                    boolean value = rs.getBoolean(column);
+                    present = !rs.wasNull();
+                    values.putBit(row, value);
+                    break;
+                }
+                case DECIMAL: {
+                    BigDecimal value = rs.getBigDecimal(column);
+                    present = value != null;
+                    putDecimal(present ? value.setScale(scale, RoundingMode.HALF_UP).unscaledValue() : BigInteger.ZERO);
+                    break;
+                }
+                case TIMESTAMP: {
+                    Timestamp value = rs.getTimestamp(column);
+                    present = value != null;
+                    long micros = 0;
+                    if (present) {
+                        LocalDateTime local = value.toLocalDateTime();
+                        micros = local.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + local.getNano() / 1000;
+                    }
+                    values.putLong(micros);
+                    break;
+                }
+                case DATE: {
+                    Date value = rs.getDate(column);
+                    present = value != null;
+                    values.putInt(present ? (int) value.toLocalDate().toEpochDay() : 0);
+                    break;
+                }
+                case BINARY: {
+                    byte[] value = rs.getBytes(column);
+                    present = value != null;
+                    if (present) {
+                        data.put(value);
+                    }
+                    values.putInt(data.size);
+                    break;
+                }
+                default: {
+                    // Also covers decimals that do not fit decimal128
+                    String value = rs.getString(column);
+                    present = value != null;
+                    if (present) {
+                        data.put(value.getBytes(StandardCharsets.UTF_8));
+                    }
+                    values.putInt(data.size);
+                }
+            }
+            validity.putBit(row, present);
+            if (!present) {
+                nullCount++;
+            }
+        }
+
+        void collectBuffers(List<Bytes> buffers) {
+            buffers.add(validity);
+            buffers.add(values);
+            if (data != null) {
+                buffers.add(data);
+            }
+        }
+
+        private void putDecimal(BigInteger unscaled) throws IOException {
+            if (unscaled.bitLength() > 127) {
+                throw new IOException("Decimal value does not fit in " + precision + " digits: " + unscaled);
+            }
+            if (unscaled.bitLength() < 64) {
+                long value = unscaled.longValue();
+                values.putLong(value);
+                values.putLong(value < 0 ? -1L : 0L);
+                return;
+            }
+            // Big-endian two's complement to 16 little-endian bytes, sign extended
+            byte[] bigEndian = unscaled.toByteArray();
+            byte[] littleEndian = new byte[16];
+            Arrays.fill(littleEndian, unscaled.signum() < 0 ? (byte) -1 : 0);
+            for (int i = 0; i < bigEndian.length; i++) {
+                littleEndian[i] = bigEndian[bigEndian.length - 1 - i];
+            }
+            values.put(littleEndian);
+        }
+    }
+
+    /**
+     * Growable little-endian byte array
+     */
+    private static final class Bytes {
+        private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        byte[] data = new byte[1024];
+        int size;
+
+        void putInt(int value) {
+            ensure(4);
+            INT.set(data, size, value);
+            size += 4;
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            LONG.set(data, size, value);
+            size += 8;
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * Sets bit i of a bitmap being filled in order
+         */
+        void putBit(int i, boolean value) {
+            if ((i & 7) == 0) {
+                ensure(1);
+                data[size++] = 0;
+            }
+            if (value) {
+                data[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (size + bytes > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + bytes));
+            }
+        }
+    }
+
+    /**
+     * Minimal flatbuffer encoder, building back to front like the reference implementation
+     * Referenced objects (strings, vectors, child tables) are created before the table
+     * that points at them. Offsets are measured from the end of the buffer.
+     */
+    private static final class FlatBuilder {
+        private byte[] buffer = new byte[1024];
+        private int space = buffer.length;      // Write head, moves towards 0
+        private int minAlign = 1;
+        private int[] vtable;
+        private int objectStart;
+
+        private int offset() {
+            return buffer.length - space;
+        }
+
+        private void prep(int size, int additionalBytes) {
+            minAlign = Math.max(minAlign, size);
+            int alignSize = -(offset() + additionalBytes) & (size - 1);
+            while (space < alignSize + size + additionalBytes) {
+                int oldLength = buffer.length;
+                byte[] bigger = new byte[oldLength * 2];
+                System.arraycopy(buffer, 0, bigger, oldLength, oldLength);
+                buffer = bigger;
+                space += oldLength;
+            }
+            for (int i = 0; i < alignSize; i++) {
+                buffer[--space] = 0;
+            }
+        }
+
+        void putByte(byte value) {
+            buffer[--space] = value;
+        }
+
+        void putShort(short value) {
+            space -= 2;
+            buffer[space] = (byte) value;
+            buffer[space + 1] = (byte) (value >> 8);
+        }
+
+        void putInt(int value) {
+            space -= 4;
+            Bytes.INT.set(buffer, space, value);
+        }
+
+        void putLong(long value) {
+            space -= 8;
+            Bytes.LONG.set(buffer, space, value);
+        }
+
+        int createString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            prep(4, bytes.length + 1);
+            putByte((byte) 0);
+            space -= bytes.length;
+            System.arraycopy(bytes, 0, buffer, space, bytes.length);
+            putInt(bytes.length);
+            return offset();
+        }
+
+        int createOffsetVector(int[] offsets) {
+            prep(4, 4 * offsets.length);
+            for (int i = offsets.length - 1; i >= 0; i--) {
+                putInt(offset() - offsets[i] + 4);
+            }
+            putInt(offsets.length);
+            return offset();
+        }
+
+        /**
+         * Reserves space for a vector of structs; the caller writes the elements last to first
+         */
+        void startStructVector(int elementSize, int count, int alignment) {
+            prep(4, elementSize * count);
+            prep(alignment, elementSize * count);
+        }
+
+        int endVector(int count) {
+            putInt(count);
+            return offset();
+        }
+
+        void startTable(int fieldCount) {
+            vtable = new int[fieldCount];
+            objectStart = offset();
+        }
+
+        void addByte(int slot, byte value) {
+            prep(1, 0);
+            putByte(value);
+            vtable[slot] = offset();
+        }
+
+        void addShort(int slot, short value) {
+            prep(2, 0);
+            putShort(value);
+            vtable[slot] = offset();
+        }
+
+        void addInt(int slot, int value) {
+            prep(4, 0);
+            putInt(value);
+            vtable[slot] = offset();
+        }
+
+        void addLong(int slot, long value) {
+            prep(8, 0);
+            putLong(value);
+            vtable[slot] = offset();
+        }
+
+        void addOffset(int slot, int target) {
+            prep(4, 0);
+            putInt(offset() - target + 4);
+            vtable[slot] = offset();
+        }
+
+        int endTable() {
+            prep(4, 0);
+            putInt(0);      // Patched below to point at the vtable
+            int objectOffset = offset();
+            for (int i = vtable.length - 1; i >= 0; i--) {
+                prep(2, 0);
+                putShort((short) (vtable[i] != 0 ? objectOffset - vtable[i] : 0));
+            }
+            prep(2, 0);
+            putShort((short) (objectOffset - objectStart));
+            prep(2, 0);
+            putShort((short) ((vtable.length + 2) * 2));
+            Bytes.INT.set(buffer, buffer.length - objectOffset, offset() - objectOffset);
+            vtable = null;
+            return objectOffset;
+        }
+
+        byte[] finish(int root) {
+            prep(minAlign, 4);
+            putInt(offset() - root + 4);
+            return Arrays.copyOfRange(buffer, space, buffer.length);
+        }
+    }
+}
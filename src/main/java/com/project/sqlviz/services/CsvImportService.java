@@ -0,0 +1,528 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.Connection;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class for bulk loading CSV files into a table
+ * The file is memory-mapped and split into line-aligned chunks that are parsed on
+ * worker threads; the calling thread binds the parsed rows into JDBC batches and
+ * commits every commitEvery rows, reporting throughput as it goes.
+ */
+public class CsvImportService {
+
+    /**
+     * POJO holding import options
+     */
+    public static class ImportOptions {
+        private char delimiter = ',';
+        private boolean hasHeader = true;          // First line names the target columns
+        private List<String> columns;              // Target columns; null means use the header
+        private int batchSize = 1000;              // Rows per executeBatch
+        private int commitEvery = 50_000;          // Rows per transaction
+        private int parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        private int chunkSizeBytes = 32 * 1024 * 1024;
+        private boolean emptyAsNull = true;        // Unquoted empty fields become NULL
+        private boolean quotedNewlines = false;    // Fields may contain line breaks - forces one parser
+        private Charset charset = StandardCharsets.UTF_8;  // Must be ASCII-compatible
+
+        // Getters
+        public char getDelimiter() { return delimiter; }
+        public boolean hasHeader() { return hasHeader; }
+        public List<String> getColumns() { return columns; }
+        public int getBatchSize() { return batchSize; }
+        public int getCommitEvery() { return commitEvery; }
+        public int getParserThreads() { return parserThreads; }
+        public int getChunkSizeBytes() { return chunkSizeBytes; }
+        public boolean isEmptyAsNull() { return emptyAsNull; }
+        public boolean isQuotedNewlines() { return quotedNewlines; }
+        public Charset getCharset() { return charset; }
+
+        // Setters
+        public void setDelimiter(char delimiter) { this.delimiter = delimiter; }
+        public void setHasHeader(boolean hasHeader) { this.hasHeader = hasHeader; }
+        public void setColumns(List<String> columns) { this.columns = columns; }
+        public void setBatchSize(int batchSize) { this.batchSize = Math.max(1, batchSize); }
+        public void setCommitEvery(int commitEvery) { this.commitEvery = Math.max(1, commitEvery); }
+        public void setParserThreads(int parserThreads) { this.parserThreads = Math.max(1, parserThreads); }
+        public void setChunkSizeBytes(int chunkSizeBytes) { this.chunkSizeBytes = Math.max(4096, chunkSizeBytes); }
+        public void setEmptyAsNull(boolean emptyAsNull) { this.emptyAsNull = emptyAsNull; }
+        public void setQuotedNewlines(boolean quotedNewlines) { this.quotedNewlines = quotedNewlines; }
+        public void setCharset(Charset charset) { this.charset = charset; }
+    }
+
+    /**
+     * Snapshot of import progress
+     */
+    public static class ImportProgress {
+        private final long rowsImported;    // Rows sent to the database
+        private final long rowsCommitted;   // Rows in committed transactions
+        private final long bytesParsed;
+        private final long totalBytes;
+        private final long elapsedMs;
+
+        public ImportProgress(long rowsImported, long rowsCommitted, long bytesParsed, long totalBytes, long elapsedMs) {
+            this.rowsImported = rowsImported;
+            this.rowsCommitted = rowsCommitted;
+            this.bytesParsed = bytesParsed;
+            this.totalBytes = totalBytes;
+            this.elapsedMs = elapsedMs;
+        }
+
+        // Getters
+        public long getRowsImported() { return rowsImported; }
+        public long getRowsCommitted() { return rowsCommitted; }
+        public long getBytesParsed() { return bytesParsed; }
+        public long getTotalBytes() { return totalBytes; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        public double getRowsPerSecond() {
+            return elapsedMs == 0 ? 0 : rowsImported * 1000.0 / elapsedMs;
+        }
+
+        public double getPercentComplete() {
+            return totalBytes == 0 ? 100 : Math.min(100, bytesParsed * 100.0 / totalBytes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows (%.0f rows/sec, %.1f%%) in %dms",
+                rowsImported, getRowsPerSecond(), getPercentComplete(), elapsedMs);
+        }
+    }
+
+    /**
+     * Callback for progress updates, invoked on the importing thread
+     */
+    public interface ProgressListener {
+        void onProgress(ImportProgress progress);
+    }
+
+    /**
+     * Batch of parsed rows handed from a parser to the writer
+     */
+    private static class RowBatch {
+        private final List<String[]> rows;
+        private final long bytes;           // Bytes of input covered by this batch
+        private final Throwable failure;    // Set when a parser failed
+        private final boolean last;         // Parser has finished
+
+        RowBatch(List<String[]> rows, long bytes, Throwable failure, boolean last) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.failure = failure;
+            this.last = last;
+        }
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * Imports a CSV file into a table and returns the final progress
+     * Rows committed before a failure stay committed; the failing transaction is rolled back.
+     */
+    public ImportProgress importCsv(Connection connection, Path file, String table,
+                                    ImportOptions options, ProgressListener listener) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = 0;
+            List<String> columns = options.getColumns();
+            if (options.hasHeader()) {
+                dataStart = lineEnd(channel, 0, size);
+                String[] header = new CsvParser(options).parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, dataStart), 1).get(0);
+                if (columns == null) {
+                    columns = Arrays.asList(header);
+                }
+            }
+            if (columns == null || columns.isEmpty()) {
+                throw new IllegalArgumentException("No target columns: provide a header line or ImportOptions.setColumns");
+            }
+
+            java.sql.Connection jdbc = connection.getJdbcConnection();
+            int[] sqlTypes = columnTypes(jdbc, table, columns);
+            List<long[]> chunks = splitChunks(channel, dataStart, size, options);
+
+            int threads = Math.min(options.getParserThreads(), chunks.size());
+            BlockingQueue<RowBatch> queue = new ArrayBlockingQueue<>(Math.max(4, threads * 2));
+            ExecutorService parsers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "sqlviz-csv-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            boolean autoCommit = jdbc.getAutoCommit();
+            jdbc.setAutoCommit(false);
+            try {
+                // Chunks are handed out in order; each parser sends a 'last' marker when done
+                AtomicInteger nextChunk = new AtomicInteger();
+                AtomicBoolean failed = new AtomicBoolean();
+                int columnCount = columns.size();
+                for (int t = 0; t < threads; t++) {
+                    parsers.execute(() -> parseChunks(channel, chunks, nextChunk, failed, options, columnCount, queue));
+                }
+                return writeBatches(jdbc, table, columns, sqlTypes, queue, threads, size - dataStart,
+                                    options, listener, startNanos);
+            } finally {
+                parsers.shutdownNow();
+                jdbc.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Writer loop: binds parsed rows into JDBC batches and commits in chunks
+     */
+    private ImportProgress writeBatches(java.sql.Connection jdbc, String table, List<String> columns, int[] sqlTypes,
+                                        BlockingQueue<RowBatch> queue, int parserCount, long totalBytes,
+                                        ImportOptions options, ProgressListener listener, long startNanos) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        String insertSql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")";
+
+        long rowsImported = 0;
+        long rowsCommitted = 0;
+        long bytesParsed = 0;
+        long lastReport = System.nanoTime();
+        int finishedParsers = 0;
+        int pendingInBatch = 0;
+
+        try (PreparedStatement stmt = jdbc.prepareStatement(insertSql)) {
+            while (finishedParsers < parserCount) {
+                RowBatch batch = take(queue);
+                if (batch.failure != null) {
+                    throw new SQLException("CSV parsing failed: " + batch.failure.getMessage(), batch.failure);
+                }
+                if (batch.last) {
+                    finishedParsers++;
+                    continue;
+                }
+
+                for (String[] row : batch.rows) {
+                    for (int c = 0; c < row.length; c++) {
+                        bind(stmt, c + 1, row[c], sqlTypes[c], columns.get(c));
+                    }
+                    stmt.addBatch();
+                    rowsImported++;
+                    if (++pendingInBatch >= options.getBatchSize()) {
+                        stmt.executeBatch();
+                        pendingInBatch = 0;
+                    }
+                    if (rowsImported - rowsCommitted >= options.getCommitEvery()) {
+                        if (pendingInBatch > 0) {
+                            stmt.executeBatch();
+                            pendingInBatch = 0;
+                        }
+                        jdbc.commit();
+                        rowsCommitted = rowsImported;
+                    }
+                }
+                bytesParsed += batch.bytes;
+
+                long now = System.nanoTime();
+                if (listener != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                    lastReport = now;
+                    listener.onProgress(progress(rowsImported, rowsCommitted, bytesParsed, totalBytes, startNanos));
+                }
+            }
+
+            if (pendingInBatch > 0) {
+                stmt.executeBatch();
+            }
+            jdbc.commit();
+            rowsCommitted = rowsImported;
+        } catch (SQLException | RuntimeException e) {
+            jdbc.rollback();
+            throw e;
+        }
+
+        ImportProgress result = progress(rowsImported, rowsCommitted, totalBytes, totalBytes, startNanos);
+        if (listener != null) {
+            listener.onProgress(result);
+        }
+        return result;
+    }
+
+    /**
+     * Parser worker: takes chunks until none are left and queues their rows in batches
+     * A failure is queued like any batch, waiting for room if the writer is behind, and
+     * stops the other parsers from taking further chunks. If the writer has already
+     * given up, the parsers are interrupted and the wait ends.
+     */
+    private void parseChunks(FileChannel channel, List<long[]> chunks, AtomicInteger nextChunk, AtomicBoolean failed,
+                             ImportOptions options, int columnCount, BlockingQueue<RowBatch> queue) {
+        CsvParser parser = new CsvParser(options);
+        try {
+            int index;
+            while (!failed.get() && (index = nextChunk.getAndIncrement()) < chunks.size()) {
+                long[] chunk = chunks.get(index);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+                List<String[]> rows = parser.parse(buffer, Integer.MAX_VALUE);
+
+                // Split the chunk into batches, spreading its byte count across them for progress
+                int batchSize = options.getBatchSize();
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    List<String[]> slice = rows.subList(from, Math.min(rows.size(), from + batchSize));
+                    for (String[] row : slice) {
+                        if (row.length != columnCount) {
+                            throw new IllegalArgumentException("Expected " + columnCount + " fields but found " +
+                                                               row.length + ": " + String.join(",", row));
+                        }
+                    }
+                    long bytes = (chunk[1] - chunk[0]) * slice.size() / Math.max(1, rows.size());
+                    queue.put(new RowBatch(slice, bytes, null, false));
+                }
+            }
+            queue.put(new RowBatch(null, 0, null, true));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            failed.set(true);
+            try {
+                queue.put(new RowBatch(null, 0, e, true));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Splits [start, end) into chunks that begin and end on line boundaries
+     */
+    private List<long[]> splitChunks(FileChannel channel, long start, long end, ImportOptions options) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        if (options.isQuotedNewlines()) {
+            // Cannot find record boundaries without parsing from the start
+            long chunkStart = start;
+            while (chunkStart < end) {
+                long chunkEnd = Math.min(end, chunkStart + Integer.MAX_VALUE - 8);
+                if (chunkEnd < end) {
+                    throw new IllegalArgumentException("Files over 2GB cannot contain quoted newlines");
+                }
+                chunks.add(new long[]{chunkStart, chunkEnd});
+                chunkStart = chunkEnd;
+            }
+            return chunks;
+        }
+        long chunkStart = start;
+        while (chunkStart < end) {
+            long target = Math.min(end, chunkStart + options.getChunkSizeBytes());
+            long chunkEnd = target >= end ? end : lineEnd(channel, target, end);
+            chunks.add(new long[]{chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the offset just past the next newline at or after from, or end if there is none
+     */
+    private long lineEnd(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Reads the JDBC types of the target columns without fetching any rows
+     */
+    private int[] columnTypes(java.sql.Connection jdbc, String table, List<String> columns) throws SQLException {
+        String probe = "SELECT " + String.join(", ", columns) + " FROM " + table + " WHERE 1 = 0";
+        try (Statement stmt = jdbc.createStatement();
+             ResultSet rs = stmt.executeQuery(probe)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int[] types = new int[columns.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = metaData.getColumnType(i + 1);
+            }
+            return types;
+        }
+    }
+
+    /**
+     * Converts a CSV field to the column's type and binds it
+     */
+    private void bind(PreparedStatement stmt, int index, String value, int sqlType, String column) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, sqlType);
+            return;
+        }
+        try {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    stmt.setInt(index, Integer.parseInt(value.trim()));
+                    break;
+                case Types.BIGINT:
+                    stmt.setLong(index, Long.parseLong(value.trim()));
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    stmt.setDouble(index, Double.parseDouble(value.trim()));
+                    break;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    stmt.setBigDecimal(index, new BigDecimal(value.trim()));
+                    break;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    String flag = value.trim();
+                    stmt.setBoolean(index, flag.equalsIgnoreCase("true") || flag.equals("1") || flag.equalsIgnoreCase("t"));
+                    break;
+                case Types.DATE:
+                    stmt.setDate(index, Date.valueOf(value.trim()));
+                    break;
+                case Types.TIMESTAMP:
+                    stmt.setTimestamp(index, Timestamp.valueOf(value.trim()));
+                    break;
+                default:
+                    stmt.setString(index, value);
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Invalid value '" + value + "' for column " + column + ": " + e.getMessage(), e);
+        }
+    }
+
+    private RowBatch take(BlockingQueue<RowBatch> queue) throws SQLException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("CSV import interrupted", e);
+        }
+    }
+
+    private ImportProgress progress(long rows, long committed, long bytes, long totalBytes, long startNanos) {
+        return new ImportProgress(rows, committed, bytes, totalBytes, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * RFC 4180 style parser working directly on mapped bytes
+     * Delimiters, quotes and line breaks are ASCII, so only field contents are decoded.
+     */
+    private static class CsvParser {
+        private final byte delimiter;
+        private final boolean emptyAsNull;
+        private final Charset charset;
+        private byte[] field = new byte[256];   // Reused buffer for the current field's bytes
+
+        CsvParser(ImportOptions options) {
+            this.delimiter = (byte) options.getDelimiter();
+            this.emptyAsNull = options.isEmptyAsNull();
+            this.charset = options.getCharset();
+        }
+
+        List<String[]> parse(ByteBuffer buffer, int maxRows) {
+            List<String[]> rows = new ArrayList<>();
+            List<String> record = new ArrayList<>();
+            int length = 0;
+            boolean inQuotes = false;
+            boolean quoted = false;
+            int limit = buffer.limit();
+
+            for (int i = buffer.position(); i < limit && rows.size() < maxRows; i++) {
+                byte b = buffer.get(i);
+                if (inQuotes) {
+                    if (b == '"') {
+                        if (i + 1 < limit && buffer.get(i + 1) == '"') {
+                            length = append(length, b);
+                            i++;
+                        } else {
+                            inQuotes = false;
+                        }
+                    } else {
+                        length = append(length, b);
+                    }
+                } else if (b == delimiter) {
+                    record.add(value(length, quoted));
+                    length = 0;
+                    quoted = false;
+                } else if (b == '\n') {
+                    record.add(value(length, quoted));
+                    addRecord(rows, record);
+                    length = 0;
+                    quoted = false;
+                } else if (b == '\r') {
+                    // Part of a CRLF line ending
+                } else if (b == '"' && length == 0 && !quoted) {
+                    inQuotes = true;
+                    quoted = true;
+                } else {
+                    length = append(length, b);
+                }
+            }
+            // Last line without a trailing newline
+            if (length > 0 || quoted || !record.isEmpty()) {
+                record.add(value(length, quoted));
+                addRecord(rows, record);
+            }
+            return rows;
+        }
+
+        private void addRecord(List<String[]> rows, List<String> record) {
+            // Skip blank lines
+            if (!(record.size() == 1 && (record.get(0) == null || record.get(0).isEmpty()))) {
+                rows.add(record.toArray(new String[0]));
+            }
+            record.clear();
+        }
+
+        private String value(int length, boolean quoted) {
+            if (length == 0 && !quoted && emptyAsNull) {
+                return null;
+            }
+            return new String(field, 0, length, charset);
+        }
+
+        private int append(int length, byte b) {
+            if (length == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[length] = b;
+            return length + 1;
+        }
+    }
+}
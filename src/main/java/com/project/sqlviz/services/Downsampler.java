@@ -0,0 +1,177 @@
+package com.project.sqlviz.services;
+
+import java.util.Arrays;
+
+/**
+ * Service class for reducing a series to roughly one point per pixel before plotting
+ * Both methods keep the visual shape of the series rather than sampling evenly:
+ * - LTTB (Largest-Triangle-Three-Buckets) keeps the point in each bucket that
+ *   forms the largest triangle with its neighbours, good for smooth line charts
+ * - MIN_MAX keeps the first, lowest, highest and last point of each bucket, so
+ *   spikes and the drawn envelope are exact
+ * Series are primitive arrays with NaN for missing values. Buckets are ranges of
+ * row positions, so x values should be ascending (ORDER BY the x column).
+ */
+public final class Downsampler {
+
+    /**
+     * Downsampling algorithms
+     */
+    public enum Method {
+        LTTB,
+        MIN_MAX
+    }
+
+    private Downsampler() {
+    }
+
+    /**
+     * Picks the rows to draw for a range of a series
+     *
+     * @param x      x values, or null to use the row position
+     * @param y      y values, NaN where missing
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param pixels width the range is drawn at
+     * @return the selected rows in ascending order
+     */
+    public static int[] downsample(Method method, double[] x, double[] y, int from, int to, int pixels) {
+        if (method == Method.MIN_MAX) {
+            return minMax(y, from, to, pixels);
+        }
+        return lttb(x, y, from, to, pixels);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets down to at most threshold points
+     * The first and last present points are always kept.
+     */
+    public static int[] lttb(double[] x, double[] y, int from, int to, int threshold) {
+        // Missing points at either end cannot anchor a triangle
+        while (from < to && Double.isNaN(y[from])) from++;
+        while (to > from && Double.isNaN(y[to - 1])) to--;
+        int length = to - from;
+        if (threshold < 3 || length <= threshold) {
+            return present(y, from, to);
+        }
+
+        int[] sampled = new int[threshold];
+        int count = 0;
+        sampled[count++] = from;
+        double every = (double) (length - 2) / (threshold - 2);
+        int anchor = from;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third corner of the triangle
+            int nextStart = from + (int) ((bucket + 1) * every) + 1;
+            int nextEnd = Math.min(from + (int) ((bucket + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            int present = 0;
+            for (int row = nextStart; row < nextEnd; row++) {
+                double value = y[row];
+                if (!Double.isNaN(value)) {
+                    avgX += xAt(x, row);
+                    avgY += value;
+                    present++;
+                }
+            }
+            if (present == 0) {
+                avgX = xAt(x, to - 1);
+                avgY = y[to - 1];
+            } else {
+                avgX /= present;
+                avgY /= present;
+            }
+
+            int start = from + (int) (bucket * every) + 1;
+            int end = from + (int) ((bucket + 1) * every) + 1;
+            double anchorX = xAt(x, anchor);
+            double anchorY = y[anchor];
+            double maxArea = -1;
+            int chosen = -1;
+            for (int row = start; row < end; row++) {
+                double value = y[row];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                // Twice the triangle area; only comparisons matter
+                double area = Math.abs((anchorX - avgX) * (value - anchorY)
+                    - (anchorX - xAt(x, row)) * (avgY - anchorY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = row;
+                }
+            }
+            if (chosen >= 0) {
+                sampled[count++] = chosen;
+                anchor = chosen;
+            }
+        }
+        sampled[count++] = to - 1;
+        return count == sampled.length ? sampled : Arrays.copyOf(sampled, count);
+    }
+
+    /**
+     * First, minimum, maximum and last point of each of the given number of buckets
+     */
+    public static int[] minMax(double[] y, int from, int to, int buckets) {
+        int length = to - from;
+        if (buckets < 1 || length <= buckets * 4) {
+            return present(y, from, to);
+        }
+
+        int[] sampled = new int[buckets * 4];
+        int count = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = from + (int) ((long) bucket * length / buckets);
+            int end = from + (int) ((long) (bucket + 1) * length / buckets);
+            int first = -1;
+            int last = -1;
+            int min = -1;
+            int max = -1;
+            for (int row = start; row < end; row++) {
+                double value = y[row];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = row;
+                    min = row;
+                    max = row;
+                } else if (value < y[min]) {
+                    min = row;
+                } else if (value > y[max]) {
+                    max = row;
+                }
+                last = row;
+            }
+            if (first < 0) {
+                continue;
+            }
+            // Emit in row order without repeats
+            sampled[count++] = first;
+            int low = Math.min(min, max);
+            int high = Math.max(min, max);
+            if (low != first) sampled[count++] = low;
+            if (high != low && high != first) sampled[count++] = high;
+            if (last != high && last != first) sampled[count++] = last;
+        }
+        return Arrays.copyOf(sampled, count);
+    }
+
+    private static int[] present(double[] y, int from, int to) {
+        int[] rows = new int[Math.max(to - from, 0)];
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if (!Double.isNaN(y[row])) {
+                rows[count++] = row;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    private static double xAt(double[] x, int row) {
+        return x == null ? row : x[row];
+    }
+}
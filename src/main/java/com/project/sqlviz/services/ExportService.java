@@ -0,0 +1,756 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.db.Dialect;
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for exporting query results to files without materializing them
+ * Rows are pulled from a forward-only cursor one at a time, encoded straight into a
+ * direct buffer and written through a FileChannel, so memory use does not grow with
+ * the number of rows. Arrow output buffers one record batch at a time.
+ *
+ * Formats:
+ * - CSV: RFC 4180 quoting, optional header
+ * - JSON Lines: one object per row
+ * - Arrow IPC file format, readable by pyarrow, DuckDB, Polars and Arrow Java
+ */
+public class ExportService {
+
+    /**
+     * Output file formats
+     */
+    public enum ExportFormat {
+        CSV(".csv"),
+        JSON_LINES(".jsonl"),
+        ARROW(".arrow");
+
+        private final String extension;
+
+        ExportFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+
+        /**
+         * Picks the format from a file name's extension, defaulting to CSV
+         */
+        public static ExportFormat forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) {
+                return JSON_LINES;
+            }
+            if (name.endsWith(".arrow") || name.endsWith(".feather") || name.endsWith(".ipc")) {
+                return ARROW;
+            }
+            return CSV;
+        }
+    }
+
+    /**
+     * POJO holding export settings
+     */
+    public static class ExportOptions {
+        private char delimiter = ',';               // CSV field separator
+        private boolean includeHeader = true;       // CSV header row
+        private String nullText = "";               // How CSV writes SQL NULL
+        private int fetchSize = 10_000;             // Rows per round trip where the driver honours it
+        private int bufferBytes = 1 << 20;          // Direct buffer between the encoder and the channel
+        private int arrowBatchRows = 65_536;        // Rows per Arrow record batch
+        private long arrowBatchBytes = 64L << 20;   // A batch is also cut once its buffers reach this size
+
+        // Getters
+        public char getDelimiter() { return delimiter; }
+        public boolean isIncludeHeader() { return includeHeader; }
+        public String getNullText() { return nullText; }
+        public int getFetchSize() { return fetchSize; }
+        public int getBufferBytes() { return bufferBytes; }
+        public int getArrowBatchRows() { return arrowBatchRows; }
+        public long getArrowBatchBytes() { return arrowBatchBytes; }
+
+        // Setters
+        public void setDelimiter(char delimiter) { this.delimiter = delimiter; }
+        public void setIncludeHeader(boolean includeHeader) { this.includeHeader = includeHeader; }
+        public void setNullText(String nullText) { this.nullText = nullText; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public void setBufferBytes(int bufferBytes) {
+            if (bufferBytes < 4096) {
+                throw new IllegalArgumentException("Buffer must be at least 4096 bytes: " + bufferBytes);
+            }
+            this.bufferBytes = bufferBytes;
+        }
+
+        public void setArrowBatchRows(int arrowBatchRows) {
+            if (arrowBatchRows < 1) {
+                throw new IllegalArgumentException("Batch size must be positive: " + arrowBatchRows);
+            }
+            this.arrowBatchRows = arrowBatchRows;
+        }
+
+        public void setArrowBatchBytes(long arrowBatchBytes) { this.arrowBatchBytes = arrowBatchBytes; }
+    }
+
+    /**
+     * Snapshot of export throughput
+     */
+    public static class ExportProgress {
+        private final long rowsWritten;
+        private final long bytesWritten;
+        private final long elapsedMs;
+
+        public ExportProgress(long rowsWritten, long bytesWritten, long elapsedMs) {
+            this.rowsWritten = rowsWritten;
+            this.bytesWritten = bytesWritten;
+            this.elapsedMs = elapsedMs;
+        }
+
+        // Getters
+        public long getRowsWritten() { return rowsWritten; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        public double getRowsPerSecond() {
+            return elapsedMs == 0 ? 0 : rowsWritten * 1000.0 / elapsedMs;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedMs == 0 ? 0 : bytesWritten / (1024.0 * 1024.0) * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %.1f MB (%,.0f rows/sec, %.1f MB/sec) in %dms",
+                rowsWritten, bytesWritten / (1024.0 * 1024.0), getRowsPerSecond(), getMegabytesPerSecond(), elapsedMs);
+        }
+    }
+
+    /**
+     * Callback for progress updates, invoked on the exporting thread
+     */
+    public interface ProgressListener {
+        void onProgress(ExportProgress progress);
+    }
+
+    /**
+     * How a column's values are read from the cursor and encoded
+     */
+    enum ColumnKind {
+        INT32, INT64, DOUBLE, BOOLEAN, DECIMAL, TIMESTAMP, DATE, BINARY, STRING;
+
+        static ColumnKind of(ResultSetMetaData metaData, int column) throws SQLException {
+            switch (metaData.getColumnType(column)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    return INT32;
+                case Types.INTEGER:
+                    return metaData.isSigned(column) ? INT32 : INT64;
+                case Types.BIGINT:
+                    // Unsigned 64-bit values do not fit in a long
+                    return metaData.isSigned(column) ? INT64 : DECIMAL;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    return DOUBLE;
+                case Types.BOOLEAN:
+                    return BOOLEAN;
+                case Types.BIT:
+                    return metaData.getPrecision(column) <= 1 ? BOOLEAN : BINARY;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return DECIMAL;
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    return TIMESTAMP;
+                case Types.DATE:
+                    return DATE;
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    return BINARY;
+                default:
+                    return STRING;
+            }
+        }
+    }
+
+    /**
+     * Encodes rows of a cursor into an output
+     */
+    interface RowWriter {
+        void writeHeader() throws IOException, SQLException;
+        void writeRow(ResultSet rs) throws IOException, SQLException;
+        void finish() throws IOException;
+    }
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int CHECK_EVERY_ROWS = 4096;  // Rows between progress and interrupt checks
+
+    /**
+     * Runs a query and writes every row to a file
+     * The statement runs on the given connection with a forward-only cursor set up by the
+     * connection's dialect to stream rather than buffer the result; the caller's autocommit
+     * mode is restored afterwards.
+     * Only SELECT queries, including WITH ... SELECT, are run; anything else is rejected
+     * before it reaches the database.
+     * The export counts against the connection's concurrent-query limit but not its timeout,
+     * row or size limits: a large export may run for hours and every row is written.
+     */
+    @SuppressWarnings("try") // The permit is only held for the block
+    public ExportProgress export(Connection connection, String sql, Path file, ExportFormat format,
+                                 ExportOptions options, ProgressListener listener) throws IOException, SQLException {
+        java.sql.Connection jdbc = connection.getJdbcConnection();
+        ConnectionConfig config = connection.getConfig();
+        Dialect dialect = config.getDialect();
+        SqlInterpreter.Analysis analysis = new SqlInterpreter(dialect.usesBackslashEscapes()).analyze(sql);
+        if (analysis.getError() != null) {
+            throw new SQLException("Invalid query: " + analysis.getError());
+        }
+        if (analysis.getQueryType() != SqlInterpreter.QueryType.SELECT) {
+            throw new SQLException("Export is only supported for SELECT queries");
+        }
+        try (QueryGovernor.Permit permit = QueryGovernor.forConfig(config).admit(config)) {
+            return exportQuery(jdbc, config, dialect, analysis.getSanitizedSql(), file, format, options, listener);
+        }
+    }
+
+    private ExportProgress exportQuery(java.sql.Connection jdbc, ConnectionConfig config, Dialect dialect, String sql,
+                                       Path file, ExportFormat format, ExportOptions options,
+                                       ProgressListener listener) throws IOException, SQLException {
+        boolean cursorStarted = dialect.beginCursor(jdbc);
+        try {
+            try (Statement stmt = jdbc.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                dialect.configureFetch(stmt, dialect.getStreamingFetchSize(options.getFetchSize()));
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    return export(rs, file, format, options, listener);
+                }
+            }
+        } finally {
+            if (cursorStarted) {
+                // Nothing was written, so end the read transaction without committing
+                jdbc.rollback();
+            }
+            dialect.endCursor(jdbc, cursorStarted);
+        }
+    }
+
+    /**
+     * Writes every remaining row of an open cursor to a file
+     * Rows go to a temporary file next to the target, which replaces the target only once
+     * the export has succeeded; if it fails or is interrupted, an existing file is untouched.
+     */
+    public ExportProgress export(ResultSet rs, Path file, ExportFormat format, ExportOptions options,
+                                 ProgressListener listener) throws IOException, SQLException {
+        long startNanos = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".part");
+        boolean completed = false;
+        try {
+            ExportProgress result = write(rs, temp, format, options, listener, startNanos);
+            moveIntoPlace(temp, target);
+            completed = true;
+            return result;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Renames a finished export over the target, atomically where the file system allows
+     */
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private ExportProgress write(ResultSet rs, Path file, ExportFormat format, ExportOptions options,
+                                 ProgressListener listener, long startNanos) throws IOException, SQLException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ChannelOutput out = new ChannelOutput(channel, options.getBufferBytes())) {
+
+            ResultSetMetaData metaData = rs.getMetaData();
+            RowWriter writer = createWriter(format, metaData, out, options);
+            writer.writeHeader();
+
+            long rows = 0;
+            long lastReport = startNanos;
+            while (rs.next()) {
+                writer.writeRow(rs);
+                if (++rows % CHECK_EVERY_ROWS == 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Export cancelled after " + rows + " rows");
+                    }
+                    long now = System.nanoTime();
+                    if (listener != null && now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                        lastReport = now;
+                        listener.onProgress(progress(rows, out.position(), startNanos));
+                    }
+                }
+            }
+            writer.finish();
+            out.flush();
+
+            ExportProgress result = progress(rows, out.position(), startNanos);
+            if (listener != null) {
+                listener.onProgress(result);
+            }
+            return result;
+        }
+    }
+
+    private RowWriter createWriter(ExportFormat format, ResultSetMetaData metaData, ChannelOutput out,
+                                   ExportOptions options) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        ColumnKind[] kinds = new ColumnKind[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            names[c] = metaData.getColumnLabel(c + 1);
+            kinds[c] = ColumnKind.of(metaData, c + 1);
+        }
+        switch (format) {
+            case JSON_LINES:
+                return new JsonLinesWriter(out, names, kinds);
+            case ARROW:
+                return new ArrowIpcWriter(out, metaData, names, kinds, options);
+            default:
+                return new CsvWriter(out, names, kinds, options);
+        }
+    }
+
+    private static ExportProgress progress(long rows, long bytes, long startNanos) {
+        return new ExportProgress(rows, bytes, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * CSV with RFC 4180 quoting: fields containing the delimiter, quotes or line breaks are quoted
+     */
+    private static class CsvWriter implements RowWriter {
+        private final ChannelOutput out;
+        private final String[] names;
+        private final ColumnKind[] kinds;
+        private final byte delimiter;
+        private final boolean includeHeader;
+        private final String nullText;
+
+        CsvWriter(ChannelOutput out, String[] names, ColumnKind[] kinds, ExportOptions options) {
+            this.out = out;
+            this.names = names;
+            this.kinds = kinds;
+            this.delimiter = (byte) options.getDelimiter();
+            this.includeHeader = options.isIncludeHeader();
+            this.nullText = options.getNullText();
+        }
+
+        @Override
+        public void writeHeader() throws IOException {
+            if (!includeHeader) {
+                return;
+            }
+            for (int c = 0; c < names.length; c++) {
+                if (c > 0) {
+                    out.put(delimiter);
+                }
+                writeText(names[c]);
+            }
+            out.put((byte) '\n');
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException, SQLException {
+            for (int c = 0; c < kinds.length; c++) {
+                if (c > 0) {
+                    out.put(delimiter);
+                }
+                int column = c + 1;
+                switch (kinds[c]) {
+                    case INT32:
+                    case INT64: {
+                        long value = rs.getLong(column);
+                        if (rs.wasNull()) writeNull(); else out.putLong(value);
+                        break;
+                    }
+                    case DOUBLE: {
+                        double value = rs.getDouble(column);
+                        if (rs.wasNull()) writeNull(); else out.putAscii(Double.toString(value));
+                        break;
+                    }
+                    case BOOLEAN: {
+                        boolean value = rs.getBoolean(column);
+                        if (rs.wasNull()) writeNull(); else out.putAscii(value ? "true" : "false");
+                        break;
+                    }
+                    case DECIMAL: {
+                        BigDecimal value = rs.getBigDecimal(column);
+                        if (value == null) writeNull(); else out.putAscii(value.toPlainString());
+                        break;
+                    }
+                    case TIMESTAMP: {
+                        Timestamp value = rs.getTimestamp(column);
+                        if (value == null) writeNull(); else out.putAscii(value.toString());
+                        break;
+                    }
+                    case DATE: {
+                        Date value = rs.getDate(column);
+                        if (value == null) writeNull(); else out.putAscii(value.toString());
+                        break;
+                    }
+                    case BINARY: {
+                        byte[] value = rs.getBytes(column);
+                        if (value == null) writeNull(); else out.putAscii(Base64.getEncoder().encodeToString(value));
+                        break;
+                    }
+                    default: {
+                        String value = rs.getString(column);
+                        if (value == null) writeNull(); else writeText(value);
+                    }
+                }
+            }
+            out.put((byte) '\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeNull() throws IOException {
+            if (!nullText.isEmpty()) {
+                out.putUtf8(nullText);
+            }
+        }
+
+        private void writeText(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+            }
+            // An empty string must differ from NULL when NULL is written as nothing
+            if (!quote && !(value.isEmpty() && nullText.isEmpty())) {
+                out.putUtf8(value);
+                return;
+            }
+            out.put((byte) '"');
+            int start = 0;
+            for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start)) {
+                out.putUtf8(value.substring(start, i + 1));
+                out.put((byte) '"');
+                start = i + 1;
+            }
+            out.putUtf8(start == 0 ? value : value.substring(start));
+            out.put((byte) '"');
+        }
+    }
+
+    /**
+     * JSON Lines: one object per row, timestamps and dates as ISO-8601 strings,
+     * binary as base64, non-finite doubles as null
+     */
+    private static class JsonLinesWriter implements RowWriter {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private static final DateTimeFormatter ISO_TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+        private final ChannelOutput out;
+        private final ColumnKind[] kinds;
+        private final byte[][] keys;        // Pre-encoded {"name": and ,"name": prefixes
+
+        JsonLinesWriter(ChannelOutput out, String[] names, ColumnKind[] kinds) {
+            this.out = out;
+            this.kinds = kinds;
+            this.keys = new byte[names.length][];
+            for (int c = 0; c < names.length; c++) {
+                StringBuilder key = new StringBuilder(c == 0 ? "{" : ",");
+                appendString(key, names[c]);
+                keys[c] = key.append(':').toString().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public void writeHeader() {
+        }
+
+        @Override
+        public void writeRow(ResultSet rs) throws IOException, SQLException {
+            if (kinds.length == 0) {
+                out.put((byte) '{');
+            }
+            for (int c = 0; c < kinds.length; c++) {
+                out.putBytes(keys[c]);
+                int column = c + 1;
+                switch (kinds[c]) {
+                    case INT32:
+                    case INT64: {
+                        long value = rs.getLong(column);
+                        if (rs.wasNull()) writeNull(); else out.putLong(value);
+                        break;
+                    }
+                    case DOUBLE: {
+                        double value = rs.getDouble(column);
+                        if (rs.wasNull() || Double.isNaN(value) || Double.isInfinite(value)) writeNull();
+                        else out.putAscii(Double.toString(value));
+                        break;
+                    }
+                    case BOOLEAN: {
+                        boolean value = rs.getBoolean(column);
+                        if (rs.wasNull()) writeNull(); else out.putAscii(value ? "true" : "false");
+                        break;
+                    }
+                    case DECIMAL: {
+                        BigDecimal value = rs.getBigDecimal(column);
+                        if (value == null) writeNull(); else out.putAscii(value.toPlainString());
+                        break;
+                    }
+                    case TIMESTAMP: {
+                        Timestamp value = rs.getTimestamp(column);
+                        if (value == null) writeNull(); else writeQuotedAscii(ISO_TIMESTAMP.format(value.toLocalDateTime()));
+                        break;
+                    }
+                    case DATE: {
+                        Date value = rs.getDate(column);
+                        if (value == null) writeNull(); else writeQuotedAscii(value.toLocalDate().toString());
+                        break;
+                    }
+                    case BINARY: {
+                        byte[] value = rs.getBytes(column);
+                        if (value == null) writeNull(); else writeQuotedAscii(Base64.getEncoder().encodeToString(value));
+                        break;
+                    }
+                    default: {
+                        String value = rs.getString(column);
+                        if (value == null) writeNull(); else writeString(value);
+                    }
+                }
+            }
+            out.put((byte) '}');
+            out.put((byte) '\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeNull() throws IOException {
+            out.putAscii("null");
+        }
+
+        private void writeQuotedAscii(String value) throws IOException {
+            out.put((byte) '"');
+            out.putAscii(value);
+            out.put((byte) '"');
+        }
+
+        private void writeString(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x20 || c == '"' || c == '\\') {
+                    // Rare - fall back to building the escaped text
+                    StringBuilder escaped = new StringBuilder(value.length() + 16);
+                    appendString(escaped, value);
+                    out.putUtf8(escaped.toString());
+                    return;
+                }
+            }
+            out.put((byte) '"');
+            out.putUtf8(value);
+            out.put((byte) '"');
+        }
+
+        private static void appendString(StringBuilder target, String value) {
+            target.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': target.append("\\\""); break;
+                    case '\\': target.append("\\\\"); break;
+                    case '\n': target.append("\\n"); break;
+                    case '\r': target.append("\\r"); break;
+                    case '\t': target.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            target.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        } else {
+                            target.append(c);
+                        }
+                }
+            }
+            target.append('"');
+        }
+    }
+
+    /**
+     * Little-endian byte sink over a FileChannel, with UTF-8 and decimal encoding that
+     * writes directly into a direct buffer
+     */
+    static final class ChannelOutput implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final byte[] digits = new byte[20];
+        private long flushedBytes;
+
+        ChannelOutput(FileChannel channel, int bufferBytes) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Bytes written so far, including those still buffered
+         */
+        long position() {
+            return flushedBytes + buffer.position();
+        }
+
+        void put(byte value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLongLE(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        void putBytes(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        void putZeros(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                put((byte) 0);
+            }
+        }
+
+        /**
+         * Writes a string known to be ASCII (numbers, dates, base64)
+         */
+        void putAscii(String value) throws IOException {
+            int length = value.length();
+            for (int i = 0; i < length; ) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int end = Math.min(length, i + buffer.remaining());
+                for (; i < end; i++) {
+                    buffer.put((byte) value.charAt(i));
+                }
+            }
+        }
+
+        void putUtf8(String value) throws IOException {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    put((byte) c);
+                    continue;
+                }
+                ensure(4);
+                if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');     // Unpaired surrogate, as String.getBytes does
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        /**
+         * Writes a long in decimal without allocating
+         */
+        void putLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                putAscii(Long.toString(value));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int count = 0;
+            do {
+                digits[count++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            while (count > 0) {
+                buffer.put(digits[--count]);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushedBytes += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
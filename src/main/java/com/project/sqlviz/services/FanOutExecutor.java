@@ -0,0 +1,642 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.ColumnVector.ColumnType;
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.models.QueryResult;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for running one query against many databases at once
+ * Every target runs on its own virtual thread, at most maxParallel at a time, each
+ * with its own deadline covering connect, execute and fetch. Rows are read in chunks
+ * and appended straight into one merged columnar result with a leading source
+ * column, so shard results are never held twice. Columns whose types differ between
+ * shards are widened (INT to LONG to DOUBLE, anything else to OBJECT).
+ *
+ * Only read-only queries (SELECT, SHOW) are fanned out. Each shard is held to its own
+ * config's limits like any other query: it takes a QueryGovernor permit, its deadline is
+ * the shorter of the fan-out timeout and the config's statement timeout, and it stops
+ * reading at the config's row limit or heap budget. A shard cut short marks the merged
+ * result as truncated.
+ *
+ * A shard that misses its deadline has its statement cancelled and its thread
+ * interrupted; rows it had already merged are kept and the shard is reported as
+ * partial. The connection it used is closed rather than returned to its pool.
+ */
+public class FanOutExecutor {
+    public static final int DEFAULT_MAX_PARALLEL = 8;
+    public static final long DEFAULT_TIMEOUT_MS = 30_000;
+    public static final String SOURCE_COLUMN = "source";
+
+    private static final int CHUNK_ROWS = 1000;         // Rows read before each merge
+
+    private static final ExecutorService SHARD_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fan-out-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxParallel;
+    private final long timeoutMs;
+    private final SqlInterpreter interpreter;
+    private final SqlInterpreter backslashInterpreter;   // For targets whose dialect escapes with backslashes
+
+    /**
+     * How a shard's part of the query ended
+     */
+    public enum ShardStatus {
+        OK,
+        FAILED,
+        TIMED_OUT,
+        CANCELLED
+    }
+
+    /**
+     * Outcome and latency of one target
+     */
+    public static class ShardResult {
+        private final ConnectionConfig config;
+        private final ShardStatus status;
+        private final int rowCount;           // Rows merged from this shard
+        private final QueryResult.Truncation truncation;   // Limit that cut the shard short, or null
+        private final long connectMs;         // Until a connection was borrowed, -1 if none
+        private final long firstRowMs;        // Until the first row was read, -1 if none
+        private final long totalMs;           // From start until the shard finished or was abandoned
+        private final String errorMessage;
+
+        ShardResult(ConnectionConfig config, ShardStatus status, int rowCount, QueryResult.Truncation truncation,
+                    long connectMs, long firstRowMs, long totalMs, String errorMessage) {
+            this.config = config;
+            this.status = status;
+            this.rowCount = rowCount;
+            this.truncation = truncation;
+            this.connectMs = connectMs;
+            this.firstRowMs = firstRowMs;
+            this.totalMs = totalMs;
+            this.errorMessage = errorMessage;
+        }
+
+        // Getters
+        public ConnectionConfig getConfig() { return config; }
+        public ShardStatus getStatus() { return status; }
+        public int getRowCount() { return rowCount; }
+        public QueryResult.Truncation getTruncation() { return truncation; }
+        public long getConnectMs() { return connectMs; }
+        public long getFirstRowMs() { return firstRowMs; }
+        public long getTotalMs() { return totalMs; }
+        public String getErrorMessage() { return errorMessage; }
+
+        /**
+         * Whether the shard stopped early but some of its rows are in the merged result
+         */
+        public boolean isPartial() {
+            return status != ShardStatus.OK && rowCount > 0;
+        }
+    }
+
+    /**
+     * Merged result plus the report for every target, in target order
+     */
+    public static class FanOutResult {
+        private final QueryResult mergedResult;
+        private final List<ShardResult> shards;
+
+        FanOutResult(QueryResult mergedResult, List<ShardResult> shards) {
+            this.mergedResult = mergedResult;
+            this.shards = shards;
+        }
+
+        public QueryResult getMergedResult() { return mergedResult; }
+        public List<ShardResult> getShards() { return shards; }
+
+        public int getFailedCount() {
+            return (int) shards.stream().filter(s -> s.getStatus() != ShardStatus.OK).count();
+        }
+
+        @Override
+        public String toString() {
+            long slowest = shards.stream().mapToLong(ShardResult::getTotalMs).max().orElse(0);
+            return String.format("%d shards, %d failed, %d rows, slowest %dms",
+                shards.size(), getFailedCount(), mergedResult.getRowCount(), slowest);
+        }
+    }
+
+    /**
+     * Receives each shard's result as soon as it finishes, on the shard's thread
+     */
+    public interface ShardListener {
+        void shardFinished(ShardResult shard, int finishedShards, int totalShards);
+    }
+
+    /**
+     * Handle to a running fan-out
+     */
+    public static class FanOutHandle {
+        private final CompletableFuture<FanOutResult> future = new CompletableFuture<>();
+        private volatile Run run;
+
+        public CompletableFuture<FanOutResult> getFuture() { return future; }
+        public boolean isDone() { return future.isDone(); }
+
+        /**
+         * Rows merged so far across all shards
+         */
+        public int getMergedRowCount() {
+            Run current = run;
+            return current == null ? 0 : current.mergedRows();
+        }
+
+        /**
+         * Stops every shard that has not finished; finished shards keep their rows
+         */
+        public boolean cancel() {
+            Run current = run;
+            if (future.isDone() || current == null) {
+                return false;
+            }
+            current.cancel();
+            return true;
+        }
+    }
+
+    public FanOutExecutor() {
+        this(DEFAULT_MAX_PARALLEL, DEFAULT_TIMEOUT_MS);
+    }
+
+    public FanOutExecutor(int maxParallel, long timeoutMs) {
+        if (maxParallel < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + maxParallel);
+        }
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMs);
+        }
+        this.maxParallel = maxParallel;
+        this.timeoutMs = timeoutMs;
+        this.interpreter = new SqlInterpreter();
+        this.backslashInterpreter = new SqlInterpreter(true);
+    }
+
+    public int getMaxParallel() { return maxParallel; }
+    public long getTimeoutMs() { return timeoutMs; }
+
+    /**
+     * Runs a query on every target and waits for all of them
+     */
+    public FanOutResult execute(String sql, List<ConnectionConfig> targets) {
+        return executeAsync(sql, targets, null).getFuture().join();
+    }
+
+    /**
+     * Starts a query on every target and returns immediately
+     * Connections come from each target's pool. Pools that did not exist before the run
+     * are closed when it finishes, so a fan-out leaves no connections or pool threads behind.
+     */
+    public FanOutHandle executeAsync(String sql, List<ConnectionConfig> targets, ShardListener listener) {
+        FanOutHandle handle = new FanOutHandle();
+        if (targets.isEmpty()) {
+            handle.future.complete(new FanOutResult(new QueryResult(sql, "No target connections", 0), List.of()));
+            return handle;
+        }
+        // Targets are analyzed the way their own dialect reads string literals
+        SqlInterpreter.Analysis standard = null;
+        SqlInterpreter.Analysis backslash = null;
+        for (ConnectionConfig target : targets) {
+            boolean backslashEscapes = target.getDialect().usesBackslashEscapes();
+            if (backslashEscapes && backslash == null) {
+                backslash = backslashInterpreter.analyze(sql);
+            } else if (!backslashEscapes && standard == null) {
+                standard = interpreter.analyze(sql);
+            }
+        }
+        String error = rejection(standard);
+        if (error == null) {
+            error = rejection(backslash);
+        }
+        if (error != null) {
+            handle.future.complete(new FanOutResult(new QueryResult(sql, error, 0), List.of()));
+            return handle;
+        }
+
+        Run run = new Run(standard, backslash, targets, listener, handle.future);
+        handle.run = run;
+        for (Shard shard : run.shards) {
+            SHARD_EXECUTOR.execute(shard::execute);
+        }
+        return handle;
+    }
+
+    /**
+     * Why a query may not be fanned out, or null if it may
+     * Anything that is not plainly read-only is refused, since it would run on every
+     * target at once without a chance to confirm.
+     */
+    private static String rejection(SqlInterpreter.Analysis analysis) {
+        if (analysis == null) {
+            return null;
+        }
+        if (!analysis.isValid()) {
+            return "Invalid SQL query" + (analysis.getError() != null ? ": " + analysis.getError() : "");
+        }
+        SqlInterpreter.QueryType type = analysis.getQueryType();
+        if (type != SqlInterpreter.QueryType.SELECT && type != SqlInterpreter.QueryType.SHOW) {
+            return "Only read-only queries (SELECT, SHOW) can run on shards, not " + type;
+        }
+        return null;
+    }
+
+    /**
+     * State shared by the shards of one fan-out: the merged columns and the finish count
+     * Merging and shard completion happen under the run's lock, so a shard that has
+     * been timed out or cancelled can never add rows after its report was taken.
+     */
+    private class Run {
+        final String sql;
+        final Shard[] shards;
+        final ShardListener listener;
+        final CompletableFuture<FanOutResult> future;
+        final Semaphore permits;
+        final long startNanos;
+        final Set<ConnectionConfig> newPools;   // Targets without a pool before the run, closed after it
+
+        List<String> columnNames;          // Schema of the first shard to return rows
+        ColumnVector[] columns;
+        ColumnVector.StringVector source;
+        int rowCount;
+        int finished;
+        volatile boolean cancelled;
+
+        Run(SqlInterpreter.Analysis standard, SqlInterpreter.Analysis backslash, List<ConnectionConfig> targets,
+            ShardListener listener, CompletableFuture<FanOutResult> future) {
+            this.sql = (standard != null ? standard : backslash).getSanitizedSql();
+            this.listener = listener;
+            this.future = future;
+            this.permits = new Semaphore(maxParallel);
+            this.startNanos = System.nanoTime();
+            this.newPools = new LinkedHashSet<>();
+            this.shards = new Shard[targets.size()];
+            for (int i = 0; i < shards.length; i++) {
+                ConnectionConfig config = targets.get(i);
+                if (ConnectionFactory.getPoolStats(config) == null) {
+                    newPools.add(config);
+                }
+                String shardSql = config.getDialect().usesBackslashEscapes()
+                    ? backslash.getSanitizedSql() : standard.getSanitizedSql();
+                shards[i] = new Shard(this, config, shardSql);
+            }
+        }
+
+        synchronized int mergedRows() {
+            return rowCount;
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (Shard shard : shards) {
+                shard.abandon(ShardStatus.CANCELLED, "Cancelled");
+            }
+        }
+
+        /**
+         * Sets up the merged schema from the first shard, or checks a later shard against it
+         */
+        synchronized void checkSchema(Shard shard, ResultSetMetaData metaData, List<String> names) throws SQLException {
+            if (columnNames == null) {
+                columnNames = names;
+                columns = new ColumnVector[names.size()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = ColumnVector.forColumn(metaData, i + 1);
+                }
+                source = new ColumnVector.StringVector(CHUNK_ROWS);
+                return;
+            }
+            if (names.size() != columnNames.size()) {
+                throw new SQLException("Returned " + names.size() + " columns but other shards returned "
+                    + columnNames.size() + " " + columnNames);
+            }
+        }
+
+        /**
+         * Appends a chunk of a shard's rows; returns false once the shard has been abandoned
+         */
+        synchronized boolean merge(Shard shard, ColumnVector[] chunk, int rows) {
+            if (shard.result != null) {
+                return false;
+            }
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = widen(columns[c], chunk[c].getType());
+                columns[c].appendRange(chunk[c], 0, rows);
+            }
+            String name = shard.name();
+            for (int row = 0; row < rows; row++) {
+                source.append(name);
+            }
+            rowCount += rows;
+            shard.rowCount += rows;
+            return true;
+        }
+
+        /**
+         * Records a shard's outcome once; the last shard to finish completes the future
+         * Returns false if the shard had already been reported.
+         */
+        boolean finish(Shard shard, ShardStatus status, String errorMessage) {
+            ShardResult result;
+            int finishedShards;
+            synchronized (this) {
+                if (shard.result != null) {
+                    return false;
+                }
+                long connectMs = shard.connectNanos < 0 ? -1 : shard.connectNanos / 1_000_000;
+                long firstRowMs = shard.firstRowNanos < 0 ? -1 : shard.firstRowNanos / 1_000_000;
+                long totalMs = shard.startNanos == 0 ? 0 : (System.nanoTime() - shard.startNanos) / 1_000_000;
+                // Rows kept from a shard that ran out of time are a result cut short by its deadline
+                QueryResult.Truncation truncation = shard.truncation == null && status == ShardStatus.TIMED_OUT
+                    && shard.rowCount > 0 ? QueryResult.Truncation.TIME_LIMIT : shard.truncation;
+                result = new ShardResult(shard.config, status, shard.rowCount, truncation,
+                    connectMs, firstRowMs, totalMs, errorMessage);
+                shard.result = result;
+                finishedShards = ++finished;
+            }
+            if (listener != null) {
+                try {
+                    listener.shardFinished(result, finishedShards, shards.length);
+                } catch (RuntimeException e) {
+                    System.err.println("Warning: fan-out listener failed: " + e.getMessage());
+                }
+            }
+            if (finishedShards == shards.length) {
+                closeNewPools();
+                future.complete(buildResult());
+            }
+            return true;
+        }
+
+        /**
+         * Closes the pools this run created; connections still borrowed by abandoned
+         * shards are closed when they are returned
+         */
+        private void closeNewPools() {
+            for (ConnectionConfig config : newPools) {
+                ConnectionFactory.closePool(config);
+            }
+        }
+
+        private synchronized FanOutResult buildResult() {
+            List<ShardResult> results = new ArrayList<>(shards.length);
+            for (Shard shard : shards) {
+                results.add(shard.result);
+            }
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+
+            QueryResult merged;
+            if (columns != null) {
+                List<String> names = new ArrayList<>(columnNames.size() + 1);
+                names.add(SOURCE_COLUMN);
+                names.addAll(columnNames);
+                ColumnVector[] all = new ColumnVector[columns.length + 1];
+                all[0] = source;
+                System.arraycopy(columns, 0, all, 1, columns.length);
+                merged = new QueryResult(sql, names, all, rowCount, elapsedMs);
+                // The first shard cut short by a limit stands for the whole merged result
+                results.stream().map(ShardResult::getTruncation).filter(t -> t != null)
+                    .findFirst().ifPresent(merged::setTruncation);
+            } else if (results.stream().allMatch(r -> r.getStatus() != ShardStatus.OK)) {
+                ShardResult first = results.get(0);
+                merged = new QueryResult(sql, "All " + results.size() + " shards failed, "
+                    + shardName(first.getConfig()) + ": " + first.getErrorMessage(), elapsedMs);
+            } else {
+                merged = new QueryResult(sql, List.of(SOURCE_COLUMN), new ArrayList<>(), elapsedMs);
+            }
+            return new FanOutResult(merged, results);
+        }
+    }
+
+    /**
+     * One target's part of a run
+     */
+    private class Shard {
+        final Run run;
+        final ConnectionConfig config;
+        final String sql;                       // The query as this target's dialect reads it
+        final long timeoutMs;                   // Fan-out timeout, or the config's statement timeout if shorter
+
+        // Written by the shard thread, read under the run's lock when reporting
+        volatile long startNanos;
+        volatile long connectNanos = -1;
+        volatile long firstRowNanos = -1;
+        volatile QueryResult.Truncation truncation;
+        int rowCount;                           // Guarded by run
+        volatile ShardResult result;            // Set once under the run's lock
+
+        private volatile Thread thread;
+        private volatile Statement statement;
+
+        Shard(Run run, ConnectionConfig config, String sql) {
+            this.run = run;
+            this.config = config;
+            this.sql = sql;
+            int configSeconds = config.getQueryTimeoutSeconds();
+            this.timeoutMs = configSeconds > 0
+                ? Math.min(FanOutExecutor.this.timeoutMs, configSeconds * 1000L) : FanOutExecutor.this.timeoutMs;
+        }
+
+        String name() {
+            return shardName(config);
+        }
+
+        void execute() {
+            thread = Thread.currentThread();
+            try {
+                run.permits.acquire();
+            } catch (InterruptedException e) {
+                run.finish(this, ShardStatus.CANCELLED, "Cancelled");
+                return;
+            }
+            QueryGovernor.Permit admitted = null;
+            Connection connection = null;
+            ScheduledFuture<?> deadline = null;
+            try {
+                if (run.cancelled) {
+                    run.finish(this, ShardStatus.CANCELLED, "Cancelled");
+                    return;
+                }
+                startNanos = System.nanoTime();
+                admitted = QueryGovernor.forConfig(config).admit(config);
+                deadline = WATCHDOG.schedule(() -> abandon(ShardStatus.TIMED_OUT,
+                    "Timed out after " + timeoutMs + "ms"), timeoutMs, TimeUnit.MILLISECONDS);
+
+                connection = ConnectionFactory.getPooledConnection(config);
+                connectNanos = System.nanoTime() - startNanos;
+                try (Statement stmt = connection.getJdbcConnection().createStatement()) {
+                    statement = stmt;
+                    if (result != null) {
+                        return;
+                    }
+                    QueryGovernor.applyLimits(stmt, config, true);
+                    stmt.setQueryTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+                    config.getDialect().configureFetch(stmt, config.getDialect().getDefaultFetchSize());
+                    try (ResultSet rs = stmt.executeQuery(sql)) {
+                        readRows(rs);
+                    }
+                } finally {
+                    statement = null;
+                }
+                run.finish(this, ShardStatus.OK, null);
+            } catch (SQLException | RuntimeException e) {
+                run.finish(this, ShardStatus.FAILED, e.getMessage());
+            } finally {
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                Thread.interrupted();
+                close(connection);
+                if (admitted != null) {
+                    admitted.close();
+                }
+                run.permits.release();
+            }
+        }
+
+        private void readRows(ResultSet rs) throws SQLException {
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            List<String> names = new ArrayList<>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                names.add(metaData.getColumnName(i));
+            }
+            run.checkSchema(this, metaData, names);
+
+            int maxRows = config.getMaxRows();
+            long maxResultBytes = config.getMaxResultBytes();
+            long bytes = 0;
+            int total = 0;
+            ColumnVector[] chunk = newChunk(metaData, columnCount);
+            int rows = 0;
+            while (rs.next()) {
+                if (maxRows > 0 && total == maxRows) {
+                    // The statement was allowed one extra row, which shows the result goes on
+                    truncation = QueryResult.Truncation.ROW_LIMIT;
+                    break;
+                }
+                if (firstRowNanos < 0) {
+                    firstRowNanos = System.nanoTime() - startNanos;
+                }
+                for (int c = 0; c < columnCount; c++) {
+                    chunk[c].readFrom(rs, c + 1);
+                }
+                total++;
+                if (++rows == CHUNK_ROWS) {
+                    for (ColumnVector column : chunk) {
+                        bytes += column.estimateSizeBytes();
+                    }
+                    if (!run.merge(this, chunk, rows)) {
+                        return;
+                    }
+                    if (maxResultBytes > 0 && bytes > maxResultBytes) {
+                        truncation = QueryResult.Truncation.SIZE_LIMIT;
+                        return;
+                    }
+                    chunk = newChunk(metaData, columnCount);
+                    rows = 0;
+                }
+            }
+            if (rows > 0) {
+                run.merge(this, chunk, rows);
+            }
+        }
+
+        /**
+         * Gives up on the shard: reports it, then stops its statement and thread
+         */
+        void abandon(ShardStatus status, String message) {
+            if (!run.finish(this, status, message)) {
+                return;
+            }
+            Statement current = statement;
+            if (current != null) {
+                try {
+                    current.cancel();
+                } catch (SQLException e) {
+                    // Driver cannot cancel - the interrupt below still unblocks socket reads
+                }
+            }
+            Thread worker = thread;
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+
+        private void close(Connection connection) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                if (result != null && result.getStatus() != ShardStatus.OK && result.getStatus() != ShardStatus.FAILED) {
+                    // Interrupted or cancelled mid-protocol - do not hand it to the next borrower
+                    connection.getJdbcConnection().close();
+                }
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Warning: could not release connection to " + name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static ColumnVector[] newChunk(ResultSetMetaData metaData, int columnCount) throws SQLException {
+        ColumnVector[] chunk = new ColumnVector[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            chunk[c] = ColumnVector.forColumn(metaData, c + 1);
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns a vector able to hold both its current values and values of another type
+     */
+    private static ColumnVector widen(ColumnVector vector, ColumnType incoming) {
+        ColumnType current = vector.getType();
+        if (current == incoming) {
+            return vector;
+        }
+        // INT, LONG and DOUBLE are declared in widening order
+        ColumnType target = isNumber(current) && isNumber(incoming)
+            ? (current.ordinal() > incoming.ordinal() ? current : incoming)
+            : ColumnType.OBJECT;
+        if (target == current) {
+            return vector;
+        }
+        ColumnVector widened = ColumnVector.create(target, Math.max(vector.size(), 1));
+        widened.appendRange(vector, 0, vector.size());
+        return widened;
+    }
+
+    private static boolean isNumber(ColumnType type) {
+        return type == ColumnType.INT || type == ColumnType.LONG || type == ColumnType.DOUBLE;
+    }
+
+    /**
+     * Name shown in the source column: the config name, or its URL when unnamed
+     */
+    public static String shardName(ConnectionConfig config) {
+        String name = config.getName();
+        return name == null || name.isEmpty() ? config.getJdbcUrl() : name;
+    }
+}
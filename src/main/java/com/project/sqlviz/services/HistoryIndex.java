@@ -0,0 +1,196 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.services.QueryHistoryService.QueryHistoryEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory indexes over query history
+ * A trigram index over the lower-cased SQL text narrows substring searches to the few
+ * entries that contain every trigram of the search term, and a hash index maps each
+ * connection to its entries. Posting lists hold history IDs in ascending order, since
+ * entries are added in ID order. Expired entries are dropped lazily: removeBefore()
+ * only moves a watermark, and lists are trimmed once most of their IDs have expired.
+ */
+public class HistoryIndex {
+    public static final int GRAM_LENGTH = 3;
+
+    /**
+     * Growable sorted list of history IDs
+     */
+    private static class IdList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            // An entry's repeated trigrams would add the same ID several times in a row
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        /**
+         * Removes IDs below minId and returns how many remain
+         */
+        int trimBelow(int minId) {
+            int from = firstAtLeast(minId);
+            if (from > 0) {
+                System.arraycopy(ids, from, ids, 0, size - from);
+                size -= from;
+            }
+            return size;
+        }
+
+        int firstAtLeast(int minId) {
+            int index = Arrays.binarySearch(ids, 0, size, minId);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private final Map<Long, IdList> grams;
+    private final Map<Integer, IdList> connections;
+    private int minLiveId;      // Entries with lower IDs have expired
+    private int firstId;        // Lowest ID still present in the lists
+    private int lastId;         // Highest ID indexed
+
+    public HistoryIndex() {
+        this.grams = new HashMap<>();
+        this.connections = new HashMap<>();
+        clear();
+    }
+
+    /**
+     * Indexes an entry; entries must be added in increasing ID order
+     */
+    public void add(QueryHistoryEntry entry) {
+        int id = entry.getHistoryId();
+        if (lastId == 0) {
+            firstId = id;
+        }
+        lastId = id;
+        connections.computeIfAbsent(entry.getConnId(), conn -> new IdList()).add(id);
+
+        String text = normalize(entry.getSqlText());
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.computeIfAbsent(gram(text, i), key -> new IdList()).add(id);
+        }
+    }
+
+    /**
+     * Marks every entry with an ID below historyId as expired
+     */
+    public void removeBefore(int historyId) {
+        if (historyId <= minLiveId) {
+            return;
+        }
+        minLiveId = historyId;
+        // Trim once expired IDs outnumber live ones so the work is amortized over evictions
+        if (minLiveId - firstId > lastId - minLiveId) {
+            trim(grams.values().iterator());
+            trim(connections.values().iterator());
+            firstId = minLiveId;
+        }
+    }
+
+    /**
+     * Returns the IDs of live entries whose text contains every trigram of term, in ID order
+     * Candidates still need a substring check; returns null when the term is shorter
+     * than a trigram and the index cannot help.
+     */
+    public int[] candidatesFor(String term) {
+        return candidatesFor(term, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns at most max candidates for term, taking the most recent ones
+     */
+    public int[] candidatesFor(String term, int max) {
+        String text = normalize(term);
+        if (text.length() < GRAM_LENGTH) {
+            return null;
+        }
+
+        // Intersect starting from the shortest posting list
+        List<IdList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            IdList list = grams.get(gram(text, i));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        // Walk newest first so a limited search stops early
+        IdList shortest = lists.get(0);
+        int first = shortest.firstAtLeast(minLiveId);
+        int[] result = new int[Math.min(max, shortest.size - first)];
+        int count = 0;
+        for (int i = shortest.size - 1; i >= first && count < result.length; i--) {
+            int id = shortest.ids[i];
+            boolean all = true;
+            for (int l = 1; l < lists.size() && all; l++) {
+                all = lists.get(l).contains(id);
+            }
+            if (all) {
+                result[count++] = id;
+            }
+        }
+        int[] ascending = new int[count];
+        for (int i = 0; i < count; i++) {
+            ascending[i] = result[count - 1 - i];
+        }
+        return ascending;
+    }
+
+    /**
+     * Returns the IDs of live entries recorded for a connection, in ID order
+     */
+    public int[] idsForConnection(int connId) {
+        IdList list = connections.get(connId);
+        if (list == null) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(list.ids, list.firstAtLeast(minLiveId), list.size);
+    }
+
+    public void clear() {
+        grams.clear();
+        connections.clear();
+        minLiveId = 0;
+        firstId = 0;
+        lastId = 0;
+    }
+
+    /**
+     * Lower-cases text the same way for indexing and searching
+     */
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private void trim(Iterator<IdList> lists) {
+        while (lists.hasNext()) {
+            if (lists.next().trimBelow(minLiveId) == 0) {
+                lists.remove();
+            }
+        }
+    }
+
+    private static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -0,0 +1,488 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.services.QueryHistoryService.QueryHistoryEntry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable append-only store for query history entries
+ * Entries are appended to memory-mapped segment files named after the first history ID
+ * they hold. Opening the log reads only the segment headers, so startup cost does not
+ * depend on how much history there is; a segment's record offsets are indexed the first
+ * time a record in it is looked up. Old entries beyond maxEntries are dropped a whole
+ * segment at a time, and compact() rewrites a partly expired oldest segment.
+ * Writes reach the OS page cache immediately (surviving an application crash) and are
+ * forced to disk when a segment fills up and on close().
+ */
+public class HistoryLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_MAX_ENTRIES = 5_000_000;
+
+    // Segment header: magic, version, firstId, lastId, count, writePosition
+    private static final int MAGIC = 0x53514C48; // "SQLH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int LAST_ID_OFFSET = 16;
+    private static final int COUNT_OFFSET = 24;
+    private static final int POSITION_OFFSET = 28;
+
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * One segment file holding a contiguous range of history IDs
+     */
+    private static class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final int capacity;
+        private MappedByteBuffer buffer;   // Mapped on first use
+        private final long firstId;
+        private long lastId;
+        private int count;
+        private int writePosition;
+        private int[] offsets;             // Record offsets by index, built lazily
+        private int indexed;               // Number of valid entries in offsets
+
+        Segment(Path path, FileChannel channel, int capacity, long firstId, long lastId, int count, int writePosition) {
+            this.path = path;
+            this.channel = channel;
+            this.capacity = capacity;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.count = count;
+            this.writePosition = writePosition;
+        }
+
+        MappedByteBuffer buffer() throws IOException {
+            if (buffer == null) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+            return buffer;
+        }
+
+        /**
+         * Returns the offset of the record at index, scanning forward from the last indexed record
+         */
+        int offsetOf(int index) throws IOException {
+            if (offsets == null) {
+                offsets = new int[Math.max(16, count)];
+            }
+            ByteBuffer data = buffer();
+            int position = indexed == 0 ? HEADER_SIZE : offsets[indexed - 1] + 4 + data.getInt(offsets[indexed - 1]);
+            while (indexed <= index) {
+                if (indexed == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[indexed++] = position;
+                position += 4 + data.getInt(position);
+            }
+            return offsets[index];
+        }
+
+        void close() throws IOException {
+            if (buffer != null) {
+                buffer.force();
+            }
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxEntries;
+    private final List<Segment> segments;  // Oldest first; the last one takes appends
+    private long size;
+    private boolean closed;
+
+    /**
+     * Opens (or creates) a log in the given directory with default limits
+     */
+    public HistoryLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_ENTRIES);
+    }
+
+    public HistoryLog(Path directory, int segmentSize, long maxEntries) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(HEADER_SIZE * 2, segmentSize);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.segments = new ArrayList<>();
+        Files.createDirectories(directory);
+        openSegments();
+    }
+
+    /**
+     * Appends an entry; its ID must be greater than every ID already in the log
+     */
+    public synchronized void append(QueryHistoryEntry entry) throws IOException {
+        if (closed) {
+            throw new IOException("History log is closed");
+        }
+        byte[] sql = entry.getSqlText() == null ? null : entry.getSqlText().getBytes(StandardCharsets.UTF_8);
+        byte[] error = entry.getErrorMessage() == null ? null : entry.getErrorMessage().getBytes(StandardCharsets.UTF_8);
+        int payload = 4 + 4 + 8 + 4 + 8 + 4 + 1 + 4 + length(sql) + 4 + length(error);
+        int recordSize = 4 + payload;
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment != null && entry.getHistoryId() <= segment.lastId) {
+            throw new IllegalArgumentException("History ID " + entry.getHistoryId() + " is not after " + segment.lastId);
+        }
+        if (segment == null || segment.writePosition + recordSize > segment.capacity) {
+            if (segment != null) {
+                segment.buffer().force();
+            }
+            segment = createSegment(entry.getHistoryId(), Math.max(segmentSize, HEADER_SIZE + recordSize));
+            segments.add(segment);
+        }
+
+        ByteBuffer data = segment.buffer();
+        int position = segment.writePosition;
+        data.putInt(position, payload);
+        position += 4;
+        data.putInt(position, entry.getHistoryId());
+        data.putInt(position + 4, entry.getConnId());
+        data.putLong(position + 8, entry.getRunAt().toEpochSecond(ZoneOffset.UTC));
+        data.putInt(position + 16, entry.getRunAt().getNano());
+        data.putLong(position + 20, entry.getDurationMs());
+        data.putInt(position + 28, entry.getRowCount());
+        data.put(position + 32, (byte) (entry.wasSuccessful() ? 1 : 0));
+        position = putBytes(data, position + 33, sql);
+        position = putBytes(data, position, error);
+
+        // Publish the record by advancing the header's write position last
+        if (segment.offsets != null && segment.indexed == segment.count) {
+            if (segment.indexed == segment.offsets.length) {
+                segment.offsets = Arrays.copyOf(segment.offsets, segment.offsets.length * 2);
+            }
+            segment.offsets[segment.indexed++] = segment.writePosition;
+        }
+        segment.lastId = entry.getHistoryId();
+        segment.count++;
+        segment.writePosition = position;
+        data.putLong(LAST_ID_OFFSET, segment.lastId);
+        data.putInt(COUNT_OFFSET, segment.count);
+        data.putInt(POSITION_OFFSET, segment.writePosition);
+        size++;
+
+        dropExpiredSegments();
+    }
+
+    /**
+     * Number of entries in the log
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Lowest history ID in the log, or 0 when empty
+     */
+    public synchronized int getFirstHistoryId() {
+        for (Segment segment : segments) {
+            if (segment.count > 0) {
+                return (int) segment.firstId;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Highest history ID in the log, or 0 when empty
+     */
+    public synchronized int getLastHistoryId() {
+        return segments.isEmpty() ? 0 : (int) segments.get(segments.size() - 1).lastId;
+    }
+
+    /**
+     * Reads the entry with the given ID, or null if it is not in the log
+     */
+    public synchronized QueryHistoryEntry get(int historyId) throws IOException {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Segment segment = segments.get(mid);
+            if (historyId < segment.firstId) {
+                high = mid - 1;
+            } else if (historyId > segment.lastId) {
+                low = mid + 1;
+            } else {
+                // IDs within a segment are contiguous unless an append failed half way
+                int index = (int) (historyId - segment.firstId);
+                if (index < segment.count) {
+                    QueryHistoryEntry entry = read(segment, segment.offsetOf(index));
+                    if (entry.getHistoryId() == historyId) {
+                        return entry;
+                    }
+                }
+                return scanFor(segment, historyId);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the most recent entries, oldest first
+     */
+    public synchronized List<QueryHistoryEntry> readRecent(int count) throws IOException {
+        List<QueryHistoryEntry> recent = new ArrayList<>(Math.min(count, (int) Math.min(size, Integer.MAX_VALUE)));
+        for (int s = segments.size() - 1; s >= 0 && recent.size() < count; s--) {
+            Segment segment = segments.get(s);
+            for (int i = segment.count - 1; i >= 0 && recent.size() < count; i--) {
+                recent.add(read(segment, segment.offsetOf(i)));
+            }
+        }
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    /**
+     * Passes every entry to the consumer, oldest first
+     */
+    public synchronized void forEach(Consumer<QueryHistoryEntry> consumer) throws IOException {
+        for (Segment segment : segments) {
+            int position = HEADER_SIZE;
+            for (int i = 0; i < segment.count; i++) {
+                consumer.accept(read(segment, position));
+                position += 4 + segment.buffer().getInt(position);
+            }
+        }
+    }
+
+    /**
+     * Deletes every entry
+     */
+    public synchronized void clear() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+            deleteFile(segment.path);
+        }
+        segments.clear();
+        size = 0;
+    }
+
+    /**
+     * Reclaims space held by expired entries at the head of the oldest segment
+     * Whole expired segments are dropped as soon as they expire; this rewrites the
+     * oldest segment when it is only partly expired.
+     */
+    public synchronized void compact() throws IOException {
+        dropExpiredSegments();
+        long expired = size - maxEntries;
+        if (expired <= 0 || segments.size() < 2) {
+            return; // Never rewrite the segment taking appends
+        }
+
+        Segment oldest = segments.get(0);
+        int keepFrom = (int) expired;
+        ByteBuffer source = oldest.buffer();
+        int start = oldest.offsetOf(keepFrom);
+        int length = oldest.writePosition - start;
+        long firstId = read(oldest, start).getHistoryId();
+
+        // Write the live records to a temp file and move it into place before deleting the original
+        Path target = segmentPath(firstId);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            writeHeader(header, firstId, oldest.lastId, oldest.count - keepFrom, HEADER_SIZE + length);
+            channel.write(header, 0);
+            ByteBuffer records = source.duplicate();
+            records.limit(oldest.writePosition).position(start);
+            channel.write(records, HEADER_SIZE);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        oldest.close();
+        deleteFile(oldest.path);
+        segments.set(0, openSegment(target));
+        size -= keepFrom;
+    }
+
+    /**
+     * Forces pending writes to disk and releases the segment files
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    /**
+     * Drops the oldest segments while the rest still hold at least maxEntries entries
+     */
+    private void dropExpiredSegments() throws IOException {
+        while (segments.size() > 1 && size - segments.get(0).count >= maxEntries) {
+            Segment oldest = segments.remove(0);
+            size -= oldest.count;
+            oldest.close();
+            deleteFile(oldest.path);
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(Comparator.comparingLong(HistoryLog::firstIdOf));
+
+        for (Path path : paths) {
+            Segment segment;
+            try {
+                segment = openSegment(path);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: skipping unreadable history segment " + path + ": " + e.getMessage());
+                continue;
+            }
+            // A compaction interrupted after the move leaves the original overlapping its replacement
+            if (!segments.isEmpty() && segments.get(segments.size() - 1).lastId >= segment.firstId) {
+                Segment original = segments.remove(segments.size() - 1);
+                size -= original.count;
+                original.close();
+                deleteFile(original.path);
+            }
+            segments.add(segment);
+            size += segment.count;
+        }
+    }
+
+    private Segment openSegment(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // Keep reading until the header is complete
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("not a history segment");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("unsupported version " + header.getInt(4));
+            }
+            int writePosition = header.getInt(POSITION_OFFSET);
+            int capacity = (int) Math.min(channel.size(), Integer.MAX_VALUE);
+            if (writePosition < HEADER_SIZE || writePosition > capacity) {
+                throw new IOException("corrupt header");
+            }
+            return new Segment(path, channel, capacity, header.getLong(8),
+                               header.getLong(LAST_ID_OFFSET), header.getInt(COUNT_OFFSET), writePosition);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Segment createSegment(long firstId, int capacity) throws IOException {
+        Path path = segmentPath(firstId);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(path, channel, capacity, firstId, firstId - 1, 0, HEADER_SIZE);
+        segment.offsets = new int[64];
+        ByteBuffer data = segment.buffer();
+        writeHeader(data, firstId, firstId - 1, 0, HEADER_SIZE);
+        return segment;
+    }
+
+    private QueryHistoryEntry scanFor(Segment segment, int historyId) throws IOException {
+        for (int i = 0; i < segment.count; i++) {
+            QueryHistoryEntry entry = read(segment, segment.offsetOf(i));
+            if (entry.getHistoryId() == historyId) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private QueryHistoryEntry read(Segment segment, int offset) throws IOException {
+        ByteBuffer data = segment.buffer();
+        int position = offset + 4;
+        int historyId = data.getInt(position);
+        int connId = data.getInt(position + 4);
+        LocalDateTime runAt = LocalDateTime.ofEpochSecond(data.getLong(position + 8), data.getInt(position + 16), ZoneOffset.UTC);
+        long durationMs = data.getLong(position + 20);
+        int rowCount = data.getInt(position + 28);
+        boolean successful = data.get(position + 32) != 0;
+        position += 33;
+        String sql = getString(data, position);
+        position += 4 + Math.max(0, data.getInt(position));
+        String error = getString(data, position);
+        return new QueryHistoryEntry(historyId, connId, sql, runAt, durationMs, successful, error, rowCount);
+    }
+
+    private static void writeHeader(ByteBuffer data, long firstId, long lastId, int count, int writePosition) {
+        data.putInt(0, MAGIC);
+        data.putInt(4, VERSION);
+        data.putLong(8, firstId);
+        data.putLong(LAST_ID_OFFSET, lastId);
+        data.putInt(COUNT_OFFSET, count);
+        data.putInt(POSITION_OFFSET, writePosition);
+    }
+
+    private static int putBytes(ByteBuffer data, int position, byte[] bytes) {
+        if (bytes == null) {
+            data.putInt(position, -1);
+            return position + 4;
+        }
+        data.putInt(position, bytes.length);
+        data.put(position + 4, bytes);
+        return position + 4 + bytes.length;
+    }
+
+    private static String getString(ByteBuffer data, int position) {
+        int length = data.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private Path segmentPath(long firstId) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstId, SEGMENT_SUFFIX));
+    }
+
+    private static long firstIdOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Warning: could not delete history segment " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.services.QueryHistoryService.QueryHistoryEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer of the most recent history entries
+ * Entry N lives in slot N mod capacity, so writers with distinct IDs never wait on
+ * each other: a slot is only ever replaced by an entry with a higher ID, using
+ * compare-and-set. Readers take a snapshot by walking IDs downwards from the highest
+ * one allocated and keeping the slots whose entry has exactly that ID, which skips
+ * entries still being written and slots already reused by newer entries.
+ */
+public class HistoryRing {
+    private final AtomicReferenceArray<QueryHistoryEntry> slots;
+    private final int mask;
+    private final int limit;    // Number of entries the ring promises to keep
+
+    public HistoryRing(int limit) {
+        this.limit = Math.max(1, limit);
+        int capacity = Integer.highestOneBit(this.limit);
+        if (capacity < this.limit) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Stores an entry unless its slot already holds a newer one
+     */
+    public void put(QueryHistoryEntry entry) {
+        int slot = entry.getHistoryId() & mask;
+        while (true) {
+            QueryHistoryEntry current = slots.get(slot);
+            if (current != null && current.getHistoryId() >= entry.getHistoryId()) {
+                return;
+            }
+            if (slots.compareAndSet(slot, current, entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the entry with the given ID if it is still in the ring
+     */
+    public QueryHistoryEntry get(int historyId) {
+        QueryHistoryEntry entry = slots.get(historyId & mask);
+        return entry != null && entry.getHistoryId() == historyId ? entry : null;
+    }
+
+    /**
+     * Returns up to count of the most recent entries with IDs up to lastId, oldest first
+     * Only the last limit IDs are considered, however many slots the ring has.
+     */
+    public List<QueryHistoryEntry> snapshot(int lastId, int count) {
+        int lowest = Math.max(1, lastId - limit + 1);
+        List<QueryHistoryEntry> entries = new ArrayList<>(Math.min(count, Math.max(0, lastId - lowest + 1)));
+        for (int id = lastId; id >= lowest && entries.size() < count; id--) {
+            QueryHistoryEntry entry = get(id);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Service class for building pivot tables over a query result in memory
+ * Rows are grouped by any number of dimension columns and each group gets
+ * SUM/COUNT/AVG/MIN/MAX measures. Scans run as fork-join tasks over row ranges:
+ * each task aggregates into its own partial state and the partials are merged.
+ *
+ * The engine keeps the group of every row and the per-group accumulators between
+ * calls, so pivots are edited incrementally:
+ * - adding a measure scans only that measure's column
+ * - adding a dimension splits the existing groups by the new column only
+ * - removing a dimension rolls the accumulators up without touching the rows
+ * - removing a measure just drops it
+ * Methods are synchronized so a background thread can edit the pivot while the
+ * UI reads the last result.
+ */
+public class PivotEngine {
+
+    /**
+     * Aggregate functions a measure can apply
+     */
+    public enum Aggregate {
+        SUM, COUNT, AVG, MIN, MAX
+    }
+
+    /**
+     * An aggregate over one source column, or COUNT(*) when the column is -1
+     */
+    public static class Measure {
+        private final int column;                // Source column index, -1 for COUNT(*)
+        private final Aggregate aggregate;
+
+        public Measure(int column, Aggregate aggregate) {
+            if (column < 0 && aggregate != Aggregate.COUNT) {
+                throw new IllegalArgumentException(aggregate + " needs a column");
+            }
+            this.column = Math.max(column, -1);
+            this.aggregate = aggregate;
+        }
+
+        /**
+         * COUNT(*) - counts rows rather than non-null values
+         */
+        public static Measure countRows() {
+            return new Measure(-1, Aggregate.COUNT);
+        }
+
+        public int getColumn() { return column; }
+        public Aggregate getAggregate() { return aggregate; }
+
+        /**
+         * Column heading such as SUM(amount) or COUNT(*)
+         */
+        public String getLabel(List<String> columnNames) {
+            return aggregate + "(" + (column < 0 ? "*" : columnNames.get(column)) + ")";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Measure)) return false;
+            Measure other = (Measure) o;
+            return column == other.column && aggregate == other.aggregate;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(column, aggregate);
+        }
+    }
+
+    private static final int MIN_TASK_ROWS = 65_536;        // Below this a range is scanned by one task
+    private static final int DENSE_SPLIT_LIMIT = 1 << 22;   // Max group x value combinations split without hashing
+    private static final Object NULL_KEY = new Object();    // Stands in for SQL NULL in hash keys
+
+    private final QueryResult source;
+    private final int rowCount;
+    private final int taskRows;                             // Rows per leaf task
+    private final Map<Integer, Dictionary> dictionaries;    // Encoded dimension columns, kept after removal
+    private final List<Integer> dimensions;
+    private final List<Measure> measures;
+    private final List<Accumulators> accumulators;          // Parallel to measures
+
+    private int[] groupOf;                                  // Group ID of every row
+    private List<int[]> groupKeys;                          // Dictionary code per dimension, per group
+    private QueryResult result;                             // Last built result, null when stale
+    private long[] splitKeys;                               // Scratch output of split()
+
+    /**
+     * A column's distinct values and the code of every row's value
+     */
+    private static class Dictionary {
+        final Object[] values;
+        final int[] codes;
+
+        Dictionary(Object[] values, int[] codes) {
+            this.values = values;
+            this.codes = codes;
+        }
+    }
+
+    /**
+     * Dense IDs in first-appearance order for a per-row key
+     */
+    private static class Encoding {
+        final int[] ids;
+        final List<Object> keys;
+
+        Encoding(int[] ids, List<Object> keys) {
+            this.ids = ids;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Keys a leaf task found in its row range, in first-appearance order
+     * The task writes its local IDs straight into the shared ID array.
+     */
+    private static class LocalKeys {
+        final int from;
+        final int to;
+        final List<Object> keys;
+
+        LocalKeys(int from, int to, List<Object> keys) {
+            this.from = from;
+            this.to = to;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Running sum, count, min and max per group for one measure
+     */
+    private static class Accumulators {
+        final double[] sum;
+        final long[] count;
+        final double[] min;
+        final double[] max;
+
+        Accumulators(int groups) {
+            sum = new double[groups];
+            count = new long[groups];
+            min = new double[groups];
+            max = new double[groups];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        void add(int group, double value) {
+            sum[group] += value;
+            count[group]++;
+            if (value < min[group]) min[group] = value;
+            if (value > max[group]) max[group] = value;
+        }
+
+        /**
+         * Folds group 'from' of another accumulator into group 'into' of this one
+         */
+        void merge(int into, Accumulators other, int from) {
+            sum[into] += other.sum[from];
+            count[into] += other.count[from];
+            if (other.min[from] < min[into]) min[into] = other.min[from];
+            if (other.max[from] > max[into]) max[into] = other.max[from];
+        }
+    }
+
+    /**
+     * Splits a row range in half until it is small enough to scan, then merges the halves
+     */
+    private static class RangeTask<T> extends RecursiveTask<T> {
+        private final int from;
+        private final int to;
+        private final int leafRows;
+        private final RangeFunction<T> leaf;
+        private final BinaryOperator<T> merge;
+
+        RangeTask(int from, int to, int leafRows, RangeFunction<T> leaf, BinaryOperator<T> merge) {
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+            this.leaf = leaf;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= leafRows) {
+                return leaf.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask<T> left = new RangeTask<>(from, mid, leafRows, leaf, merge);
+            left.fork();
+            T right = new RangeTask<>(mid, to, leafRows, leaf, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeFunction<T> {
+        T apply(int from, int to);
+    }
+
+    public PivotEngine(QueryResult source) {
+        if (!source.isSuccessful()) {
+            throw new IllegalArgumentException("Cannot pivot a failed query result");
+        }
+        this.source = source;
+        this.rowCount = source.getRowCount();
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        this.taskRows = Math.max(MIN_TASK_ROWS, (rowCount + parallelism - 1) / Math.max(parallelism, 1));
+        this.dictionaries = new HashMap<>();
+        this.dimensions = new ArrayList<>();
+        this.measures = new ArrayList<>();
+        this.accumulators = new ArrayList<>();
+
+        // With no dimensions every row is in the single grand-total group
+        this.groupOf = new int[rowCount];
+        this.groupKeys = new ArrayList<>();
+        this.groupKeys.add(new int[0]);
+    }
+
+    /**
+     * Builds a pivot in one go
+     */
+    public static QueryResult pivot(QueryResult source, List<Integer> dimensions, List<Measure> measures) {
+        PivotEngine engine = new PivotEngine(source);
+        for (int dimension : dimensions) {
+            engine.addDimension(dimension);
+        }
+        for (Measure measure : measures) {
+            engine.addMeasure(measure);
+        }
+        return engine.getResult();
+    }
+
+    /**
+     * Groups by one more column, splitting the current groups by its values
+     * Existing measures are re-aggregated over the finer groups.
+     */
+    public synchronized QueryResult addDimension(int column) {
+        checkColumn(column);
+        if (dimensions.contains(column)) {
+            return getResult();
+        }
+        Dictionary dictionary = dictionaries.computeIfAbsent(column, this::encodeColumn);
+        int[] codes = dictionary.codes;
+        int[] parents = groupOf;
+
+        // The new group of a row is its old group plus its code in the new column
+        int[] ids = split(parents, codes, dictionary.values.length);
+        List<int[]> keys = new ArrayList<>(splitKeys.length);
+        for (long packed : splitKeys) {
+            int[] parentKey = groupKeys.get((int) (packed >>> 32));
+            int[] childKey = Arrays.copyOf(parentKey, parentKey.length + 1);
+            childKey[parentKey.length] = (int) packed;
+            keys.add(childKey);
+        }
+        splitKeys = null;
+        groupOf = ids;
+        groupKeys = keys;
+        dimensions.add(column);
+
+        for (int i = 0; i < measures.size(); i++) {
+            accumulators.set(i, aggregate(measures.get(i)));
+        }
+        result = null;
+        return getResult();
+    }
+
+    /**
+     * Stops grouping by a column, merging the groups that only differed by it
+     * The rows are not scanned again - accumulators are rolled up group by group.
+     */
+    public synchronized QueryResult removeDimension(int column) {
+        int position = dimensions.indexOf(column);
+        if (position < 0) {
+            return getResult();
+        }
+
+        // Drop the column from every group key, keeping groups in key order
+        Map<List<Integer>, int[]> distinct = new HashMap<>();
+        int[][] fineKeys = new int[groupKeys.size()][];
+        for (int group = 0; group < fineKeys.length; group++) {
+            int[] key = groupKeys.get(group);
+            int[] coarseKey = new int[key.length - 1];
+            System.arraycopy(key, 0, coarseKey, 0, position);
+            System.arraycopy(key, position + 1, coarseKey, position, key.length - position - 1);
+            fineKeys[group] = distinct.computeIfAbsent(Arrays.stream(coarseKey).boxed().toList(), k -> coarseKey);
+        }
+        List<int[]> coarseKeys = new ArrayList<>(distinct.values());
+        coarseKeys.sort(Arrays::compare);
+        Map<int[], Integer> coarseIds = new IdentityHashMap<>();
+        for (int id = 0; id < coarseKeys.size(); id++) {
+            coarseIds.put(coarseKeys.get(id), id);
+        }
+        int[] fineToCoarse = new int[fineKeys.length];
+        for (int group = 0; group < fineKeys.length; group++) {
+            fineToCoarse[group] = coarseIds.get(fineKeys[group]);
+        }
+
+        for (int i = 0; i < accumulators.size(); i++) {
+            Accumulators fine = accumulators.get(i);
+            Accumulators coarse = new Accumulators(coarseKeys.size());
+            for (int group = 0; group < fineToCoarse.length; group++) {
+                coarse.merge(fineToCoarse[group], fine, group);
+            }
+            accumulators.set(i, coarse);
+        }
+
+        remap(groupOf, fineToCoarse);
+
+        groupKeys = coarseKeys;
+        dimensions.remove(position);
+        result = null;
+        return getResult();
+    }
+
+    /**
+     * Adds a measure, aggregating only its column over the current groups
+     */
+    public synchronized QueryResult addMeasure(Measure measure) {
+        if (measure.getColumn() >= 0) {
+            checkColumn(measure.getColumn());
+        }
+        if (measures.contains(measure)) {
+            return getResult();
+        }
+        Accumulators values = aggregate(measure);
+        measures.add(measure);
+        accumulators.add(values);
+        result = null;
+        return getResult();
+    }
+
+    /**
+     * Drops a measure; the other measures are kept as they are
+     */
+    public synchronized QueryResult removeMeasure(Measure measure) {
+        int position = measures.indexOf(measure);
+        if (position >= 0) {
+            measures.remove(position);
+            accumulators.remove(position);
+            result = null;
+        }
+        return getResult();
+    }
+
+    /**
+     * The current pivot as a columnar result: one row per group, dimension columns
+     * then measure columns. Groups are ordered by dimension, each dimension's values
+     * in the order they first appear in the source.
+     */
+    public synchronized QueryResult getResult() {
+        if (result == null) {
+            result = buildResult();
+        }
+        return result;
+    }
+
+    public synchronized List<Integer> getDimensions() {
+        return new ArrayList<>(dimensions);
+    }
+
+    public synchronized List<Measure> getMeasures() {
+        return new ArrayList<>(measures);
+    }
+
+    public synchronized int getGroupCount() {
+        return groupKeys.size();
+    }
+
+    /**
+     * Numbers the (parent group, code) pairs of every row in key order
+     * When the pairs fit a dense table the rows are only marked and counted; otherwise
+     * the pairs are hashed per task and the distinct keys sorted afterwards.
+     * Leaves the packed parent/code key of each new group in splitKeys.
+     */
+    private int[] split(int[] parents, int[] codes, int codeCount) {
+        long combinations = (long) groupKeys.size() * codeCount;
+        if (combinations <= DENSE_SPLIT_LIMIT) {
+            int[] ids = new int[rowCount];
+            boolean[] present = new boolean[(int) combinations];
+            parallel((from, to) -> {
+                for (int row = from; row < to; row++) {
+                    int slot = parents[row] * codeCount + codes[row];
+                    ids[row] = slot;
+                    present[slot] = true;
+                }
+                return null;
+            }, (a, b) -> null);
+
+            int[] slotToGroup = new int[present.length];
+            int groups = 0;
+            for (boolean used : present) {
+                groups += used ? 1 : 0;
+            }
+            splitKeys = new long[groups];
+            for (int slot = 0, group = 0; slot < present.length; slot++) {
+                if (present[slot]) {
+                    splitKeys[group] = ((long) (slot / codeCount) << 32) | (slot % codeCount);
+                    slotToGroup[slot] = group++;
+                }
+            }
+            remap(ids, slotToGroup);
+            return ids;
+        }
+
+        Encoding encoding = encode(row -> ((long) parents[row] << 32) | codes[row]);
+        int groups = encoding.keys.size();
+        splitKeys = new long[groups];
+        for (int i = 0; i < groups; i++) {
+            splitKeys[i] = (Long) encoding.keys.get(i);
+        }
+        long[] sorted = splitKeys.clone();
+        Arrays.sort(sorted);
+        int[] order = new int[groups];
+        for (int i = 0; i < groups; i++) {
+            order[i] = Arrays.binarySearch(sorted, splitKeys[i]);
+        }
+        splitKeys = sorted;
+        remap(encoding.ids, order);
+        return encoding.ids;
+    }
+
+    /**
+     * Rewrites every row's ID through a mapping, in parallel
+     */
+    private void remap(int[] ids, int[] mapping) {
+        parallel((from, to) -> {
+            for (int row = from; row < to; row++) {
+                ids[row] = mapping[ids[row]];
+            }
+            return null;
+        }, (a, b) -> null);
+    }
+
+    /**
+     * Dictionary-encodes a column: each task collects the distinct values of its
+     * range, then the local dictionaries are merged in row order
+     */
+    private Dictionary encodeColumn(int column) {
+        ColumnVector vector = source.getColumn(column);
+        Encoding encoding = encode(row -> {
+            Object value = vector.get(row);
+            return value == null ? NULL_KEY : value;
+        });
+        Object[] values = encoding.keys.toArray();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == NULL_KEY) {
+                values[i] = null;
+            }
+        }
+        return new Dictionary(values, encoding.ids);
+    }
+
+    /**
+     * Assigns dense IDs to per-row keys, numbered in first-appearance order
+     */
+    private Encoding encode(IntFunction<Object> keyOf) {
+        int[] ids = new int[rowCount];
+        List<LocalKeys> partials = parallel((from, to) -> {
+            Map<Object, Integer> local = new HashMap<>();
+            List<Object> keys = new ArrayList<>();
+            for (int row = from; row < to; row++) {
+                Object key = keyOf.apply(row);
+                Integer id = local.get(key);
+                if (id == null) {
+                    id = keys.size();
+                    local.put(key, id);
+                    keys.add(key);
+                }
+                ids[row] = id;
+            }
+            List<LocalKeys> single = new ArrayList<>(1);
+            single.add(new LocalKeys(from, to, keys));
+            return single;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+        if (partials == null) {
+            return new Encoding(ids, new ArrayList<>());
+        }
+
+        // Merge the local key lists in row order, remembering how each task's IDs map
+        Map<Object, Integer> global = new HashMap<>();
+        List<Object> keys = new ArrayList<>();
+        int[][] remaps = new int[partials.size()][];
+        for (int p = 0; p < partials.size(); p++) {
+            List<Object> localKeys = partials.get(p).keys;
+            int[] remap = new int[localKeys.size()];
+            for (int i = 0; i < remap.length; i++) {
+                Object key = localKeys.get(i);
+                Integer id = global.get(key);
+                if (id == null) {
+                    id = keys.size();
+                    global.put(key, id);
+                    keys.add(key);
+                }
+                remap[i] = id;
+            }
+            remaps[p] = remap;
+        }
+
+        // The first task's IDs are already global, the rest are rewritten in parallel
+        IntStream.range(1, partials.size()).parallel().forEach(p -> {
+            LocalKeys partial = partials.get(p);
+            int[] remap = remaps[p];
+            for (int row = partial.from; row < partial.to; row++) {
+                ids[row] = remap[ids[row]];
+            }
+        });
+        return new Encoding(ids, keys);
+    }
+
+    /**
+     * Aggregates a measure over the current groups with per-task partial accumulators
+     */
+    private Accumulators aggregate(Measure measure) {
+        int groups = groupKeys.size();
+        int[] rows = groupOf;
+        int column = measure.getColumn();
+        ColumnVector vector = column < 0 ? null : source.getColumn(column);
+        boolean countOnly = measure.getAggregate() == Aggregate.COUNT;
+        String name = column < 0 ? null : source.getColumnNames().get(column);
+
+        Accumulators merged = parallel((from, to) -> {
+            Accumulators partial = new Accumulators(groups);
+            if (vector == null) {
+                for (int row = from; row < to; row++) {
+                    partial.count[rows[row]]++;
+                }
+            } else if (vector.isNumeric()) {
+                for (int row = from; row < to; row++) {
+                    if (!vector.isNull(row)) {
+                        partial.add(rows[row], vector.getDouble(row));
+                    }
+                }
+            } else {
+                for (int row = from; row < to; row++) {
+                    Object value = vector.get(row);
+                    if (value instanceof Number) {
+                        partial.add(rows[row], ((Number) value).doubleValue());
+                    } else if (value != null) {
+                        if (!countOnly) {
+                            throw new IllegalArgumentException(
+                                "Column " + name + " is not numeric, only COUNT is supported");
+                        }
+                        partial.count[rows[row]]++;
+                    }
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            for (int group = 0; group < groups; group++) {
+                left.merge(group, right, group);
+            }
+            return left;
+        });
+        return merged == null ? new Accumulators(groups) : merged;
+    }
+
+    private QueryResult buildResult() {
+        long start = System.currentTimeMillis();
+        List<String> sourceNames = source.getColumnNames();
+        int groups = groupKeys.size();
+        List<String> names = new ArrayList<>();
+        ColumnVector[] columns = new ColumnVector[dimensions.size() + measures.size()];
+
+        for (int d = 0; d < dimensions.size(); d++) {
+            Object[] values = dictionaries.get(dimensions.get(d)).values;
+            ColumnVector vector = new ColumnVector.ObjectVector(Math.max(groups, 1));
+            for (int[] key : groupKeys) {
+                vector.append(values[key[d]]);
+            }
+            names.add(sourceNames.get(dimensions.get(d)));
+            columns[d] = vector;
+        }
+
+        for (int m = 0; m < measures.size(); m++) {
+            Measure measure = measures.get(m);
+            Accumulators values = accumulators.get(m);
+            ColumnVector vector;
+            if (measure.getAggregate() == Aggregate.COUNT) {
+                vector = new ColumnVector.LongVector(Math.max(groups, 1));
+                for (int group = 0; group < groups; group++) {
+                    vector.append(values.count[group]);
+                }
+            } else {
+                vector = new ColumnVector.DoubleVector(Math.max(groups, 1));
+                for (int group = 0; group < groups; group++) {
+                    vector.append(values.count[group] == 0 ? null : value(measure.getAggregate(), values, group));
+                }
+            }
+            names.add(measure.getLabel(sourceNames));
+            columns[dimensions.size() + m] = vector;
+        }
+
+        StringBuilder description = new StringBuilder("PIVOT");
+        for (int d = 0; d < dimensions.size(); d++) {
+            description.append(d == 0 ? " BY " : ", ").append(sourceNames.get(dimensions.get(d)));
+        }
+        return new QueryResult(description.toString(), names, columns, groups, System.currentTimeMillis() - start);
+    }
+
+    private static double value(Aggregate aggregate, Accumulators values, int group) {
+        switch (aggregate) {
+            case SUM: return values.sum[group];
+            case AVG: return values.sum[group] / values.count[group];
+            case MIN: return values.min[group];
+            case MAX: return values.max[group];
+            default: return values.count[group];
+        }
+    }
+
+    private <T> T parallel(RangeFunction<T> leaf, BinaryOperator<T> merge) {
+        if (rowCount == 0) {
+            return null;
+        }
+        return ForkJoinPool.commonPool().invoke(new RangeTask<>(0, rowCount, taskRows, leaf, merge));
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= source.getColumnCount()) {
+            throw new IllegalArgumentException("No column " + column + " in result");
+        }
+    }
+}
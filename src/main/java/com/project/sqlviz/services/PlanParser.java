@@ -0,0 +1,529 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.QueryPlan;
+import com.project.sqlviz.models.QueryPlan.Node;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service class turning EXPLAIN output into an operator tree
+ * The format is recognised from the text itself:
+ * - PostgreSQL FORMAT JSON, with or without ANALYZE
+ * - MySQL and MariaDB FORMAT=JSON, including MariaDB's ANALYZE FORMAT=JSON
+ * - MySQL's JSON format version 2 and EXPLAIN ANALYZE tree text
+ * - H2's plan, the query annotated with the index each table is read through
+ * Anything else becomes a single node holding the plan's lines.
+ */
+public final class PlanParser {
+    private static final Pattern TREE_COST = Pattern.compile("\\(cost=(?:[\\d.e+]+\\.\\.)?([\\d.e+]+) rows=([\\d.e+]+)\\)");
+    private static final Pattern TREE_ACTUAL = Pattern.compile(
+        "\\(actual time=[\\d.e+]+\\.\\.([\\d.e+]+) rows=([\\d.e+]+) loops=([\\d.e+]+)\\)");
+    private static final Pattern H2_TABLE = Pattern.compile("^\\s*(?:FROM|(?:\\w+ )*JOIN)\\s+(?:\"?\\w+\"?\\.)?\"?(\\w+)\"?");
+    private static final Pattern H2_COMMENT = Pattern.compile("^\\s*/\\* (.*?) \\*/[\\s)]*$");
+
+    // PostgreSQL properties shown as numbers or not worth listing
+    private static final Set<String> POSTGRES_SKIPPED = Set.of(
+        "Node Type", "Relation Name", "Index Name", "Plans", "Plan Rows", "Total Cost", "Actual Rows",
+        "Actual Loops", "Actual Total Time", "Actual Startup Time", "Startup Cost", "Plan Width",
+        "Parallel Aware", "Async Capable", "Parent Relationship", "Alias", "Schema", "Output");
+
+    private PlanParser() {
+    }
+
+    /**
+     * Parses the text returned by EXPLAIN
+     *
+     * @param sql      the explained query
+     * @param planText all rows of the EXPLAIN result joined with newlines
+     * @param analyzed whether the query was run to collect actual rows and times
+     * @throws IllegalArgumentException if the text looks like JSON but cannot be read
+     */
+    public static QueryPlan parse(String sql, String planText, boolean analyzed) {
+        String text = planText.trim();
+        if (text.startsWith("{") || text.startsWith("[")) {
+            return parseJson(sql, planText, analyzed, JsonReader.parse(text));
+        }
+        if (text.startsWith("->")) {
+            return new QueryPlan(sql, planText, analyzed, parseTree(text));
+        }
+        return new QueryPlan(sql, planText, analyzed, parseText(text));
+    }
+
+    private static QueryPlan parseJson(String sql, String planText, boolean analyzed, Object json) {
+        if (json instanceof List<?> list && !list.isEmpty()) {
+            json = list.get(0);
+        }
+        if (!(json instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Unrecognised JSON plan");
+        }
+        if (map.get("Plan") instanceof Map<?, ?> plan) {
+            QueryPlan result = new QueryPlan(sql, planText, analyzed, postgresNode(plan));
+            result.setPlanningTimeMs(number(map.get("Planning Time")));
+            return result;
+        }
+        if (map.get("query_block") instanceof Map<?, ?> block) {
+            return new QueryPlan(sql, planText, analyzed, mysqlBlock(block));
+        }
+        if (map.containsKey("operation")) {
+            return new QueryPlan(sql, planText, analyzed, mysqlOperation(map));
+        }
+        throw new IllegalArgumentException("Unrecognised JSON plan");
+    }
+
+    // ---- PostgreSQL ----
+
+    private static Node postgresNode(Map<?, ?> plan) {
+        String type = String.valueOf(plan.get("Node Type"));
+        Node node = new Node(type);
+        String relation = string(plan.get("Relation Name"));
+        String index = string(plan.get("Index Name"));
+        if (relation != null && index != null) {
+            node.setRelation(relation + " using " + index);
+        } else {
+            node.setRelation(relation != null ? relation : index);
+        }
+        node.setEstimatedRows(number(plan.get("Plan Rows")));
+        node.setCost(number(plan.get("Total Cost")));
+        double loops = number(plan.get("Actual Loops"));
+        if (!Double.isNaN(loops)) {
+            node.setLoops(loops);
+            node.setActualRows(number(plan.get("Actual Rows")));
+            node.setTimeMs(number(plan.get("Actual Total Time")) * loops);
+        }
+        // Index scans without a condition read the whole index
+        node.setFullScan(type.endsWith("Seq Scan")
+            || (type.contains("Index") && type.endsWith("Scan") && !plan.containsKey("Index Cond")));
+
+        for (Map.Entry<?, ?> entry : plan.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (POSTGRES_SKIPPED.contains(key) || value instanceof Map) {
+                continue;
+            }
+            if (key.endsWith("Blocks") && value instanceof Double blocks && blocks == 0) {
+                continue;
+            }
+            node.addDetail(key + ": " + format(value));
+        }
+        if (plan.get("Plans") instanceof List<?> children) {
+            for (Object child : children) {
+                if (child instanceof Map<?, ?> childPlan) {
+                    node.addChild(postgresNode(childPlan));
+                }
+            }
+        }
+        return node;
+    }
+
+    // ---- MySQL and MariaDB FORMAT=JSON ----
+
+    private static Node mysqlBlock(Map<?, ?> block) {
+        Object id = block.get("select_id");
+        Node node = new Node(id == null ? "Query block" : "Query block #" + format(id));
+        if (block.get("cost_info") instanceof Map<?, ?> costInfo) {
+            node.setCost(number(costInfo.get("query_cost")));
+        }
+        node.setTimeMs(number(block.get("r_total_time_ms")));
+        addMysqlChildren(block, node);
+        return node;
+    }
+
+    /**
+     * Adds a node for every operation, table and subquery nested in a MySQL JSON object
+     */
+    private static void addMysqlChildren(Map<?, ?> object, Node parent) {
+        for (Map.Entry<?, ?> entry : object.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            Object value = entry.getValue();
+            if (key.equals("query_block") && value instanceof Map<?, ?> block) {
+                parent.addChild(mysqlBlock(block));
+            } else if (key.equals("table") && value instanceof Map<?, ?> table) {
+                parent.addChild(mysqlTable(table));
+            } else if (key.equals("nested_loop") && value instanceof List<?> tables) {
+                Node loop = new Node("Nested loop");
+                for (Object item : tables) {
+                    if (item instanceof Map<?, ?> itemMap) {
+                        addMysqlChildren(itemMap, loop);
+                    }
+                }
+                parent.addChild(loop);
+            } else if (key.equals("union_result") && value instanceof Map<?, ?> union) {
+                Node node = mysqlOperationNode("Union", union);
+                if (union.get("query_specifications") instanceof List<?> specs) {
+                    for (Object spec : specs) {
+                        if (spec instanceof Map<?, ?> specMap) {
+                            addMysqlChildren(specMap, node);
+                        }
+                    }
+                }
+                parent.addChild(node);
+            } else if ((key.endsWith("_subqueries") || key.equals("subqueries")) && value instanceof List<?> subqueries) {
+                for (Object subquery : subqueries) {
+                    if (subquery instanceof Map<?, ?> subqueryMap) {
+                        Node node = mysqlOperationNode("Subquery", subqueryMap);
+                        addMysqlChildren(subqueryMap, node);
+                        parent.addChild(node);
+                    }
+                }
+            } else if (value instanceof Map<?, ?> operation) {
+                String name = mysqlOperationName(key, operation);
+                if (name != null) {
+                    Node node = mysqlOperationNode(name, operation);
+                    addMysqlChildren(operation, node);
+                    includeChildTimes(node);
+                    parent.addChild(node);
+                }
+            }
+        }
+    }
+
+    private static String mysqlOperationName(String key, Map<?, ?> operation) {
+        switch (key) {
+            case "ordering_operation":
+                return Boolean.TRUE.equals(operation.get("using_filesort")) ? "Sort" : "Order by";
+            case "grouping_operation": return "Group by";
+            case "duplicates_removal": return "Distinct";
+            case "windowing": return "Window";
+            case "buffer_result": return "Buffer result";
+            case "filesort": return "Sort";
+            case "temporary_table": return "Temporary table";
+            case "read_sorted_file": return "Read sorted file";
+            case "block-nl-join": return "Block nested loop join";
+            case "materialized_from_subquery": return "Materialized subquery";
+            default: return null;
+        }
+    }
+
+    private static Node mysqlOperationNode(String name, Map<?, ?> operation) {
+        Node node = new Node(name);
+        node.setTimeMs(number(operation.get("r_total_time_ms")));
+        node.setLoops(number(operation.get("r_loops")));
+        if (Boolean.TRUE.equals(operation.get("using_temporary_table"))) {
+            node.addDetail("Using temporary table");
+        }
+        if (Boolean.TRUE.equals(operation.get("using_filesort"))) {
+            node.addDetail("Using filesort");
+        }
+        Object sortKey = operation.get("sort_key");
+        if (sortKey != null) {
+            node.addDetail("Sort key: " + format(sortKey));
+        }
+        return node;
+    }
+
+    /**
+     * MariaDB reports the time of an operation or table read without its children; adds them
+     * so times include children like in the other formats
+     */
+    private static void includeChildTimes(Node node) {
+        if (Double.isNaN(node.getTimeMs())) {
+            return;
+        }
+        double time = node.getTimeMs();
+        for (Node child : node.getChildren()) {
+            double childTime = subtreeTime(child);
+            if (!Double.isNaN(childTime)) {
+                time += childTime;
+            }
+        }
+        node.setTimeMs(time);
+    }
+
+    /**
+     * Time of a node, or the sum of its children's when it has none of its own
+     */
+    private static double subtreeTime(Node node) {
+        if (!Double.isNaN(node.getTimeMs())) {
+            return node.getTimeMs();
+        }
+        double time = Double.NaN;
+        for (Node child : node.getChildren()) {
+            double childTime = subtreeTime(child);
+            if (!Double.isNaN(childTime)) {
+                time = Double.isNaN(time) ? childTime : time + childTime;
+            }
+        }
+        return time;
+    }
+
+    private static Node mysqlTable(Map<?, ?> table) {
+        String access = string(table.get("access_type"));
+        String operation;
+        switch (access == null ? "" : access) {
+            case "ALL": operation = "Table scan"; break;
+            case "index": operation = "Full index scan"; break;
+            case "range": operation = "Index range scan"; break;
+            case "ref": case "eq_ref": case "ref_or_null": operation = "Index lookup"; break;
+            case "const": case "system": operation = "Constant lookup"; break;
+            case "index_merge": operation = "Index merge"; break;
+            case "fulltext": operation = "Fulltext search"; break;
+            default: operation = access == null ? "Table access" : "Table access (" + access + ")";
+        }
+        Node node = new Node(operation);
+        String name = string(table.get("table_name"));
+        String key = string(table.get("key"));
+        node.setRelation(key == null ? name : name + " using " + key);
+        node.setFullScan("ALL".equals(access) || "index".equals(access));
+
+        double rows = number(table.get("rows_examined_per_scan"));
+        node.setEstimatedRows(Double.isNaN(rows) ? number(table.get("rows")) : rows);
+        if (table.get("cost_info") instanceof Map<?, ?> costInfo) {
+            double read = number(costInfo.get("read_cost"));
+            double eval = number(costInfo.get("eval_cost"));
+            node.setCost(Double.isNaN(read) ? eval : Double.isNaN(eval) ? read : read + eval);
+        } else {
+            node.setCost(number(table.get("cost")));
+        }
+        node.setActualRows(number(table.get("r_rows")));
+        node.setLoops(number(table.get("r_loops")));
+        node.setTimeMs(number(table.get("r_total_time_ms")));
+
+        addDetail(node, "Condition", table.get("attached_condition"));
+        addDetail(node, "Possible keys", table.get("possible_keys"));
+        addDetail(node, "Key parts", table.get("used_key_parts"));
+        addDetail(node, "Filtered %", table.get("filtered"));
+        addDetail(node, "Actual filtered %", table.get("r_filtered"));
+        addDetail(node, "Rows per join", table.get("rows_produced_per_join"));
+        if (Boolean.TRUE.equals(table.get("using_index"))) {
+            node.addDetail("Using index");
+        }
+        addMysqlChildren(table, node);
+        includeChildTimes(node);
+        return node;
+    }
+
+    /**
+     * Node of MySQL's JSON format version 2, which mirrors the EXPLAIN ANALYZE tree
+     */
+    private static Node mysqlOperation(Map<?, ?> operation) {
+        Node node = new Node(String.valueOf(operation.get("operation")));
+        treeFullScan(node);
+        node.setEstimatedRows(number(operation.get("estimated_rows")));
+        node.setCost(number(operation.get("estimated_total_cost")));
+        double loops = number(operation.get("actual_loops"));
+        if (!Double.isNaN(loops)) {
+            node.setLoops(loops);
+            node.setActualRows(number(operation.get("actual_rows")));
+            node.setTimeMs(number(operation.get("actual_last_row_ms")) * loops);
+        }
+        addDetail(node, "Condition", operation.get("condition"));
+        for (Object value : operation.values()) {
+            if (value instanceof List<?> inputs) {
+                for (Object input : inputs) {
+                    if (input instanceof Map<?, ?> inputMap && inputMap.containsKey("operation")) {
+                        node.addChild(mysqlOperation(inputMap));
+                    }
+                }
+            }
+        }
+        return node;
+    }
+
+    // ---- MySQL EXPLAIN ANALYZE tree ----
+
+    private static Node parseTree(String text) {
+        Node root = null;
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Integer> indents = new ArrayDeque<>();
+        Node last = null;
+        for (String line : text.split("\\R")) {
+            int arrow = line.indexOf("-> ");
+            if (arrow < 0 || !line.substring(0, arrow).isBlank()) {
+                if (last != null && !line.isBlank()) {
+                    last.addDetail(line.trim());
+                }
+                continue;
+            }
+            String content = line.substring(arrow + 3);
+            Node node = new Node(treeOperation(content));
+            treeFullScan(node);
+            Matcher cost = TREE_COST.matcher(content);
+            if (cost.find()) {
+                node.setCost(Double.parseDouble(cost.group(1)));
+                node.setEstimatedRows(Double.parseDouble(cost.group(2)));
+            }
+            Matcher actual = TREE_ACTUAL.matcher(content);
+            if (actual.find()) {
+                double loops = Double.parseDouble(actual.group(3));
+                node.setLoops(loops);
+                node.setActualRows(Double.parseDouble(actual.group(2)));
+                node.setTimeMs(Double.parseDouble(actual.group(1)) * loops);
+            } else if (content.contains("(never executed)")) {
+                node.setLoops(0);
+                node.setActualRows(0);
+                node.setTimeMs(0);
+            }
+
+            while (!indents.isEmpty() && indents.peek() >= arrow) {
+                indents.pop();
+                stack.pop();
+            }
+            if (stack.isEmpty()) {
+                if (root == null) {
+                    root = node;
+                } else {
+                    // Several top-level operators, e.g. from a multi-statement EXPLAIN
+                    Node top = new Node("Plan");
+                    top.addChild(root);
+                    root = top;
+                    stack.push(top);
+                    indents.push(-1);
+                }
+            }
+            if (!stack.isEmpty()) {
+                stack.peek().addChild(node);
+            }
+            stack.push(node);
+            indents.push(arrow);
+            last = node;
+        }
+        return root != null ? root : new Node("Plan");
+    }
+
+    private static String treeOperation(String content) {
+        int end = content.length();
+        for (String marker : new String[]{"(cost=", "(actual time=", "(never executed)"}) {
+            int at = content.indexOf(marker);
+            if (at >= 0) {
+                end = Math.min(end, at);
+            }
+        }
+        return content.substring(0, end).trim();
+    }
+
+    private static void treeFullScan(Node node) {
+        String operation = node.getOperation();
+        // Scans of internal temporary tables, named like <temporary>, are not flagged
+        node.setFullScan((operation.startsWith("Table scan on") || operation.startsWith("Index scan on")
+            || operation.startsWith("Covering index scan on")) && !operation.contains(" on <"));
+    }
+
+    // ---- H2 and other text plans ----
+
+    /**
+     * Reads H2's plan, where the query is annotated with a comment after each table naming
+     * the scan or index used and, with ANALYZE, the number of rows scanned
+     */
+    private static Node parseText(String text) {
+        Node root = new Node("Query");
+        String table = null;
+        Node current = null;
+        int commentDepth = 0;
+        for (String line : text.split("\\R")) {
+            if (commentDepth > 0) {
+                // Inside a multi-line comment, such as a subquery in an index condition
+                commentDepth += count(line, "/*") - count(line, "*/");
+                continue;
+            }
+            Matcher comment = H2_COMMENT.matcher(line);
+            Matcher tableMatch = H2_TABLE.matcher(line);
+            if (comment.matches()) {
+                String body = comment.group(1);
+                if (body.startsWith("scanCount: ") && current != null) {
+                    current.setActualRows(Double.parseDouble(body.substring("scanCount: ".length())));
+                } else if (table != null && body.endsWith(".tableScan")) {
+                    current = addTextNode(root, "Table scan", table, true);
+                    table = null;
+                } else if (table != null && body.matches("[\\w.\"]+:.*")) {
+                    int colon = body.indexOf(':');
+                    String index = body.substring(body.lastIndexOf('.', colon) + 1, colon);
+                    current = addTextNode(root, "Index lookup", table + " using " + index, false);
+                    current.addDetail("Condition: " + body.substring(colon + 1).trim());
+                    table = null;
+                } else {
+                    (current != null ? current : root).addDetail(body);
+                }
+            } else if (tableMatch.find()) {
+                table = tableMatch.group(1);
+                current = null;
+            } else if (line.trim().startsWith("/*")) {
+                commentDepth = count(line, "/*") - count(line, "*/");
+                if (table != null && line.contains(".tableScan")) {
+                    current = addTextNode(root, "Table scan", table, true);
+                    table = null;
+                } else if (table != null) {
+                    String body = line.trim().substring(2).trim();
+                    int colon = body.indexOf(':');
+                    String index = colon > 0 ? body.substring(body.lastIndexOf('.', colon) + 1, colon) : body;
+                    current = addTextNode(root, "Index lookup", table + " using " + index, false);
+                    table = null;
+                }
+            }
+        }
+        if (root.getChildren().isEmpty()) {
+            for (String line : text.split("\\R")) {
+                if (!line.isBlank()) {
+                    root.addDetail(line.trim());
+                }
+            }
+        }
+        return root;
+    }
+
+    private static Node addTextNode(Node root, String operation, String relation, boolean fullScan) {
+        Node node = new Node(operation);
+        node.setRelation(relation);
+        node.setFullScan(fullScan);
+        root.addChild(node);
+        return node;
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int at = text.indexOf(token); at >= 0; at = text.indexOf(token, at + token.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    // ---- Values ----
+
+    /**
+     * Reads a number that MySQL may have written as a string, NaN if missing
+     */
+    private static double number(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+
+    private static void addDetail(Node node, String label, Object value) {
+        if (value != null) {
+            node.addDetail(label + ": " + format(value));
+        }
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Double number && number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return String.valueOf(number.longValue());
+        }
+        if (value instanceof List<?> list) {
+            StringBuilder sb = new StringBuilder();
+            for (Object item : list) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(format(item));
+            }
+            return sb.toString();
+        }
+        return String.valueOf(value);
+    }
+}
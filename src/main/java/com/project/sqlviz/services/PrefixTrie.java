@@ -0,0 +1,191 @@
+package com.project.sqlviz.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Character trie mapping keys to values, for prefix lookups during autocomplete
+ * Each node keeps its children in a sorted char array, so a lookup walks one node per
+ * character of the prefix and then visits keys in alphabetical order until it has
+ * enough values. Adding the same key and value twice counts it twice; it stays until
+ * removed as often. Keys are case-sensitive, so callers normalise them first.
+ * All methods are synchronized; lookups hold the lock for microseconds.
+ */
+final class PrefixTrie<T> {
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final class Node<T> {
+        char[] keys = NO_KEYS;          // Sorted first characters of the children
+        Node<T>[] children;
+        List<T> values;                 // Values stored under the key ending here, null if none
+        int[] counts;                   // How often each value was added
+
+        Node<T> child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node<T> childOrCreate(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node<T>[] newChildren = newArray(keys.length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            if (children != null) {
+                System.arraycopy(children, 0, newChildren, 0, insert);
+                System.arraycopy(children, insert, newChildren, insert + 1, keys.length - insert);
+            }
+            Node<T> child = new Node<>();
+            newKeys[insert] = c;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            int last = keys.length - 1;
+            char[] newKeys = Arrays.copyOf(keys, last);
+            System.arraycopy(keys, index + 1, newKeys, index, last - index);
+            System.arraycopy(children, index + 1, children, index, last - index);
+            children[last] = null;
+            keys = newKeys;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && values == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node<?>[length];
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+    private int size;   // Distinct key and value pairs
+
+    synchronized void add(String key, T value) {
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+            node.counts = new int[1];
+        }
+        int index = node.values.indexOf(value);
+        if (index >= 0) {
+            node.counts[index]++;
+            return;
+        }
+        node.values.add(value);
+        if (node.counts.length < node.values.size()) {
+            node.counts = Arrays.copyOf(node.counts, node.values.size() * 2);
+        }
+        node.counts[node.values.size() - 1] = 1;
+        size++;
+    }
+
+    /**
+     * Removes one occurrence of a value; returns false if it was not present
+     */
+    synchronized boolean remove(String key, T value) {
+        return remove(root, key, 0, value);
+    }
+
+    private boolean remove(Node<T> node, String key, int depth, T value) {
+        if (depth == key.length()) {
+            int index = node.values == null ? -1 : node.values.indexOf(value);
+            if (index < 0) {
+                return false;
+            }
+            if (--node.counts[index] == 0) {
+                int last = node.values.size() - 1;
+                System.arraycopy(node.counts, index + 1, node.counts, index, last - index);
+                node.values.remove(index);
+                size--;
+                if (node.values.isEmpty()) {
+                    node.values = null;
+                    node.counts = null;
+                }
+            }
+            return true;
+        }
+        char c = key.charAt(depth);
+        Node<T> child = node.child(c);
+        if (child == null || !remove(child, key, depth + 1, value)) {
+            return false;
+        }
+        if (child.isEmpty()) {
+            node.removeChild(c);
+        }
+        return true;
+    }
+
+    /**
+     * Values stored under exactly this key
+     */
+    synchronized List<T> get(String key) {
+        Node<T> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node == null || node.values == null ? List.of() : new ArrayList<>(node.values);
+    }
+
+    /**
+     * Values whose key starts with prefix, in key order, at most limit of them
+     *
+     * @param filter values to include, or null for all
+     */
+    synchronized List<T> find(String prefix, int limit, Predicate<? super T> filter) {
+        List<T> found = new ArrayList<>(Math.min(limit, 64));
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, limit, filter, found);
+        }
+        return found;
+    }
+
+    private static <T> boolean collect(Node<T> node, int limit, Predicate<? super T> filter, List<T> found) {
+        if (node.values != null) {
+            for (T value : node.values) {
+                if (filter == null || filter.test(value)) {
+                    found.add(value);
+                    if (found.size() >= limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            if (collect(node.children[i], limit, filter, found)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        root.keys = NO_KEYS;
+        root.children = null;
+        root.values = null;
+        root.counts = null;
+        size = 0;
+    }
+}
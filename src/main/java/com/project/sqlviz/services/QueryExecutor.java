@@ -1,22 +1,158 @@
 package com.project.sqlviz.services;
 
+import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.db.Dialect;
+import com.project.sqlviz.db.FetchSizeTuner;
+import com.project.sqlviz.db.StatementCache;
+import com.project.sqlviz.metrics.QueryMetrics;
+import com.project.sqlviz.models.ColumnVector;
 import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.models.QueryPlan;
 import com.project.sqlviz.models.QueryResult;
+import com.project.sqlviz.models.QueryTimings;
+import com.project.sqlviz.models.QueryTimings.Phase;
+import com.project.sqlviz.models.ResultStore;
+import com.project.sqlviz.models.StreamingQueryResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 /**
  * Service class responsible for executing SQL queries
  * This class handles the actual database interaction using JDBC
  */
 public class QueryExecutor {
+    // Defaults for streaming execution - small enough to return the first rows quickly
+    public static final int DEFAULT_FETCH_SIZE = 500;
+    public static final int DEFAULT_BUFFER_SIZE = 1000;
+
+    // Results estimated above this many bytes are paged out to temp files
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    // Partial results go to a RowListener at most this often, and at the end of the first fetch
+    private static final long PUBLISH_INTERVAL_NANOS = 100_000_000L;
+    private static final int PUBLISH_CHECK_ROWS = 1024;    // Rows between clock checks when batches are large
+
+    // Background queries run on virtual threads - blocking in JDBC does not tie up a platform thread
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     private Connection connection;
     private SqlInterpreter interpreter;
+    private Dialect dialect;              // Database-specific fetch and SQL behaviour, from the JDBC URL
+    private FetchSizeTuner fetchTuner;    // Learns a good fetch size for this connection across queries
+    private QueryGovernor governor;       // Timeout, row, size and concurrency limits of the connection's config
+    private ResultCache resultCache;      // Optional cache for SELECT results, null when disabled
+    private boolean autoParameterize;     // Rewrite literals as bind parameters before executing
+    private QueryMetrics metrics;         // Optional sink for per-phase timings, null when disabled
+    private long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES; // Heap a single result may use before spilling
+    private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
 
     public QueryExecutor(Connection connection) {
+        this(connection, null);
+    }
+
+    /**
+     * Creates an executor that continues from a tuner shared with earlier executors
+     * Lets callers that borrow a pooled connection per query keep the learned fetch size.
+     */
+    public QueryExecutor(Connection connection, FetchSizeTuner fetchTuner) {
         this.connection = connection;
-        this.interpreter = new SqlInterpreter();
+        this.dialect = connection.getConfig().getDialect();
+        this.interpreter = new SqlInterpreter(dialect.usesBackslashEscapes());
+        this.fetchTuner = fetchTuner != null ? fetchTuner
+            : new FetchSizeTuner(dialect.getDefaultFetchSize(), dialect.getMaxFetchSize());
+        this.governor = QueryGovernor.forConfig(connection.getConfig());
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Fetch size the next query starts with, as learned from earlier ones
+     */
+    public int getFetchSize() {
+        return fetchTuner.getFetchSize();
+    }
+
+    /**
+     * Enables result caching for this executor; pass null to disable
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Records every query's phase timings in the given metrics; pass null to disable
+     */
+    public void setMetrics(QueryMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            metrics.forConnection(connection.getConfig().getConnId(), connection.getConfig().getName())
+                   .setStatementCacheStats(this::getStatementCacheStats);
+        }
+    }
+
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets how much heap one result may use before older pages are spilled to disk
+     */
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        if (memoryBudgetBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudgetBytes);
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * Sets the directory spilled result pages are written to
+     */
+    public void setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Enables automatic extraction of literals into bind parameters
+     * Queries that differ only in constants then reuse one cached prepared statement.
+     * Strings are bound with setObject, so databases that type-check parameters strictly
+     * (e.g. PostgreSQL comparing a date column to a string) may reject some rewritten queries.
+     */
+    public void setAutoParameterize(boolean autoParameterize) {
+        this.autoParameterize = autoParameterize;
+    }
+
+    public boolean isAutoParameterize() {
+        return autoParameterize;
+    }
+
+    /**
+     * Gets hit/miss statistics of this connection's prepared statement cache
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return connection.getStatementCache().getStats();
     }
 
     /**
@@ -24,151 +160,648 @@ public class QueryExecutor {
      * This method handles both SELECT queries (with results) and other queries (without results)
      */
     public QueryResult executeQuery(String sql) {
-        long startTime = System.currentTimeMillis();
+        return executeQuery(sql, null);
+    }
+
+    /**
+     * Executes a SQL query in the background and returns immediately
+     * The returned handle exposes a future for the result and can cancel the running statement
+     */
+    public QueryHandle executeQueryAsync(String sql) {
+        return executeQueryAsync(sql, null);
+    }
+
+    /**
+     * Executes a SQL query in the background, offering the rows fetched so far to a listener
+     * The first rows arrive after one fetch round trip instead of after the last row.
+     *
+     * @param listener receives partial results on the fetching thread, or null
+     */
+    public QueryHandle executeQueryAsync(String sql, QueryHandle.RowListener listener) {
+        QueryHandle handle = new QueryHandle(sql, listener);
+        ASYNC_EXECUTOR.execute(() -> handle.complete(executeHandled(sql, handle)));
+        return handle;
+    }
+
+    /**
+     * Borrows a connection from the config's pool and runs a query on it, all in the background
+     * Waiting for a free connection, or opening a new one, never blocks the caller. The
+     * executor is built by setup once a connection is available, and the connection goes
+     * back to its pool before the handle completes. Cancelling while still waiting for a
+     * connection stops the query before it starts.
+     */
+    public static QueryHandle executePooledAsync(ConnectionConfig config, Function<Connection, QueryExecutor> setup,
+                                                 String sql, QueryHandle.RowListener listener) {
+        QueryHandle handle = new QueryHandle(sql, listener);
+        ASYNC_EXECUTOR.execute(() -> {
+            Connection connection;
+            try {
+                connection = ConnectionFactory.getPooledConnection(config);
+            } catch (SQLException e) {
+                handle.complete(new QueryResult(sql, "Could not get a database connection: " + e.getMessage(), 0));
+                return;
+            }
+            QueryResult result;
+            try {
+                result = setup.apply(connection).executeHandled(sql, handle);
+            } finally {
+                release(connection);
+            }
+            handle.complete(result);
+        });
+        return handle;
+    }
 
+    /**
+     * Runs a query for a handle, reporting a failure caused by cancel() as a cancellation
+     */
+    private QueryResult executeHandled(String sql, QueryHandle handle) {
+        QueryResult result = executeQuery(sql, handle);
+        if (handle.isCancelled() && !result.isSuccessful()) {
+            QueryResult cancelled = new QueryResult(sql, "Query cancelled by user", result.getExecutionTimeMs());
+            cancelled.setTimings(result.getTimings());
+            result = cancelled;
+        }
+        return result;
+    }
+
+    /**
+     * Shared implementation of executeQuery; handle is null for synchronous calls
+     */
+    private QueryResult executeQuery(String sql, QueryHandle handle) {
+        QueryTimings timings = new QueryTimings();
+        return finish(executeTimed(sql, handle, timings), timings);
+    }
+
+    /**
+     * Runs a query, adding the time spent in each phase to timings
+     */
+    @SuppressWarnings("try") // The permit is only held for the block
+    private QueryResult executeTimed(String sql, QueryHandle handle, QueryTimings timings) {
         try {
-            // Validate the query first
-            if (!interpreter.isValidQuery(sql)) {
-                long duration = System.currentTimeMillis() - startTime;
-                return new QueryResult(sql, "Invalid SQL query", duration);
+            // Analyze the query once: validity, sanitized text, type and tables
+            long phaseStart = System.nanoTime();
+            SqlInterpreter.Analysis analysis = interpreter.analyze(sql);
+            if (!analysis.isValid()) {
+                String reason = analysis.getError() != null ? ": " + analysis.getError() : "";
+                return new QueryResult(sql, "Invalid SQL query" + reason, timings.elapsedMs());
             }
+            String sanitizedSql = analysis.getSanitizedSql();
+            SqlInterpreter.QueryType queryType = analysis.getQueryType();
+            timings.add(Phase.ANALYZE, System.nanoTime() - phaseStart);
 
-            // Sanitize the query
-            String sanitizedSql = interpreter.sanitizeQuery(sql);
-            
-            // Check connection validity
-            if (!connection.isValid()) {
-                long duration = System.currentTimeMillis() - startTime;
-                return new QueryResult(sql, "Database connection is not valid", duration);
+            // Serve repeated SELECTs from the cache without touching the database
+            int connId = connection.getConfig().getConnId();
+            if (resultCache != null && queryType == SqlInterpreter.QueryType.SELECT) {
+                phaseStart = System.nanoTime();
+                QueryResult cached = resultCache.get(connId, sanitizedSql);
+                timings.add(Phase.CACHE_LOOKUP, System.nanoTime() - phaseStart);
+                if (cached != null) {
+                    return new QueryResult(cached, timings.elapsedMs());
+                }
             }
 
-            // Determine query type to choose appropriate execution method
-            SqlInterpreter.QueryType queryType = interpreter.interpretQueryType(sanitizedSql);
+            // Check the connection is open - liveness is checked in the background by the pool
+            if (!connection.isOpen()) {
+                return new QueryResult(sql, "Database connection is not valid", timings.elapsedMs());
+            }
+
+            // Optionally move constants into bind parameters so the statement cache can share plans
+            String executedSql = sanitizedSql;
+            List<Object> parameters = List.of();
+            if (autoParameterize) {
+                phaseStart = System.nanoTime();
+                SqlInterpreter.ParameterizedQuery parameterized = analysis.parameterize();
+                executedSql = parameterized.getSql();
+                parameters = parameterized.getParameters();
+                timings.add(Phase.ANALYZE, System.nanoTime() - phaseStart);
+            }
 
-            if (queryType == SqlInterpreter.QueryType.SELECT) {
-                return executeSelectQuery(sanitizedSql, startTime);
-            } else {
-                return executeUpdateQuery(sanitizedSql, startTime);
+            // Queries beyond the connection's concurrency limit fail instead of piling up on the database
+            try (QueryGovernor.Permit permit = governor.admit(connection.getConfig())) {
+                if (analysis.returnsRows()) {
+                    QueryResult result = executeSelectQuery(executedSql, parameters, sanitizedSql, timings, handle);
+                    // A truncated result depends on the limits in force, so it is not reused
+                    if (resultCache != null && queryType == SqlInterpreter.QueryType.SELECT && !result.isTruncated()) {
+                        resultCache.put(connId, sanitizedSql, result, analysis.getTables());
+                    }
+                    return result;
+                } else {
+                    QueryResult result = executeUpdateQuery(executedSql, parameters, sanitizedSql, timings, handle);
+                    invalidateCache(analysis);
+                    return result;
+                }
             }
 
         } catch (SQLException e) {
-            long duration = System.currentTimeMillis() - startTime;
-            return new QueryResult(sql, "Database error: " + e.getMessage(), duration);
+            return new QueryResult(sql, "Database error: " + e.getMessage(), timings.elapsedMs());
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            return new QueryResult(sql, "Unexpected error: " + e.getMessage(), duration);
+            return new QueryResult(sql, "Unexpected error: " + e.getMessage(), timings.elapsedMs());
         }
     }
 
     /**
-     * Executes SELECT queries that return data
+     * Attaches the timings to the result and records them in the metrics
      */
-    private QueryResult executeSelectQuery(String sql, long startTime) throws SQLException {
-        try (PreparedStatement stmt = connection.getJdbcConnection().prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+    private QueryResult finish(QueryResult result, QueryTimings timings) {
+        timings.finish();
+        result.setTimings(timings);
+        if (metrics != null) {
+            metrics.forConnection(connection.getConfig().getConnId(), connection.getConfig().getName()).record(result);
+        }
+        return result;
+    }
 
-            // Get column information
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            List<String> columnNames = new ArrayList<>();
-            for (int i = 1; i <= columnCount; i++) {
-                columnNames.add(metaData.getColumnName(i));
+    /**
+     * Executes SELECT queries that return data
+     * displaySql is the query as the user wrote it, recorded in the result
+     */
+    private QueryResult executeSelectQuery(String sql, List<Object> parameters, String displaySql,
+                                           QueryTimings timings, QueryHandle handle) throws SQLException {
+        long phaseStart = System.nanoTime();
+        PreparedStatement stmt = prepare(sql, parameters, handle);
+        FetchSizeTuner.Session tuning = fetchTuner.start();
+        java.sql.Connection jdbc = connection.getJdbcConnection();
+        boolean cursorStarted = false;
+        try {
+            dialect.configureFetch(stmt, tuning.getFetchSize());
+            cursorStarted = dialect.beginCursor(jdbc);
+            timings.add(Phase.PREPARE, System.nanoTime() - phaseStart);
+            phaseStart = System.nanoTime();
+            long deadline = QueryGovernor.deadlineNanos(connection.getConfig(), phaseStart);
+            try (ResultSet rs = stmt.executeQuery()) {
+                timings.add(Phase.EXECUTE, System.nanoTime() - phaseStart);
+                QueryHandle.RowListener listener = handle == null ? null : handle.getListener();
+                QueryResult result = processResultSet(displaySql, rs, timings, tuning, listener, deadline);
+                tuning.finish();
+                return result;
+            } catch (SQLException e) {
+                throw timeoutError(e, deadline);
             }
-
-            // Get row data
-            List<List<Object>> rows = new ArrayList<>();
-            while (rs.next()) {
-                List<Object> row = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.add(rs.getObject(i));
-                }
-                rows.add(row);
+        } finally {
+            try {
+                dialect.endCursor(jdbc, cursorStarted);
+            } finally {
+                release(stmt, handle);
             }
-
-            long duration = System.currentTimeMillis() - startTime;
-            return new QueryResult(sql, columnNames, rows, duration);
         }
     }
 
     /**
      * Executes INSERT, UPDATE, DELETE queries that don't return data
      */
-    private QueryResult executeUpdateQuery(String sql, long startTime) throws SQLException {
-        try (PreparedStatement stmt = connection.getJdbcConnection().prepareStatement(sql)) {
-            int rowsAffected = stmt.executeUpdate();
+    private QueryResult executeUpdateQuery(String sql, List<Object> parameters, String displaySql,
+                                           QueryTimings timings, QueryHandle handle) throws SQLException {
+        long phaseStart = System.nanoTime();
+        PreparedStatement stmt = prepare(sql, parameters, handle);
+        timings.add(Phase.PREPARE, System.nanoTime() - phaseStart);
+        try {
+            phaseStart = System.nanoTime();
+            long deadline = QueryGovernor.deadlineNanos(connection.getConfig(), phaseStart);
+            int rowsAffected;
+            try {
+                rowsAffected = stmt.executeUpdate();
+            } catch (SQLException e) {
+                throw timeoutError(e, deadline);
+            }
+            timings.add(Phase.EXECUTE, System.nanoTime() - phaseStart);
             
             // Create a result indicating success with number of affected rows
             List<String> columnNames = List.of("Rows Affected");
             List<List<Object>> rows = List.of(List.of(rowsAffected));
             
-            long duration = System.currentTimeMillis() - startTime;
-            return new QueryResult(sql, columnNames, rows, duration);
+            return new QueryResult(displaySql, columnNames, rows, timings.elapsedMs());
+        } finally {
+            release(stmt, handle);
+        }
+    }
+
+    /**
+     * Rewords a timeout so the user can tell it came from the connection's limit
+     */
+    private SQLException timeoutError(SQLException e, long deadline) {
+        if (!QueryGovernor.isTimeout(e, deadline)) {
+            return e;
+        }
+        return new SQLTimeoutException("Query stopped after the connection's timeout of "
+            + connection.getConfig().getQueryTimeoutSeconds() + "s", e.getSQLState(), e.getErrorCode(), e);
+    }
+
+    /**
+     * Drops cached results that a data or schema change may have made stale
+     * When the statement's targets are not known, everything cached for the connection goes.
+     */
+    private void invalidateCache(SqlInterpreter.Analysis analysis) {
+        if (resultCache == null || !analysis.isModifying()) {
+            return;
+        }
+        int connId = connection.getConfig().getConnId();
+        if (analysis.hasKnownTargets()) {
+            resultCache.invalidateTables(connId, analysis.getTables());
+        } else {
+            resultCache.invalidateConnection(connId);
         }
     }
 
+    /**
+     * Gets a statement from the connection's cache, binds parameters and registers it
+     * with the handle so it can be cancelled
+     * The timeout and row limit are set on every use, since a cached statement keeps
+     * whatever its previous use left.
+     */
+    private PreparedStatement prepare(String sql, List<Object> parameters, QueryHandle handle) throws SQLException {
+        StatementCache statementCache = connection.getStatementCache();
+        PreparedStatement stmt = statementCache.acquire(sql);
+        try {
+            QueryGovernor.applyLimits(stmt, connection.getConfig(), true);
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
+            }
+            if (handle != null) {
+                handle.attach(stmt);
+            }
+        } catch (SQLException | RuntimeException e) {
+            statementCache.release(stmt);
+            throw e;
+        }
+        return stmt;
+    }
+
+    /**
+     * Hands a statement back to the cache once its execution is finished
+     */
+    private void release(PreparedStatement stmt, QueryHandle handle) {
+        if (handle != null) {
+            handle.detach();
+        }
+        connection.getStatementCache().release(stmt);
+    }
+
     /**
      * Executes query with parameters (prepared statement)
      * This method prevents SQL injection by using parameterized queries
      */
     public QueryResult executeParameterizedQuery(String sql, List<Object> parameters) {
-        long startTime = System.currentTimeMillis();
+        QueryTimings timings = new QueryTimings();
+        return finish(executeParameterizedTimed(sql, parameters, timings), timings);
+    }
 
+    @SuppressWarnings("try") // The permit is only held for the block
+    private QueryResult executeParameterizedTimed(String sql, List<Object> parameters, QueryTimings timings) {
         try {
-            if (!connection.isValid()) {
-                long duration = System.currentTimeMillis() - startTime;
-                return new QueryResult(sql, "Database connection is not valid", duration);
+            if (!connection.isOpen()) {
+                return new QueryResult(sql, "Database connection is not valid", timings.elapsedMs());
             }
 
-            try (PreparedStatement stmt = connection.getJdbcConnection().prepareStatement(sql)) {
-                // Set parameters
-                for (int i = 0; i < parameters.size(); i++) {
-                    stmt.setObject(i + 1, parameters.get(i));
+            // Execute based on query type
+            long phaseStart = System.nanoTime();
+            SqlInterpreter.Analysis analysis = interpreter.analyze(sql);
+            timings.add(Phase.ANALYZE, System.nanoTime() - phaseStart);
+            try (QueryGovernor.Permit permit = governor.admit(connection.getConfig())) {
+                if (analysis.returnsRows()) {
+                    return executeSelectQuery(sql, parameters, sql, timings, null);
+                } else {
+                    QueryResult result = executeUpdateQuery(sql, parameters, sql, timings, null);
+                    invalidateCache(analysis);
+                    return result;
+                }
+            }
+
+        } catch (SQLException e) {
+            return new QueryResult(sql, "Database error: " + e.getMessage(), timings.elapsedMs());
+        }
+    }
+
+    /**
+     * Executes a SELECT query in streaming mode
+     * Rows are fetched from the database in batches of fetchSize and held in a buffer of
+     * at most bufferSize rows, so the first rows are available as soon as the first batch
+     * arrives. The caller must close the returned handle, which also frees its slot under
+     * the connection's concurrency limit. The row limit is applied by the database.
+     */
+    public StreamingQueryResult executeStreamingQuery(String sql, int fetchSize, int bufferSize) throws SQLException {
+        long startNanos = System.nanoTime();
+
+        SqlInterpreter.Analysis analysis = interpreter.analyze(sql);
+        if (!analysis.isValid()) {
+            throw new SQLException("Invalid SQL query");
+        }
+        if (!analysis.returnsRows()) {
+            throw new SQLException("Streaming execution is only supported for queries that return rows");
+        }
+        String sanitizedSql = analysis.getSanitizedSql();
+        if (!connection.isOpen()) {
+            throw new SQLException("Database connection is not valid");
+        }
+
+        QueryGovernor.Permit permit = governor.admit(connection.getConfig());
+        java.sql.Connection jdbc = connection.getJdbcConnection();
+        PreparedStatement stmt;
+        try {
+            stmt = jdbc.prepareStatement(sanitizedSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        } catch (SQLException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        boolean cursorStarted = false;
+        try {
+            QueryGovernor.applyLimits(stmt, connection.getConfig(), false);
+            dialect.configureFetch(stmt, fetchSize);
+            cursorStarted = dialect.beginCursor(jdbc);
+            ResultSet rs = stmt.executeQuery();
+            List<String> columnNames = readColumnNames(rs.getMetaData());
+            boolean restore = cursorStarted;
+            return new StreamingQueryResult(sanitizedSql, columnNames, stmt, rs, bufferSize, startNanos, () -> {
+                try {
+                    dialect.endCursor(jdbc, restore);
+                } finally {
+                    permit.close();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            try {
+                stmt.close();
+            } finally {
+                try {
+                    dialect.endCursor(jdbc, cursorStarted);
+                } finally {
+                    permit.close();
                 }
+            }
+            throw e;
+        }
+    }
 
-                // Execute based on query type
-                SqlInterpreter.QueryType queryType = interpreter.interpretQueryType(sql);
-                if (queryType == SqlInterpreter.QueryType.SELECT) {
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        return processResultSet(sql, rs, startTime);
+    /**
+     * Executes a SELECT query in streaming mode with the learned fetch size and default buffer size
+     */
+    public StreamingQueryResult executeStreamingQuery(String sql) throws SQLException {
+        return executeStreamingQuery(sql, fetchTuner.getFetchSize(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Gets the execution plan of a query without running it, or by running it when analyze is set
+     * The EXPLAIN syntax comes from the connection's dialect; the output is parsed into an
+     * operator tree. Only queries that cannot change data may be analyzed, since EXPLAIN
+     * ANALYZE executes the statement.
+     */
+    @SuppressWarnings("try") // The permit is only held for the block
+    public QueryPlan explainQuery(String sql, boolean analyze) throws SQLException {
+        SqlInterpreter.Analysis analysis = interpreter.analyze(sql);
+        if (!analysis.isValid()) {
+            String reason = analysis.getError() != null ? ": " + analysis.getError() : "";
+            throw new SQLException("Invalid SQL query" + reason);
+        }
+        if (analysis.getQueryType() == SqlInterpreter.QueryType.EXPLAIN
+                || analysis.getQueryType() == SqlInterpreter.QueryType.SHOW) {
+            throw new SQLException("Only queries and data changes can be explained");
+        }
+        if (analyze && analysis.getQueryType() != SqlInterpreter.QueryType.SELECT) {
+            throw new SQLException("EXPLAIN ANALYZE runs the statement, so only SELECT queries can be analyzed");
+        }
+        if (analyze && !dialect.supportsExplainAnalyze()) {
+            throw new SQLException(dialect.getName() + " does not support EXPLAIN ANALYZE");
+        }
+        String sanitizedSql = analysis.getSanitizedSql();
+
+        StringBuilder planText = new StringBuilder();
+        try (QueryGovernor.Permit permit = governor.admit(connection.getConfig());
+             Statement stmt = connection.getJdbcConnection().createStatement()) {
+            // EXPLAIN ANALYZE runs the query, so it is bound by the connection's timeout
+            QueryGovernor.applyTimeout(stmt, connection.getConfig());
+            long deadline = QueryGovernor.deadlineNanos(connection.getConfig(), System.nanoTime());
+            try (ResultSet rs = stmt.executeQuery(dialect.explain(sanitizedSql, analyze))) {
+                // Most databases return one document; MySQL's traditional format returns one row per line
+                while (rs.next()) {
+                    if (planText.length() > 0) {
+                        planText.append('\n');
                     }
-                } else {
-                    int rowsAffected = stmt.executeUpdate();
-                    List<String> columnNames = List.of("Rows Affected");
-                    List<List<Object>> rows = List.of(List.of(rowsAffected));
-                    long duration = System.currentTimeMillis() - startTime;
-                    return new QueryResult(sql, columnNames, rows, duration);
+                    planText.append(rs.getString(1));
                 }
+            } catch (SQLException e) {
+                throw timeoutError(e, deadline);
             }
+        }
+        try {
+            return PlanParser.parse(sanitizedSql, planText.toString(), analyze);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Could not read the plan: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Gets the execution plan of a query in the background
+     * The future fails with the SQLException if the plan cannot be obtained.
+     */
+    public CompletableFuture<QueryPlan> explainQueryAsync(String sql, boolean analyze) {
+        CompletableFuture<QueryPlan> future = new CompletableFuture<>();
+        ASYNC_EXECUTOR.execute(() -> {
+            try {
+                future.complete(explainQuery(sql, analyze));
+            } catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Borrows a connection from the config's pool and gets a plan on it, all in the background
+     * The connection goes back to its pool before the future completes.
+     */
+    public static CompletableFuture<QueryPlan> explainPooledAsync(ConnectionConfig config,
+                                                                  Function<Connection, QueryExecutor> setup,
+                                                                  String sql, boolean analyze) {
+        CompletableFuture<QueryPlan> future = new CompletableFuture<>();
+        ASYNC_EXECUTOR.execute(() -> {
+            QueryPlan plan;
+            Connection connection = null;
+            try {
+                connection = ConnectionFactory.getPooledConnection(config);
+                plan = setup.apply(connection).explainQuery(sql, analyze);
+            } catch (SQLException | RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            } finally {
+                if (connection != null) {
+                    release(connection);
+                }
+            }
+            future.complete(plan);
+        });
+        return future;
+    }
+
+    /**
+     * Returns a borrowed connection to its pool, logging rather than throwing on failure
+     */
+    private static void release(Connection connection) {
+        try {
+            connection.close();
         } catch (SQLException e) {
-            long duration = System.currentTimeMillis() - startTime;
-            return new QueryResult(sql, "Database error: " + e.getMessage(), duration);
+            System.err.println("Warning: could not return connection to pool: " + e.getMessage());
         }
     }
 
     /**
      * Helper method to process ResultSet into QueryResult
+     * Values are read with typed getters into column vectors chosen from the result
+     * metadata, so numeric columns are stored unboxed.
+     * Once the rows read exceed the memory budget, they are handed to a ResultStore that
+     * keeps recent pages in memory and spills the rest to disk. The fetch size is tuned
+     * as rows arrive.
+     * With a listener, the rows read so far are published at the end of the first fetch
+     * and then at most every PUBLISH_INTERVAL_NANOS, preferably just before the next
+     * fetch round trip.
+     * Reading stops at the connection's row limit, heap budget or deadline; the rows read
+     * until then are returned, marked with the limit that cut them short.
      */
-    private QueryResult processResultSet(String sql, ResultSet rs, long startTime) throws SQLException {
+    private QueryResult processResultSet(String sql, ResultSet rs, QueryTimings timings,
+                                         FetchSizeTuner.Session tuning, QueryHandle.RowListener listener,
+                                         long deadline) throws SQLException {
+        long fetchStart = System.nanoTime();
         ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        
-        List<String> columnNames = new ArrayList<>();
-        for (int i = 1; i <= columnCount; i++) {
-            columnNames.add(metaData.getColumnName(i));
+        List<String> columnNames = readColumnNames(metaData);
+        int columnCount = columnNames.size();
+
+        ColumnVector[] columns = new ColumnVector[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = ColumnVector.forColumn(metaData, i + 1);
         }
 
-        List<List<Object>> rows = new ArrayList<>();
-        while (rs.next()) {
-            List<Object> row = new ArrayList<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.add(rs.getObject(i));
+        int rowCount = 0;
+        ResultStore store = null;
+        int nextTuneRow = tuning.getFetchSize();
+        long rowBytes = 0;
+        int publishedRows = 0;
+        long lastPublish = fetchStart;
+        int maxRows = connection.getConfig().getMaxRows();
+        int fetchLimit = maxRows > 0 && maxRows < Integer.MAX_VALUE ? maxRows + 1 : maxRows; // Row limit set on the statement
+        long maxResultBytes = connection.getConfig().getMaxResultBytes();
+        QueryResult.Truncation truncation = null;
+        try {
+            while (true) {
+                try {
+                    if (!rs.next()) {
+                        break;
+                    }
+                } catch (SQLException e) {
+                    // A timeout part way through the fetch keeps the rows read so far
+                    if (rowCount == 0 || !QueryGovernor.isTimeout(e, deadline)) {
+                        throw e;
+                    }
+                    truncation = QueryResult.Truncation.TIME_LIMIT;
+                    break;
+                }
+                if (maxRows > 0 && rowCount == maxRows) {
+                    // The statement was allowed one extra row, which shows the result goes on
+                    truncation = QueryResult.Truncation.ROW_LIMIT;
+                    break;
+                }
+                if (rowCount == 0) {
+                    timings.markFirstRow();
+                }
+                if (store != null) {
+                    store.readRow(rs);
+                } else {
+                    for (int i = 0; i < columnCount; i++) {
+                        columns[i].readFrom(rs, i + 1);
+                    }
+                }
+                rowCount++;
+                if (rowCount % ResultStore.PAGE_ROWS == 0) {
+                    // Only heap-resident bytes count; pages spilled to disk do not use the heap
+                    long heapBytes = store != null ? store.getHotBytes() : estimateSizeBytes(columns);
+                    if (store == null && heapBytes > memoryBudgetBytes) {
+                        store = new ResultStore(columns, rowCount, memoryBudgetBytes, spillDirectory);
+                        columns = null;
+                    }
+                    if (maxResultBytes > 0 && heapBytes > maxResultBytes) {
+                        truncation = QueryResult.Truncation.SIZE_LIMIT;
+                        break;
+                    }
+                    // Drivers that only time out the execute call are stopped here during the fetch
+                    if (System.nanoTime() - deadline > 0) {
+                        truncation = QueryResult.Truncation.TIME_LIMIT;
+                        break;
+                    }
+                }
+                boolean batchEnd = rowCount == nextTuneRow;
+                if (batchEnd) {
+                    // Row width is measured while the rows are still in plain column vectors
+                    if (columns != null) {
+                        rowBytes = estimateSizeBytes(columns) / rowCount;
+                    }
+                    int fetchSize = tuning.rowsRead(rowCount, rowBytes);
+                    if (fetchLimit > 0) {
+                        fetchSize = Math.min(fetchSize, fetchLimit);
+                    }
+                    if (fetchSize != rs.getFetchSize()) {
+                        rs.setFetchSize(fetchSize);
+                    }
+                    nextTuneRow = rowCount + fetchSize;
+                }
+                if (listener != null && (batchEnd || rowCount % PUBLISH_CHECK_ROWS == 0)) {
+                    long now = System.nanoTime();
+                    if (publishedRows == 0 || now - lastPublish >= PUBLISH_INTERVAL_NANOS) {
+                        QueryResult partial = partialResult(sql, columnNames, columns, store, rowCount, timings);
+                        // A new store only exposes whole pages, which may be fewer rows than already shown
+                        if (partial.getRowCount() > publishedRows) {
+                            publishedRows = partial.getRowCount();
+                            lastPublish = now;
+                            listener.rowsFetched(partial, rowCount * 1e9 / Math.max(now - fetchStart, 1));
+                        }
+                    }
+                }
+            }
+            if (store != null) {
+                store.finish();
             }
-            rows.add(row);
+        } catch (IOException e) {
+            throw new SQLException("Could not spill result to disk: " + e.getMessage(), e);
+        }
+        timings.add(Phase.FETCH, System.nanoTime() - fetchStart);
+        timings.addRowsFetched(rowCount);
+
+        QueryResult result = store != null
+            ? new QueryResult(sql, columnNames, store, timings.elapsedMs())
+            : new QueryResult(sql, columnNames, columns, rowCount, timings.elapsedMs());
+        result.setTruncation(truncation);
+        return result;
+    }
+
+    /**
+     * The rows read so far as a result sharing storage with the fetch still in progress
+     */
+    private static QueryResult partialResult(String sql, List<String> columnNames, ColumnVector[] columns,
+                                             ResultStore store, int rowCount, QueryTimings timings) {
+        if (store != null) {
+            return new QueryResult(sql, columnNames, store, store.getSealedRowCount(), timings.elapsedMs());
         }
+        ColumnVector[] views = new ColumnVector[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            views[i] = columns[i].snapshot(rowCount);
+        }
+        return new QueryResult(sql, columnNames, views, rowCount, timings.elapsedMs());
+    }
+
+    private static long estimateSizeBytes(ColumnVector[] columns) {
+        long total = 0;
+        for (ColumnVector column : columns) {
+            total += column.estimateSizeBytes();
+        }
+        return total;
+    }
 
-        long duration = System.currentTimeMillis() - startTime;
-        return new QueryResult(sql, columnNames, rows, duration);
+    /**
+     * Helper method to read column names from result metadata
+     */
+    private List<String> readColumnNames(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> columnNames = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames.add(metaData.getColumnName(i));
+        }
+        return columnNames;
     }
 }
\ No newline at end of file
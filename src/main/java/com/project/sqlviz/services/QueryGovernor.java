@@ -0,0 +1,122 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.ConnectionConfig;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces the resource limits of a ConnectionConfig on the queries run against it
+ * - the statement timeout and row limit are set on every statement before it runs,
+ *   replacing whatever a previous use of a cached statement left behind
+ * - QueryExecutor stops fetching when a result reaches the row limit, its heap budget
+ *   or the timeout, and marks the result as truncated; exports are bound by none of these
+ * - at most maxConcurrentQueries queries hold a permit at once; further queries fail
+ *   straight away rather than queueing behind a long-running one
+ * Limits are read from the config each time, so changes apply to the next query. All
+ * limits are off until set.
+ * One governor is shared by every executor and export on the same database and user.
+ */
+public final class QueryGovernor {
+    private static final Map<ConnectionConfig, QueryGovernor> GOVERNORS = new ConcurrentHashMap<>();
+
+    private final AtomicInteger running = new AtomicInteger();   // Permits currently held
+
+    /**
+     * A running query's slot; close it when the query finishes
+     * Closing twice releases the slot once.
+     */
+    public final class Permit implements AutoCloseable {
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private QueryGovernor() {
+    }
+
+    /**
+     * Gets the governor shared by all connections to the config's database as its user
+     */
+    public static QueryGovernor forConfig(ConnectionConfig config) {
+        return GOVERNORS.computeIfAbsent(config, key -> new QueryGovernor());
+    }
+
+    /**
+     * Takes a slot for a query about to run
+     *
+     * @throws SQLException if the config's concurrent-query limit is already reached
+     */
+    public Permit admit(ConnectionConfig config) throws SQLException {
+        int limit = config.getMaxConcurrentQueries();
+        while (true) {
+            int current = running.get();
+            if (limit > 0 && current >= limit) {
+                throw new SQLException(String.format(
+                    "%d queries are already running on %s, the limit for this connection; try again when one finishes",
+                    current, config.getName() != null ? config.getName() : config.getJdbcUrl()));
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                return new Permit();
+            }
+        }
+    }
+
+    public int getRunningQueries() {
+        return running.get();
+    }
+
+    /**
+     * Sets the config's timeout and row limit on a statement
+     * With probeExtraRow the database is asked for one row more than the limit, so a
+     * caller that stops at the limit can tell whether anything was cut off.
+     */
+    public static void applyLimits(Statement stmt, ConnectionConfig config, boolean probeExtraRow) throws SQLException {
+        stmt.setQueryTimeout(config.getQueryTimeoutSeconds());
+        int maxRows = config.getMaxRows();
+        if (maxRows > 0 && probeExtraRow && maxRows < Integer.MAX_VALUE) {
+            maxRows++;
+        }
+        stmt.setMaxRows(maxRows);
+    }
+
+    /**
+     * Sets only the config's timeout on a statement and lifts any row limit, for
+     * statements whose rows are not kept in a result, such as plans
+     */
+    public static void applyTimeout(Statement stmt, ConnectionConfig config) throws SQLException {
+        stmt.setQueryTimeout(config.getQueryTimeoutSeconds());
+        stmt.setMaxRows(0);
+    }
+
+    /**
+     * System.nanoTime() by which a query started at startNanos must finish, or Long.MAX_VALUE
+     */
+    public static long deadlineNanos(ConnectionConfig config, long startNanos) {
+        int seconds = config.getQueryTimeoutSeconds();
+        return seconds > 0 ? startNanos + TimeUnit.SECONDS.toNanos(seconds) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether an exception means the statement ran out of time
+     * Some drivers time out by cancelling the statement, which looks like any other
+     * cancellation, so a cancel at or after the deadline counts too.
+     */
+    public static boolean isTimeout(SQLException e, long deadlineNanos) {
+        return e instanceof SQLTimeoutException
+            || ("57014".equals(e.getSQLState()) && System.nanoTime() >= deadlineNanos);
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.QueryResult;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handle to a query running in the background
+ * The future completes with the QueryResult (a failed result if the query was cancelled),
+ * and cancel() stops the statement on the database side via Statement.cancel()
+ */
+public class QueryHandle {
+    private final String sql;
+    private final CompletableFuture<QueryResult> future;
+    private final RowListener listener;     // Receives rows while they are fetched, null if not wanted
+    private Statement activeStatement;      // Statement currently executing, guarded by this
+    private volatile boolean cancelled;
+
+    /**
+     * Receives the rows fetched so far while a query runs, on the fetching thread
+     * Each partial result holds the first rows of the final one and shares its storage,
+     * so it costs no copy. Calls come a few times per second at most; the completed
+     * future still delivers the whole result.
+     */
+    public interface RowListener {
+        void rowsFetched(QueryResult partial, double rowsPerSecond);
+    }
+
+    QueryHandle(String sql, RowListener listener) {
+        this.sql = sql;
+        this.future = new CompletableFuture<>();
+        this.listener = listener;
+    }
+
+    // Getters
+    public String getSql() { return sql; }
+    public RowListener getListener() { return listener; }
+    public CompletableFuture<QueryResult> getFuture() { return future; }
+    public boolean isCancelled() { return cancelled; }
+    public boolean isDone() { return future.isDone(); }
+
+    /**
+     * Requests cancellation of the query
+     * Returns false if the query had already finished
+     */
+    public boolean cancel() {
+        if (future.isDone()) {
+            return false;
+        }
+        cancelled = true;
+        Statement statement;
+        synchronized (this) {
+            statement = activeStatement;
+        }
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Driver cannot cancel - the query keeps running and its result is discarded
+                System.err.println("Could not cancel statement: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers the statement that is about to execute
+     * Throws if cancel() already happened, so a cancelled query never starts
+     */
+    void attach(Statement statement) throws SQLException {
+        synchronized (this) {
+            activeStatement = statement;
+        }
+        if (cancelled) {
+            detach();
+            throw new SQLException("Query cancelled");
+        }
+    }
+
+    /**
+     * Clears the executing statement once it has finished
+     */
+    synchronized void detach() {
+        activeStatement = null;
+    }
+
+    void complete(QueryResult result) {
+        future.complete(result);
+    }
+}
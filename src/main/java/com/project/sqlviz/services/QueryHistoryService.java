@@ -1,15 +1,29 @@
 package com.project.sqlviz.services;
 
 import com.project.sqlviz.models.QueryResult;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing query history
- * This class maintains a history of executed queries in memory
- * In a real application, this could be persisted to a database
+ * This class keeps the most recent queries in memory and, when given a HistoryLog,
+ * persists every query so history survives restarts
+ * It is safe to use from many query workers at once. Recording never blocks: IDs come
+ * from an atomic counter and entries go into a lock-free ring buffer and a concurrent
+ * queue. Whichever thread next finds the lock free drains that queue into the log and
+ * the search index in ID order. Reads return snapshots, never live views.
  */
 public class QueryHistoryService {
     
@@ -58,34 +72,77 @@ public class QueryHistoryService {
         }
     }
 
-    private List<QueryHistoryEntry> history;
-    private int nextHistoryId;
+    public static final int DEFAULT_MAX_IN_MEMORY = 100;
 
+    private final HistoryRing recent;               // Most recent entries, written without locking
+    private final HistoryLog log;                   // Durable store of all entries, null when memory-only
+    private final HistoryIndex index;               // Trigram and connection indexes
+    private final AtomicInteger nextHistoryId;
+    private final Queue<QueryHistoryEntry> pending; // Recorded but not yet logged and indexed
+
+    // Guarded by lock
+    private final ReentrantLock lock;
+    private final TreeMap<Integer, QueryHistoryEntry> outOfOrder;  // Drained early, waiting for lower IDs
+    private int nextToApply;                        // Next ID to log and index
+    private boolean indexLoaded;                    // Whether the index covers the log yet
+    private volatile boolean recentLoaded;          // Whether the ring has been filled from the log yet
+
+    /**
+     * Creates a memory-only history of the last DEFAULT_MAX_IN_MEMORY queries
+     */
     public QueryHistoryService() {
-        this.history = new ArrayList<>();
-        this.nextHistoryId = 1;
+        this(null, DEFAULT_MAX_IN_MEMORY);
+    }
+
+    /**
+     * Creates a history backed by a log; the most recent maxInMemory entries are kept
+     * in memory and older ones are read from the log on demand
+     */
+    public QueryHistoryService(HistoryLog log, int maxInMemory) {
+        this.recent = new HistoryRing(maxInMemory);
+        this.log = log;
+        this.index = new HistoryIndex();
+        int firstId = log == null ? 1 : log.getLastHistoryId() + 1;
+        this.nextHistoryId = new AtomicInteger(firstId);
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.lock = new ReentrantLock();
+        this.outOfOrder = new TreeMap<>();
+        this.nextToApply = firstId;
+        this.indexLoaded = log == null;
+        this.recentLoaded = log == null;
+    }
+
+    /**
+     * Opens a persistent history stored in the given directory
+     */
+    public static QueryHistoryService open(Path directory) throws IOException {
+        return new QueryHistoryService(new HistoryLog(directory), DEFAULT_MAX_IN_MEMORY);
     }
 
     /**
      * Adds a query result to history
      */
     public void addToHistory(int connId, QueryResult result) {
+        // Read the result before taking an ID so a failure cannot leave a gap in the sequence
+        String sqlText = result.getSqlQuery();
+        LocalDateTime runAt = result.getExecutedAt();
+        long durationMs = result.getExecutionTimeMs();
+        boolean successful = result.isSuccessful();
+        String errorMessage = result.getErrorMessage();
+        int rowCount = successful ? result.getRowCount() : 0;
+
         QueryHistoryEntry entry = new QueryHistoryEntry(
-            nextHistoryId++,
-            connId,
-            result.getSqlQuery(),
-            result.getExecutedAt(),
-            result.getExecutionTimeMs(),
-            result.isSuccessful(),
-            result.getErrorMessage(),
-            result.isSuccessful() ? result.getRowCount() : 0
-        );
-        
-        history.add(entry);
-        
-        // Keep only last 100 queries to prevent memory issues
-        if (history.size() > 100) {
-            history.remove(0);
+            nextHistoryId.getAndIncrement(), connId, sqlText, runAt, durationMs, successful, errorMessage, rowCount);
+        recent.put(entry);
+        pending.add(entry);
+
+        // Apply it now unless another thread holds the lock - that thread or the next caller will
+        while (!pending.isEmpty() && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
@@ -93,57 +150,322 @@ public class QueryHistoryService {
      * Gets all query history entries
      */
     public List<QueryHistoryEntry> getAllHistory() {
-        return new ArrayList<>(history); // Return copy to prevent external modification
+        if (log == null) {
+            return recent.snapshot(lastAllocatedId(), Integer.MAX_VALUE);
+        }
+        List<QueryHistoryEntry> all = new ArrayList<>();
+        readLog(all::add);
+        return all;
     }
 
     /**
      * Gets query history for a specific connection
      */
     public List<QueryHistoryEntry> getHistoryForConnection(int connId) {
-        return history.stream()
-                     .filter(entry -> entry.getConnId() == connId)
-                     .collect(Collectors.toList());
+        int[] ids;
+        lock.lock();
+        try {
+            ids = index().idsForConnection(connId);
+        } finally {
+            lock.unlock();
+        }
+        return resolve(ids, entry -> true, Integer.MAX_VALUE);
     }
 
     /**
      * Gets recent query history (last n queries)
      */
     public List<QueryHistoryEntry> getRecentHistory(int count) {
-        int startIndex = Math.max(0, history.size() - count);
-        return history.subList(startIndex, history.size());
+        if (log != null && count > recent.getLimit()) {
+            lock.lock();
+            try {
+                drain();
+                return log.readRecent(count);
+            } catch (IOException e) {
+                System.err.println("Warning: could not read query history: " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        loadRecent();
+        return recent.snapshot(lastAllocatedId(), count);
     }
 
     /**
      * Searches query history by SQL text
      */
     public List<QueryHistoryEntry> searchHistory(String searchTerm) {
-        return history.stream()
-                     .filter(entry -> entry.getSqlText().toLowerCase().contains(searchTerm.toLowerCase()))
-                     .collect(Collectors.toList());
+        return searchHistory(searchTerm, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Searches query history by SQL text, returning at most limit of the most recent matches
+     * Suited to search-as-you-type, where broad terms would otherwise match most of history
+     */
+    public List<QueryHistoryEntry> searchHistory(String searchTerm, int limit) {
+        String term = HistoryIndex.normalize(searchTerm);
+        Predicate<QueryHistoryEntry> matches = entry -> HistoryIndex.normalize(entry.getSqlText()).contains(term);
+
+        // Terms shorter than a trigram match too much for the index to help
+        if (term.length() < HistoryIndex.GRAM_LENGTH) {
+            return latest(filter(matches), limit);
+        }
+
+        // Candidates containing every trigram are nearly always real matches, so a little
+        // over-fetching almost always fills the limit in one pass
+        int wanted = limit > Integer.MAX_VALUE / 4 ? Integer.MAX_VALUE : limit * 2 + 16;
+        while (true) {
+            int[] candidates = candidates(term, wanted);
+            List<QueryHistoryEntry> found = resolve(candidates, matches, limit);
+            if (found.size() >= limit || candidates.length < wanted || wanted == Integer.MAX_VALUE) {
+                return found;
+            }
+            wanted = wanted > Integer.MAX_VALUE / 4 ? Integer.MAX_VALUE : wanted * 4;
+        }
+    }
+
+    /**
+     * Searches query history for entries containing every whitespace-separated term
+     * Each term is matched as a substring, so "ord cust" finds "FROM orders JOIN customers"
+     */
+    public List<QueryHistoryEntry> searchHistoryAllTerms(String query) {
+        String[] terms = HistoryIndex.normalize(query).trim().split("\\s+");
+        Predicate<QueryHistoryEntry> matches = entry -> {
+            String text = HistoryIndex.normalize(entry.getSqlText());
+            for (String term : terms) {
+                if (!text.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+
+        // Narrow to the term with the fewest candidates, then check the rest
+        int[] best = null;
+        for (String term : terms) {
+            int[] candidates = candidates(term, Integer.MAX_VALUE);
+            if (candidates != null && (best == null || candidates.length < best.length)) {
+                best = candidates;
+            }
+        }
+        return best == null ? filter(matches) : resolve(best, matches, Integer.MAX_VALUE);
     }
 
     /**
      * Clears all query history
+     * Queries recorded by other threads while clearing may or may not survive it
      */
     public void clearHistory() {
-        history.clear();
-        nextHistoryId = 1;
+        lock.lock();
+        try {
+            pending.clear();
+            outOfOrder.clear();
+            recent.clear();
+            index.clear();
+            if (log != null) {
+                try {
+                    log.clear();
+                } catch (IOException e) {
+                    System.err.println("Warning: could not clear query history: " + e.getMessage());
+                }
+            }
+            nextHistoryId.set(1);
+            nextToApply = 1;
+            indexLoaded = true;
+            recentLoaded = true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Gets the total number of queries in history
      */
     public int getHistoryCount() {
-        return history.size();
+        if (log == null) {
+            return Math.min(lastAllocatedId(), recent.getLimit());
+        }
+        lock.lock();
+        try {
+            drain();
+            return (int) Math.min(log.size(), Integer.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Gets a specific history entry by ID
      */
     public QueryHistoryEntry getHistoryEntry(int historyId) {
-        return history.stream()
-                     .filter(entry -> entry.getHistoryId() == historyId)
-                     .findFirst()
-                     .orElse(null);
+        if (historyId > lastAllocatedId() - recent.getLimit()) {
+            QueryHistoryEntry entry = recent.get(historyId);
+            if (entry != null || log == null) {
+                return entry;
+            }
+        }
+        if (log == null) {
+            return null;
+        }
+        try {
+            return log.get(historyId);
+        } catch (IOException e) {
+            System.err.println("Warning: could not read query history: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Forces the history log to disk and releases it
+     */
+    public void close() {
+        if (log == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            drain();
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Warning: could not close query history: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves recorded entries into the log and index in ID order
+     * Must be called with the lock held. Entries whose lower-numbered predecessors
+     * are still being recorded wait in outOfOrder.
+     */
+    private void drain() {
+        QueryHistoryEntry entry;
+        while ((entry = pending.poll()) != null) {
+            if (entry.getHistoryId() >= nextToApply) {
+                outOfOrder.put(entry.getHistoryId(), entry);
+            }
+        }
+        while ((entry = outOfOrder.remove(nextToApply)) != null) {
+            apply(entry);
+            nextToApply++;
+        }
+    }
+
+    private void apply(QueryHistoryEntry entry) {
+        if (log != null) {
+            try {
+                log.append(entry);
+            } catch (IOException e) {
+                System.err.println("Warning: could not save query history: " + e.getMessage());
+            }
+        }
+        if (indexLoaded) {
+            index.add(entry);
+            // Without a log the ring is the whole history, so older entries have expired
+            index.removeBefore(log == null ? entry.getHistoryId() - recent.getLimit() + 1 : log.getFirstHistoryId());
+        }
+    }
+
+    /**
+     * Fills the ring from the log the first time recent history is read
+     * This keeps startup independent of how much history the log holds
+     */
+    private void loadRecent() {
+        if (recentLoaded) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!recentLoaded) {
+                drain();
+                for (QueryHistoryEntry entry : log.readRecent(recent.getLimit())) {
+                    recent.put(entry);
+                }
+                recentLoaded = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: could not read query history: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the index, building it from the log the first time it is needed
+     * Must be called with the lock held.
+     */
+    private HistoryIndex index() {
+        drain();
+        if (!indexLoaded) {
+            readLog(index::add);
+            index.removeBefore(log.getFirstHistoryId());
+            indexLoaded = true;
+        }
+        return index;
+    }
+
+    private int[] candidates(String term, int max) {
+        lock.lock();
+        try {
+            return index().candidatesFor(term, max);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int lastAllocatedId() {
+        return nextHistoryId.get() - 1;
+    }
+
+    /**
+     * Looks up entries by ID and keeps the last limit matching a condition, in ID order
+     */
+    private List<QueryHistoryEntry> resolve(int[] ids, Predicate<QueryHistoryEntry> condition, int limit) {
+        List<QueryHistoryEntry> matches = new ArrayList<>();
+        for (int i = ids.length - 1; i >= 0 && matches.size() < limit; i--) {
+            QueryHistoryEntry entry = getHistoryEntry(ids[i]);
+            if (entry != null && condition.test(entry)) {
+                matches.add(entry);
+            }
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    private static List<QueryHistoryEntry> latest(List<QueryHistoryEntry> entries, int limit) {
+        return entries.size() <= limit ? entries : new ArrayList<>(entries.subList(entries.size() - limit, entries.size()));
+    }
+
+    /**
+     * Collects the entries matching a condition from the whole history, oldest first
+     */
+    private List<QueryHistoryEntry> filter(Predicate<QueryHistoryEntry> condition) {
+        if (log == null) {
+            return recent.snapshot(lastAllocatedId(), Integer.MAX_VALUE).stream()
+                         .filter(condition)
+                         .collect(Collectors.toList());
+        }
+        List<QueryHistoryEntry> matches = new ArrayList<>();
+        readLog(entry -> {
+            if (condition.test(entry)) {
+                matches.add(entry);
+            }
+        });
+        return matches;
+    }
+
+    /**
+     * Passes every logged entry to the consumer after applying pending ones
+     */
+    private void readLog(Consumer<QueryHistoryEntry> consumer) {
+        lock.lock();
+        try {
+            drain();
+            log.forEach(consumer);
+        } catch (IOException e) {
+            System.err.println("Warning: could not read query history: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,216 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.QueryResult;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory cache of SELECT results
+ * Entries are keyed by connection id and normalized SQL, evicted least-recently-used
+ * once their estimated heap weight exceeds the budget, and expire after a time-to-live.
+ * Writes to a table invalidate every cached result that read from it.
+ */
+public class ResultCache {
+
+    /**
+     * Snapshot of cache statistics
+     */
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int entryCount;
+        private final long weightBytes;
+        private final long maxWeightBytes;
+
+        public CacheStats(long hits, long misses, long evictions, long invalidations,
+                          int entryCount, long weightBytes, long maxWeightBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.entryCount = entryCount;
+            this.weightBytes = weightBytes;
+            this.maxWeightBytes = maxWeightBytes;
+        }
+
+        // Getters
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+        public int getEntryCount() { return entryCount; }
+        public long getWeightBytes() { return weightBytes; }
+        public long getMaxWeightBytes() { return maxWeightBytes; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{entries=%d, weight=%dKB/%dKB, hits=%d, misses=%d, hitRate=%.1f%%, " +
+                    "evictions=%d, invalidations=%d}",
+                entryCount, weightBytes / 1024, maxWeightBytes / 1024, hits, misses, getHitRate() * 100,
+                evictions, invalidations);
+        }
+    }
+
+    /**
+     * Inner class to represent a cached result
+     */
+    private static class CacheEntry {
+        private final int connId;
+        private final QueryResult result;
+        private final Set<String> tables;     // Tables the query reads, for invalidation
+        private final long weightBytes;
+        private final long expiresAtMs;
+
+        CacheEntry(int connId, QueryResult result, Set<String> tables, long weightBytes, long expiresAtMs) {
+            this.connId = connId;
+            this.result = result;
+            this.tables = tables;
+            this.weightBytes = weightBytes;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    public static final long DEFAULT_MAX_WEIGHT_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_TTL_MS = 5 * 60_000;
+
+    private final SqlInterpreter interpreter;
+    private final long maxWeightBytes;
+    private final long ttlMs;
+    private final LinkedHashMap<String, CacheEntry> entries;   // Access order = LRU order
+    private long weightBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ResultCache() {
+        this(DEFAULT_MAX_WEIGHT_BYTES, DEFAULT_TTL_MS);
+    }
+
+    public ResultCache(long maxWeightBytes, long ttlMs) {
+        this.interpreter = new SqlInterpreter();
+        this.maxWeightBytes = maxWeightBytes;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Looks up a cached result, or returns null on a miss
+     */
+    public synchronized QueryResult get(int connId, String sql) {
+        String key = keyFor(connId, sql);
+        CacheEntry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMs <= System.currentTimeMillis()) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result;
+    }
+
+    /**
+     * Caches a successful result
+     * Results larger than the whole budget are not cached
+     */
+    public void put(int connId, String sql, QueryResult result) {
+        put(connId, sql, result, interpreter.extractTableNames(sql));
+    }
+
+    /**
+     * Caches a successful result whose referenced tables are already known
+     */
+    public synchronized void put(int connId, String sql, QueryResult result, Set<String> tables) {
+        if (!result.isSuccessful()) {
+            return;
+        }
+        long weight = result.estimateSizeBytes();
+        if (weight > maxWeightBytes) {
+            return;
+        }
+        String key = keyFor(connId, sql);
+        remove(key);
+        entries.put(key, new CacheEntry(connId, result, tables, weight, System.currentTimeMillis() + ttlMs));
+        weightBytes += weight;
+
+        // Evict least recently used entries until back under budget
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (weightBytes > maxWeightBytes && it.hasNext()) {
+            CacheEntry eldest = it.next().getValue();
+            it.remove();
+            weightBytes -= eldest.weightBytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops cached results of a connection that read any of the given tables
+     * An empty table list drops everything cached for the connection
+     */
+    public synchronized void invalidateTables(int connId, Collection<String> tables) {
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            CacheEntry entry = it.next();
+            if (entry.connId == connId && (tables.isEmpty() || readsAny(entry, tables))) {
+                it.remove();
+                weightBytes -= entry.weightBytes;
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result of a connection
+     */
+    public void invalidateConnection(int connId) {
+        invalidateTables(connId, Set.of());
+    }
+
+    /**
+     * Empties the cache; statistics are kept
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weightBytes = 0;
+    }
+
+    /**
+     * Takes a snapshot of the cache statistics
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, invalidations, entries.size(), weightBytes, maxWeightBytes);
+    }
+
+    private boolean readsAny(CacheEntry entry, Collection<String> tables) {
+        for (String table : tables) {
+            if (entry.tables.contains(SqlInterpreter.normalizeTableName(table))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            weightBytes -= removed.weightBytes;
+        }
+    }
+
+    private String keyFor(int connId, String sql) {
+        return connId + "\u0000" + interpreter.normalizeQuery(sql);
+    }
+}
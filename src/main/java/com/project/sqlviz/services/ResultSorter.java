@@ -0,0 +1,720 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.models.ColumnVector;
+import com.project.sqlviz.models.QueryResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Service class for ordering a query result in memory without re-running the query
+ * The rows themselves are never moved: sorting produces a permutation, an int[] whose
+ * i-th entry is the result row to show at position i. Each sort column is first copied
+ * into a primitive array (long for integer, boolean and timestamp columns, double for
+ * floating point), so comparisons are array reads rather than boxed values.
+ * Keys are applied one at a time: the first key orders all rows, then each run of rows
+ * that tie on it is ordered by the next key, and so on. Numeric keys are radix sorted as
+ * longs next to their row numbers, text and other values are merge sorted. Large ranges
+ * are split into fork-join tasks and tie runs are sorted in parallel. Every pass is
+ * stable, so rows that tie on every key keep their query order.
+ * NULLs compare greater than any value, as in PostgreSQL: last ascending, first descending.
+ */
+public final class ResultSorter {
+    private static final int PARALLEL_ROWS = 50_000;      // Smaller results are sorted on the calling thread
+    private static final int LEAF_ROWS = 8_192;           // Rows each fork-join task sorts on its own
+    private static final int INSERTION_ROWS = 24;         // Runs this short are insertion sorted
+
+    /**
+     * One column of a multi-column sort
+     */
+    public static class SortKey {
+        private final int column;
+        private final boolean descending;
+
+        public SortKey(int column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+
+        public int getColumn() { return column; }
+        public boolean isDescending() { return descending; }
+
+        /**
+         * The same column sorted the other way
+         */
+        public SortKey reversed() {
+            return new SortKey(column, !descending);
+        }
+
+        @Override
+        public String toString() {
+            return column + (descending ? " DESC" : " ASC");
+        }
+    }
+
+    private ResultSorter() {
+    }
+
+    /**
+     * Computes the row order of a result sorted by the given keys, first key first
+     *
+     * @return the permutation, or null if there are no keys (query order)
+     */
+    public static int[] sort(QueryResult result, List<SortKey> keys) {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        int rows = result.getRowCount();
+        for (SortKey key : keys) {
+            if (key.getColumn() < 0 || key.getColumn() >= result.getColumnCount()) {
+                throw new IllegalArgumentException("No column " + key.getColumn() + " in result");
+            }
+        }
+        Key[] extracted = new Key[keys.size()];
+        for (int k = 0; k < extracted.length; k++) {
+            extracted[k] = extract(result, keys.get(k));
+        }
+
+        int[] order = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            order[row] = row;
+        }
+        boolean radix = false;
+        for (Key key : extracted) {
+            radix |= key instanceof EncodedKey || key instanceof StringKey;
+        }
+        sortRange(order, 0, rows, extracted, 0, new Scratch(rows, radix));
+        return order;
+    }
+
+    /**
+     * Sorts on the common fork-join pool, for callers on the event dispatch thread
+     */
+    public static CompletableFuture<int[]> sortAsync(QueryResult result, List<SortKey> keys) {
+        List<SortKey> copy = new ArrayList<>(keys);
+        return CompletableFuture.supplyAsync(() -> sort(result, copy));
+    }
+
+    /**
+     * Copies a column into the primitive array its type compares fastest as
+     */
+    private static Key extract(QueryResult result, SortKey sortKey) {
+        int rows = result.getRowCount();
+        int column = sortKey.getColumn();
+        boolean descending = sortKey.isDescending();
+        boolean[] nulls = new boolean[rows];
+        if (!result.isColumnar()) {
+            // Row-based results are read as they are rather than converted in the background
+            Object[] values = new Object[rows];
+            for (int row = 0; row < rows; row++) {
+                values[row] = result.getValueAt(row, column);
+                nulls[row] = values[row] == null;
+            }
+            return new ObjectKey(nulls, descending, values);
+        }
+
+        ColumnVector vector = result.getColumn(column);
+        // Spilled results page from disk, which is cheapest front to back on one thread
+        IntStream range = IntStream.range(0, rows);
+        if (result.getStore() == null && rows >= PARALLEL_ROWS) {
+            range = range.parallel();
+        }
+        switch (vector.getType()) {
+            case INT:
+            case LONG:
+            case BOOLEAN:
+            case TIMESTAMP: {
+                long[] values = new long[rows];
+                range.forEach(row -> {
+                    nulls[row] = vector.isNull(row);
+                    if (!nulls[row]) {
+                        values[row] = longValue(vector, row);
+                    }
+                });
+                return new LongKey(nulls, descending, values);
+            }
+            case DOUBLE: {
+                double[] values = new double[rows];
+                range.forEach(row -> {
+                    nulls[row] = vector.isNull(row);
+                    if (!nulls[row]) {
+                        values[row] = vector.getDouble(row);
+                    }
+                });
+                return new DoubleKey(nulls, descending, values);
+            }
+            case STRING: {
+                String[] values = new String[rows];
+                range.forEach(row -> {
+                    values[row] = vector instanceof ColumnVector.StringVector strings
+                        ? strings.getString(row) : (String) vector.get(row);
+                    nulls[row] = values[row] == null;
+                });
+                return new StringKey(nulls, descending, values);
+            }
+            default: {
+                Object[] values = new Object[rows];
+                range.forEach(row -> {
+                    values[row] = vector.get(row);
+                    nulls[row] = values[row] == null;
+                });
+                return new ObjectKey(nulls, descending, values);
+            }
+        }
+    }
+
+    /**
+     * Reads an integer-like value without boxing where the vector allows it
+     * Spilled columns only offer getDouble and get, so longs are read boxed to stay exact.
+     */
+    private static long longValue(ColumnVector vector, int row) {
+        if (vector instanceof ColumnVector.IntVector ints) {
+            return ints.getInt(row);
+        }
+        if (vector instanceof ColumnVector.LongVector longs) {
+            return longs.getLong(row);
+        }
+        if (vector instanceof ColumnVector.TimestampVector timestamps) {
+            return timestamps.getEpochMillis(row);
+        }
+        if (vector instanceof ColumnVector.BooleanVector booleans) {
+            return booleans.getBoolean(row) ? 1 : 0;
+        }
+        Object value = vector.get(row);
+        if (value instanceof Boolean flag) {
+            return flag ? 1 : 0;
+        }
+        if (value instanceof java.util.Date date) {
+            return date.getTime();
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Sorts rows [from, to) of the permutation by keys[k], then each run of rows that tie
+     * on it by the keys after it. Every pass is stable, so rows that tie on all keys
+     * stay in the order they arrived in.
+     */
+    private static void sortRange(int[] order, int from, int to, Key[] keys, int k, Scratch scratch) {
+        Key key = keys[k];
+        // NULLs are a single run at the end, or at the start when descending
+        int nullCount = 0;
+        for (int i = from; i < to; i++) {
+            if (key.nulls[order[i]]) {
+                nullCount++;
+            }
+        }
+        int valuesFrom = from;
+        int valuesTo = to;
+        if (nullCount > 0) {
+            int[] rows = scratch.rows;
+            int nonNull = key.descending ? from + nullCount : from;
+            int nulls = key.descending ? from : to - nullCount;
+            for (int i = from; i < to; i++) {
+                int row = order[i];
+                rows[key.nulls[row] ? nulls++ : nonNull++] = row;
+            }
+            System.arraycopy(rows, from, order, from, to - from);
+            valuesFrom = key.descending ? from + nullCount : from;
+            valuesTo = valuesFrom + (to - from - nullCount);
+        }
+
+        int length = valuesTo - valuesFrom;
+        long[] encoded = null;
+        if (length > 1) {
+            if (key instanceof EncodedKey sortable) {
+                encoded = scratch.values;
+                for (int i = valuesFrom; i < valuesTo; i++) {
+                    encoded[i] = sortable.encode(order[i]);
+                }
+                if (length >= PARALLEL_ROWS && ForkJoinPool.getCommonPoolParallelism() > 1) {
+                    int leafRows = Math.max(LEAF_ROWS, length / ForkJoinPool.getCommonPoolParallelism());
+                    ForkJoinPool.commonPool().invoke(new RadixTask(encoded, order, valuesFrom, valuesTo, leafRows, scratch));
+                } else {
+                    radixSort(encoded, order, valuesFrom, valuesTo, scratch);
+                }
+            } else if (key instanceof StringKey strings) {
+                sortStrings(order, valuesFrom, valuesTo, strings, 0, scratch);
+            } else {
+                mergeSort(order, valuesFrom, valuesTo, key, scratch);
+            }
+        }
+        if (k + 1 == keys.length) {
+            return;
+        }
+
+        // Runs of equal values, including the NULLs, are ordered by the next key
+        List<int[]> runs = new ArrayList<>();
+        if (nullCount > 1) {
+            runs.add(key.descending ? new int[] {from, from + nullCount} : new int[] {to - nullCount, to});
+        }
+        int runStart = valuesFrom;
+        for (int i = valuesFrom + 1; i <= valuesTo; i++) {
+            boolean tie = i < valuesTo && (encoded != null ? encoded[i] == encoded[i - 1]
+                                                            : key.compare(order[i - 1], order[i]) == 0);
+            if (!tie) {
+                if (i - runStart > 1) {
+                    runs.add(new int[] {runStart, i});
+                }
+                runStart = i;
+            }
+        }
+        IntStream indexes = IntStream.range(0, runs.size());
+        if (to - from >= PARALLEL_ROWS && runs.size() > 1) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(r -> sortRange(order, runs.get(r)[0], runs.get(r)[1], keys, k + 1, scratch));
+    }
+
+    /**
+     * Sorts rows [from, to) by text, most significant characters first
+     * Characters from offset on that every string in the range shares are skipped; the
+     * next four are packed into a long and radix sorted. Rows that tie on those are
+     * sorted again from four characters further on, until the strings run out.
+     */
+    private static void sortStrings(int[] order, int from, int to, StringKey key, int offset, Scratch scratch) {
+        int length = to - from;
+        if (length <= INSERTION_ROWS) {
+            insertionSort(order, from, to, key);
+            return;
+        }
+        offset = key.sharedPrefix(order, from, to, offset);
+        long[] encoded = scratch.values;
+        for (int i = from; i < to; i++) {
+            encoded[i] = key.encode(order[i], offset);
+        }
+        if (length >= PARALLEL_ROWS && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            int leafRows = Math.max(LEAF_ROWS, length / ForkJoinPool.getCommonPoolParallelism());
+            ForkJoinPool.commonPool().invoke(new RadixTask(encoded, order, from, to, leafRows, scratch));
+        } else {
+            radixSort(encoded, order, from, to, scratch);
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        int runStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || encoded[i] != encoded[i - 1]) {
+                if (i - runStart > 1) {
+                    runs.add(new int[] {runStart, i});
+                }
+                runStart = i;
+            }
+        }
+        int next = offset + StringKey.CHARS_PER_PASS;
+        IntStream indexes = IntStream.range(0, runs.size());
+        if (length >= PARALLEL_ROWS && runs.size() > 1) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(r -> {
+            int[] run = runs.get(r);
+            if (key.maxLength(order, run[0], run[1]) > next) {
+                sortStrings(order, run[0], run[1], key, next, scratch);
+            } else {
+                // Padding made e.g. "ab" and "ab\0" look alike; a plain sort settles them
+                mergeSort(order, run[0], run[1], key, scratch);
+            }
+        });
+    }
+
+    /**
+     * Stable LSD radix sort of rows [from, to) by their encoded values, a byte per pass
+     * Passes where every value has the same byte, such as the high bytes of small
+     * numbers, are skipped.
+     */
+    private static void radixSort(long[] values, int[] rows, int from, int to, Scratch scratch) {
+        int length = to - from;
+        if (length <= INSERTION_ROWS) {
+            insertionSort(values, rows, from, to);
+            return;
+        }
+        int[][] counts = new int[8][256];
+        for (int i = from; i < to; i++) {
+            long value = values[i] ^ Long.MIN_VALUE;    // Unsigned byte order matches signed order
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass][(int) (value >>> (pass * 8)) & 0xFF]++;
+            }
+        }
+        long[] sourceValues = values;
+        int[] sourceRows = rows;
+        long[] targetValues = scratch.radixValues;
+        int[] targetRows = scratch.radixRows;
+        for (int pass = 0; pass < 8; pass++) {
+            int[] count = counts[pass];
+            int shift = pass * 8;
+            if (count[(int) ((sourceValues[from] ^ Long.MIN_VALUE) >>> shift) & 0xFF] == length) {
+                continue;
+            }
+            int offset = from;
+            for (int b = 0; b < 256; b++) {
+                int c = count[b];
+                count[b] = offset;
+                offset += c;
+            }
+            for (int i = from; i < to; i++) {
+                long value = sourceValues[i];
+                int slot = count[(int) ((value ^ Long.MIN_VALUE) >>> shift) & 0xFF]++;
+                targetValues[slot] = value;
+                targetRows[slot] = sourceRows[i];
+            }
+            long[] swapValues = sourceValues;
+            sourceValues = targetValues;
+            targetValues = swapValues;
+            int[] swapRows = sourceRows;
+            sourceRows = targetRows;
+            targetRows = swapRows;
+        }
+        if (sourceValues != values) {
+            System.arraycopy(sourceValues, from, values, from, length);
+            System.arraycopy(sourceRows, from, rows, from, length);
+        }
+    }
+
+    private static void insertionSort(long[] values, int[] rows, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long value = values[i];
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= from && values[j] > value) {
+                values[j + 1] = values[j];
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            values[j + 1] = value;
+            rows[j + 1] = row;
+        }
+    }
+
+    /**
+     * Stable merge of the sorted runs [from, mid) and [mid, to) of values and rows, in place
+     */
+    private static void mergeEncoded(long[] values, int[] rows, int from, int mid, int to, Scratch scratch) {
+        if (values[mid - 1] <= values[mid]) {
+            return;
+        }
+        long[] leftValues = scratch.radixValues;
+        int[] leftRows = scratch.radixRows;
+        System.arraycopy(values, from, leftValues, from, to - from);
+        System.arraycopy(rows, from, leftRows, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && leftValues[left] <= leftValues[right])) {
+                values[i] = leftValues[left];
+                rows[i] = leftRows[left++];
+            } else {
+                values[i] = leftValues[right];
+                rows[i] = leftRows[right++];
+            }
+        }
+    }
+
+    /**
+     * Stable comparison sort of rows [from, to) of the permutation by one key
+     */
+    private static void mergeSort(int[] order, int from, int to, Key key, Scratch scratch) {
+        int[] buffer = scratch.rows;
+        System.arraycopy(order, from, buffer, from, to - from);
+        if (to - from >= PARALLEL_ROWS) {
+            ForkJoinPool.commonPool().invoke(new MergeTask(buffer, order, from, to, key));
+        } else {
+            mergeSort(buffer, order, from, to, key);
+        }
+    }
+
+    /**
+     * Sorts rows [from, to) of source into target by one key; both start with the same contents
+     * The arrays swap roles at each level, so every merge reads one and writes the other.
+     */
+    private static void mergeSort(int[] source, int[] target, int from, int to, Key key) {
+        if (to - from <= INSERTION_ROWS) {
+            insertionSort(target, from, to, key);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(target, source, from, mid, key);
+        mergeSort(target, source, mid, to, key);
+        merge(source, target, from, mid, to, key);
+    }
+
+    private static void insertionSort(int[] rows, int from, int to, Key key) {
+        for (int i = from + 1; i < to; i++) {
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= from && key.compare(rows[j], row) > 0) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            rows[j + 1] = row;
+        }
+    }
+
+    /**
+     * Merges the sorted runs [from, mid) and [mid, to) of source into target
+     */
+    private static void merge(int[] source, int[] target, int from, int mid, int to, Key key) {
+        if (key.compare(source[mid - 1], source[mid]) <= 0) {
+            // Already in order, common when sorting by a key the query ordered by
+            System.arraycopy(source, from, target, from, to - from);
+            return;
+        }
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && key.compare(source[left], source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    /**
+     * Buffers shared by all passes; passes running in parallel use disjoint ranges
+     */
+    private static class Scratch {
+        final int[] rows;
+        final long[] values;
+        final long[] radixValues;
+        final int[] radixRows;
+
+        Scratch(int rows, boolean radix) {
+            this.rows = new int[rows];
+            this.values = radix ? new long[rows] : null;
+            this.radixValues = radix ? new long[rows] : null;
+            this.radixRows = radix ? new int[rows] : null;
+        }
+    }
+
+    /**
+     * Radix sorts slices of a range in parallel, then merges them pairwise
+     */
+    private static class RadixTask extends RecursiveAction {
+        private final long[] values;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+        private final int leafRows;
+        private final Scratch scratch;
+
+        RadixTask(long[] values, int[] rows, int from, int to, int leafRows, Scratch scratch) {
+            this.values = values;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+            this.scratch = scratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafRows) {
+                radixSort(values, rows, from, to, scratch);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RadixTask(values, rows, from, mid, leafRows, scratch),
+                      new RadixTask(values, rows, mid, to, leafRows, scratch));
+            mergeEncoded(values, rows, from, mid, to, scratch);
+        }
+    }
+
+    /**
+     * Fork-join version of mergeSort: both halves are sorted in parallel, then merged
+     */
+    private static class MergeTask extends RecursiveAction {
+        private final int[] source;
+        private final int[] target;
+        private final int from;
+        private final int to;
+        private final Key key;
+
+        MergeTask(int[] source, int[] target, int from, int to, Key key) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.key = key;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_ROWS) {
+                mergeSort(source, target, from, to, key);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeTask(target, source, from, mid, key),
+                      new MergeTask(target, source, mid, to, key));
+            merge(source, target, from, mid, to, key);
+        }
+    }
+
+    /**
+     * A sort column's values, compared by row number
+     */
+    private abstract static class Key {
+        final boolean[] nulls;
+        final boolean descending;
+
+        Key(boolean[] nulls, boolean descending) {
+            this.nulls = nulls;
+            this.descending = descending;
+        }
+
+        /**
+         * Compares two non-null rows in sort order
+         */
+        final int compare(int a, int b) {
+            int c = compareValues(a, b);
+            return descending ? -c : c;
+        }
+
+        abstract int compareValues(int a, int b);
+    }
+
+    /**
+     * A key whose values map to longs that order the same way, so it can be radix sorted
+     */
+    private abstract static class EncodedKey extends Key {
+        EncodedKey(boolean[] nulls, boolean descending) {
+            super(nulls, descending);
+        }
+
+        /**
+         * The row's value as a long in sort order, direction included
+         */
+        final long encode(int row) {
+            long value = encodeValue(row);
+            return descending ? ~value : value;
+        }
+
+        abstract long encodeValue(int row);
+
+        @Override
+        int compareValues(int a, int b) {
+            return Long.compare(encodeValue(a), encodeValue(b));
+        }
+    }
+
+    private static final class LongKey extends EncodedKey {
+        private final long[] values;
+
+        LongKey(boolean[] nulls, boolean descending, long[] values) {
+            super(nulls, descending);
+            this.values = values;
+        }
+
+        @Override
+        long encodeValue(int row) {
+            return values[row];
+        }
+    }
+
+    /**
+     * Doubles as their IEEE bits with the magnitude bits of negatives flipped, which
+     * orders them as Double.compare does: -0.0 before 0.0 and NaN last
+     */
+    private static final class DoubleKey extends EncodedKey {
+        private final double[] values;
+
+        DoubleKey(boolean[] nulls, boolean descending, double[] values) {
+            super(nulls, descending);
+            this.values = values;
+        }
+
+        @Override
+        long encodeValue(int row) {
+            long bits = Double.doubleToLongBits(values[row]);
+            return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Text in String.compareTo order, which compares UTF-16 chars as unsigned numbers
+     */
+    private static final class StringKey extends Key {
+        static final int CHARS_PER_PASS = 4;
+        private final String[] values;
+
+        StringKey(boolean[] nulls, boolean descending, String[] values) {
+            super(nulls, descending);
+            this.values = values;
+        }
+
+        /**
+         * Four chars from offset as a long in sort order, direction included
+         * Missing chars count as 0, so a string sorts before its extensions.
+         */
+        long encode(int row, int offset) {
+            String value = values[row];
+            long packed = 0;
+            for (int i = offset; i < offset + CHARS_PER_PASS; i++) {
+                packed = packed << 16 | (i < value.length() ? value.charAt(i) : 0);
+            }
+            packed ^= Long.MIN_VALUE;     // Unsigned char order as signed long order
+            return descending ? ~packed : packed;
+        }
+
+        /**
+         * Length of the prefix every string in rows [from, to) has in common, at least offset
+         */
+        int sharedPrefix(int[] order, int from, int to, int offset) {
+            String first = values[order[from]];
+            int shared = first.length();
+            for (int i = from + 1; i < to && shared > offset; i++) {
+                String value = values[order[i]];
+                int limit = Math.min(shared, value.length());
+                int p = offset;
+                while (p < limit && value.charAt(p) == first.charAt(p)) {
+                    p++;
+                }
+                shared = p;
+            }
+            return Math.max(shared, offset);
+        }
+
+        int maxLength(int[] order, int from, int to) {
+            int max = 0;
+            for (int i = from; i < to; i++) {
+                max = Math.max(max, values[order[i]].length());
+            }
+            return max;
+        }
+
+        @Override
+        int compareValues(int a, int b) {
+            return values[a].compareTo(values[b]);
+        }
+    }
+
+    /**
+     * Values without a primitive form: compared naturally when both are the same
+     * Comparable type, otherwise by their text
+     */
+    private static final class ObjectKey extends Key {
+        private final Object[] values;
+
+        ObjectKey(boolean[] nulls, boolean descending, Object[] values) {
+            super(nulls, descending);
+            this.values = values;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        int compareValues(int a, int b) {
+            Object left = values[a];
+            Object right = values[b];
+            if (left instanceof Comparable && left.getClass() == right.getClass()) {
+                return ((Comparable) left).compareTo(right);
+            }
+            if (left instanceof Number x && right instanceof Number y) {
+                return Double.compare(x.doubleValue(), y.doubleValue());
+            }
+            return left.toString().compareTo(right.toString());
+        }
+    }
+}
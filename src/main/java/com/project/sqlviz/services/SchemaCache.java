@@ -0,0 +1,764 @@
+package com.project.sqlviz.services;
+
+import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.models.Connection;
+import com.project.sqlviz.models.ConnectionConfig;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class caching the catalogs, schemas, tables and columns of one database
+ * Nothing is read on the calling thread. refreshAsync() first loads the snapshot saved
+ * by the previous session, so autocomplete works immediately on a warm start, then
+ * lists the database's tables in one metadata call and drops or adds tables to match.
+ * Columns are loaded only for tables that are new, invalidated, or older than the
+ * maximum age: a whole schema at once with a single getColumns call when many of its
+ * tables need them, otherwise table by table. A table's columns can also be loaded on
+ * demand ahead of the background work. The result is saved to disk after each refresh.
+ *
+ * Names are indexed in a prefix trie, so completions are found in microseconds
+ * however large the schema is. Readers may use the cache from any thread while it is
+ * being refreshed.
+ */
+public class SchemaCache implements AutoCloseable {
+    public static final long DEFAULT_MAX_AGE_MS = TimeUnit.HOURS.toMillis(24);
+    public static final int DEFAULT_SUGGESTIONS = 50;
+    private static final int BULK_MIN_TABLES = 20;     // Tables needing columns before a schema is loaded in one call
+
+    // Snapshot file: magic, version, then catalogs, schemas and tables
+    private static final int MAGIC = 0x53514C53; // "SQLS"
+    private static final int VERSION = 1;
+
+    private static final Set<String> SYSTEM_SCHEMAS = Set.of(
+        "information_schema", "pg_catalog", "pg_toast", "performance_schema", "mysql", "sys");
+    private static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".sqlviz", "schema");
+    private static final Map<ConnectionConfig, SchemaCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Kinds of names offered for completion
+     */
+    public enum Kind {
+        CATALOG,
+        SCHEMA,
+        TABLE,
+        COLUMN
+    }
+
+    /**
+     * A completion candidate
+     */
+    public static class Suggestion {
+        private final String text;
+        private final Kind kind;
+        private final String detail;    // Schema of a table, type of a column of a known table, else null
+
+        public Suggestion(String text, Kind kind, String detail) {
+            this.text = text;
+            this.kind = kind;
+            this.detail = detail;
+        }
+
+        public String getText() { return text; }
+        public Kind getKind() { return kind; }
+        public String getDetail() { return detail; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Suggestion)) return false;
+            Suggestion that = (Suggestion) o;
+            return text.equals(that.text) && kind == that.kind && Objects.equals(detail, that.detail);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, kind, detail);
+        }
+
+        @Override
+        public String toString() {
+            String label = kind.name().toLowerCase(Locale.ROOT);
+            return detail == null ? text + "  (" + label + ")" : text + "  (" + label + ", " + detail + ")";
+        }
+    }
+
+    /**
+     * One column of a table
+     */
+    public static class ColumnInfo {
+        private final String name;
+        private final String typeName;
+        private final boolean nullable;
+
+        public ColumnInfo(String name, String typeName, boolean nullable) {
+            this.name = name;
+            this.typeName = typeName;
+            this.nullable = nullable;
+        }
+
+        public String getName() { return name; }
+        public String getTypeName() { return typeName; }
+        public boolean isNullable() { return nullable; }
+    }
+
+    /**
+     * One table or view; its columns are null until loaded
+     */
+    public static class TableInfo {
+        private final String catalog;
+        private final String schema;
+        private final String name;
+        private final String type;
+        private volatile List<ColumnInfo> columns;
+        private volatile long columnsLoadedAt;     // Epoch millis, 0 if never
+        private volatile boolean stale;            // Columns must be reloaded on the next refresh
+
+        public TableInfo(String catalog, String schema, String name, String type) {
+            this.catalog = catalog;
+            this.schema = schema;
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getCatalog() { return catalog; }
+        public String getSchema() { return schema; }
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public List<ColumnInfo> getColumns() { return columns; }
+        public long getColumnsLoadedAt() { return columnsLoadedAt; }
+        public boolean isLoaded() { return columns != null; }
+
+        public String getQualifiedName() {
+            return schema == null ? name : schema + "." + name;
+        }
+    }
+
+    /**
+     * Notified on a background thread whenever tables or columns were added or removed
+     */
+    public interface Listener {
+        void schemaChanged(SchemaCache cache);
+    }
+
+    private final ConnectionConfig config;
+    private final Path file;                                        // Snapshot location, null to keep in memory only
+    private final Map<String, TableInfo> tables = new ConcurrentHashMap<>(); // By lower-case qualified name
+    private final PrefixTrie<Suggestion> trie = new PrefixTrie<>(); // Lower-case names to suggestions
+    private final Map<TableInfo, CompletableFuture<List<ColumnInfo>>> pendingColumns = new ConcurrentHashMap<>();
+    private volatile List<String> catalogs = List.of();
+    private volatile List<String> schemas = List.of();
+    private volatile long maxAgeMs = DEFAULT_MAX_AGE_MS;
+    private volatile Listener listener;
+    private volatile long lastRefreshMs = -1;                       // Duration of the last refresh, -1 before any
+    private volatile boolean snapshotLoaded;                        // Only touched by the refresh thread
+    private final Object saveLock = new Object();
+    private CompletableFuture<Void> refresh;                        // Running or last refresh
+    private Thread refreshThread;
+    private volatile boolean closed;
+
+    public SchemaCache(ConnectionConfig config, Path directory) {
+        this.config = config;
+        this.file = directory == null ? null : directory.resolve(snapshotName(config));
+    }
+
+    /**
+     * Shared cache for a configuration, saved under ~/.sqlviz/schema
+     */
+    public static SchemaCache forConfig(ConnectionConfig config) {
+        return caches.computeIfAbsent(config, c -> new SchemaCache(c, DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * Stops all shared caches' background work and saves them
+     */
+    public static void closeAll() {
+        for (SchemaCache cache : caches.values()) {
+            cache.close();
+        }
+        caches.clear();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets how old loaded columns may get before a refresh reloads them
+     */
+    public void setMaxAgeMs(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    public ConnectionConfig getConfig() { return config; }
+    public List<String> getCatalogs() { return catalogs; }
+    public List<String> getSchemas() { return schemas; }
+    public int getTableCount() { return tables.size(); }
+    public long getLastRefreshMs() { return lastRefreshMs; }
+
+    public int getLoadedTableCount() {
+        int loaded = 0;
+        for (TableInfo table : tables.values()) {
+            if (table.isLoaded()) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized boolean isRefreshing() {
+        return refresh != null && !refresh.isDone();
+    }
+
+    /**
+     * Starts bringing the cache up to date in the background, unless already doing so
+     * The future completes when done; failures are also reported as warnings.
+     */
+    public synchronized CompletableFuture<Void> refreshAsync() {
+        if (isRefreshing() || closed) {
+            return refresh != null ? refresh : CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        refresh = future;
+        refreshThread = Thread.ofVirtual().name("schema-cache").start(() -> {
+            try {
+                if (loadSnapshotOnce()) {
+                    notifyListener();
+                }
+                long start = System.nanoTime();
+                refresh();
+                lastRefreshMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                save();
+                future.complete(null);
+            } catch (SQLException | IOException | RuntimeException e) {
+                if (!closed) {
+                    System.err.println("Warning: could not refresh schema of " + config.getJdbcUrl() + ": " + e.getMessage());
+                }
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Marks tables named in a DDL statement stale and refreshes, so completions follow
+     * CREATE and DROP statements run in the tool
+     */
+    public void statementExecuted(String sql) {
+        SqlInterpreter.Analysis analysis = new SqlInterpreter(config.getDialect().usesBackslashEscapes()).analyze(sql);
+        SqlInterpreter.QueryType type = analysis.getQueryType();
+        if (type != SqlInterpreter.QueryType.CREATE && type != SqlInterpreter.QueryType.DROP) {
+            return;
+        }
+        for (String name : analysis.getTables()) {
+            for (TableInfo table : findTables(name)) {
+                table.stale = true;
+            }
+        }
+        refreshAsync();
+    }
+
+    /**
+     * Finds a table by bare or schema-qualified name, ignoring case; null if unknown
+     * A bare name present in several schemas returns one of them.
+     */
+    public TableInfo getTable(String name) {
+        List<TableInfo> found = findTables(name);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private List<TableInfo> findTables(String name) {
+        String lower = unquote(name).toLowerCase(Locale.ROOT);
+        TableInfo qualified = tables.get(lower);
+        if (qualified != null) {
+            return List.of(qualified);
+        }
+        List<TableInfo> found = new ArrayList<>(1);
+        for (Suggestion suggestion : trie.get(lower.substring(lower.lastIndexOf('.') + 1))) {
+            if (suggestion.kind == Kind.TABLE) {
+                TableInfo table = tables.get(key(suggestion.detail, suggestion.text));
+                if (table != null && (lower.indexOf('.') < 0 || lower.equals(key(table.schema, table.name)))) {
+                    found.add(table);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Loads a table's columns now, ahead of the background refresh
+     * Completes immediately if they are already loaded.
+     */
+    public CompletableFuture<List<ColumnInfo>> loadColumnsAsync(TableInfo table) {
+        List<ColumnInfo> columns = table.columns;
+        if (columns != null && !table.stale) {
+            return CompletableFuture.completedFuture(columns);
+        }
+        return pendingColumns.computeIfAbsent(table, t -> {
+            CompletableFuture<List<ColumnInfo>> future = new CompletableFuture<>();
+            Thread.ofVirtual().name("schema-columns").start(() -> {
+                try {
+                    Connection connection = ConnectionFactory.getPooledConnection(config);
+                    try {
+                        loadTableColumns(connection.getJdbcConnection().getMetaData(), t);
+                    } finally {
+                        connection.close();
+                    }
+                    notifyListener();
+                    future.complete(t.columns);
+                } catch (SQLException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    pendingColumns.remove(t);
+                }
+            });
+            return future;
+        });
+    }
+
+    /**
+     * Names starting with the given text, in alphabetical order
+     * Text of the form qualifier.prefix completes the columns of a known table, or the
+     * tables of a schema. Columns of a table not yet loaded give no suggestions; see
+     * loadColumnsAsync.
+     */
+    public List<Suggestion> complete(String text, int limit) {
+        String lower = unquote(text).toLowerCase(Locale.ROOT);
+        int dot = lower.lastIndexOf('.');
+        if (dot < 0) {
+            return trie.find(lower, limit, null);
+        }
+        String qualifier = lower.substring(0, dot);
+        String prefix = lower.substring(dot + 1);
+        TableInfo table = getTable(qualifier);
+        if (table != null) {
+            List<Suggestion> found = new ArrayList<>();
+            List<ColumnInfo> columns = table.columns;
+            if (columns != null) {
+                for (ColumnInfo column : columns) {
+                    if (found.size() < limit && column.name.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+                        found.add(new Suggestion(column.name, Kind.COLUMN, column.typeName));
+                    }
+                }
+            }
+            return found;
+        }
+        return trie.find(prefix, limit, s -> s.kind == Kind.TABLE && qualifier.equalsIgnoreCase(s.detail));
+    }
+
+    /**
+     * Stops background work and saves what has been loaded
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = refreshThread;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            System.err.println("Warning: could not save schema cache: " + e.getMessage());
+        }
+    }
+
+    // ---- Loading from the database ----
+
+    private void refresh() throws SQLException {
+        Connection connection = ConnectionFactory.getPooledConnection(config);
+        try {
+            java.sql.Connection jdbc = connection.getJdbcConnection();
+            DatabaseMetaData metaData = jdbc.getMetaData();
+            String catalog = jdbc.getCatalog();
+            loadCatalogsAndSchemas(metaData);
+            loadTables(metaData, catalog);
+            notifyListener();
+            loadColumns(metaData);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void loadCatalogsAndSchemas(DatabaseMetaData metaData) throws SQLException {
+        List<String> newCatalogs = new ArrayList<>();
+        try (ResultSet rs = metaData.getCatalogs()) {
+            while (rs.next()) {
+                newCatalogs.add(rs.getString("TABLE_CAT"));
+            }
+        }
+        List<String> newSchemas = new ArrayList<>();
+        try (ResultSet rs = metaData.getSchemas()) {
+            while (rs.next()) {
+                String schema = rs.getString("TABLE_SCHEM");
+                if (!isSystemSchema(schema)) {
+                    newSchemas.add(schema);
+                }
+            }
+        }
+        setNames(catalogs, newCatalogs, Kind.CATALOG);
+        catalogs = List.copyOf(newCatalogs);
+        setNames(schemas, newSchemas, Kind.SCHEMA);
+        schemas = List.copyOf(newSchemas);
+    }
+
+    private void setNames(List<String> oldNames, List<String> newNames, Kind kind) {
+        for (String name : oldNames) {
+            trie.remove(name.toLowerCase(Locale.ROOT), new Suggestion(name, kind, null));
+        }
+        for (String name : newNames) {
+            trie.add(name.toLowerCase(Locale.ROOT), new Suggestion(name, kind, null));
+        }
+    }
+
+    /**
+     * Lists the tables of the current catalog in one call, adding new ones and dropping missing ones
+     */
+    private void loadTables(DatabaseMetaData metaData, String catalog) throws SQLException {
+        Set<String> seen = new HashSet<>();
+        try (ResultSet rs = metaData.getTables(catalog, null, "%", null)) {
+            while (rs.next()) {
+                checkInterrupted();
+                String schema = rs.getString("TABLE_SCHEM");
+                String type = rs.getString("TABLE_TYPE");
+                if (isSystemSchema(schema) || !isUserTable(type)) {
+                    continue;
+                }
+                String name = rs.getString("TABLE_NAME");
+                String key = key(schema, name);
+                seen.add(key);
+                if (!tables.containsKey(key)) {
+                    addTable(new TableInfo(rs.getString("TABLE_CAT"), schema, name, type));
+                }
+            }
+        }
+        for (TableInfo table : new ArrayList<>(tables.values())) {
+            if (!seen.contains(key(table.schema, table.name))) {
+                removeTable(table);
+            }
+        }
+    }
+
+    /**
+     * Loads columns for every table that needs them, one schema at a time
+     */
+    private void loadColumns(DatabaseMetaData metaData) throws SQLException {
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        Map<String, List<TableInfo>> bySchema = new LinkedHashMap<>();
+        for (TableInfo table : tables.values()) {
+            if (table.columns == null || table.stale || table.columnsLoadedAt < cutoff) {
+                bySchema.computeIfAbsent(table.schema == null ? "" : table.schema, s -> new ArrayList<>()).add(table);
+            }
+        }
+        for (List<TableInfo> group : bySchema.values()) {
+            checkInterrupted();
+            if (group.size() >= BULK_MIN_TABLES) {
+                loadSchemaColumns(metaData, group.get(0).catalog, group.get(0).schema);
+            } else {
+                for (TableInfo table : group) {
+                    checkInterrupted();
+                    loadTableColumns(metaData, table);
+                }
+            }
+            notifyListener();
+        }
+    }
+
+    /**
+     * Reads the columns of every table in a schema with a single metadata call
+     */
+    private void loadSchemaColumns(DatabaseMetaData metaData, String catalog, String schema) throws SQLException {
+        Map<String, List<ColumnInfo>> found = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, escape(metaData, schema), "%", "%")) {
+            while (rs.next()) {
+                String key = key(rs.getString("TABLE_SCHEM"), rs.getString("TABLE_NAME"));
+                found.computeIfAbsent(key, k -> new ArrayList<>()).add(readColumn(rs));
+            }
+        }
+        for (TableInfo table : tables.values()) {
+            if (Objects.equals(table.schema, schema)) {
+                setColumns(table, found.getOrDefault(key(table.schema, table.name), List.of()));
+            }
+        }
+    }
+
+    private void loadTableColumns(DatabaseMetaData metaData, TableInfo table) throws SQLException {
+        List<ColumnInfo> columns = new ArrayList<>();
+        try (ResultSet rs = metaData.getColumns(table.catalog, escape(metaData, table.schema),
+                 escape(metaData, table.name), "%")) {
+            while (rs.next()) {
+                // Patterns may still match other tables on drivers that ignore the escape
+                if (table.name.equals(rs.getString("TABLE_NAME"))
+                        && Objects.equals(table.schema, rs.getString("TABLE_SCHEM"))) {
+                    columns.add(readColumn(rs));
+                }
+            }
+        }
+        setColumns(table, columns);
+    }
+
+    private static ColumnInfo readColumn(ResultSet rs) throws SQLException {
+        return new ColumnInfo(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"),
+            rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+    }
+
+    private static String escape(DatabaseMetaData metaData, String name) throws SQLException {
+        if (name == null) {
+            return null;
+        }
+        String escape = metaData.getSearchStringEscape();
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    private static boolean isSystemSchema(String schema) {
+        return schema != null && SYSTEM_SCHEMAS.contains(schema.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Tables, views and their variants, but not system tables, indexes or sequences
+     */
+    private static boolean isUserTable(String type) {
+        String upper = type == null ? "" : type.toUpperCase(Locale.ROOT);
+        return (upper.contains("TABLE") || upper.contains("VIEW")) && !upper.contains("SYSTEM")
+            && !upper.contains("TEMPORARY");
+    }
+
+    private void checkInterrupted() throws SQLException {
+        if (Thread.currentThread().isInterrupted() || closed) {
+            throw new SQLException("Schema refresh cancelled");
+        }
+    }
+
+    // ---- Index maintenance ----
+
+    private synchronized void addTable(TableInfo table) {
+        tables.put(key(table.schema, table.name), table);
+        trie.add(table.name.toLowerCase(Locale.ROOT), new Suggestion(table.name, Kind.TABLE, table.schema));
+        indexColumns(table.columns, true);
+    }
+
+    private synchronized void removeTable(TableInfo table) {
+        tables.remove(key(table.schema, table.name));
+        trie.remove(table.name.toLowerCase(Locale.ROOT), new Suggestion(table.name, Kind.TABLE, table.schema));
+        indexColumns(table.columns, false);
+    }
+
+    private synchronized void setColumns(TableInfo table, List<ColumnInfo> columns) {
+        if (tables.get(key(table.schema, table.name)) == table) {
+            indexColumns(table.columns, false);
+            indexColumns(columns, true);
+        }
+        table.columns = List.copyOf(columns);
+        table.columnsLoadedAt = System.currentTimeMillis();
+        table.stale = false;
+    }
+
+    /**
+     * Adds or removes a table's column names; names shared by many tables are suggested once
+     */
+    private void indexColumns(List<ColumnInfo> columns, boolean add) {
+        if (columns == null) {
+            return;
+        }
+        for (ColumnInfo column : columns) {
+            Suggestion suggestion = new Suggestion(column.name, Kind.COLUMN, null);
+            if (add) {
+                trie.add(column.name.toLowerCase(Locale.ROOT), suggestion);
+            } else {
+                trie.remove(column.name.toLowerCase(Locale.ROOT), suggestion);
+            }
+        }
+    }
+
+    private void notifyListener() {
+        Listener current = listener;
+        if (current != null) {
+            current.schemaChanged(this);
+        }
+    }
+
+    private static String key(String schema, String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return schema == null ? lower : schema.toLowerCase(Locale.ROOT) + "." + lower;
+    }
+
+    private static String unquote(String name) {
+        return name.replaceAll("[`\"\\[\\]]", "");
+    }
+
+    // ---- Snapshot on disk ----
+
+    private boolean loadSnapshotOnce() {
+        if (snapshotLoaded || file == null) {
+            return false;
+        }
+        snapshotLoaded = true;
+        try {
+            return loadSnapshot();
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.err.println("Warning: ignoring unreadable schema cache " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean loadSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not a schema cache file of this version");
+            }
+            List<String> savedCatalogs = readNames(in);
+            List<String> savedSchemas = readNames(in);
+            int tableCount = in.readInt();
+            List<TableInfo> loaded = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++) {
+                TableInfo table = new TableInfo(readNullable(in), readNullable(in), in.readUTF(), readNullable(in));
+                table.columnsLoadedAt = in.readLong();
+                int columnCount = in.readInt();
+                if (columnCount >= 0) {
+                    List<ColumnInfo> columns = new ArrayList<>(columnCount);
+                    for (int c = 0; c < columnCount; c++) {
+                        columns.add(new ColumnInfo(in.readUTF(), readNullable(in), in.readBoolean()));
+                    }
+                    table.columns = List.copyOf(columns);
+                }
+                loaded.add(table);
+            }
+            // Only apply a snapshot that was read completely
+            setNames(catalogs, savedCatalogs, Kind.CATALOG);
+            catalogs = List.copyOf(savedCatalogs);
+            setNames(schemas, savedSchemas, Kind.SCHEMA);
+            schemas = List.copyOf(savedSchemas);
+            for (TableInfo table : loaded) {
+                if (!tables.containsKey(key(table.schema, table.name))) {
+                    addTable(table);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Writes the cache to its snapshot file, replacing the previous one atomically
+     */
+    public void save() throws IOException {
+        if (file == null || (tables.isEmpty() && !snapshotLoaded)) {
+            return;
+        }
+        synchronized (saveLock) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeNames(out, catalogs);
+            writeNames(out, schemas);
+            List<TableInfo> snapshot = new ArrayList<>(tables.values());
+            out.writeInt(snapshot.size());
+            for (TableInfo table : snapshot) {
+                writeNullable(out, table.catalog);
+                writeNullable(out, table.schema);
+                out.writeUTF(table.name);
+                writeNullable(out, table.type);
+                List<ColumnInfo> columns = table.columns;
+                // Stale columns are saved as never loaded so the next session reloads them
+                out.writeLong(table.stale ? 0 : table.columnsLoadedAt);
+                out.writeInt(columns == null || table.stale ? -1 : columns.size());
+                if (columns != null && !table.stale) {
+                    for (ColumnInfo column : columns) {
+                        out.writeUTF(column.name);
+                        writeNullable(out, column.typeName);
+                        out.writeBoolean(column.nullable);
+                    }
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(in.readUTF());
+        }
+        return names;
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * File name derived from the URL and user, so passwords never reach the disk
+     */
+    private static String snapshotName(ConnectionConfig config) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((config.getJdbcUrl() + "\n" + config.getUsername()).getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder("schema-");
+            for (int i = 0; i < 8; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return name.append(".bin").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,81 +1,210 @@
 package com.project.sqlviz.services;
 
-import java.util.regex.Pattern;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Interpreter Pattern implementation for SQL query analysis
  * Interpreter Pattern: Defines how to interpret and evaluate language expressions
  * This class analyzes SQL queries to determine their type and validate basic syntax
+ * The actual scanning is done in one pass by SqlLexer; callers that need several
+ * facts about a query should call analyze() once and reuse the Analysis.
  */
 public class SqlInterpreter {
-    
-    // Regular expressions to match different SQL statement types
-    private static final Pattern SELECT_PATTERN = Pattern.compile("^\\s*SELECT\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern INSERT_PATTERN = Pattern.compile("^\\s*INSERT\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern UPDATE_PATTERN = Pattern.compile("^\\s*UPDATE\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern DELETE_PATTERN = Pattern.compile("^\\s*DELETE\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CREATE_PATTERN = Pattern.compile("^\\s*CREATE\\s+", Pattern.CASE_INSENSITIVE);
-    private static final Pattern DROP_PATTERN = Pattern.compile("^\\s*DROP\\s+", Pattern.CASE_INSENSITIVE);
+    private final boolean backslashEscapes;  // Backslash escapes quotes in string literals, as in MySQL
+
+    public SqlInterpreter() {
+        this(false);
+    }
+
+    public SqlInterpreter(boolean backslashEscapes) {
+        this.backslashEscapes = backslashEscapes;
+    }
 
     /**
      * Enumeration for different types of SQL statements
      */
     public enum QueryType {
-        SELECT,     // Data retrieval
+        SELECT,     // Data retrieval (including WITH ... SELECT)
         INSERT,     // Data insertion
         UPDATE,     // Data modification
         DELETE,     // Data deletion
         CREATE,     // Schema creation
         DROP,       // Schema deletion
+        EXPLAIN,    // Execution plan
+        SHOW,       // Metadata (SHOW, DESCRIBE)
         UNKNOWN     // Unknown or unsupported query type
     }
 
     /**
-     * Analyzes a SQL query and determines its type
+     * Result of analyzing a query - everything the executor needs from one scan
      */
-    public QueryType interpretQueryType(String sql) {
-        if (sql == null || sql.trim().isEmpty()) {
-            return QueryType.UNKNOWN;
+    public static class Analysis {
+        private final String sanitizedSql;    // Query with comments removed
+        private final QueryType queryType;
+        private final Set<String> tables;     // Lower-case bare names of referenced tables
+        private final String error;           // Lexical error, null if none
+        private final int[] literalSpans;     // start/end offsets of bindable literals in sanitizedSql
+        private final boolean hasPlaceholders; // Query already uses '?' bind parameters
+
+        Analysis(String sanitizedSql, QueryType queryType, Set<String> tables, String error,
+                 int[] literalSpans, boolean hasPlaceholders) {
+            this.sanitizedSql = sanitizedSql;
+            this.queryType = queryType;
+            this.tables = tables;
+            this.error = error;
+            this.literalSpans = literalSpans;
+            this.hasPlaceholders = hasPlaceholders;
+        }
+
+        // Getters
+        public String getSanitizedSql() { return sanitizedSql; }
+        public QueryType getQueryType() { return queryType; }
+        public Set<String> getTables() { return tables; }
+        public String getError() { return error; }
+        public int getBindableLiteralCount() { return literalSpans.length / 2; }
+
+        /**
+         * Whether the query is well-formed enough to send to the database
+         */
+        public boolean isValid() {
+            return error == null && queryType != QueryType.UNKNOWN && sanitizedSql.length() >= 3;
+        }
+
+        /**
+         * Whether executing the query produces a result set
+         */
+        public boolean returnsRows() {
+            return queryType == QueryType.SELECT || queryType == QueryType.EXPLAIN || queryType == QueryType.SHOW;
+        }
+
+        /**
+         * Whether the query may change data or schema that cached results depend on
+         * Anything but SELECT, EXPLAIN and SHOW counts, including statements that are not
+         * classified, such as TRUNCATE, ALTER, MERGE or CALL.
+         */
+        public boolean isModifying() {
+            return !returnsRows();
         }
 
-        String trimmedSql = sql.trim();
-        
-        if (SELECT_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.SELECT;
-        } else if (INSERT_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.INSERT;
-        } else if (UPDATE_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.UPDATE;
-        } else if (DELETE_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.DELETE;
-        } else if (CREATE_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.CREATE;
-        } else if (DROP_PATTERN.matcher(trimmedSql).find()) {
-            return QueryType.DROP;
-        } else {
-            return QueryType.UNKNOWN;
+        /**
+         * Whether getTables() names every table the query can change
+         * Only true for INSERT, UPDATE, DELETE and DROP; other statements may write
+         * tables that are not extracted, or none that are named at all.
+         */
+        public boolean hasKnownTargets() {
+            boolean dmlOrDrop = queryType == QueryType.INSERT || queryType == QueryType.UPDATE ||
+                                queryType == QueryType.DELETE || queryType == QueryType.DROP;
+            return dmlOrDrop && !tables.isEmpty();
+        }
+
+        /**
+         * Whether the query only changes session state: settings, the current schema,
+         * an explicit transaction or a temporary table
+         * Such state belongs to one physical connection and does not outlive a pooled borrow.
+         */
+        public boolean changesSessionState() {
+            String[] words = sanitizedSql.trim().toUpperCase(Locale.ROOT).split("[\\s;]+", 4);
+            switch (words[0]) {
+                case "SET":
+                case "USE":
+                case "BEGIN":
+                    return true;
+                case "START":
+                    return words.length > 1 && words[1].equals("TRANSACTION");
+                case "CREATE":
+                    int kind = words.length > 2 && (words[1].equals("GLOBAL") || words[1].equals("LOCAL")) ? 2 : 1;
+                    return words.length > kind && (words[kind].equals("TEMP") || words[kind].equals("TEMPORARY"));
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Rewrites constant literals as '?' bind parameters
+         * Queries that differ only in constants then share one prepared statement.
+         * DDL, EXPLAIN/SHOW and queries that already use placeholders are returned unchanged.
+         */
+        public ParameterizedQuery parameterize() {
+            boolean dml = queryType == QueryType.SELECT || queryType == QueryType.INSERT ||
+                          queryType == QueryType.UPDATE || queryType == QueryType.DELETE;
+            if (!dml || hasPlaceholders || literalSpans.length == 0) {
+                return new ParameterizedQuery(sanitizedSql, Collections.emptyList());
+            }
+
+            StringBuilder sql = new StringBuilder(sanitizedSql.length());
+            List<Object> parameters = new ArrayList<>(literalSpans.length / 2);
+            int copied = 0;
+            for (int i = 0; i < literalSpans.length; i += 2) {
+                int start = literalSpans[i];
+                int end = literalSpans[i + 1];
+                Object value = literalValue(sanitizedSql.substring(start, end));
+                if (value == null) {
+                    continue; // Not a plain constant (e.g. 0x1F) - keep it inline
+                }
+                sql.append(sanitizedSql, copied, start).append('?');
+                parameters.add(value);
+                copied = end;
+            }
+            sql.append(sanitizedSql, copied, sanitizedSql.length());
+            return new ParameterizedQuery(sql.toString(), parameters);
+        }
+
+        private static Object literalValue(String literal) {
+            if (literal.charAt(0) == '\'') {
+                return literal.substring(1, literal.length() - 1).replace("''", "'");
+            }
+            try {
+                if (literal.length() <= 18 && literal.chars().allMatch(Character::isDigit)) {
+                    return Long.parseLong(literal);
+                }
+                return new BigDecimal(literal);
+            } catch (NumberFormatException e) {
+                return null;
+            }
         }
     }
 
     /**
-     * Performs basic validation on SQL query
+     * SQL text with '?' placeholders plus the values to bind to them, in order
      */
-    public boolean isValidQuery(String sql) {
-        if (sql == null || sql.trim().isEmpty()) {
-            return false;
-        }
+    public static class ParameterizedQuery {
+        private final String sql;
+        private final List<Object> parameters;
 
-        // Basic validation: query should not be just whitespace and should have some content
-        String trimmedSql = sql.trim();
-        
-        // Check for minimum length
-        if (trimmedSql.length() < 3) {
-            return false;
+        public ParameterizedQuery(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
         }
 
-        // Check for basic SQL statement patterns
-        QueryType type = interpretQueryType(trimmedSql);
-        return type != QueryType.UNKNOWN;
+        // Getters
+        public String getSql() { return sql; }
+        public List<Object> getParameters() { return parameters; }
+    }
+
+    /**
+     * Analyzes a query in a single pass: type, sanitized text and referenced tables
+     */
+    public Analysis analyze(String sql) {
+        return SqlLexer.analyze(sql, backslashEscapes);
+    }
+
+    /**
+     * Analyzes a SQL query and determines its type
+     */
+    public QueryType interpretQueryType(String sql) {
+        return analyze(sql).getQueryType();
+    }
+
+    /**
+     * Performs basic validation on SQL query
+     */
+    public boolean isValidQuery(String sql) {
+        return analyze(sql).isValid();
     }
 
     /**
@@ -83,23 +212,41 @@ public class SqlInterpreter {
      */
     public boolean isReadOnlyQuery(String sql) {
         QueryType type = interpretQueryType(sql);
-        return type == QueryType.SELECT;
+        return type == QueryType.SELECT || type == QueryType.SHOW;
     }
 
     /**
-     * Sanitizes SQL query by removing dangerous patterns
-     * Basic protection against SQL injection
+     * Extracts the names of tables a query reads or writes
+     * Names are lower-cased and stripped of schema qualifiers and quotes
      */
-    public String sanitizeQuery(String sql) {
+    public Set<String> extractTableNames(String sql) {
+        return analyze(sql).getTables();
+    }
+
+    /**
+     * Normalizes a table reference to its bare lower-case name
+     */
+    public static String normalizeTableName(String name) {
+        String bare = name.substring(name.lastIndexOf('.') + 1);
+        return bare.replaceAll("[`\"\\[\\]]", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes a query so trivially different spellings share a cache key
+     * Collapses whitespace outside literals and drops the trailing semicolon
+     */
+    public String normalizeQuery(String sql) {
         if (sql == null) {
             return "";
         }
+        return SqlLexer.normalize(sql);
+    }
 
-        // Remove comments and potentially dangerous patterns
-        String sanitized = sql.replaceAll("--.*", "")  // Remove single line comments
-                             .replaceAll("/\\*.*?\\*/", "")  // Remove multi-line comments
-                             .trim();
-
-        return sanitized;
+    /**
+     * Sanitizes SQL query by removing comments
+     * Comment markers inside string literals and quoted identifiers are left alone
+     */
+    public String sanitizeQuery(String sql) {
+        return analyze(sql).getSanitizedSql();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,669 @@
+package com.project.sqlviz.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Hand-written, single-pass SQL tokenizer
+ * One scan over the text classifies the statement, strips comments (leaving string
+ * literals and quoted identifiers untouched), collects the referenced table names and
+ * records which literals could safely be turned into bind parameters.
+ * Keywords are matched in place, so the only allocations are the output strings.
+ * A doubled quote is the only escape in string literals unless the dialect also treats
+ * backslash as one; PostgreSQL E'...' strings always do.
+ */
+public final class SqlLexer {
+
+    /**
+     * Keywords the lexer reacts to - every other word is treated as an identifier
+     */
+    private enum Keyword {
+        SELECT, INSERT, UPDATE, DELETE, CREATE, DROP, WITH, EXPLAIN, SHOW, DESCRIBE, DESC,
+        FROM, JOIN, INTO, TABLE, WHERE, GROUP, ORDER, HAVING, LIMIT, OFFSET, FETCH, UNION,
+        INTERSECT, EXCEPT, ON, USING, SET, VALUES, AS, IN, EXISTS, IF, NOT, ONLY, LATERAL,
+        RECURSIVE, WINDOW, RETURNING, ANY, ALL, SOME, LIKE, BETWEEN, AND, OR
+    }
+
+    // Keywords grouped by length so a word is only compared against candidates of its size
+    private static final Keyword[][] KEYWORDS_BY_LENGTH = new Keyword[16][];
+
+    static {
+        for (int length = 0; length < KEYWORDS_BY_LENGTH.length; length++) {
+            int count = 0;
+            for (Keyword keyword : Keyword.values()) {
+                if (keyword.name().length() == length) count++;
+            }
+            KEYWORDS_BY_LENGTH[length] = new Keyword[count];
+            int i = 0;
+            for (Keyword keyword : Keyword.values()) {
+                if (keyword.name().length() == length) KEYWORDS_BY_LENGTH[length][i++] = keyword;
+            }
+        }
+    }
+
+    private static final int MAX_TRACKED_DEPTH = 64;
+
+    private final String sql;
+    private final int length;
+    private final boolean backslashEscapes;
+    private int pos;
+
+    // Sanitized output - only allocated once a comment has to be cut out
+    private StringBuilder sanitized;
+    private int copiedUpTo;
+
+    // Classification state
+    private SqlInterpreter.QueryType type;
+    private boolean sawToken;
+    private boolean withClause;          // Statement began with WITH; type comes from the main statement
+    private String error;
+
+    // Table extraction state
+    private Set<String> tables;
+    private int depth;
+    private long functionParens;         // Bit n set when the paren opening depth n+1 is a function call
+    private boolean expectTable;         // Next name is a table reference
+    private long fromLists;              // Bit n set while depth n is inside a FROM clause's table list
+    private boolean lastWasIdentifier;   // Previous token was a non-keyword name
+    private boolean expectCteName;       // Next top-level name is defined by WITH, not a table
+    private Set<String> cteNames;
+
+    // Bindable literal state
+    private long valueClauses;           // Bit n set while depth n is in WHERE/HAVING/ON/SET/VALUES
+    private boolean bindPosition;        // Previous token allows a bind parameter next (operator, '(', ',', LIKE...)
+    private boolean hasPlaceholders;     // Statement already contains '?' placeholders
+    private int[] literalSpans;          // start/end pairs of bindable literals, in sanitized-text offsets
+    private int literalCount;
+    private int lastLiteralEnd = -1;     // Where the last bindable literal ended in the original text
+    private boolean quotedBackslash;     // Last section passed by skipQuoted contained a backslash
+
+    private SqlLexer(String sql, boolean backslashEscapes) {
+        this.sql = sql;
+        this.length = sql.length();
+        this.backslashEscapes = backslashEscapes;
+    }
+
+    /**
+     * Analyzes a SQL statement in a single pass, with standard SQL string literals
+     */
+    public static SqlInterpreter.Analysis analyze(String sql) {
+        return analyze(sql, false);
+    }
+
+    /**
+     * Analyzes a SQL statement in a single pass
+     *
+     * @param backslashEscapes whether a backslash escapes the next character in strings, as in MySQL
+     */
+    public static SqlInterpreter.Analysis analyze(String sql, boolean backslashEscapes) {
+        if (sql == null) {
+            return new SqlInterpreter.Analysis("", SqlInterpreter.QueryType.UNKNOWN, Collections.emptySet(), null,
+                                               new int[0], false);
+        }
+        return new SqlLexer(sql, backslashEscapes).run();
+    }
+
+    /**
+     * Collapses whitespace outside literals and drops trailing semicolons
+     * Used to build cache keys, so literal contents are never altered. Where a literal
+     * contains a backslash, dialects disagree on where it ends, so the rest of the text
+     * is kept as written.
+     */
+    public static String normalize(String sql) {
+        SqlLexer scanner = new SqlLexer(sql, false);
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = Math.min(scanner.skipQuoted(i, c, false), n);
+                if (c == '\'' && scanner.quotedBackslash) {
+                    out.append(sql, i, n);
+                    break;
+                }
+                out.append(sql, i, end);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ';' || out.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    private SqlInterpreter.Analysis run() {
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '-' && peek(1) == '-') {
+                skipLineComment();
+            } else if (c == '/' && peek(1) == '*') {
+                skipBlockComment();
+            } else if (c == '\'') {
+                int start = pos;
+                pos = skipQuoted(pos, '\'', backslashEscapes);
+                if (pos > length) {
+                    fail("Unterminated string literal");
+                } else {
+                    // Backslash escapes mean different things per database, so leave those literals inline
+                    onLiteral(start, !quotedBackslash);
+                }
+                onOtherToken();
+            } else if ((c == 'E' || c == 'e') && peek(1) == '\'') {
+                // PostgreSQL escape string - backslashes escape whatever the dialect
+                pos = skipQuoted(pos + 1, '\'', true);
+                if (pos > length) {
+                    fail("Unterminated string literal");
+                }
+                onOtherToken();
+            } else if (c == '"' || c == '`') {
+                onName();
+            } else if (c == '[' && expectTable) {
+                onName();
+            } else if (c == '$' && isDollarQuoteStart()) {
+                skipDollarQuoted();
+                onOtherToken();
+            } else if (isWordStart(c)) {
+                onWord();
+            } else if (Character.isDigit(c)) {
+                int start = pos;
+                skipNumber();
+                onLiteral(start, true);
+                onOtherToken();
+            } else if (c == '(') {
+                onOpenParen();
+            } else if (c == ')') {
+                onCloseParen();
+            } else if (c == ',') {
+                pos++;
+                lastWasIdentifier = false;
+                bindPosition = true;
+                if (inFromList()) {
+                    expectTable = true;
+                }
+                expectCteName = withClause && depth == 0;
+            } else {
+                if (isArithmetic(c) && literalCount > 0 && onlyWhitespaceSinceLiteral()) {
+                    literalCount--; // The literal is an arithmetic operand after all, as in 7 + CURRENT_DATE
+                }
+                pos++;
+                onOtherToken();
+                hasPlaceholders |= c == '?';
+                bindPosition = isBindOperator(c);
+            }
+        }
+
+        if (type == null) {
+            type = SqlInterpreter.QueryType.UNKNOWN;
+        }
+        String untrimmed;
+        if (sanitized == null) {
+            untrimmed = sql;
+        } else {
+            sanitized.append(sql, copiedUpTo, length);
+            untrimmed = sanitized.toString();
+        }
+        String text = untrimmed.trim();
+
+        // Literal offsets were recorded against the untrimmed text
+        int lead = text.isEmpty() ? 0 : untrimmed.indexOf(text.charAt(0));
+        int[] spans = literalSpans == null ? new int[0] : Arrays.copyOf(literalSpans, literalCount * 2);
+        for (int i = 0; i < spans.length; i++) {
+            spans[i] -= lead;
+        }
+
+        if (tables != null && cteNames != null) {
+            tables.removeAll(cteNames); // WITH names are defined by the query itself
+        }
+        Set<String> tableSet = tables == null ? Collections.emptySet() : Collections.unmodifiableSet(tables);
+        return new SqlInterpreter.Analysis(text, type, tableSet, error, spans, hasPlaceholders);
+    }
+
+    // ---- Token handlers ----
+
+    private void onWord() {
+        int start = pos;
+        while (pos < length && isWordPart(sql.charAt(pos))) {
+            pos++;
+        }
+        Keyword keyword = lookupKeyword(start, pos - start);
+        if (keyword == null) {
+            pos = start;
+            onName();
+            return;
+        }
+
+        lastWasIdentifier = false;
+        boolean statementKeyword = classify(keyword);
+        if (keyword != Keyword.RECURSIVE) {
+            expectCteName = keyword == Keyword.WITH && withClause && depth == 0;
+        }
+        updateValueClause(keyword);
+        bindPosition = keyword == Keyword.LIKE || keyword == Keyword.BETWEEN || keyword == Keyword.AND
+                       || keyword == Keyword.OR || keyword == Keyword.IN;
+
+        switch (keyword) {
+            case IF:
+            case NOT:
+            case EXISTS:
+            case ONLY:
+            case LATERAL:
+                // Modifiers between a table keyword and the table name, e.g. DROP TABLE IF EXISTS t
+                return;
+            default:
+                break;
+        }
+
+        expectTable = false;
+        if (insideFunctionCall()) {
+            return; // e.g. EXTRACT(YEAR FROM created_at) - FROM does not introduce a table here
+        }
+        switch (keyword) {
+            case FROM:
+                expectTable = true;
+                setFromList(true);
+                break;
+            case JOIN:
+            case INTO:
+            case TABLE:
+                expectTable = true;
+                break;
+            case UPDATE:
+                // Only the statement keyword names a table - not FOR UPDATE or ON DUPLICATE KEY UPDATE
+                expectTable = statementKeyword;
+                break;
+            case WHERE: case GROUP: case ORDER: case HAVING: case LIMIT: case OFFSET: case FETCH:
+            case UNION: case INTERSECT: case EXCEPT: case ON: case USING: case SET: case VALUES:
+            case SELECT: case WINDOW: case RETURNING:
+                setFromList(false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Handles an identifier, which may be quoted and may be schema-qualified
+     */
+    private void onName() {
+        String lastPart = readNamePart();
+        while (pos + 1 < length && sql.charAt(pos) == '.' && isNameStart(sql.charAt(pos + 1))) {
+            pos++;
+            lastPart = readNamePart();
+        }
+        markToken();
+        if (expectCteName && lastPart != null) {
+            if (cteNames == null) {
+                cteNames = new LinkedHashSet<>();
+            }
+            cteNames.add(lastPart.toLowerCase(Locale.ROOT));
+        } else if (expectTable && lastPart != null) {
+            if (tables == null) {
+                tables = new LinkedHashSet<>();
+            }
+            tables.add(lastPart.toLowerCase(Locale.ROOT));
+        }
+        expectTable = false;
+        expectCteName = false;
+        bindPosition = false;
+        lastWasIdentifier = true;
+    }
+
+    private void onOpenParen() {
+        if (depth < MAX_TRACKED_DEPTH) {
+            long bit = 1L << depth;
+            functionParens = lastWasIdentifier ? functionParens | bit : functionParens & ~bit;
+        }
+        // Parens inherit the enclosing clause, so IN (1, 2) and VALUES (...) stay bindable
+        boolean valueClause = inValueClause();
+        depth++;
+        pos++;
+        setValueClause(valueClause);
+        // A paren where a table was expected is a derived table, not a name
+        expectTable = false;
+        bindPosition = !lastWasIdentifier;
+        lastWasIdentifier = false;
+    }
+
+    private void onCloseParen() {
+        // Any FROM list or value clause inside the parens ends with them
+        setFromList(false);
+        setValueClause(false);
+        if (depth > 0) {
+            depth--;
+        }
+        pos++;
+        lastWasIdentifier = false;
+        // After a derived table in a FROM list, the next comma can introduce another table
+    }
+
+    private void onOtherToken() {
+        markToken();
+        lastWasIdentifier = false;
+        expectTable = false;
+        bindPosition = false;
+    }
+
+    /**
+     * Records a literal that ends at pos if it sits where a bind parameter is legal
+     * Only literals in WHERE/HAVING/ON/SET/VALUES, directly after an operator, comma,
+     * non-function paren or LIKE/BETWEEN/AND/OR/IN qualify - never ORDER BY 1, LIMIT 10,
+     * DECIMAL(10, 2) or typed literals like DATE '2024-01-01'. Operands of arithmetic stay
+     * inline too: a parameter bound as BIGINT in -5 or CURRENT_DATE - 7 leaves databases
+     * like PostgreSQL without a matching operator.
+     */
+    private void onLiteral(int start, boolean convertible) {
+        if (!convertible || !bindPosition || !inValueClause() || insideFunctionCall()) {
+            return;
+        }
+        if (literalSpans == null) {
+            literalSpans = new int[16];
+        } else if (literalCount * 2 == literalSpans.length) {
+            literalSpans = Arrays.copyOf(literalSpans, literalSpans.length * 2);
+        }
+        // Convert to offsets in the sanitized text, which may have had comments cut out
+        int shift = sanitized == null ? 0 : copiedUpTo - sanitized.length();
+        literalSpans[literalCount * 2] = start - shift;
+        literalSpans[literalCount * 2 + 1] = pos - shift;
+        literalCount++;
+        lastLiteralEnd = pos;
+    }
+
+    private void updateValueClause(Keyword keyword) {
+        switch (keyword) {
+            case WHERE: case HAVING: case ON: case SET: case VALUES:
+                setValueClause(true);
+                break;
+            case SELECT: case FROM: case JOIN: case INTO: case GROUP: case ORDER: case LIMIT:
+            case OFFSET: case FETCH: case UNION: case INTERSECT: case EXCEPT: case RETURNING:
+            case WINDOW: case USING:
+                setValueClause(false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Records a non-keyword token; as the first token it makes the statement UNKNOWN
+     */
+    private void markToken() {
+        if (!sawToken) {
+            sawToken = true;
+            if (type == null && !withClause) {
+                type = SqlInterpreter.QueryType.UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * Updates the statement type for a keyword
+     * Returns true if this keyword is the one that decided the type
+     */
+    private boolean classify(Keyword keyword) {
+        sawToken = true;
+        if (withClause) {
+            // Main statement of a WITH query is the first DML keyword outside the CTE bodies
+            SqlInterpreter.QueryType main = depth == 0 ? dmlType(keyword) : null;
+            if (main != null) {
+                type = main;
+                withClause = false;
+                return true;
+            }
+            return false;
+        }
+        if (type != null) {
+            return false;
+        }
+        switch (keyword) {
+            case WITH:
+                withClause = true;
+                return false;
+            case EXPLAIN:
+                type = SqlInterpreter.QueryType.EXPLAIN;
+                break;
+            case SHOW:
+            case DESCRIBE:
+            case DESC:
+                type = SqlInterpreter.QueryType.SHOW;
+                break;
+            case CREATE:
+                type = SqlInterpreter.QueryType.CREATE;
+                break;
+            case DROP:
+                type = SqlInterpreter.QueryType.DROP;
+                break;
+            default:
+                SqlInterpreter.QueryType dml = dmlType(keyword);
+                type = dml != null ? dml : SqlInterpreter.QueryType.UNKNOWN;
+                break;
+        }
+        return true;
+    }
+
+    private static SqlInterpreter.QueryType dmlType(Keyword keyword) {
+        switch (keyword) {
+            case SELECT: return SqlInterpreter.QueryType.SELECT;
+            case INSERT: return SqlInterpreter.QueryType.INSERT;
+            case UPDATE: return SqlInterpreter.QueryType.UPDATE;
+            case DELETE: return SqlInterpreter.QueryType.DELETE;
+            default: return null;
+        }
+    }
+
+    // ---- Scanning helpers ----
+
+    private void skipLineComment() {
+        int start = pos;
+        while (pos < length && sql.charAt(pos) != '\n') {
+            pos++;
+        }
+        cut(start, pos, "");
+    }
+
+    private void skipBlockComment() {
+        int start = pos;
+        int end = sql.indexOf("*/", pos + 2);
+        if (end < 0) {
+            fail("Unterminated comment");
+            pos = length;
+        } else {
+            pos = end + 2;
+        }
+        // Replace with a space so tokens on either side do not run together
+        cut(start, pos, " ");
+    }
+
+    /**
+     * Returns the index just past a quoted section starting at start
+     * Handles doubled quotes, and backslash escapes in strings when backslashEscapes is
+     * set; returns length + 1 if unterminated. Sets quotedBackslash if the section
+     * contains a backslash, so callers need not scan it again.
+     */
+    private int skipQuoted(int start, char quote, boolean backslashEscapes) {
+        quotedBackslash = false;
+        int i = start + 1;
+        int n = length;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                quotedBackslash = true;
+                i += quote == '\'' && backslashEscapes ? 2 : 1;
+            } else if (c == quote) {
+                if (i + 1 < n && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return n + 1;
+    }
+
+    /**
+     * Whether only whitespace lies between the last bindable literal and the current position
+     * Stops at the first other character.
+     */
+    private boolean onlyWhitespaceSinceLiteral() {
+        for (int i = lastLiteralEnd; i < pos; i++) {
+            if (!Character.isWhitespace(sql.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readNamePart() {
+        char c = sql.charAt(pos);
+        if (c == '"' || c == '`' || c == '[') {
+            char close = c == '[' ? ']' : c;
+            int end = sql.indexOf(close, pos + 1);
+            if (end < 0) {
+                fail("Unterminated quoted identifier");
+                pos = length;
+                return null;
+            }
+            String name = sql.substring(pos + 1, end);
+            pos = end + 1;
+            return expectTable || expectCteName ? name : null;
+        }
+        int start = pos;
+        while (pos < length && isWordPart(sql.charAt(pos))) {
+            pos++;
+        }
+        return expectTable || expectCteName ? sql.substring(start, pos) : null;
+    }
+
+    private boolean isDollarQuoteStart() {
+        int i = pos + 1;
+        while (i < length && isWordPart(sql.charAt(i)) && sql.charAt(i) != '$' && !Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        return i < length && sql.charAt(i) == '$';
+    }
+
+    private void skipDollarQuoted() {
+        int tagEnd = sql.indexOf('$', pos + 1) + 1;
+        String tag = sql.substring(pos, tagEnd);
+        int close = sql.indexOf(tag, tagEnd);
+        if (close < 0) {
+            fail("Unterminated dollar-quoted string");
+            pos = length;
+        } else {
+            pos = close + tag.length();
+        }
+    }
+
+    private void skipNumber() {
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (Character.isLetterOrDigit(c) || c == '.') {
+                pos++;
+            } else if ((c == '+' || c == '-') && (sql.charAt(pos - 1) == 'e' || sql.charAt(pos - 1) == 'E')) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private Keyword lookupKeyword(int start, int wordLength) {
+        if (wordLength >= KEYWORDS_BY_LENGTH.length) {
+            return null;
+        }
+        for (Keyword keyword : KEYWORDS_BY_LENGTH[wordLength]) {
+            if (sql.regionMatches(true, start, keyword.name(), 0, wordLength)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+
+    private boolean insideFunctionCall() {
+        return depth > 0 && depth <= MAX_TRACKED_DEPTH && (functionParens & (1L << (depth - 1))) != 0;
+    }
+
+    private boolean inValueClause() {
+        return depth < MAX_TRACKED_DEPTH && (valueClauses & (1L << depth)) != 0;
+    }
+
+    private void setValueClause(boolean on) {
+        if (depth < MAX_TRACKED_DEPTH) {
+            valueClauses = on ? valueClauses | (1L << depth) : valueClauses & ~(1L << depth);
+        }
+    }
+
+    private boolean inFromList() {
+        return depth < MAX_TRACKED_DEPTH && (fromLists & (1L << depth)) != 0;
+    }
+
+    private void setFromList(boolean on) {
+        if (depth < MAX_TRACKED_DEPTH) {
+            fromLists = on ? fromLists | (1L << depth) : fromLists & ~(1L << depth);
+        }
+    }
+
+    private void cut(int start, int end, String replacement) {
+        if (sanitized == null) {
+            sanitized = new StringBuilder(length);
+        }
+        sanitized.append(sql, copiedUpTo, start).append(replacement);
+        copiedUpTo = Math.min(end, length);
+    }
+
+    private void fail(String message) {
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    private char peek(int offset) {
+        int i = pos + offset;
+        return i < length ? sql.charAt(i) : '\0';
+    }
+
+    /**
+     * Operators a bind parameter may follow: comparisons and || concatenation
+     */
+    private static boolean isBindOperator(char c) {
+        return c == '=' || c == '<' || c == '>' || c == '!' || c == '|';
+    }
+
+    private static boolean isArithmetic(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/' || c == '%';
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isNameStart(char c) {
+        return isWordStart(c) || c == '"' || c == '`' || c == '[';
+    }
+}
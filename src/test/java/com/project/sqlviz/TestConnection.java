@@ -1,7 +1,16 @@
 package test.java.com.project.sqlviz;
 
+import com.project.sqlviz.db.ConnectionFactory;
+import com.project.sqlviz.models.Connection;
 import com.project.sqlviz.models.ConnectionConfig;
+import com.project.sqlviz.services.CsvImportService;
 import com.project.sqlviz.services.SqlInterpreter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Test class to verify the implementation works correctly
@@ -14,10 +23,16 @@ public class TestConnection {
         // Test 1: SQL Interpreter
         testSqlInterpreter();
         
-        // Test 2: Connection Factory
+        // Test 2: SQL Lexer (comments, literals, table extraction)
+        testSqlLexer();
+
+        // Test 3: Connection Factory
         testConnectionFactory();
+
+        // Test 4: CSV import into an embedded H2 database
+        testCsvImport();
         
-        // Test 3: Query Execution (requires database)
+        // Test 5: Query Execution (requires database)
         // testQueryExecution(); // Uncomment when you have a test database
         
         System.out.println("=== All Tests Completed ===");
@@ -50,6 +65,48 @@ public class TestConnection {
         }
     }
     
+    private static void testSqlLexer() {
+        System.out.println("\n--- Testing SQL Lexer ---");
+
+        SqlInterpreter interpreter = new SqlInterpreter();
+
+        // Comment markers inside literals must survive sanitization
+        String[] testQueries = {
+            "SELECT * FROM logs WHERE msg = '-- not a comment' /* real comment */",
+            "WITH recent AS (SELECT * FROM orders) SELECT * FROM recent JOIN users u ON u.id = recent.user_id",
+            "EXPLAIN SELECT * FROM users",
+            "SHOW TABLES",
+            "SELECT EXTRACT(YEAR FROM created_at) FROM events e, sessions s",
+            "DELETE FROM users WHERE id = 1 -- trailing comment",
+            // A backslash is an ordinary character in standard SQL strings, but escapes in E'...'
+            "SELECT * FROM files WHERE path = 'C:\\' AND name = 'a.txt'",
+            "SELECT * FROM files WHERE path = E'C:\\\\' OR name = E'it\\'s'"
+        };
+
+        for (String query : testQueries) {
+            printAnalysis(query, interpreter.analyze(query));
+        }
+
+        // MySQL treats a backslash as an escape in every string
+        SqlInterpreter mysqlInterpreter = new SqlInterpreter(true);
+        String mysqlQuery = "SELECT * FROM users WHERE name = 'O\\'Brien' -- comment";
+        printAnalysis(mysqlQuery, mysqlInterpreter.analyze(mysqlQuery));
+
+        // Operands of arithmetic stay inline; only plain comparison constants become parameters
+        String arithmeticQuery = "SELECT * FROM events WHERE day > CURRENT_DATE - 7 AND delta = -5 AND 2 * n < 10 AND id = 42";
+        SqlInterpreter.Analysis analysis = interpreter.analyze(arithmeticQuery);
+        printAnalysis(arithmeticQuery, analysis);
+        SqlInterpreter.ParameterizedQuery parameterized = analysis.parameterize();
+        System.out.printf("  Parameterized: %s %s\n", parameterized.getSql(), parameterized.getParameters());
+    }
+
+    private static void printAnalysis(String query, SqlInterpreter.Analysis analysis) {
+        System.out.printf("Query: '%s'\n", query.length() > 30 ? query.substring(0, 30) + "..." : query);
+        System.out.printf("  Type: %s, Tables: %s, Error: %s\n", analysis.getQueryType(), analysis.getTables(),
+            analysis.getError());
+        System.out.printf("  Sanitized: %s\n", analysis.getSanitizedSql());
+    }
+
     private static void testConnectionFactory() {
         System.out.println("\n--- Testing Connection Factory ---");
         
@@ -81,6 +138,104 @@ public class TestConnection {
         System.out.println("Connection factory methods are available for testing with real databases");
     }
     
+    private static void testCsvImport() {
+        System.out.println("\n--- Testing CSV Import ---");
+
+        ConnectionConfig config = ConnectionFactory.createConfig(3, "CSV import", "jdbc:h2:mem:csvimport", "sa", "");
+        Path dir = null;
+        Connection conn = null;
+        try {
+            dir = Files.createTempDirectory("sqlviz-csv");
+            conn = ConnectionFactory.createConnection(config);
+            try (Statement stmt = conn.getJdbcConnection().createStatement()) {
+                stmt.execute("CREATE TABLE people (id INT, name VARCHAR(40), score DOUBLE)");
+            }
+            CsvImportService importer = new CsvImportService();
+
+            // Happy path: several chunks parsed in parallel
+            Path good = writeCsv(dir.resolve("good.csv"), 20_000, -1);
+            CsvImportService.ImportOptions options = new CsvImportService.ImportOptions();
+            options.setChunkSizeBytes(4096);
+            options.setParserThreads(4);
+            options.setBatchSize(10);
+            CsvImportService.ImportProgress progress = importer.importCsv(conn, good, "people", options, null);
+            System.out.println("Imported: " + progress.getRowsImported() + " rows, table has " + countRows(conn)
+                + " (expected 20000)");
+
+            // A malformed row while the writer is behind must fail the import, not hang it
+            clearTable(conn);
+            Path bad = writeCsv(dir.resolve("bad.csv"), 20_000, 15_000);
+            try {
+                importer.importCsv(conn, bad, "people", options, null);
+                System.out.println("Malformed row: import succeeded (expected a failure)");
+            } catch (SQLException e) {
+                System.out.println("Malformed row: " + e.getMessage());
+            }
+
+            // Transactions committed before a failure stay; the failing one is rolled back
+            clearTable(conn);
+            CsvImportService.ImportOptions chunked = new CsvImportService.ImportOptions();
+            chunked.setParserThreads(1);
+            chunked.setBatchSize(10);
+            chunked.setCommitEvery(100);
+            Path partial = writeCsv(dir.resolve("partial.csv"), 300, 250);
+            try {
+                importer.importCsv(conn, partial, "people", chunked, null);
+            } catch (SQLException e) {
+                // Expected - row 250 has too few fields
+            }
+            System.out.println("Committed before failure: " + countRows(conn) + " rows (expected 200)");
+        } catch (IOException | SQLException e) {
+            System.out.println("Test failed: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.close();
+                }
+                if (dir != null) {
+                    try (var files = Files.list(dir)) {
+                        for (Path file : files.toList()) {
+                            Files.delete(file);
+                        }
+                    }
+                    Files.delete(dir);
+                }
+            } catch (IOException | SQLException e) {
+                System.out.println("Cleanup failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes a CSV with a header and the given number of rows; badRow, if not -1, gets too few fields
+     */
+    private static Path writeCsv(Path file, int rows, int badRow) throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,score\n");
+        for (int i = 1; i <= rows; i++) {
+            if (i == badRow) {
+                csv.append(i).append(",name").append(i).append('\n');
+            } else {
+                csv.append(i).append(",name").append(i).append(',').append(i / 4.0).append('\n');
+            }
+        }
+        return Files.writeString(file, csv);
+    }
+
+    private static int countRows(Connection conn) throws SQLException {
+        try (Statement stmt = conn.getJdbcConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM people")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void clearTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.getJdbcConnection().createStatement()) {
+            stmt.execute("DELETE FROM people");
+        }
+    }
+
     // Uncomment this method when you have a test database set up
     /*
     private static void testQueryExecution() {